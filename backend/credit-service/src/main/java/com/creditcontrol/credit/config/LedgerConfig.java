@@ -0,0 +1,34 @@
+package com.creditcontrol.credit.config;
+
+import com.creditcontrol.ledger.Ledger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 复式记账账本配置类
+ */
+@Configuration
+@Slf4j
+public class LedgerConfig {
+
+    /**
+     * 信用额度账本，关闭时写入最终检查点
+     */
+    @Bean(destroyMethod = "close")
+    public Ledger creditLedger(
+            @Value("${creditcontrol.credit.ledger.directory:data/ledger}") String directory,
+            @Value("${creditcontrol.credit.ledger.segment-bytes:268435456}") long segmentBytes,
+            @Value("${creditcontrol.credit.ledger.checkpoint-interval:1000000}") long checkpointInterval,
+            @Value("${creditcontrol.credit.ledger.queue-capacity:65536}") int queueCapacity) throws IOException {
+        log.info("LEDGER_CONFIG: directory: {}, segmentBytes: {}, checkpointInterval: {}, queueCapacity: {}",
+                directory, segmentBytes, checkpointInterval, queueCapacity);
+        Ledger ledger = new Ledger(Paths.get(directory), segmentBytes, checkpointInterval, queueCapacity);
+        ledger.open();
+        return ledger;
+    }
+}
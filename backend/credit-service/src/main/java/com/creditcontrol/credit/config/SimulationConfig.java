@@ -0,0 +1,44 @@
+package com.creditcontrol.credit.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 信用模拟配置类
+ * 模拟计算使用独立的有界线程池，不占用公共ForkJoinPool和Web请求线程
+ */
+@Configuration
+@Slf4j
+public class SimulationConfig {
+
+    @Value("${creditcontrol.credit.simulation.parallelism:0}")
+    private int parallelism;
+
+    @Value("${creditcontrol.credit.simulation.max-concurrent:2}")
+    private int maxConcurrent;
+
+    /**
+     * 模拟计算线程池，默认使用一半CPU核数
+     */
+    @Bean(name = "simulationPool", destroyMethod = "shutdown")
+    public ForkJoinPool simulationPool() {
+        int threads = parallelism > 0
+                ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        log.info("SIMULATION_CONFIG: parallelism: {}, maxConcurrent: {}", threads, maxConcurrent);
+        return new ForkJoinPool(threads);
+    }
+
+    /**
+     * 同时运行的模拟数量上限
+     */
+    @Bean(name = "simulationPermits")
+    public Semaphore simulationPermits() {
+        return new Semaphore(Math.max(1, maxConcurrent));
+    }
+}
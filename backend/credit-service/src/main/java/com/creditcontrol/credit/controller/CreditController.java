@@ -1,9 +1,23 @@
 package com.creditcontrol.credit.controller;
 
+import com.creditcontrol.credit.dto.CreditMovementRequest;
+import com.creditcontrol.credit.dto.CreditPositionDto;
+import com.creditcontrol.credit.dto.SimulationRequest;
+import com.creditcontrol.credit.dto.SimulationResultDto;
+import com.creditcontrol.credit.exception.CreditMovementRejectedException;
+import com.creditcontrol.credit.exception.SimulationRejectedException;
+import com.creditcontrol.credit.service.CreditLedgerService;
+import com.creditcontrol.credit.service.CreditSimulationService;
+import com.creditcontrol.credit.service.PortfolioSnapshot;
+import com.creditcontrol.credit.service.PortfolioSnapshotService;
+import com.creditcontrol.ledger.LedgerException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import lombok.extern.slf4j.Slf4j;
 
+import jakarta.validation.Valid;
 import java.util.*;
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -18,20 +32,30 @@ import java.time.Instant;
 @Slf4j
 public class CreditController {
 
+    @Autowired
+    private CreditSimulationService simulationService;
+
+    @Autowired
+    private PortfolioSnapshotService snapshotService;
+
+    @Autowired
+    private CreditLedgerService ledgerService;
+
     @GetMapping("/profile/{customerId}")
     public ResponseEntity<Map<String, Object>> getCreditProfile(@PathVariable Long customerId) {
         log.info("API_REQUEST: GET /api/v1/credit/profile/{}", customerId);
         
+        CreditPositionDto position = ledgerService.getPosition(customerId);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("data", Map.of(
             "customerId", customerId,
-            "creditLimit", new BigDecimal("500000.00"),
-            "availableCredit", new BigDecimal("350000.00"),
-            "usedCredit", new BigDecimal("150000.00"),
+            "creditLimit", position.getCreditLimit(),
+            "availableCredit", position.getAvailableCredit(),
+            "usedCredit", position.getUsedCredit(),
             "creditRating", "A",
             "riskScore", 85,
-            "utilization", 30.0,
+            "utilization", position.getUtilization(),
             "lastReviewDate", "2025-10-01",
             "nextReviewDate", "2026-01-01"
         ));
@@ -41,6 +65,33 @@ public class CreditController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 记录信用额度变动 (额度调整、用信、还款)，落盘后返回最新头寸
+     */
+    @PostMapping("/movements")
+    public ResponseEntity<Map<String, Object>> recordMovement(@RequestBody @Valid CreditMovementRequest request) {
+        log.info("API_REQUEST: POST /api/v1/credit/movements - customerId: {}, type: {}",
+                request.getCustomerId(), request.getType());
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            CreditPositionDto position = ledgerService.record(request);
+            response.put("success", true);
+            response.put("data", position);
+            response.put("message", "Credit movement recorded");
+            response.put("timestamp", Instant.now().toString());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (CreditMovementRejectedException e) {
+            log.warn("CREDIT_MOVEMENT_REJECTED: customerId: {} - {}", request.getCustomerId(), e.getMessage());
+            return error(response, HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return error(response, HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (LedgerException e) {
+            log.error("CREDIT_LEDGER_ERROR: {}", e.getMessage(), e);
+            return error(response, HttpStatus.SERVICE_UNAVAILABLE, "Credit ledger is temporarily unavailable");
+        }
+    }
+
     @GetMapping("/assessment/{customerId}")
     public ResponseEntity<Map<String, Object>> assessCreditRisk(@PathVariable Long customerId) {
         log.info("API_REQUEST: GET /api/v1/credit/assessment/{}", customerId);
@@ -88,6 +139,52 @@ public class CreditController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * What-if模拟: 对整个信用组合应用情景并返回汇总影响
+     */
+    @PostMapping("/simulation")
+    public ResponseEntity<Map<String, Object>> simulate(@RequestBody @Valid SimulationRequest request) {
+        log.info("API_REQUEST: POST /api/v1/credit/simulation - industry: {}, riskLevel: {}",
+                request.getIndustry(), request.getRiskLevel());
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            SimulationResultDto result = simulationService.simulate(request);
+            response.put("success", true);
+            response.put("data", result);
+            response.put("message", "Credit simulation completed");
+            response.put("timestamp", Instant.now().toString());
+            return ResponseEntity.ok(response);
+        } catch (SimulationRejectedException e) {
+            log.warn("SIMULATION_REJECTED: {}", e.getMessage());
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            response.put("timestamp", Instant.now().toString());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        }
+    }
+
+    /**
+     * 立即刷新模拟使用的组合快照
+     */
+    @PostMapping("/simulation/snapshot/refresh")
+    public ResponseEntity<Map<String, Object>> refreshSnapshot() {
+        log.info("API_REQUEST: POST /api/v1/credit/simulation/snapshot/refresh");
+
+        PortfolioSnapshot snapshot = snapshotService.refresh();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", Map.of(
+            "customers", snapshot.size(),
+            "loadedAt", snapshot.getLoadedAt().toString()
+        ));
+        response.put("message", "Portfolio snapshot refreshed");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> response = new HashMap<>();
@@ -107,8 +204,11 @@ public class CreditController {
         response.put("version", "1.0.0");
         response.put("endpoints", Arrays.asList(
             "GET /api/v1/credit/profile/{customerId}",
+            "POST /api/v1/credit/movements",
             "GET /api/v1/credit/assessment/{customerId}",
             "GET /api/v1/credit/summary",
+            "POST /api/v1/credit/simulation",
+            "POST /api/v1/credit/simulation/snapshot/refresh",
             "GET /api/v1/credit/health",
             "GET /api/v1/credit/info"
         ));
@@ -116,4 +216,12 @@ public class CreditController {
         
         return ResponseEntity.ok(response);
     }
+
+    private static ResponseEntity<Map<String, Object>> error(Map<String, Object> response, HttpStatus status,
+                                                             String message) {
+        response.put("success", false);
+        response.put("message", message);
+        response.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(status).body(response);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.creditcontrol.credit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.math.BigDecimal;
+
+/**
+ * 信用额度变动请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditMovementRequest {
+
+    @NotNull(message = "Customer ID is required")
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    @NotNull(message = "Movement type is required")
+    private CreditMovementType type;
+
+    /**
+     * 变动金额，额度调整时可为负 (下调)，用信和还款必须为正
+     */
+    @NotNull(message = "Amount is required")
+    @Digits(integer = 13, fraction = 2, message = "Amount must have at most 13 integer digits and 2 decimals")
+    private BigDecimal amount;
+
+    /**
+     * 业务参考号 (例如订单号、发票号)，可选
+     */
+    @PositiveOrZero(message = "Reference must not be negative")
+    private Long reference;
+}
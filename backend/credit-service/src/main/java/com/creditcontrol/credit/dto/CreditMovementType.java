@@ -0,0 +1,13 @@
+package com.creditcontrol.credit.dto;
+
+/**
+ * 信用额度变动类型
+ */
+public enum CreditMovementType {
+    /** 额度调整 (金额可为负) */
+    LIMIT_CHANGE,
+    /** 用信 */
+    DRAW,
+    /** 还款恢复额度 */
+    REPAY
+}
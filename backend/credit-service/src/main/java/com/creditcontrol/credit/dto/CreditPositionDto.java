@@ -0,0 +1,32 @@
+package com.creditcontrol.credit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 客户信用额度头寸DTO (来自账本余额)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditPositionDto {
+
+    private Long customerId;
+
+    private BigDecimal creditLimit;
+
+    private BigDecimal availableCredit;
+
+    private BigDecimal usedCredit;
+
+    /** 额度使用率 (%) */
+    private double utilization;
+
+    /** 本次变动对应的账本序号，查询时为账本当前序号 */
+    private long ledgerSequence;
+}
@@ -0,0 +1,55 @@
+package com.creditcontrol.credit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * What-if信用模拟请求DTO
+ * 描述一个作用于整个信用组合的情景 (例如: 某行业额度下调20%)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationRequest {
+
+    /**
+     * 目标行业，为空表示全部行业
+     */
+    @Size(max = 100, message = "Industry must not exceed 100 characters")
+    private String industry;
+
+    /**
+     * 目标风险等级 (LOW/MEDIUM/HIGH)，为空表示全部等级
+     */
+    @Pattern(regexp = "^(LOW|MEDIUM|HIGH)$", message = "Risk level must be LOW, MEDIUM or HIGH")
+    private String riskLevel;
+
+    /**
+     * 信用额度调整百分比，例如 -20 表示额度下调20%
+     */
+    @DecimalMin(value = "-100.0", message = "Limit change must not be below -100%")
+    @DecimalMax(value = "1000.0", message = "Limit change must not exceed 1000%")
+    private double limitChangePercent;
+
+    /**
+     * 已用额度冲击百分比，例如 10 表示已用额度上升10%
+     */
+    @DecimalMin(value = "-100.0", message = "Utilization shock must not be below -100%")
+    @DecimalMax(value = "1000.0", message = "Utilization shock must not exceed 1000%")
+    private double utilizationShockPercent;
+
+    /**
+     * 风险评分平移量，例如 -10 表示评分整体下降10分
+     */
+    @Min(value = -100, message = "Risk score shift must not be below -100")
+    @Max(value = 100, message = "Risk score shift must not exceed 100")
+    private int riskScoreShift;
+}
@@ -0,0 +1,71 @@
+package com.creditcontrol.credit.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * What-if信用模拟结果DTO
+ * 汇总情景作用于组合前后的影响
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationResultDto {
+
+    private SimulationRequest scenario;
+
+    private int totalCustomers;
+
+    private int affectedCustomers;
+
+    private BigDecimal baselineCreditLimit;
+
+    private BigDecimal simulatedCreditLimit;
+
+    private BigDecimal baselineUsedCredit;
+
+    private BigDecimal simulatedUsedCredit;
+
+    private BigDecimal baselineAvailableCredit;
+
+    private BigDecimal simulatedAvailableCredit;
+
+    private double baselineUtilization;
+
+    private double simulatedUtilization;
+
+    /**
+     * 情景作用后已用额度超过新额度的客户数
+     */
+    private int customersOverLimit;
+
+    /**
+     * 超额部分合计
+     */
+    private BigDecimal totalOverLimitExposure;
+
+    private int baselineHighRiskCustomers;
+
+    private int simulatedHighRiskCustomers;
+
+    private int simulatedMediumRiskCustomers;
+
+    private int simulatedLowRiskCustomers;
+
+    /**
+     * 未评分客户数，不计入任何风险等级
+     */
+    private int unscoredCustomers;
+
+    private long computeMillis;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant snapshotLoadedAt;
+}
@@ -0,0 +1,11 @@
+package com.creditcontrol.credit.exception;
+
+/**
+ * 信用额度变动被拒绝异常 (可用额度或已用额度不足)
+ */
+public class CreditMovementRejectedException extends RuntimeException {
+
+    public CreditMovementRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.creditcontrol.credit.exception;
+
+/**
+ * 模拟任务被拒绝异常 (并发模拟数已达上限)
+ */
+public class SimulationRejectedException extends RuntimeException {
+
+    public SimulationRejectedException(String message) {
+        super(message);
+    }
+
+    public SimulationRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,125 @@
+package com.creditcontrol.credit.service;
+
+import com.creditcontrol.credit.dto.CreditMovementRequest;
+import com.creditcontrol.credit.dto.CreditMovementType;
+import com.creditcontrol.credit.dto.CreditPositionDto;
+import com.creditcontrol.credit.exception.CreditMovementRejectedException;
+import com.creditcontrol.ledger.Ledger;
+import com.creditcontrol.ledger.LedgerAccount;
+import com.creditcontrol.ledger.LedgerEntry;
+import com.creditcontrol.ledger.LedgerEntryType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 信用额度记账服务
+ * 科目: 额度总额(系统) / 客户可用额度 / 客户已用额度。额度调整 借 额度总额 / 贷 可用额度；
+ * 用信 借 可用额度 / 贷 已用额度；还款反之。同一客户的变动在分段锁内检查余额并等待落盘，
+ * 保证不会超额用信，不同客户之间互不阻塞。
+ */
+@Service
+@Slf4j
+public class CreditLedgerService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private Ledger ledger;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public CreditLedgerService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 记录一笔额度变动，余额不足时抛出CreditMovementRejectedException
+     */
+    public CreditPositionDto record(CreditMovementRequest request) {
+        log.info("SERVICE_CALL: record - customerId: {}, type: {}, amount: {}",
+                request.getCustomerId(), request.getType(), request.getAmount());
+
+        long customerId = request.getCustomerId();
+        long amount = request.getAmount().movePointRight(2).longValueExact();
+        long reference = request.getReference() == null ? 0L : request.getReference();
+        if (amount == 0 || (amount < 0 && request.getType() != CreditMovementType.LIMIT_CHANGE)) {
+            throw new IllegalArgumentException("Amount must be positive for " + request.getType());
+        }
+
+        long lines = LedgerAccount.CREDIT_LINES.systemId();
+        long available = LedgerAccount.CREDIT_AVAILABLE.id(customerId);
+        long used = LedgerAccount.CREDIT_USED.id(customerId);
+
+        synchronized (locks[(int) (customerId % LOCK_STRIPES)]) {
+            long availableCents = -ledger.getBalance(available);
+            long usedCents = -ledger.getBalance(used);
+            LedgerEntry entry = switch (request.getType()) {
+                case LIMIT_CHANGE -> {
+                    if (availableCents + amount < 0) {
+                        throw new CreditMovementRejectedException("Limit reduction exceeds available credit of "
+                                + BigDecimal.valueOf(availableCents, 2));
+                    }
+                    yield amount > 0
+                            ? LedgerEntry.builder(LedgerEntryType.CREDIT_LIMIT_CHANGE, reference)
+                                    .debit(lines, amount).credit(available, amount).build()
+                            : LedgerEntry.builder(LedgerEntryType.CREDIT_LIMIT_CHANGE, reference)
+                                    .debit(available, -amount).credit(lines, -amount).build();
+                }
+                case DRAW -> {
+                    if (amount > availableCents) {
+                        throw new CreditMovementRejectedException("Draw exceeds available credit of "
+                                + BigDecimal.valueOf(availableCents, 2));
+                    }
+                    yield LedgerEntry.builder(LedgerEntryType.CREDIT_DRAW, reference)
+                            .debit(available, amount).credit(used, amount).build();
+                }
+                case REPAY -> {
+                    if (amount > usedCents) {
+                        throw new CreditMovementRejectedException("Repayment exceeds used credit of "
+                                + BigDecimal.valueOf(usedCents, 2));
+                    }
+                    yield LedgerEntry.builder(LedgerEntryType.CREDIT_REPAYMENT, reference)
+                            .debit(used, amount).credit(available, amount).build();
+                }
+            };
+
+            long sequence;
+            try {
+                sequence = ledger.post(System.currentTimeMillis(), entry).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            log.info("CREDIT_MOVEMENT_RECORDED: customerId: {}, type: {}, amount: {}, sequence: {}",
+                    customerId, request.getType(), request.getAmount(), sequence);
+            return position(customerId, sequence);
+        }
+    }
+
+    /**
+     * 查询客户当前额度头寸
+     */
+    public CreditPositionDto getPosition(long customerId) {
+        return position(customerId, ledger.getLastSequence());
+    }
+
+    private CreditPositionDto position(long customerId, long sequence) {
+        long availableCents = -ledger.getBalance(LedgerAccount.CREDIT_AVAILABLE.id(customerId));
+        long usedCents = -ledger.getBalance(LedgerAccount.CREDIT_USED.id(customerId));
+        long limitCents = availableCents + usedCents;
+        double utilization = limitCents == 0 ? 0.0 : Math.round(usedCents * 1000.0 / limitCents) / 10.0;
+        return CreditPositionDto.builder()
+                .customerId(customerId)
+                .creditLimit(BigDecimal.valueOf(limitCents, 2))
+                .availableCredit(BigDecimal.valueOf(availableCents, 2))
+                .usedCredit(BigDecimal.valueOf(usedCents, 2))
+                .utilization(utilization)
+                .ledgerSequence(sequence)
+                .build();
+    }
+}
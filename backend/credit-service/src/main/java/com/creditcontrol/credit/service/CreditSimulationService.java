@@ -0,0 +1,304 @@
+package com.creditcontrol.credit.service;
+
+import com.creditcontrol.credit.dto.SimulationRequest;
+import com.creditcontrol.credit.dto.SimulationResultDto;
+import com.creditcontrol.credit.exception.SimulationRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What-if信用模拟服务
+ * 在列式快照上并行执行情景计算，运行在独立的有界ForkJoinPool中，
+ * 并通过信号量限制同时运行的模拟数量，避免挤占在线请求资源
+ */
+@Service
+@Slf4j
+public class CreditSimulationService {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Autowired
+    private PortfolioSnapshotService snapshotService;
+
+    @Autowired
+    @Qualifier("simulationPool")
+    private ForkJoinPool simulationPool;
+
+    @Autowired
+    @Qualifier("simulationPermits")
+    private Semaphore simulationPermits;
+
+    @Value("${creditcontrol.credit.simulation.acquire-timeout-ms:200}")
+    private long acquireTimeoutMs;
+
+    /** 评分不低于该值视为低风险 */
+    @Value("${creditcontrol.credit.risk.high-threshold:80}")
+    private int lowRiskMinScore;
+
+    /** 评分不低于该值视为中风险，否则为高风险 */
+    @Value("${creditcontrol.credit.risk.medium-threshold:50}")
+    private int mediumRiskMinScore;
+
+    /**
+     * 执行模拟情景
+     */
+    public SimulationResultDto simulate(SimulationRequest request) {
+        log.info("SERVICE_CALL: simulate - industry: {}, riskLevel: {}, limitChange: {}%, utilizationShock: {}%, scoreShift: {}",
+                request.getIndustry(), request.getRiskLevel(), request.getLimitChangePercent(),
+                request.getUtilizationShockPercent(), request.getRiskScoreShift());
+
+        acquirePermit();
+        try {
+            long startTime = System.nanoTime();
+            PortfolioSnapshot snapshot = snapshotService.getSnapshot();
+            Scenario scenario = compile(request, snapshot);
+
+            Aggregate total = snapshot.size() == 0
+                    ? new Aggregate()
+                    : simulationPool.invoke(new ChunkTask(snapshot, scenario, 0, snapshot.size()));
+
+            long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            log.info("SIMULATION_COMPLETED: customers: {}, affected: {}, overLimit: {}, duration: {}ms",
+                    snapshot.size(), total.affected, total.overLimit, computeMillis);
+
+            return toDto(request, snapshot, total, computeMillis);
+        } finally {
+            simulationPermits.release();
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!simulationPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("SIMULATION_REJECTED: all simulation slots busy");
+                throw new SimulationRejectedException("Too many concurrent simulations, please retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SimulationRejectedException("Interrupted while waiting for a simulation slot", e);
+        }
+    }
+
+    private Scenario compile(SimulationRequest request, PortfolioSnapshot snapshot) {
+        boolean allIndustries = request.getIndustry() == null || request.getIndustry().isBlank();
+        int industryCode = allIndustries ? PortfolioSnapshot.NO_INDUSTRY : snapshot.industryCodeOf(request.getIndustry().trim());
+        // 指定了快照中不存在的行业时不匹配任何客户
+        boolean matchesNothing = !allIndustries && industryCode == PortfolioSnapshot.NO_INDUSTRY;
+
+        return new Scenario(
+                allIndustries, industryCode, matchesNothing,
+                riskLevelOrdinal(request.getRiskLevel()),
+                1.0 + request.getLimitChangePercent() / 100.0,
+                1.0 + request.getUtilizationShockPercent() / 100.0,
+                request.getRiskScoreShift(),
+                lowRiskMinScore, mediumRiskMinScore);
+    }
+
+    private static int riskLevelOrdinal(String riskLevel) {
+        if (riskLevel == null) {
+            return -1;
+        }
+        switch (riskLevel) {
+            case "LOW": return Scenario.LOW;
+            case "MEDIUM": return Scenario.MEDIUM;
+            case "HIGH": return Scenario.HIGH;
+            default: return -1;
+        }
+    }
+
+    private SimulationResultDto toDto(SimulationRequest request, PortfolioSnapshot snapshot,
+                                      Aggregate total, long computeMillis) {
+        return SimulationResultDto.builder()
+                .scenario(request)
+                .totalCustomers(snapshot.size())
+                .affectedCustomers(total.affected)
+                .baselineCreditLimit(fromCents(total.baselineLimit))
+                .simulatedCreditLimit(fromCents(total.simulatedLimit))
+                .baselineUsedCredit(fromCents(total.baselineUsed))
+                .simulatedUsedCredit(fromCents(total.simulatedUsed))
+                .baselineAvailableCredit(fromCents(Math.max(0L, total.baselineLimit - total.baselineUsed)))
+                .simulatedAvailableCredit(fromCents(Math.max(0L, total.simulatedLimit - total.simulatedUsed)))
+                .baselineUtilization(utilization(total.baselineUsed, total.baselineLimit))
+                .simulatedUtilization(utilization(total.simulatedUsed, total.simulatedLimit))
+                .customersOverLimit(total.overLimit)
+                .totalOverLimitExposure(fromCents(total.overLimitExposure))
+                .baselineHighRiskCustomers(total.baselineHigh)
+                .simulatedHighRiskCustomers(total.riskCounts[Scenario.HIGH])
+                .simulatedMediumRiskCustomers(total.riskCounts[Scenario.MEDIUM])
+                .simulatedLowRiskCustomers(total.riskCounts[Scenario.LOW])
+                .unscoredCustomers(total.riskCounts[Scenario.UNSCORED])
+                .computeMillis(computeMillis)
+                .snapshotLoadedAt(snapshot.getLoadedAt())
+                .build();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static double utilization(long used, long limit) {
+        return limit == 0 ? 0.0 : Math.round(used * 10000.0 / limit) / 100.0;
+    }
+
+    /**
+     * 编译后的情景参数，避免在热循环中处理字符串和装箱类型
+     */
+    private static final class Scenario {
+
+        static final int LOW = 0;
+        static final int MEDIUM = 1;
+        static final int HIGH = 2;
+        static final int UNSCORED = 3;
+
+        final boolean allIndustries;
+        final int industryCode;
+        final boolean matchesNothing;
+        final int riskLevel;
+        final double limitFactor;
+        final double usedFactor;
+        final int scoreShift;
+        final int lowRiskMinScore;
+        final int mediumRiskMinScore;
+
+        Scenario(boolean allIndustries, int industryCode, boolean matchesNothing, int riskLevel,
+                 double limitFactor, double usedFactor, int scoreShift,
+                 int lowRiskMinScore, int mediumRiskMinScore) {
+            this.allIndustries = allIndustries;
+            this.industryCode = industryCode;
+            this.matchesNothing = matchesNothing;
+            this.riskLevel = riskLevel;
+            this.limitFactor = limitFactor;
+            this.usedFactor = usedFactor;
+            this.scoreShift = scoreShift;
+            this.lowRiskMinScore = lowRiskMinScore;
+            this.mediumRiskMinScore = mediumRiskMinScore;
+        }
+
+        int classify(int score) {
+            if (score == PortfolioSnapshot.NO_SCORE) {
+                return UNSCORED;
+            }
+            if (score >= lowRiskMinScore) {
+                return LOW;
+            }
+            return score >= mediumRiskMinScore ? MEDIUM : HIGH;
+        }
+
+        boolean matches(int industry, int baselineRisk) {
+            if (matchesNothing) {
+                return false;
+            }
+            return (allIndustries || industry == industryCode) && (riskLevel < 0 || baselineRisk == riskLevel);
+        }
+    }
+
+    /**
+     * 分块汇总结果，金额单位为分
+     */
+    private static final class Aggregate {
+
+        int affected;
+        long baselineLimit;
+        long simulatedLimit;
+        long baselineUsed;
+        long simulatedUsed;
+        int overLimit;
+        long overLimitExposure;
+        int baselineHigh;
+        final int[] riskCounts = new int[4];
+
+        Aggregate merge(Aggregate other) {
+            affected += other.affected;
+            baselineLimit += other.baselineLimit;
+            simulatedLimit += other.simulatedLimit;
+            baselineUsed += other.baselineUsed;
+            simulatedUsed += other.simulatedUsed;
+            overLimit += other.overLimit;
+            overLimitExposure += other.overLimitExposure;
+            baselineHigh += other.baselineHigh;
+            for (int i = 0; i < riskCounts.length; i++) {
+                riskCounts[i] += other.riskCounts[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * 按行区间二分拆分的计算任务
+     */
+    private static final class ChunkTask extends RecursiveTask<Aggregate> {
+
+        private final PortfolioSnapshot snapshot;
+        private final Scenario scenario;
+        private final int from;
+        private final int to;
+
+        ChunkTask(PortfolioSnapshot snapshot, Scenario scenario, int from, int to) {
+            this.snapshot = snapshot;
+            this.scenario = scenario;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return computeDirectly();
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(snapshot, scenario, from, mid);
+            left.fork();
+            Aggregate right = new ChunkTask(snapshot, scenario, mid, to).compute();
+            return left.join().merge(right);
+        }
+
+        private Aggregate computeDirectly() {
+            int[] industries = snapshot.industryCodes();
+            long[] limits = snapshot.creditLimitCents();
+            long[] used = snapshot.usedCreditCents();
+            int[] scores = snapshot.riskScores();
+            Aggregate result = new Aggregate();
+
+            for (int i = from; i < to; i++) {
+                long limit = limits[i];
+                long usedCredit = used[i];
+                int score = scores[i];
+                int baselineRisk = scenario.classify(score);
+
+                result.baselineLimit += limit;
+                result.baselineUsed += usedCredit;
+                if (baselineRisk == Scenario.HIGH) {
+                    result.baselineHigh++;
+                }
+
+                if (scenario.matches(industries[i], baselineRisk)) {
+                    limit = Math.max(0L, Math.round(limit * scenario.limitFactor));
+                    usedCredit = Math.max(0L, Math.round(usedCredit * scenario.usedFactor));
+                    // 评分偏移不作用于未评分客户
+                    if (score != PortfolioSnapshot.NO_SCORE) {
+                        score = Math.max(0, Math.min(100, score + scenario.scoreShift));
+                    }
+                    result.affected++;
+                }
+
+                result.simulatedLimit += limit;
+                result.simulatedUsed += usedCredit;
+                result.riskCounts[scenario.classify(score)]++;
+                if (usedCredit > limit) {
+                    result.overLimit++;
+                    result.overLimitExposure += usedCredit - limit;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.creditcontrol.credit.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 信用组合列式快照
+ * 以原始类型数组按列保存额度、已用额度、风险评分，金额统一使用long(分)表示，
+ * 行业以字典编码保存。快照创建后不可变，可被多个模拟任务并发读取。
+ */
+public final class PortfolioSnapshot {
+
+    /** 行业为空时使用的字典编码 */
+    public static final int NO_INDUSTRY = -1;
+
+    /** 未评分 (风险评分为NULL) 时保存的评分 */
+    public static final int NO_SCORE = -1;
+
+    private final int size;
+    private final int[] customerIds;
+    private final int[] industryCodes;
+    private final long[] creditLimitCents;
+    private final long[] usedCreditCents;
+    private final int[] riskScores;
+    private final String[] industryDictionary;
+    private final Map<String, Integer> industryIndex;
+    private final Instant loadedAt;
+
+    private PortfolioSnapshot(Builder builder) {
+        this.size = builder.size;
+        this.customerIds = Arrays.copyOf(builder.customerIds, builder.size);
+        this.industryCodes = Arrays.copyOf(builder.industryCodes, builder.size);
+        this.creditLimitCents = Arrays.copyOf(builder.creditLimitCents, builder.size);
+        this.usedCreditCents = Arrays.copyOf(builder.usedCreditCents, builder.size);
+        this.riskScores = Arrays.copyOf(builder.riskScores, builder.size);
+        this.industryDictionary = builder.industries.toArray(new String[0]);
+        this.industryIndex = Map.copyOf(builder.industryIndex);
+        this.loadedAt = Instant.now();
+    }
+
+    public static PortfolioSnapshot empty() {
+        return new Builder(0).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int customerIdAt(int row) {
+        return customerIds[row];
+    }
+
+    public int[] industryCodes() {
+        return industryCodes;
+    }
+
+    public long[] creditLimitCents() {
+        return creditLimitCents;
+    }
+
+    public long[] usedCreditCents() {
+        return usedCreditCents;
+    }
+
+    /**
+     * 风险评分列，未评分为 {@link #NO_SCORE}
+     */
+    public int[] riskScores() {
+        return riskScores;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * 查询行业的字典编码，未知行业返回 {@link #NO_INDUSTRY}
+     */
+    public int industryCodeOf(String industry) {
+        if (industry == null) {
+            return NO_INDUSTRY;
+        }
+        Integer code = industryIndex.get(industry);
+        return code != null ? code : NO_INDUSTRY;
+    }
+
+    public String industryName(int code) {
+        return code >= 0 && code < industryDictionary.length ? industryDictionary[code] : null;
+    }
+
+    /**
+     * 按行追加数据的构建器，数组按倍数扩容
+     */
+    public static final class Builder {
+
+        private int size;
+        private int[] customerIds;
+        private int[] industryCodes;
+        private long[] creditLimitCents;
+        private long[] usedCreditCents;
+        private int[] riskScores;
+        private final List<String> industries = new ArrayList<>();
+        private final Map<String, Integer> industryIndex = new HashMap<>();
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(16, initialCapacity);
+            this.customerIds = new int[capacity];
+            this.industryCodes = new int[capacity];
+            this.creditLimitCents = new long[capacity];
+            this.usedCreditCents = new long[capacity];
+            this.riskScores = new int[capacity];
+        }
+
+        public Builder add(int customerId, String industry, long creditLimitCents, long usedCreditCents, int riskScore) {
+            if (size == customerIds.length) {
+                grow();
+            }
+            this.customerIds[size] = customerId;
+            this.industryCodes[size] = encode(industry);
+            this.creditLimitCents[size] = creditLimitCents;
+            this.usedCreditCents[size] = usedCreditCents;
+            this.riskScores[size] = riskScore;
+            size++;
+            return this;
+        }
+
+        public PortfolioSnapshot build() {
+            return new PortfolioSnapshot(this);
+        }
+
+        private int encode(String industry) {
+            if (industry == null) {
+                return NO_INDUSTRY;
+            }
+            return industryIndex.computeIfAbsent(industry, key -> {
+                industries.add(key);
+                return industries.size() - 1;
+            });
+        }
+
+        private void grow() {
+            int capacity = customerIds.length << 1;
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            industryCodes = Arrays.copyOf(industryCodes, capacity);
+            creditLimitCents = Arrays.copyOf(creditLimitCents, capacity);
+            usedCreditCents = Arrays.copyOf(usedCreditCents, capacity);
+            riskScores = Arrays.copyOf(riskScores, capacity);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.creditcontrol.credit.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 信用组合快照服务
+ * 定期从数据库加载列式快照，以volatile引用整体替换，模拟任务读取时无需加锁
+ */
+@Service
+@Slf4j
+public class PortfolioSnapshotService {
+
+    private static final String SNAPSHOT_SQL =
+            "SELECT c.customer_id, c.industry, cc.credit_limit, cc.available_credit, cc.risk_score " +
+            "FROM customers c JOIN customer_credit cc ON cc.customer_id = c.customer_id " +
+            "WHERE c.status = 'ACTIVE'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${creditcontrol.credit.simulation.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${creditcontrol.credit.simulation.expected-customers:1024}")
+    private int expectedCustomers;
+
+    private volatile PortfolioSnapshot snapshot;
+
+    /**
+     * 获取当前快照，首次访问时同步加载
+     */
+    public PortfolioSnapshot getSnapshot() {
+        PortfolioSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 定期刷新快照
+     */
+    @Scheduled(initialDelayString = "${creditcontrol.credit.simulation.snapshot-refresh-ms:300000}",
+               fixedDelayString = "${creditcontrol.credit.simulation.snapshot-refresh-ms:300000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("SNAPSHOT_REFRESH_ERROR: keeping previous snapshot - {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从数据库重新加载快照并替换当前引用
+     */
+    public synchronized PortfolioSnapshot refresh() {
+        long startTime = System.currentTimeMillis();
+        PortfolioSnapshot.Builder builder = new PortfolioSnapshot.Builder(expectedCustomers);
+
+        streamQuery(SNAPSHOT_SQL, rs -> {
+            long limit = toCents(rs, "credit_limit");
+            long available = toCents(rs, "available_credit");
+            // getInt对NULL返回0，不区分的话未评分客户会被算作高风险
+            int riskScore = rs.getInt("risk_score");
+            builder.add(rs.getInt("customer_id"), rs.getString("industry"),
+                    limit, Math.max(0L, limit - available), rs.wasNull() ? PortfolioSnapshot.NO_SCORE : riskScore);
+        });
+
+        PortfolioSnapshot loaded = builder.build();
+        snapshot = loaded;
+        expectedCustomers = Math.max(expectedCustomers, loaded.size());
+
+        log.info("SNAPSHOT_REFRESHED: customers: {}, duration: {}ms",
+                loaded.size(), System.currentTimeMillis() - startTime);
+        return loaded;
+    }
+
+    /**
+     * 在只读事务中按fetchSize分批读取快照，不开事务时PostgreSQL驱动会一次取回所有客户
+     */
+    private void streamQuery(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        handler.processRow(rs);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setReadOnly(false);
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static long toCents(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? 0L : value.movePointRight(2).longValue();
+    }
+}
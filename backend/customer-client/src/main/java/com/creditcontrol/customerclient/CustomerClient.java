@@ -0,0 +1,340 @@
+package com.creditcontrol.customerclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * customer-service 客户端，供credit-service、risk-service、report-service查询客户数据
+ * 单个HttpClient复用长连接，优先HTTP/2 (明文时通过h2c升级，服务端不支持时退回HTTP/1.1连接池)。
+ * 按ID查询先经过合并: 同一ID已有请求未完成时共享结果；不同ID在batchWindow内攒成一批，
+ * 通过 GET /api/v1/customers/batch 一次查询，攒满maxBatchSize立即发送。
+ * 每次调用有自己的截止时间，只通过复制共享Future后加超时实现，超时只影响该调用方；
+ * 被多个调用方共享的HTTP请求 (合并或攒批) 一律使用固定的requestTimeout，不受发起者截止时间的影响。
+ */
+@Slf4j
+public class CustomerClient implements Closeable {
+
+    /** 与服务端 GET /batch 每次最多ID数一致 */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private static final String BASE_PATH = "/api/v1/customers";
+
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final Duration defaultDeadline;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final CollectionType recordListType;
+    private final ScheduledExecutorService scheduler;
+
+    private final SingleFlight<Integer, Optional<CustomerRecord>> idFlights = new SingleFlight<>();
+    private final SingleFlight<String, Optional<CustomerRecord>> codeFlights = new SingleFlight<>();
+
+    private final Object batchLock = new Object();
+    private Map<Integer, CompletableFuture<Optional<CustomerRecord>>> pending = new LinkedHashMap<>();
+    /** 每取走一批加一，过期的定时发送不会提前发出下一批 */
+    private long batchGeneration;
+    private volatile boolean closed;
+
+    private final AtomicLong httpRequests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedLookups = new AtomicLong();
+    private final AtomicLong deadlineExceeded = new AtomicLong();
+
+    /**
+     * @param baseUrl         如 http://localhost:8081
+     * @param requestTimeout  每个HTTP请求的超时，与发起或加入该请求的调用方无关
+     * @param defaultDeadline 未指定截止时间的调用使用
+     * @param batchWindow     第一个ID进入批次后最多等待多久发送，0表示不攒批
+     * @param maxBatchSize    每批最多ID数，不超过 {@link #MAX_BATCH_SIZE}
+     */
+    public CustomerClient(String baseUrl, Duration connectTimeout, Duration requestTimeout, Duration defaultDeadline,
+                          Duration batchWindow, int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.defaultDeadline = defaultDeadline;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        this.recordListType = objectMapper.getTypeFactory().constructCollectionType(List.class, CustomerRecord.class);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-client-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("CUSTOMER_CLIENT_CREATED: baseUrl: {}, requestTimeout: {}ms, defaultDeadline: {}ms, batchWindow: {}us, maxBatchSize: {}",
+                this.baseUrl, requestTimeout.toMillis(), defaultDeadline.toMillis(), batchWindow.toNanos() / 1000, maxBatchSize);
+    }
+
+    /**
+     * 按ID查询客户，不存在时为空
+     */
+    public Optional<CustomerRecord> getCustomer(int customerId) {
+        return getCustomer(customerId, defaultDeadline);
+    }
+
+    public Optional<CustomerRecord> getCustomer(int customerId, Duration deadline) {
+        return await(getCustomerAsync(customerId, deadline));
+    }
+
+    public CompletableFuture<Optional<CustomerRecord>> getCustomerAsync(int customerId, Duration deadline) {
+        CompletableFuture<Optional<CustomerRecord>> shared = idFlights.execute(customerId, () -> enqueue(customerId));
+        return withDeadline(shared, deadline);
+    }
+
+    /**
+     * 批量按ID查询，结果中只包含存在的客户；各ID仍经过合并，与其他调用方的查询共用批次
+     */
+    public Map<Integer, CustomerRecord> getCustomers(Collection<Integer> customerIds, Duration deadline) {
+        Map<Integer, CompletableFuture<Optional<CustomerRecord>>> futures = new LinkedHashMap<>();
+        for (Integer customerId : customerIds) {
+            futures.computeIfAbsent(customerId, id -> getCustomerAsync(id, deadline));
+        }
+        await(CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])));
+        Map<Integer, CustomerRecord> customers = new LinkedHashMap<>();
+        futures.forEach((id, future) -> future.join().ifPresent(customer -> customers.put(id, customer)));
+        return customers;
+    }
+
+    /**
+     * 按客户代码查询，相同代码的并发调用共享一次请求
+     */
+    public Optional<CustomerRecord> getCustomerByCode(String customerCode, Duration deadline) {
+        return await(getCustomerByCodeAsync(customerCode, deadline));
+    }
+
+    public CompletableFuture<Optional<CustomerRecord>> getCustomerByCodeAsync(String customerCode, Duration deadline) {
+        CompletableFuture<Optional<CustomerRecord>> shared = codeFlights.execute(customerCode, () -> {
+            HttpRequest request = newRequest(BASE_PATH + "/code/"
+                    + URLEncoder.encode(customerCode, StandardCharsets.UTF_8));
+            return send(request).thenApply(response -> {
+                if (response.statusCode() == 404) {
+                    return Optional.<CustomerRecord>empty();
+                }
+                return Optional.of(objectMapper.convertValue(readData(response), CustomerRecord.class));
+            });
+        });
+        return withDeadline(shared, deadline);
+    }
+
+    private CompletableFuture<Optional<CustomerRecord>> enqueue(int customerId) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new CustomerClientException("Customer client is closed"));
+        }
+        CompletableFuture<Optional<CustomerRecord>> future;
+        Map<Integer, CompletableFuture<Optional<CustomerRecord>>> ready = null;
+        synchronized (batchLock) {
+            future = pending.computeIfAbsent(customerId, id -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize || batchWindowNanos == 0) {
+                ready = takePending();
+            } else if (pending.size() == 1) {
+                long generation = batchGeneration;
+                scheduler.schedule(() -> flushScheduled(generation), batchWindowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (ready != null) {
+            sendBatch(ready);
+        }
+        return future;
+    }
+
+    private void flushScheduled(long generation) {
+        Map<Integer, CompletableFuture<Optional<CustomerRecord>>> ready;
+        synchronized (batchLock) {
+            if (generation != batchGeneration || pending.isEmpty()) {
+                return;
+            }
+            ready = takePending();
+        }
+        sendBatch(ready);
+    }
+
+    private Map<Integer, CompletableFuture<Optional<CustomerRecord>>> takePending() {
+        Map<Integer, CompletableFuture<Optional<CustomerRecord>>> ready = pending;
+        pending = new LinkedHashMap<>();
+        batchGeneration++;
+        return ready;
+    }
+
+    private void sendBatch(Map<Integer, CompletableFuture<Optional<CustomerRecord>>> batch) {
+        batches.incrementAndGet();
+        batchedLookups.addAndGet(batch.size());
+        String ids = batch.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+        HttpRequest request;
+        try {
+            request = newRequest(BASE_PATH + "/batch?ids=" + ids);
+        } catch (RuntimeException e) {
+            failAll(batch, e);
+            return;
+        }
+        send(request).thenApply(response -> {
+            List<CustomerRecord> records = objectMapper.convertValue(readData(response), recordListType);
+            Map<Integer, CustomerRecord> byId = new HashMap<>(records.size() * 2);
+            for (CustomerRecord record : records) {
+                byId.put(record.getCustomerId(), record);
+            }
+            return byId;
+        }).whenComplete((byId, error) -> {
+            if (error != null) {
+                failAll(batch, unwrap(error));
+                return;
+            }
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+        });
+    }
+
+    private static void failAll(Map<Integer, CompletableFuture<Optional<CustomerRecord>>> batch, Throwable error) {
+        for (CompletableFuture<Optional<CustomerRecord>> future : batch.values()) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private HttpRequest newRequest(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        httpRequests.incrementAndGet();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * 取出ApiResponse中的data，HTTP状态不是200或success为false时抛出CustomerClientException
+     */
+    private JsonNode readData(HttpResponse<byte[]> response) {
+        JsonNode body;
+        try {
+            body = objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new CustomerClientException("Invalid response from customer-service", response.statusCode(), e);
+        }
+        if (response.statusCode() != 200 || !body.path("success").asBoolean()) {
+            throw new CustomerClientException("customer-service returned HTTP " + response.statusCode() + ": "
+                    + body.path("message").asText(), response.statusCode(), null);
+        }
+        return body.get("data");
+    }
+
+    /**
+     * 共享的Future复制一份再加上调用方自己的截止时间
+     */
+    private <T> CompletableFuture<T> withDeadline(CompletableFuture<T> shared, Duration deadline) {
+        return shared.copy().orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomerClientException("Interrupted while waiting for customer-service", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof TimeoutException) {
+                deadlineExceeded.incrementAndGet();
+                throw new CustomerClientException("Deadline exceeded calling customer-service", cause);
+            }
+            if (cause instanceof CustomerClientException) {
+                throw (CustomerClientException) cause;
+            }
+            throw new CustomerClientException("Failed to call customer-service: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 实际发出的HTTP请求数
+     */
+    public long getHttpRequests() {
+        return httpRequests.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * 通过批量请求查询的ID数，除以getBatches()即平均批大小
+     */
+    public long getBatchedLookups() {
+        return batchedLookups.get();
+    }
+
+    /**
+     * 与未完成的相同请求共享结果的调用数
+     */
+    public long getCoalescedLookups() {
+        return idFlights.getShared() + codeFlights.getShared();
+    }
+
+    /**
+     * 同步调用中超过截止时间的次数
+     */
+    public long getDeadlineExceeded() {
+        return deadlineExceeded.get();
+    }
+
+    /**
+     * 停止攒批，尚未发送的查询以异常完成；已发出的请求照常完成
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Map<Integer, CompletableFuture<Optional<CustomerRecord>>> remaining;
+        synchronized (batchLock) {
+            remaining = takePending();
+        }
+        failAll(remaining, new CustomerClientException("Customer client is closed"));
+        scheduler.shutdownNow();
+        log.info("CUSTOMER_CLIENT_CLOSED: httpRequests: {}, batches: {}, batchedLookups: {}, coalescedLookups: {}",
+                httpRequests.get(), batches.get(), batchedLookups.get(), getCoalescedLookups());
+    }
+}
@@ -0,0 +1,27 @@
+package com.creditcontrol.customerclient;
+
+/**
+ * 客户服务调用异常 (超过截止时间、HTTP错误或响应无法解析)
+ */
+public class CustomerClientException extends RuntimeException {
+
+    /** HTTP状态码，没有收到响应时为0 */
+    private final int statusCode;
+
+    public CustomerClientException(String message) {
+        this(message, 0, null);
+    }
+
+    public CustomerClientException(String message, Throwable cause) {
+        this(message, 0, cause);
+    }
+
+    public CustomerClientException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
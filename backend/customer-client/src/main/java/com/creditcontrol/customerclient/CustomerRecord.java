@@ -0,0 +1,52 @@
+package com.creditcontrol.customerclient;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 客户服务返回的客户数据，字段与 GET /api/v1/customers/{id} 相同，未知字段忽略
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CustomerRecord {
+
+    private Integer customerId;
+
+    private String customerCode;
+
+    private String companyName;
+
+    private String contactPerson;
+
+    private String phone;
+
+    private String email;
+
+    private String address;
+
+    private String industry;
+
+    private String registrationNumber;
+
+    /** ACTIVE / INACTIVE */
+    private String status;
+
+    /** UTC */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdDate;
+
+    /** UTC */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedDate;
+
+    private boolean active;
+}
@@ -0,0 +1,54 @@
+package com.creditcontrol.customerclient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同键的并发调用: 同一键已有调用未完成时直接共享它的结果，完成后移除，之后的调用重新执行
+ * 返回的Future被多个调用方共享，交给调用方前需要copy()，避免某个调用方完成或超时影响其他调用方。
+ * call只执行一次，它的参数 (如请求超时) 不能取自发起调用的那个调用方，否则加入的调用方会继承发起者的限制。
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> placeholder = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            shared.incrementAndGet();
+            return existing;
+        }
+        executed.incrementAndGet();
+        // 先注册移除再发起调用，调用同步完成时也能移除
+        placeholder.whenComplete((value, error) -> inFlight.remove(key, placeholder));
+        try {
+            call.get().whenComplete((value, error) -> {
+                if (error != null) {
+                    placeholder.completeExceptionally(error);
+                } else {
+                    placeholder.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            placeholder.completeExceptionally(e);
+        }
+        return placeholder;
+    }
+
+    long getExecuted() {
+        return executed.get();
+    }
+
+    long getShared() {
+        return shared.get();
+    }
+
+    int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,200 @@
+package com.creditcontrol.customerclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 攒批、合并与按调用方的截止时间，服务端用JDK HttpServer模拟 GET /api/v1/customers/batch
+ */
+class CustomerClientTest {
+
+    /** 服务端中不存在的客户ID */
+    private static final int MISSING_ID = 404;
+    /** 服务端对包含该ID的批次返回HTTP 500 */
+    private static final int FAILING_ID = 500;
+    private static final Duration DEADLINE = Duration.ofSeconds(5);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final List<List<Integer>> batchRequests = Collections.synchronizedList(new ArrayList<>());
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private final List<CustomerClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/api/v1/customers/batch", this::handleBatch);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        gate.countDown();
+        clients.forEach(CustomerClient::close);
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void batchesLookupsWithinWindow() {
+        CustomerClient client = client(Duration.ofMillis(100), 500);
+
+        List<CompletableFuture<Optional<CustomerRecord>>> futures = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            futures.add(client.getCustomerAsync(id, DEADLINE));
+        }
+        futures.add(client.getCustomerAsync(MISSING_ID, DEADLINE));
+
+        for (int id = 1; id <= 10; id++) {
+            assertThat(futures.get(id - 1).join()).hasValueSatisfying(customer -> {
+                assertThat(customer.getCustomerCode()).isEqualTo("C" + customer.getCustomerId());
+            });
+        }
+        assertThat(futures.get(10).join()).isEmpty();
+        assertThat(batchRequests).hasSize(1);
+        assertThat(batchRequests.get(0)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, MISSING_ID);
+        assertThat(client.getBatches()).isEqualTo(1L);
+        assertThat(client.getBatchedLookups()).isEqualTo(11L);
+    }
+
+    @Test
+    void sendsFullBatchWithoutWaitingForWindow() {
+        CustomerClient client = client(Duration.ofMinutes(1), 3);
+
+        Map<Integer, CustomerRecord> customers = client.getCustomers(List.of(1, 2, 3, 4, 5, 6), DEADLINE);
+
+        assertThat(customers).containsOnlyKeys(1, 2, 3, 4, 5, 6);
+        assertThat(batchRequests).containsExactlyInAnyOrder(List.of(1, 2, 3), List.of(4, 5, 6));
+    }
+
+    @Test
+    void coalescesLookupsOfSameIdWhileInFlight() throws Exception {
+        gate = new CountDownLatch(1);
+        CustomerClient client = client(Duration.ZERO, 500);
+
+        CompletableFuture<Optional<CustomerRecord>> first = client.getCustomerAsync(7, DEADLINE);
+        CompletableFuture<Optional<CustomerRecord>> second = client.getCustomerAsync(7, DEADLINE);
+        gate.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(client.getHttpRequests()).isEqualTo(1L);
+        assertThat(client.getCoalescedLookups()).isEqualTo(1L);
+        assertThat(batchRequests).containsExactly(List.of(7));
+    }
+
+    @Test
+    void shortDeadlineOnlyFailsItsOwnCaller() throws Exception {
+        gate = new CountDownLatch(1);
+        CustomerClient client = client(Duration.ZERO, 500);
+
+        CompletableFuture<Optional<CustomerRecord>> impatient = client.getCustomerAsync(7, Duration.ofMillis(50));
+        CompletableFuture<Optional<CustomerRecord>> patient = client.getCustomerAsync(7, DEADLINE);
+
+        assertThatThrownBy(() -> impatient.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        // 发起者超时后共享的HTTP请求仍按requestTimeout等待响应
+        gate.countDown();
+        assertThat(patient.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(client.getHttpRequests()).isEqualTo(1L);
+    }
+
+    @Test
+    void countsDeadlineExceededOnSynchronousCalls() {
+        gate = new CountDownLatch(1);
+        CustomerClient client = client(Duration.ZERO, 500);
+
+        assertThatThrownBy(() -> client.getCustomer(7, Duration.ofMillis(50)))
+                .isInstanceOf(CustomerClientException.class)
+                .hasMessageContaining("Deadline exceeded");
+        assertThat(client.getDeadlineExceeded()).isEqualTo(1L);
+    }
+
+    @Test
+    void failsEveryLookupOfFailedBatch() {
+        CustomerClient client = client(Duration.ofMillis(100), 500);
+
+        CompletableFuture<Optional<CustomerRecord>> healthy = client.getCustomerAsync(1, DEADLINE);
+        assertThatThrownBy(() -> client.getCustomer(FAILING_ID, DEADLINE))
+                .isInstanceOf(CustomerClientException.class)
+                .satisfies(e -> assertThat(((CustomerClientException) e).getStatusCode()).isEqualTo(500));
+        assertThat(healthy).isCompletedExceptionally();
+    }
+
+    @Test
+    void failsPendingLookupsOnClose() {
+        CustomerClient client = client(Duration.ofMinutes(1), 500);
+
+        CompletableFuture<Optional<CustomerRecord>> pending = client.getCustomerAsync(1, DEADLINE);
+        client.close();
+
+        assertThatThrownBy(pending::join).hasCauseInstanceOf(CustomerClientException.class);
+        assertThat(batchRequests).isEmpty();
+        assertThatThrownBy(() -> client.getCustomer(2)).isInstanceOf(CustomerClientException.class);
+    }
+
+    private CustomerClient client(Duration batchWindow, int maxBatchSize) {
+        CustomerClient client = new CustomerClient("http://127.0.0.1:" + server.getAddress().getPort(),
+                Duration.ofSeconds(2), Duration.ofSeconds(10), DEADLINE, batchWindow, maxBatchSize);
+        clients.add(client);
+        return client;
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            List<Integer> ids = Arrays.stream(exchange.getRequestURI().getQuery().substring("ids=".length()).split(","))
+                    .map(Integer::valueOf)
+                    .toList();
+            batchRequests.add(ids);
+            gate.await(10, TimeUnit.SECONDS);
+            if (ids.contains(FAILING_ID)) {
+                respond(exchange, 500, "{\"success\":false,\"message\":\"Internal error\",\"data\":null}");
+                return;
+            }
+            String data = ids.stream()
+                    .filter(id -> id != MISSING_ID)
+                    .map(id -> "{\"customerId\":" + id + ",\"customerCode\":\"C" + id + "\",\"status\":\"ACTIVE\"}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            respond(exchange, 200, "{\"success\":true,\"message\":\"OK\",\"data\":" + data + "}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
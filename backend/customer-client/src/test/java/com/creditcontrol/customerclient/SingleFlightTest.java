@@ -0,0 +1,98 @@
+package com.creditcontrol.customerclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 相同键的并发调用合并
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+
+    @Test
+    void sharesCallWhileInFlight() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.execute("a", () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<String> second = flights.execute("a", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("unused");
+        });
+
+        assertThat(second).isSameAs(first);
+        assertThat(calls).hasValue(1);
+        assertThat(flights.getShared()).isEqualTo(1L);
+        assertThat(flights.getInFlight()).isEqualTo(1);
+
+        response.complete("value");
+        assertThat(first).isCompletedWithValue("value");
+        assertThat(flights.getInFlight()).isZero();
+    }
+
+    @Test
+    void executesAgainAfterCompletion() {
+        flights.execute("a", () -> CompletableFuture.completedFuture("first")).join();
+        CompletableFuture<String> second = flights.execute("a", () -> CompletableFuture.completedFuture("second"));
+
+        assertThat(second).isCompletedWithValue("second");
+        assertThat(flights.getExecuted()).isEqualTo(2L);
+        assertThat(flights.getShared()).isZero();
+        assertThat(flights.getInFlight()).isZero();
+    }
+
+    @Test
+    void executesDifferentKeysSeparately() {
+        CompletableFuture<String> a = flights.execute("a", CompletableFuture::new);
+        CompletableFuture<String> b = flights.execute("b", CompletableFuture::new);
+
+        assertThat(a).isNotSameAs(b);
+        assertThat(flights.getExecuted()).isEqualTo(2L);
+        assertThat(flights.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void propagatesFailureToAllCallersAndForgetsKey() {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.execute("a", () -> response);
+        CompletableFuture<String> second = flights.execute("a", CompletableFuture::new);
+
+        response.completeExceptionally(new IllegalStateException("boom"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertThat(flights.getInFlight()).isZero();
+    }
+
+    @Test
+    void failsWhenCallThrowsSynchronously() {
+        CompletableFuture<String> failed = flights.execute("a", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(flights.getInFlight()).isZero();
+        assertThat(flights.execute("a", () -> CompletableFuture.completedFuture("ok"))).isCompletedWithValue("ok");
+    }
+
+    @Test
+    void callerCopyDoesNotAffectOtherCallers() {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        CompletableFuture<String> shared = flights.execute("a", () -> response);
+
+        // 调用方只能取消或超时自己的副本
+        shared.copy().cancel(true);
+        response.complete("value");
+
+        assertThat(flights.execute("a", CompletableFuture::new)).isNotSameAs(shared);
+        assertThat(shared).isCompletedWithValue("value");
+    }
+}
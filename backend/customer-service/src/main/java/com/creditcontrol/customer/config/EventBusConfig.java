@@ -0,0 +1,50 @@
+package com.creditcontrol.customer.config;
+
+import com.creditcontrol.eventbus.EventBus;
+import com.creditcontrol.eventbus.EventBusServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 事件总线配置类
+ * 客户变更写入本地事件日志，同一主机上的其他服务通过HTTP拉取接口按offset消费
+ */
+@Configuration
+@ConditionalOnProperty(name = "creditcontrol.customer.event-bus.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class EventBusConfig {
+
+    @Bean(destroyMethod = "close")
+    public EventBus customerEventBus(
+            @Value("${creditcontrol.customer.event-bus.directory:data/events}") String directory,
+            @Value("${creditcontrol.customer.event-bus.segment-bytes:134217728}") long segmentBytes,
+            @Value("${creditcontrol.customer.event-bus.queue-capacity:65536}") int queueCapacity,
+            @Value("${creditcontrol.customer.event-bus.fsync:true}") boolean fsync,
+            @Value("${creditcontrol.customer.event-bus.retention-hours:168}") long retentionHours) throws IOException {
+        log.info("EVENT_BUS_CONFIG: directory: {}, segmentBytes: {}, queueCapacity: {}, fsync: {}, retentionHours: {}",
+                directory, segmentBytes, queueCapacity, fsync, retentionHours);
+        EventBus eventBus = new EventBus(Paths.get(directory), segmentBytes, queueCapacity, fsync, retentionHours);
+        eventBus.open();
+        return eventBus;
+    }
+
+    /**
+     * 只监听本机地址，拉取接口不经过网关
+     */
+    @Bean(destroyMethod = "close")
+    public EventBusServer customerEventBusServer(
+            EventBus customerEventBus,
+            @Value("${creditcontrol.customer.event-bus.server.host:127.0.0.1}") String host,
+            @Value("${creditcontrol.customer.event-bus.server.port:9081}") int port,
+            @Value("${creditcontrol.customer.event-bus.server.threads:16}") int threads) throws IOException {
+        EventBusServer server = new EventBusServer(customerEventBus, host, port, threads);
+        server.start();
+        return server;
+    }
+}
@@ -3,6 +3,7 @@ package com.creditcontrol.customer.controller;
 import com.creditcontrol.customer.dto.*;
 import com.creditcontrol.customer.exception.CustomerNotFoundException;
 import com.creditcontrol.customer.exception.DuplicateCustomerException;
+import com.creditcontrol.customer.service.CustomerChangeService;
 import com.creditcontrol.customer.service.CustomerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +17,9 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Customer REST API控制器
@@ -29,9 +32,14 @@ import java.util.Map;
 @Slf4j
 public class CustomerController {
 
+    private static final int MAX_BATCH_IDS = 500;
+
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private CustomerChangeService changeService;
+
     /**
      * 根据ID获取客户信息
      */
@@ -49,6 +57,23 @@ public class CustomerController {
         }
     }
 
+    /**
+     * 按ID批量获取客户信息 - ids以逗号分隔，最多500个；不存在的ID不出现在结果中
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ApiResponse<List<CustomerDto>>> getCustomers(@RequestParam List<Integer> ids) {
+        log.debug("API_REQUEST: GET /api/v1/customers/batch - ids: {}", ids.size());
+        
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Between 1 and " + MAX_BATCH_IDS + " customer ids are required"));
+        }
+        List<Integer> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        List<CustomerDto> customers = customerService.getCustomersByIds(distinctIds);
+        String message = String.format("Retrieved %d of %d customers", customers.size(), distinctIds.size());
+        return ResponseEntity.ok(ApiResponse.success(customers, message));
+    }
+
     /**
      * 根据客户代码获取客户信息
      */
@@ -197,6 +222,33 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success(stats, "Customer statistics retrieved successfully"));
     }
 
+    /**
+     * 客户变更流 - 按游标顺序读取变更事件，使用返回的nextCursor作为下次的since
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<CustomerChangePage>> getChanges(
+            @RequestParam(required = false) @Min(0) Long since,
+            @RequestParam(defaultValue = "500") @Min(1) @Max(5000) int limit) {
+        
+        log.debug("API_REQUEST: GET /api/v1/customers/changes - since: {}, limit: {}", since, limit);
+        
+        CustomerChangePage page = changeService.getChanges(since, limit);
+        
+        String message = String.format("Retrieved %d changes", page.getChanges().size());
+        return ResponseEntity.ok(ApiResponse.success(page, message));
+    }
+
+    /**
+     * 获取变更发件箱和中继统计信息
+     */
+    @GetMapping("/changes/stats")
+    public ResponseEntity<ApiResponse<CustomerOutboxStatsDto>> getChangeStats() {
+        log.info("API_REQUEST: GET /api/v1/customers/changes/stats");
+        
+        return ResponseEntity.ok(ApiResponse.success(changeService.getStats(),
+                "Change feed statistics retrieved successfully"));
+    }
+
     /**
      * 健康检查端点
      */
@@ -241,12 +293,15 @@ public class CustomerController {
         endpoints.put("GET /", "Get all customers (paginated)");
         endpoints.put("GET /search", "Search customers with query");
         endpoints.put("GET /{id}", "Get customer by ID");
+        endpoints.put("GET /batch?ids=", "Get up to 500 customers by ID in one call");
         endpoints.put("GET /code/{code}", "Get customer by code");
         endpoints.put("POST /", "Create new customer");
         endpoints.put("PUT /{id}", "Update customer");
         endpoints.put("PATCH /{id}/activate", "Activate customer");
         endpoints.put("PATCH /{id}/deactivate", "Deactivate customer");
         endpoints.put("GET /stats", "Get customer statistics");
+        endpoints.put("GET /changes?since=&limit=", "Tail customer change events by cursor");
+        endpoints.put("GET /changes/stats", "Get change feed statistics");
         endpoints.put("GET /health", "Health check");
         
         info.put("endpoints", endpoints);
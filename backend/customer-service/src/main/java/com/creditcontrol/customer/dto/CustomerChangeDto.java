@@ -0,0 +1,48 @@
+package com.creditcontrol.customer.dto;
+
+import com.creditcontrol.customer.outbox.CustomerChangeEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 客户变更事件DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerChangeDto {
+
+    /** 变更流游标 */
+    private long position;
+
+    /** 发件箱事件ID，可用于去重 */
+    private long eventId;
+
+    private Integer customerId;
+
+    /** CREATED / UPDATED / ACTIVATED / DEACTIVATED */
+    private String changeType;
+
+    private Instant occurredAt;
+
+    /** 变更后的客户数据，与 GET /api/v1/customers/{id} 的格式相同 */
+    @JsonRawValue
+    private String customer;
+
+    public static CustomerChangeDto from(CustomerChangeEvent event) {
+        return CustomerChangeDto.builder()
+                .position(event.getPosition())
+                .eventId(event.getEventId())
+                .customerId(event.getCustomerId())
+                .changeType(event.getType().name())
+                .occurredAt(Instant.ofEpochMilli(event.getOccurredAt()))
+                .customer(event.getPayload())
+                .build();
+    }
+}
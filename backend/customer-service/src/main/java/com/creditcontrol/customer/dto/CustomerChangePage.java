@@ -0,0 +1,30 @@
+package com.creditcontrol.customer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 客户变更流分页DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerChangePage {
+
+    private List<CustomerChangeDto> changes;
+
+    /** 下次请求的since */
+    private long nextCursor;
+
+    private long latestPosition;
+
+    private boolean hasMore;
+
+    /** since之后的部分事件已超过保留期被删除 (或游标超前)，消费方应重新全量同步 */
+    private boolean truncated;
+}
@@ -0,0 +1,46 @@
+package com.creditcontrol.customer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 客户变更发件箱和中继指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOutboxStatsDto {
+
+    private boolean relayEnabled;
+
+    /** 本实例写入发件箱的事件数 */
+    private long eventsWritten;
+
+    private long eventsRelayed;
+
+    private long batches;
+
+    private double averageBatchSize;
+
+    private int batchSize;
+
+    private long relayFailures;
+
+    private long listenerFailures;
+
+    /** 发件箱中尚未投递的事件数 */
+    private long pendingEvents;
+
+    private long latestPosition;
+
+    private long bufferedEvents;
+
+    private long oldestBufferedPosition;
+
+    private long feedReadsFromBuffer;
+
+    private long feedReadsFromDatabase;
+}
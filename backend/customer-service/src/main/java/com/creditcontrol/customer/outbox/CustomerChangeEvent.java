@@ -0,0 +1,50 @@
+package com.creditcontrol.customer.outbox;
+
+/**
+ * 已投递的客户变更事件 (不可变)
+ * position 由中继按投递顺序连续分配，是变更流的游标；eventId 是写入发件箱时的主键，可用于消费方去重。
+ */
+public final class CustomerChangeEvent {
+
+    private final long position;
+    private final long eventId;
+    private final int customerId;
+    private final CustomerChangeType type;
+    private final long occurredAt;
+    /** 变更后的客户快照 (JSON) */
+    private final String payload;
+
+    CustomerChangeEvent(long position, long eventId, int customerId, CustomerChangeType type, long occurredAt,
+                        String payload) {
+        this.position = position;
+        this.eventId = eventId;
+        this.customerId = customerId;
+        this.type = type;
+        this.occurredAt = occurredAt;
+        this.payload = payload;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public CustomerChangeType getType() {
+        return type;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,75 @@
+package com.creditcontrol.customer.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 变更流的内存缓冲，保存最近投递的事件
+ * position连续，按 position % 容量 定位；游标落在缓冲内时直接读内存，更早的由调用方回源到发件箱表。
+ */
+@Component
+public class CustomerChangeFeed implements CustomerChangeListener {
+
+    @Value("${creditcontrol.customer.outbox.feed-buffer-size:65536}")
+    private int capacity;
+
+    private CustomerChangeEvent[] ring;
+    /** 缓冲中最新事件的position，没有时为0 */
+    private long latest;
+    /** 缓冲中最早事件的position */
+    private long oldest = 1;
+
+    @PostConstruct
+    public void init() {
+        ring = new CustomerChangeEvent[capacity];
+    }
+
+    @Override
+    public synchronized void onChanges(List<CustomerChangeEvent> events) {
+        for (CustomerChangeEvent event : events) {
+            // position不连续时 (中继失败后重新加载) 从这里重新开始缓冲
+            if (latest == 0 || event.getPosition() != latest + 1) {
+                oldest = event.getPosition();
+            }
+            ring[(int) (event.getPosition() % capacity)] = event;
+            latest = event.getPosition();
+            oldest = Math.max(oldest, latest - capacity + 1);
+        }
+    }
+
+    /**
+     * position大于since的前limit条；since早于缓冲范围时返回null，由调用方从数据库读取
+     */
+    public synchronized List<CustomerChangeEvent> read(long since, int limit) {
+        if (since + 1 < oldest && latest != 0) {
+            return null;
+        }
+        long from = since + 1;
+        long to = Math.min(latest, since + limit);
+        List<CustomerChangeEvent> events = new ArrayList<>((int) Math.max(0, to - from + 1));
+        for (long position = from; position <= to; position++) {
+            events.add(ring[(int) (position % capacity)]);
+        }
+        return events;
+    }
+
+    public synchronized long getLatest() {
+        return latest;
+    }
+
+    public synchronized long getOldest() {
+        return latest == 0 ? 0 : oldest;
+    }
+
+    public synchronized long getBuffered() {
+        return latest == 0 ? 0 : latest - oldest + 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
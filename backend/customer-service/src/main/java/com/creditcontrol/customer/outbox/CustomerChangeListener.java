@@ -0,0 +1,16 @@
+package com.creditcontrol.customer.outbox;
+
+import java.util.List;
+
+/**
+ * 客户变更订阅者，由中继线程在每批事件写入position之后、标记为已投递之前调用，实现不应阻塞
+ * 至少一次投递: 抛出异常时该批不标记投递，稍后只重新通知失败的订阅者；进程在通知后、标记前重启时整批重新通知。
+ * 重新投递的事件position不变，实现需按position幂等 (跳过不大于已处理position的事件)。
+ */
+public interface CustomerChangeListener {
+
+    /**
+     * 按position升序的一批事件，抛出异常表示需要重试
+     */
+    void onChanges(List<CustomerChangeEvent> events);
+}
@@ -0,0 +1,8 @@
+package com.creditcontrol.customer.outbox;
+
+/**
+ * 客户变更类型
+ */
+public enum CustomerChangeType {
+    CREATED, UPDATED, ACTIVATED, DEACTIVATED
+}
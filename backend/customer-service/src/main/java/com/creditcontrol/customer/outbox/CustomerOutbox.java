@@ -0,0 +1,217 @@
+package com.creditcontrol.customer.outbox;
+
+import com.creditcontrol.customer.dto.CustomerDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户变更发件箱 (customer_outbox表)
+ * 变更事件与客户数据在同一事务中写入，提交后唤醒中继；中继按event_id顺序取未投递的行，先写入连续的feed_position，
+ * 订阅者都处理成功后再标记delivered_at。晚提交的小event_id会在下一批中得到更大的position，游标不会跳过事件。
+ */
+@Component
+@Slf4j
+public class CustomerOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO customer_outbox (customer_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+    private static final String COLUMNS = "event_id, customer_id, event_type, payload, created_at, feed_position";
+
+    private static final RowMapper<CustomerChangeEvent> DELIVERED_MAPPER = (rs, rowNum) -> new CustomerChangeEvent(
+            rs.getLong("feed_position"), rs.getLong("event_id"), rs.getInt("customer_id"),
+            CustomerChangeType.valueOf(rs.getString("event_type")), rs.getTimestamp("created_at").getTime(),
+            rs.getString("payload"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${creditcontrol.customer.outbox.create-table:true}")
+    private boolean createTable;
+
+    private TransactionTemplate transactionTemplate;
+
+    /** 每次提交释放一个许可，中继据此立即处理而不必等轮询间隔 */
+    private final Semaphore commits = new Semaphore(0);
+    private final AtomicLong eventsWritten = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!createTable) {
+            return;
+        }
+        // 只新增表和索引，不修改已有表结构
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS customer_outbox ("
+                    + "event_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "customer_id INTEGER NOT NULL, "
+                    + "event_type VARCHAR(20) NOT NULL, "
+                    + "payload TEXT NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL, "
+                    + "delivered_at TIMESTAMP, "
+                    + "feed_position BIGINT)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_customer_outbox_pending "
+                    + "ON customer_outbox (delivered_at, event_id)");
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_customer_outbox_position "
+                    + "ON customer_outbox (feed_position)");
+        });
+        log.info("CUSTOMER_OUTBOX_READY: table: customer_outbox");
+    }
+
+    /**
+     * 在调用方事务中写入变更事件，事务回滚时事件一并回滚
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(CustomerChangeType type, CustomerDto customer) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(customer);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize customer " + customer.getCustomerId(), e);
+        }
+        jdbcTemplate.update(INSERT_SQL, customer.getCustomerId(), type.name(), payload,
+                new Timestamp(System.currentTimeMillis()));
+        eventsWritten.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                commits.release();
+            }
+        });
+    }
+
+    /**
+     * 等待下一次提交或超时，返回前清空积压的许可
+     */
+    void awaitCommit(long timeoutMs) throws InterruptedException {
+        if (commits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            commits.drainPermits();
+        }
+    }
+
+    /**
+     * 取未投递的事件: 已分配position的 (上次通知订阅者后未能标记投递) 保持原position排在前面，
+     * 其余按event_id顺序从firstPosition开始依次分配
+     */
+    List<CustomerChangeEvent> fetchPending(int limit, long firstPosition) {
+        List<CustomerChangeEvent> events = new ArrayList<>(Math.min(limit, 1024));
+        long[] next = {firstPosition};
+        jdbcTemplate.query("SELECT " + COLUMNS + " FROM customer_outbox WHERE delivered_at IS NULL "
+                        + "ORDER BY feed_position NULLS LAST, event_id LIMIT ?",
+                rs -> {
+                    long position = rs.getLong("feed_position");
+                    if (rs.wasNull()) {
+                        position = next[0]++;
+                    }
+                    events.add(new CustomerChangeEvent(position, rs.getLong("event_id"),
+                            rs.getInt("customer_id"), CustomerChangeType.valueOf(rs.getString("event_type")),
+                            rs.getTimestamp("created_at").getTime(), rs.getString("payload")));
+                }, limit);
+        return events;
+    }
+
+    /**
+     * 通知订阅者之前一个事务内写入position，之后重试或重启都按同一position投递
+     */
+    void assignPositions(List<CustomerChangeEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "UPDATE customer_outbox SET feed_position = ? WHERE event_id = ?",
+                events, events.size(), (ps, event) -> {
+                    ps.setLong(1, event.getPosition());
+                    ps.setLong(2, event.getEventId());
+                }));
+    }
+
+    /**
+     * 所有订阅者处理成功后一个事务内批量写入投递时间
+     */
+    void markDelivered(List<CustomerChangeEvent> events, long deliveredAt) {
+        Timestamp timestamp = new Timestamp(deliveredAt);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "UPDATE customer_outbox SET delivered_at = ? WHERE event_id = ?",
+                events, events.size(), (ps, event) -> {
+                    ps.setTimestamp(1, timestamp);
+                    ps.setLong(2, event.getEventId());
+                }));
+    }
+
+    /**
+     * 已投递的事件中position大于since的前limit条
+     */
+    public List<CustomerChangeEvent> readDelivered(long since, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM customer_outbox WHERE feed_position > ? "
+                + "AND delivered_at IS NOT NULL ORDER BY feed_position LIMIT ?", DELIVERED_MAPPER, since, limit);
+    }
+
+    /**
+     * 已投递的最大position，没有时为0
+     */
+    public long latestPosition() {
+        Long position = jdbcTemplate.queryForObject(
+                "SELECT MAX(feed_position) FROM customer_outbox WHERE delivered_at IS NOT NULL", Long.class);
+        return position == null ? 0 : position;
+    }
+
+    /**
+     * 已分配的最大position (含已分配但尚未投递的)，中继从它之后继续分配
+     */
+    long lastAssignedPosition() {
+        Long position = jdbcTemplate.queryForObject("SELECT MAX(feed_position) FROM customer_outbox", Long.class);
+        return position == null ? 0 : position;
+    }
+
+    /**
+     * 仍保留的最小position，没有时为0
+     */
+    public long oldestPosition() {
+        Long position = jdbcTemplate.queryForObject("SELECT MIN(feed_position) FROM customer_outbox", Long.class);
+        return position == null ? 0 : position;
+    }
+
+    public long countPending() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_outbox WHERE delivered_at IS NULL", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 删除投递时间早于cutoff的事件，返回删除的行数
+     * 始终保留最新的已投递事件，position计数器从表中恢复，删空后重启也不会从1重新开始
+     */
+    int deleteDeliveredBefore(long cutoff) {
+        Integer deleted = transactionTemplate.execute(status -> jdbcTemplate.update(
+                "DELETE FROM customer_outbox WHERE delivered_at < ? AND feed_position < "
+                        + "(SELECT MAX(feed_position) FROM customer_outbox WHERE delivered_at IS NOT NULL)",
+                new Timestamp(cutoff)));
+        return deleted == null ? 0 : deleted;
+    }
+
+    public long getEventsWritten() {
+        return eventsWritten.get();
+    }
+}
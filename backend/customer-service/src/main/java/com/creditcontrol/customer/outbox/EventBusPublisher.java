@@ -0,0 +1,156 @@
+package com.creditcontrol.customer.outbox;
+
+import com.creditcontrol.customer.dto.CustomerChangeDto;
+import com.creditcontrol.eventbus.Event;
+import com.creditcontrol.eventbus.EventBatch;
+import com.creditcontrol.eventbus.EventBus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把已投递的客户变更发布到事件总线主题 customer.changes (键为客户ID，内容与变更流接口的单条记录相同)
+ * 总线日志中最后一条事件记录了已发布的position，进程重启丢失的通知在下一批到来时从发件箱表补发。
+ * 每批等待全部事件落盘；有事件写入失败时从失败的最小position重新发布并抛出异常，由中继退避后重试该批。
+ * 失败之后的事件可能已经落盘，重试时会再发布一次: 主题中position不会缺失但可能重复，
+ * 消费者按客户ID以position较大的变更为准。
+ */
+@Component
+@ConditionalOnProperty(name = "creditcontrol.customer.event-bus.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class EventBusPublisher implements CustomerChangeListener {
+
+    public static final String TOPIC = "customer.changes";
+
+    private static final int CATCH_UP_BATCH = 1000;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private CustomerOutbox outbox;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${creditcontrol.customer.event-bus.publish-timeout-ms:10000}")
+    private long publishTimeoutMs;
+
+    /** 已发布到总线的最后一个position，-1表示尚未从日志读取 */
+    private long lastPublished = -1;
+
+    private final AtomicLong eventsPublished = new AtomicLong();
+
+    @Override
+    public synchronized void onChanges(List<CustomerChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (lastPublished < 0) {
+            lastPublished = loadLastPublished(events.get(0).getPosition());
+        }
+        long first = events.get(0).getPosition();
+        Map<Long, CompletableFuture<Long>> pending = new LinkedHashMap<>();
+        while (lastPublished + 1 < first) {
+            List<CustomerChangeEvent> missed = outbox.readDelivered(lastPublished,
+                    (int) Math.min(CATCH_UP_BATCH, first - lastPublished - 1));
+            if (missed.isEmpty()) {
+                log.warn("CUSTOMER_EVENT_BUS_GAP: lastPublished: {}, next: {}", lastPublished, first);
+                break;
+            }
+            log.info("CUSTOMER_EVENT_BUS_CATCH_UP: from: {}, events: {}", lastPublished + 1, missed.size());
+            publish(missed, pending);
+        }
+        publish(events, pending);
+        awaitPublished(pending);
+    }
+
+    private void publish(List<CustomerChangeEvent> events, Map<Long, CompletableFuture<Long>> pending) {
+        for (CustomerChangeEvent event : events) {
+            if (event.getPosition() <= lastPublished) {
+                continue;
+            }
+            byte[] payload;
+            try {
+                payload = objectMapper.writeValueAsBytes(CustomerChangeDto.from(event));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize customer change " + event.getPosition(), e);
+            }
+            pending.put(event.getPosition(),
+                    eventBus.publish(TOPIC, String.valueOf(event.getCustomerId()), payload));
+            lastPublished = event.getPosition();
+        }
+    }
+
+    /**
+     * 等待本批发布的事件落盘；写入失败或超时的事件中position最小的一个之前的才算已发布
+     */
+    private void awaitPublished(Map<Long, CompletableFuture<Long>> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+        long firstFailed = -1;
+        Throwable failure = null;
+        for (Map.Entry<Long, CompletableFuture<Long>> entry : pending.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (firstFailed < 0) {
+                    eventsPublished.incrementAndGet();
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                if (firstFailed < 0) {
+                    firstFailed = entry.getKey();
+                    failure = e instanceof ExecutionException ? e.getCause() : e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                firstFailed = firstFailed < 0 ? entry.getKey() : firstFailed;
+                failure = failure == null ? e : failure;
+                break;
+            }
+        }
+        if (firstFailed >= 0) {
+            lastPublished = firstFailed - 1;
+            log.error("CUSTOMER_EVENT_BUS_PUBLISH_FAILED: position: {} - {}", firstFailed, failure.getMessage());
+            throw new IllegalStateException("Failed to publish customer change " + firstFailed + " to the event bus",
+                    failure);
+        }
+    }
+
+    private long loadLastPublished(long first) {
+        long end = eventBus.getEndOffset(TOPIC);
+        if (end == 0) {
+            // 新主题从本批开始，不回放历史变更
+            return first - 1;
+        }
+        try {
+            EventBatch batch = eventBus.fetch(TOPIC, end - 1, 64 * 1024, 0);
+            Event last = batch.getEvents().get(batch.getEvents().size() - 1);
+            return objectMapper.readTree(last.getPayload()).get("position").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read last published customer change", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading last published customer change", e);
+        }
+    }
+
+    public long getEventsPublished() {
+        return eventsPublished.get();
+    }
+}
@@ -0,0 +1,198 @@
+package com.creditcontrol.customer.outbox;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱中继
+ * 单线程在每次提交后 (或轮询间隔到期时) 批量取出未投递的事件，先写入position，再通知订阅者，
+ * 订阅者都成功后一个事务内标记为已投递并放入变更流缓冲。订阅者失败时保留该批，退避后只重新通知失败的订阅者。
+ * 同一数据库只应有一个实例开启中继；position冲突时该批回滚，重新读取最新position后重试。
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    @Autowired
+    private CustomerOutbox outbox;
+
+    @Autowired
+    private CustomerChangeFeed feed;
+
+    @Autowired(required = false)
+    private List<CustomerChangeListener> listeners = List.of();
+
+    @Value("${creditcontrol.customer.outbox.relay-enabled:true}")
+    private boolean enabled;
+
+    @Value("${creditcontrol.customer.outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${creditcontrol.customer.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${creditcontrol.customer.outbox.retention-days:30}")
+    private int retentionDays;
+
+    private volatile boolean running = true;
+    private Thread relay;
+    private long nextPosition;
+    /** 已写入position但尚未标记投递的批次，重试时position不变 */
+    private List<CustomerChangeEvent> inFlight;
+    /** inFlight中尚未成功处理的订阅者 */
+    private List<CustomerChangeListener> awaiting;
+
+    private final AtomicLong eventsRelayed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong relayFailures = new AtomicLong();
+    private final AtomicLong listenerFailures = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("CUSTOMER_OUTBOX_RELAY_DISABLED");
+            return;
+        }
+        long latest = outbox.latestPosition();
+        nextPosition = outbox.lastAssignedPosition() + 1;
+        // 重启后先用最近的事件填充变更流缓冲
+        List<CustomerChangeEvent> recent = outbox.readDelivered(Math.max(0, latest - feed.getCapacity()), feed.getCapacity());
+        feed.onChanges(recent);
+        relay = new Thread(this::relayLoop, "customer-outbox-relay");
+        relay.start();
+        log.info("CUSTOMER_OUTBOX_RELAY_STARTED: latestPosition: {}, buffered: {}, batchSize: {}, pollIntervalMs: {}",
+                latest, recent.size(), batchSize, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+            log.info("CUSTOMER_OUTBOX_RELAY_STOPPED: relayed: {}, batches: {}", eventsRelayed.get(), batches.get());
+        }
+    }
+
+    private void relayLoop() {
+        long nextRetention = System.currentTimeMillis();
+        while (running) {
+            try {
+                relayPending();
+                if (System.currentTimeMillis() >= nextRetention) {
+                    int deleted = outbox.deleteDeliveredBefore(
+                            System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+                    if (deleted > 0) {
+                        log.info("CUSTOMER_OUTBOX_RETENTION: deletedEvents: {}", deleted);
+                    }
+                    nextRetention = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+                }
+                outbox.awaitCommit(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                relayFailures.incrementAndGet();
+                log.error("CUSTOMER_OUTBOX_RELAY_FAILED: nextPosition: {} - {}", nextPosition, e.getMessage(), e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                    if (inFlight == null) {
+                        nextPosition = outbox.lastAssignedPosition() + 1;
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException reloadError) {
+                    log.error("CUSTOMER_OUTBOX_RELAY_RELOAD_FAILED: {}", reloadError.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理到没有未投递事件为止；订阅者都成功并标记提交后才推进position并放入变更流缓冲
+     */
+    private void relayPending() {
+        while (running) {
+            if (inFlight == null) {
+                List<CustomerChangeEvent> batch = outbox.fetchPending(batchSize, nextPosition);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                outbox.assignPositions(batch);
+                inFlight = batch;
+                awaiting = new ArrayList<>(listeners);
+                awaiting.remove(feed);
+            }
+            List<CustomerChangeEvent> batch = inFlight;
+            notifyListeners(batch);
+            if (!awaiting.isEmpty()) {
+                throw new IllegalStateException(awaiting.size() + " change listeners failed for positions "
+                        + batch.get(0).getPosition() + "-" + batch.get(batch.size() - 1).getPosition());
+            }
+            outbox.markDelivered(batch, System.currentTimeMillis());
+            inFlight = null;
+            awaiting = null;
+            nextPosition = Math.max(nextPosition, batch.get(batch.size() - 1).getPosition() + 1);
+            eventsRelayed.addAndGet(batch.size());
+            batches.incrementAndGet();
+
+            feed.onChanges(batch);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 通知尚未成功的订阅者，成功的从awaiting中移除
+     */
+    private void notifyListeners(List<CustomerChangeEvent> batch) {
+        Iterator<CustomerChangeListener> iterator = awaiting.iterator();
+        while (iterator.hasNext()) {
+            CustomerChangeListener listener = iterator.next();
+            try {
+                listener.onChanges(batch);
+                iterator.remove();
+            } catch (RuntimeException e) {
+                listenerFailures.incrementAndGet();
+                log.warn("CUSTOMER_CHANGE_LISTENER_FAILED: listener: {}, events: {} - {}",
+                        listener.getClass().getSimpleName(), batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getEventsRelayed() {
+        return eventsRelayed.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getRelayFailures() {
+        return relayFailures.get();
+    }
+
+    public long getListenerFailures() {
+        return listenerFailures.get();
+    }
+}
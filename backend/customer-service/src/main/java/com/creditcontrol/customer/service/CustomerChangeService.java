@@ -0,0 +1,88 @@
+package com.creditcontrol.customer.service;
+
+import com.creditcontrol.customer.dto.CustomerChangeDto;
+import com.creditcontrol.customer.dto.CustomerChangePage;
+import com.creditcontrol.customer.dto.CustomerOutboxStatsDto;
+import com.creditcontrol.customer.outbox.CustomerChangeEvent;
+import com.creditcontrol.customer.outbox.CustomerChangeFeed;
+import com.creditcontrol.customer.outbox.CustomerOutbox;
+import com.creditcontrol.customer.outbox.OutboxRelay;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 客户变更流服务层
+ * 最近的事件从中继维护的内存缓冲读取，更早的游标回源到发件箱表 (按feed_position索引)，都不查询customers表。
+ */
+@Service
+@Slf4j
+public class CustomerChangeService {
+
+    @Autowired
+    private CustomerOutbox outbox;
+
+    @Autowired
+    private CustomerChangeFeed feed;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    private final AtomicLong bufferReads = new AtomicLong();
+    private final AtomicLong databaseReads = new AtomicLong();
+
+    /**
+     * position大于since的变更，since为空时从最早保留的事件开始
+     */
+    public CustomerChangePage getChanges(Long since, int limit) {
+        long cursor = since == null ? 0 : Math.max(0, since);
+        List<CustomerChangeEvent> events = relay.isEnabled() ? feed.read(cursor, limit) : null;
+        long latest;
+        if (events != null) {
+            bufferReads.incrementAndGet();
+            latest = feed.getLatest();
+        } else {
+            databaseReads.incrementAndGet();
+            events = outbox.readDelivered(cursor, limit);
+            latest = outbox.latestPosition();
+        }
+
+        boolean truncated = since != null && (cursor > latest
+                || !events.isEmpty() && events.get(0).getPosition() > cursor + 1);
+        long nextCursor = events.isEmpty() ? Math.min(cursor, latest) : events.get(events.size() - 1).getPosition();
+        if (truncated) {
+            log.warn("CUSTOMER_CHANGES_TRUNCATED: since: {}, latestPosition: {}", since, latest);
+        }
+        return CustomerChangePage.builder()
+                .changes(events.stream().map(CustomerChangeDto::from).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .latestPosition(latest)
+                .hasMore(nextCursor < latest)
+                .truncated(truncated)
+                .build();
+    }
+
+    public CustomerOutboxStatsDto getStats() {
+        long batches = relay.getBatches();
+        return CustomerOutboxStatsDto.builder()
+                .relayEnabled(relay.isEnabled())
+                .eventsWritten(outbox.getEventsWritten())
+                .eventsRelayed(relay.getEventsRelayed())
+                .batches(batches)
+                .averageBatchSize(batches == 0 ? 0.0 : Math.round(relay.getEventsRelayed() * 100.0 / batches) / 100.0)
+                .batchSize(relay.getBatchSize())
+                .relayFailures(relay.getRelayFailures())
+                .listenerFailures(relay.getListenerFailures())
+                .pendingEvents(outbox.countPending())
+                .latestPosition(relay.isEnabled() ? feed.getLatest() : outbox.latestPosition())
+                .bufferedEvents(feed.getBuffered())
+                .oldestBufferedPosition(feed.getOldest())
+                .feedReadsFromBuffer(bufferReads.get())
+                .feedReadsFromDatabase(databaseReads.get())
+                .build();
+    }
+}
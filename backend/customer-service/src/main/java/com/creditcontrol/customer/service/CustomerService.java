@@ -7,6 +7,8 @@ import com.creditcontrol.customer.dto.PageResponse;
 import com.creditcontrol.customer.entity.Customer;
 import com.creditcontrol.customer.exception.CustomerNotFoundException;
 import com.creditcontrol.customer.exception.DuplicateCustomerException;
+import com.creditcontrol.customer.outbox.CustomerChangeType;
+import com.creditcontrol.customer.outbox.CustomerOutbox;
 import com.creditcontrol.customer.repository.CustomerRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,12 +22,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Customer业务服务层
  * 处理客户相关的所有业务逻辑
+ * 创建、更新、激活、停用在同一事务中写入客户变更发件箱
  */
 @Service
 @Transactional
@@ -35,6 +39,9 @@ public class CustomerService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CustomerOutbox outbox;
+
     /**
      * 根据ID获取客户信息 (带缓存)
      */
@@ -56,6 +63,23 @@ public class CustomerService {
         return customerDto;
     }
 
+    /**
+     * 按ID批量获取客户信息，一次IN查询；不存在的ID不出现在结果中，结果按ID升序
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerDto> getCustomersByIds(List<Integer> customerIds) {
+        log.debug("SERVICE_CALL: getCustomersByIds - ids: {}", customerIds.size());
+        
+        List<CustomerDto> customers = customerRepository.findAllById(customerIds)
+                .stream()
+                .sorted(Comparator.comparing(Customer::getCustomerId))
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        
+        log.debug("CUSTOMERS_FOUND: requested: {}, found: {}", customerIds.size(), customers.size());
+        return customers;
+    }
+
     /**
      * 根据客户代码获取客户信息
      */
@@ -150,10 +174,13 @@ public class CustomerService {
         
         Customer savedCustomer = customerRepository.save(customer);
         
+        CustomerDto customerDto = convertToDto(savedCustomer);
+        outbox.append(CustomerChangeType.CREATED, customerDto);
+        
         log.info("CUSTOMER_CREATED: customerId: {}, customerCode: {}, companyName: {}", 
                 savedCustomer.getCustomerId(), savedCustomer.getCustomerCode(), savedCustomer.getCompanyName());
         
-        return convertToDto(savedCustomer);
+        return customerDto;
     }
 
     /**
@@ -188,10 +215,13 @@ public class CustomerService {
         
         Customer updatedCustomer = customerRepository.save(existingCustomer);
         
+        CustomerDto customerDto = convertToDto(updatedCustomer);
+        outbox.append(CustomerChangeType.UPDATED, customerDto);
+        
         log.info("CUSTOMER_UPDATED: customerId: {}, customerCode: {}", 
                 updatedCustomer.getCustomerId(), updatedCustomer.getCustomerCode());
         
-        return convertToDto(updatedCustomer);
+        return customerDto;
     }
 
     /**
@@ -206,10 +236,15 @@ public class CustomerService {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found with ID: " + customerId));
         
+        boolean changed = !"INACTIVE".equals(customer.getStatus());
         customer.setStatus("INACTIVE");
         customer.setUpdatedDate(new Timestamp(System.currentTimeMillis()));
         
         customerRepository.save(customer);
+        // 状态未变化时不产生事件
+        if (changed) {
+            outbox.append(CustomerChangeType.DEACTIVATED, convertToDto(customer));
+        }
         
         log.info("CUSTOMER_DEACTIVATED: customerId: {}, customerCode: {}", 
                 customer.getCustomerId(), customer.getCustomerCode());
@@ -227,10 +262,15 @@ public class CustomerService {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found with ID: " + customerId));
         
+        boolean changed = !"ACTIVE".equals(customer.getStatus());
         customer.setStatus("ACTIVE");
         customer.setUpdatedDate(new Timestamp(System.currentTimeMillis()));
         
         customerRepository.save(customer);
+        // 状态未变化时不产生事件
+        if (changed) {
+            outbox.append(CustomerChangeType.ACTIVATED, convertToDto(customer));
+        }
         
         log.info("CUSTOMER_ACTIVATED: customerId: {}, customerCode: {}", 
                 customer.getCustomerId(), customer.getCustomerCode());
@@ -0,0 +1,134 @@
+package com.creditcontrol.customer.outbox;
+
+import com.creditcontrol.eventbus.EventBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 发布到事件总线: 等待落盘、写入失败时从最小失败position重发、从发件箱补发遗漏的变更
+ */
+class EventBusPublisherTest {
+
+    private final EventBus eventBus = mock(EventBus.class);
+    private final CustomerOutbox outbox = mock(CustomerOutbox.class);
+    private final EventBusPublisher publisher = new EventBusPublisher();
+
+    /** 每次publish调用的position (测试中客户ID与position相同) */
+    private final List<Long> published = new ArrayList<>();
+    /** 写入失败的position，只失败一次 */
+    private final Set<Long> failing = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(publisher, "eventBus", eventBus);
+        ReflectionTestUtils.setField(publisher, "outbox", outbox);
+        ReflectionTestUtils.setField(publisher, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(publisher, "publishTimeoutMs", 1000L);
+        when(eventBus.getEndOffset(EventBusPublisher.TOPIC)).thenReturn(0L);
+        when(eventBus.publish(eq(EventBusPublisher.TOPIC), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            long position = Long.parseLong(invocation.getArgument(1));
+            published.add(position);
+            if (failing.remove(position)) {
+                return CompletableFuture.failedFuture(new IOException("disk full"));
+            }
+            return CompletableFuture.completedFuture(position);
+        });
+    }
+
+    @Test
+    void publishesBatchInPositionOrder() {
+        publisher.onChanges(events(1, 5));
+
+        assertThat(published).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(publisher.getEventsPublished()).isEqualTo(5L);
+    }
+
+    @Test
+    void republishesFromLowestFailedPosition() {
+        failing.add(3L);
+        failing.add(4L);
+
+        assertThatThrownBy(() -> publisher.onChanges(events(1, 6)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("3");
+        assertThat(publisher.getEventsPublished()).isEqualTo(2L);
+
+        // 中继重试同一批: 3之后的全部重发，5、6在主题中出现两次
+        published.clear();
+        publisher.onChanges(events(1, 6));
+        assertThat(published).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(publisher.getEventsPublished()).isEqualTo(6L);
+    }
+
+    @Test
+    void retriesTrailingFailureOnNextCall() {
+        failing.add(5L);
+
+        assertThatThrownBy(() -> publisher.onChanges(events(1, 5))).isInstanceOf(IllegalStateException.class);
+
+        published.clear();
+        publisher.onChanges(events(1, 5));
+        assertThat(published).containsExactly(5L);
+    }
+
+    @Test
+    void catchesUpFromOutboxBeforeNextBatch() {
+        publisher.onChanges(events(1, 2));
+        when(outbox.readDelivered(eq(2L), anyInt())).thenReturn(events(3, 4));
+
+        publisher.onChanges(events(5, 6));
+
+        assertThat(published).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void catchesUpFailedEventsOfEarlierBatchFromOutbox() {
+        failing.add(2L);
+        assertThatThrownBy(() -> publisher.onChanges(events(1, 3))).isInstanceOf(IllegalStateException.class);
+        // 失败的变更已在发件箱中标记投递时，下一批之前从发件箱补发2、3
+        when(outbox.readDelivered(eq(1L), anyInt())).thenReturn(events(2, 3));
+
+        published.clear();
+        publisher.onChanges(events(4, 4));
+
+        assertThat(published).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void treatsUnfinishedWriteAsFailure() {
+        ReflectionTestUtils.setField(publisher, "publishTimeoutMs", 50L);
+        when(eventBus.publish(eq(EventBusPublisher.TOPIC), eq("2"), any(byte[].class)))
+                .thenReturn(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> publisher.onChanges(events(1, 3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("2");
+        assertThat(publisher.getEventsPublished()).isEqualTo(1L);
+    }
+
+    private static List<CustomerChangeEvent> events(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(position -> new CustomerChangeEvent(position, 100 + position, (int) position,
+                        CustomerChangeType.UPDATED, 1_700_000_000_000L, "{\"customerId\":" + position + "}"))
+                .toList();
+    }
+}
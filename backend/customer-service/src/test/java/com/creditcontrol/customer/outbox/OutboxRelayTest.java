@@ -0,0 +1,216 @@
+package com.creditcontrol.customer.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 中继至少一次投递: 订阅者失败时保留该批，只重新通知失败的订阅者；重启后按原position整批重新通知
+ */
+class OutboxRelayTest {
+
+    private final CustomerOutbox outbox = mock(CustomerOutbox.class);
+    private final CustomerChangeFeed feed = new CustomerChangeFeed();
+    /** 发件箱中的行: 未投递的事件，position为0表示尚未分配 */
+    private final List<Row> rows = new ArrayList<>();
+    private final List<OutboxRelay> relays = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        ReflectionTestUtils.setField(feed, "capacity", 16);
+        feed.init();
+        when(outbox.readDelivered(anyLong(), anyInt())).thenReturn(List.of());
+        when(outbox.latestPosition()).thenReturn(0L);
+        when(outbox.lastAssignedPosition()).thenAnswer(invocation -> lastAssigned());
+        when(outbox.fetchPending(anyInt(), anyLong())).thenAnswer(invocation -> fetchPending(invocation.getArgument(1)));
+        doAnswer(invocation -> {
+            assign(invocation.getArgument(0));
+            return null;
+        }).when(outbox).assignPositions(anyList());
+        doAnswer(invocation -> {
+            deliver(invocation.getArgument(0));
+            return null;
+        }).when(outbox).markDelivered(anyList(), anyLong());
+        doAnswer(invocation -> {
+            Thread.sleep(5L);
+            return null;
+        }).when(outbox).awaitCommit(anyLong());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (OutboxRelay relay : relays) {
+            relay.stop();
+        }
+    }
+
+    @Test
+    void renotifiesOnlyFailedListenerUntilItSucceeds() throws InterruptedException {
+        Recording healthy = new Recording(0);
+        Recording flaky = new Recording(2);
+        insert(1, 2);
+
+        OutboxRelay relay = start(healthy, flaky);
+
+        awaitTrue(() -> feed.getLatest() == 2L);
+        assertThat(healthy.positions).containsExactly(List.of(1L, 2L));
+        assertThat(flaky.positions).containsExactly(List.of(1L, 2L), List.of(1L, 2L), List.of(1L, 2L));
+        assertThat(relay.getListenerFailures()).isEqualTo(2L);
+        assertThat(relay.getRelayFailures()).isEqualTo(2L);
+        assertThat(relay.getEventsRelayed()).isEqualTo(2L);
+        verify(outbox, times(1)).assignPositions(anyList());
+        verify(outbox, times(1)).markDelivered(anyList(), anyLong());
+
+        // 下一批从已投递position之后继续分配
+        insert(3, 3);
+        awaitTrue(() -> feed.getLatest() == 3L);
+        assertThat(healthy.positions).containsExactly(List.of(1L, 2L), List.of(3L));
+        assertThat(flaky.positions).last().isEqualTo(List.of(3L));
+    }
+
+    @Test
+    void renotifiesWholeBatchWithSamePositionsAfterRestart() throws InterruptedException {
+        Recording healthy = new Recording(0);
+        Recording failing = new Recording(Integer.MAX_VALUE);
+        insert(1, 2);
+
+        OutboxRelay first = start(healthy, failing);
+        awaitTrue(() -> first.getListenerFailures() >= 1L);
+        first.stop();
+        verify(outbox, never()).markDelivered(anyList(), anyLong());
+        assertThat(feed.getLatest()).isZero();
+
+        // 重启时失败的订阅者已恢复，已分配position的批次整批重新通知
+        Recording restartedHealthy = new Recording(0);
+        Recording recovered = new Recording(0);
+        insert(3, 3);
+        OutboxRelay restarted = start(restartedHealthy, recovered);
+
+        awaitTrue(() -> feed.getLatest() == 3L);
+        assertThat(healthy.positions).containsExactly(List.of(1L, 2L));
+        assertThat(restartedHealthy.positions.get(0)).containsExactly(1L, 2L, 3L);
+        assertThat(recovered.positions.get(0)).containsExactly(1L, 2L, 3L);
+        assertThat(restarted.getEventsRelayed()).isEqualTo(3L);
+        assertThat(feed.read(0, 10)).extracting(CustomerChangeEvent::getPosition).containsExactly(1L, 2L, 3L);
+    }
+
+    private OutboxRelay start(CustomerChangeListener... listeners) {
+        OutboxRelay relay = new OutboxRelay();
+        List<CustomerChangeListener> all = new ArrayList<>(List.of(listeners));
+        all.add(feed);
+        ReflectionTestUtils.setField(relay, "outbox", outbox);
+        ReflectionTestUtils.setField(relay, "feed", feed);
+        ReflectionTestUtils.setField(relay, "listeners", all);
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "pollIntervalMs", 10L);
+        ReflectionTestUtils.setField(relay, "retentionDays", 30);
+        relay.start();
+        relays.add(relay);
+        return relay;
+    }
+
+    private synchronized void insert(long fromEventId, long toEventId) {
+        for (long eventId = fromEventId; eventId <= toEventId; eventId++) {
+            rows.add(new Row(eventId));
+        }
+    }
+
+    private synchronized long lastAssigned() {
+        return rows.stream().mapToLong(row -> row.position).max().orElse(0L);
+    }
+
+    /**
+     * 与发件箱查询相同: 已分配position的排在前面，其余从firstPosition起依次分配
+     */
+    private synchronized List<CustomerChangeEvent> fetchPending(long firstPosition) {
+        List<CustomerChangeEvent> events = new ArrayList<>();
+        long next = firstPosition;
+        for (Row row : rows) {
+            if (row.deliveredAt == 0 && row.position > 0) {
+                events.add(row.event(row.position));
+            }
+        }
+        for (Row row : rows) {
+            if (row.deliveredAt == 0 && row.position == 0) {
+                events.add(row.event(next++));
+            }
+        }
+        return events;
+    }
+
+    private synchronized void assign(List<CustomerChangeEvent> events) {
+        for (CustomerChangeEvent event : events) {
+            rows.stream().filter(row -> row.eventId == event.getEventId()).forEach(row -> row.position = event.getPosition());
+        }
+    }
+
+    private synchronized void deliver(List<CustomerChangeEvent> events) {
+        for (CustomerChangeEvent event : events) {
+            rows.stream().filter(row -> row.eventId == event.getEventId()).forEach(row -> row.deliveredAt = 1L);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5L);
+        }
+    }
+
+    private static final class Row {
+
+        final long eventId;
+        long position;
+        long deliveredAt;
+
+        Row(long eventId) {
+            this.eventId = eventId;
+        }
+
+        CustomerChangeEvent event(long assigned) {
+            return new CustomerChangeEvent(assigned, eventId, (int) eventId, CustomerChangeType.UPDATED,
+                    1_772_413_200_000L + eventId, "{}");
+        }
+    }
+
+    /**
+     * 记录每次收到的position，前failures次调用抛出异常
+     */
+    private static final class Recording implements CustomerChangeListener {
+
+        final List<List<Long>> positions = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures;
+
+        Recording(int failures) {
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public void onChanges(List<CustomerChangeEvent> events) {
+            positions.add(events.stream().map(CustomerChangeEvent::getPosition).toList());
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("listener unavailable");
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.creditcontrol.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 事件总线吞吐量与端到端延迟
+ * publish: 4个发布线程各连续发布一组事件后等待最后一条落盘，结果折算为每秒落盘的事件数 (组提交，每组每主题一次fsync)。
+ * endToEnd: 一条事件从发布到远程消费者 (经 {@link EventBusServer} 长轮询拉取) 处理它的时间，SampleTime给出分位数。
+ * 运行: mvn -Pjmh test-compile exec:exec -Djmh.args=EventBusBenchmark
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class EventBusBenchmark {
+
+    static final int GROUP = 1000;
+    private static final String THROUGHPUT_TOPIC = "benchmark.throughput";
+    private static final String LATENCY_TOPIC = "benchmark.latency";
+
+    @Param({"true", "false"})
+    public boolean fsync;
+
+    @Param("200")
+    public int payloadBytes;
+
+    private Path directory;
+    private EventBus bus;
+    private EventBusServer server;
+    private EventConsumer consumer;
+    private byte[] payload;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> waiting = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("eventbus-benchmark");
+        payload = new byte[payloadBytes];
+        ThreadLocalRandom.current().nextBytes(payload);
+
+        bus = new EventBus(directory.resolve("log"), 64L * 1024 * 1024, 65536, fsync, 1);
+        bus.open();
+        server = new EventBusServer(bus, "127.0.0.1", 0, 2);
+        server.start();
+        consumer = new EventConsumer("benchmark", LATENCY_TOPIC,
+                new RemoteEventSource("http://127.0.0.1:" + server.getPort(), Duration.ofSeconds(5)),
+                new OffsetStore(directory.resolve("offsets"), "benchmark"),
+                events -> {
+                    for (Event event : events) {
+                        CompletableFuture<Void> waiter = waiting.remove(event.getKey());
+                        if (waiter != null) {
+                            waiter.complete(null);
+                        }
+                    }
+                }, 1024 * 1024, 1000);
+        consumer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        consumer.close();
+        server.close();
+        bus.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(GROUP)
+    @Threads(4)
+    public long publish() throws Exception {
+        CompletableFuture<Long> last = null;
+        for (int i = 0; i < GROUP; i++) {
+            last = bus.publish(THROUGHPUT_TOPIC, null, payload);
+        }
+        return last.get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(1)
+    public void endToEnd() throws Exception {
+        String key = Long.toString(sequence.incrementAndGet());
+        CompletableFuture<Void> received = new CompletableFuture<>();
+        waiting.put(key, received);
+        bus.publish(LATENCY_TOPIC, key, payload);
+        received.get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,47 @@
+package com.creditcontrol.eventbus;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 主题中的一条事件 (不可变)，offset在主题内从0开始连续递增
+ */
+public final class Event {
+
+    private final long offset;
+    private final long timestamp;
+    private final String key;
+    private final byte[] payload;
+
+    Event(long offset, long timestamp, String key, byte[] payload) {
+        this.offset = offset;
+        this.timestamp = timestamp;
+        this.key = key;
+        this.payload = payload;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 写入日志的时间 (毫秒)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 发布方指定的键，如客户ID，可能为null
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public String getPayloadAsString() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
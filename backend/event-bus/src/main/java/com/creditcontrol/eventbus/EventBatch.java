@@ -0,0 +1,55 @@
+package com.creditcontrol.eventbus;
+
+import java.util.List;
+
+/**
+ * 一次拉取的结果
+ */
+public final class EventBatch {
+
+    private final List<Event> events;
+    private final long nextOffset;
+    private final long firstOffset;
+    private final long endOffset;
+    private final boolean truncated;
+
+    EventBatch(List<Event> events, long nextOffset, long firstOffset, long endOffset, boolean truncated) {
+        this.events = events;
+        this.nextOffset = nextOffset;
+        this.firstOffset = firstOffset;
+        this.endOffset = endOffset;
+        this.truncated = truncated;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * 下次拉取的offset
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * 主题中仍保留的最早offset
+     */
+    public long getFirstOffset() {
+        return firstOffset;
+    }
+
+    /**
+     * 主题中最后一条已提交事件的offset + 1
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * 请求的offset早于保留范围，已从firstOffset开始返回
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,321 @@
+package com.creditcontrol.eventbus;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 嵌入式事件总线
+ * 每个主题一个本地分段日志 (directory/<主题>/)。发布方把事件放入队列，单个写线程把队列中的事件按主题合并为一批写入，
+ * 每个主题每批一次fsync，提交后完成Future并唤醒等待的拉取。消费方按offset拉取 (本进程直接调用，其他服务经
+ * {@link EventBusServer})，offset由消费方自己保存 ({@link OffsetStore})。
+ */
+@Slf4j
+public class EventBus implements EventSource, Closeable {
+
+    private static final int MAX_GROUP_EVENTS = 4096;
+    private static final Pattern TOPIC_NAME = Pattern.compile("^[a-z0-9][a-z0-9._-]{0,63}$");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int queueCapacity;
+    private final boolean fsync;
+    private final long retentionMillis;
+    private final Map<String, TopicLog> topics = new ConcurrentHashMap<>();
+
+    private BlockingQueue<QueuedEvent> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private volatile long publishedEvents;
+    private volatile long committedGroups;
+    private volatile long failedEvents;
+
+    public EventBus(Path directory, long segmentBytes, int queueCapacity, boolean fsync, long retentionHours) {
+        if (segmentBytes < 1024 * 1024 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Event log segment size must be between 1MB and 2GB");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.queueCapacity = queueCapacity;
+        this.fsync = fsync;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    /**
+     * 打开已有主题的日志并启动写线程
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        long startTime = System.currentTimeMillis();
+        List<String> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> TOPIC_NAME.matcher(name).matches())
+                    .collect(Collectors.toList());
+        }
+        for (String topic : existing) {
+            TopicLog topicLog = new TopicLog(topic, directory.resolve(topic), segmentBytes, fsync);
+            topicLog.open();
+            topics.put(topic, topicLog);
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "eventbus-writer");
+        writer.start();
+        log.info("EVENT_BUS_OPENED: directory: {}, topics: {}, fsync: {}, duration: {}ms",
+                directory, topics.size(), fsync, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 发布一条事件，返回的Future在事件落盘后完成，值为事件的offset。
+     * 队列已满时阻塞调用方 (背压)。
+     */
+    public CompletableFuture<Long> publish(String topic, String key, byte[] payload) {
+        if (!running) {
+            throw new EventBusException("Event bus is not open");
+        }
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes != null && keyBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Event key must not exceed " + Short.MAX_VALUE + " bytes");
+        }
+        QueuedEvent queued = new QueuedEvent(topicLog(topic, true), new TopicLog.PendingEvent(keyBytes, payload));
+        try {
+            queue.put(queued);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventBusException("Interrupted while queueing event", e);
+        }
+        return queued.future;
+    }
+
+    public CompletableFuture<Long> publish(String topic, String key, String payload) {
+        return publish(topic, key, payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public EventBatch fetch(String topic, long offset, int maxBytes, long waitMs) throws IOException, InterruptedException {
+        TopicLog.ReadResult result = read(topic, offset, maxBytes, waitMs);
+        List<Event> events = result.count == 0 ? List.of() : EventFrames.decode(result.frames);
+        return new EventBatch(events, result.nextOffset, result.firstOffset, result.endOffset, result.truncated);
+    }
+
+    /**
+     * 读取原始帧，HTTP传输直接返回这些字节；主题不存在时等待后返回空结果
+     */
+    TopicLog.ReadResult read(String topic, long offset, int maxBytes, long waitMs) throws IOException, InterruptedException {
+        TopicLog topicLog = topicLog(topic, false);
+        if (topicLog == null) {
+            if (waitMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(Math.min(waitMs, 1000));
+            }
+            return new TopicLog.ReadResult(ByteBuffer.allocate(0), 0, 0, 0, 0, offset > 0);
+        }
+        TopicLog.ReadResult result = topicLog.read(offset, maxBytes);
+        if (result.count == 0 && waitMs > 0 && topicLog.awaitAppend(result.nextOffset, waitMs)) {
+            result = topicLog.read(result.nextOffset, maxBytes);
+        }
+        return result;
+    }
+
+    public List<String> getTopics() {
+        return topics.keySet().stream().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * 主题最后一条已提交事件的offset + 1，主题不存在时为0
+     */
+    public long getEndOffset(String topic) {
+        TopicLog topicLog = topics.get(topic);
+        return topicLog == null ? 0 : topicLog.getNextOffset();
+    }
+
+    /**
+     * 主题中仍保留的最早offset
+     */
+    public long getFirstOffset(String topic) {
+        TopicLog topicLog = topics.get(topic);
+        return topicLog == null ? 0 : topicLog.getFirstOffset();
+    }
+
+    public int getSegmentCount(String topic) {
+        TopicLog topicLog = topics.get(topic);
+        return topicLog == null ? 0 : topicLog.getSegmentCount();
+    }
+
+    public long getPublishedEvents() {
+        return publishedEvents;
+    }
+
+    public long getCommittedGroups() {
+        return committedGroups;
+    }
+
+    public long getFailedEvents() {
+        return failedEvents;
+    }
+
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * 写完队列中的事件后关闭所有主题日志
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TopicLog topicLog : topics.values()) {
+            topicLog.close();
+        }
+        log.info("EVENT_BUS_CLOSED: publishedEvents: {}, committedGroups: {}, failedEvents: {}",
+                publishedEvents, committedGroups, failedEvents);
+    }
+
+    private TopicLog topicLog(String topic, boolean create) {
+        if (topic == null || !TOPIC_NAME.matcher(topic).matches()) {
+            throw new IllegalArgumentException("Invalid topic name: " + topic);
+        }
+        if (!create) {
+            return topics.get(topic);
+        }
+        return topics.computeIfAbsent(topic, name -> {
+            TopicLog topicLog = new TopicLog(name, directory.resolve(name), segmentBytes, fsync);
+            try {
+                topicLog.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("EVENT_TOPIC_CREATED: topic: {}", name);
+            return topicLog;
+        });
+    }
+
+    private void writeLoop() {
+        List<QueuedEvent> group = new ArrayList<>(MAX_GROUP_EVENTS);
+        Map<TopicLog, List<TopicLog.PendingEvent>> byTopic = new LinkedHashMap<>();
+        Map<TopicLog, EventBusException> failures = new HashMap<>();
+        long nextRetention = System.currentTimeMillis();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedEvent first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP_EVENTS - 1);
+                    for (QueuedEvent queued : group) {
+                        byTopic.computeIfAbsent(queued.topicLog, key -> new ArrayList<>()).add(queued.event);
+                    }
+                    byTopic.forEach((topicLog, events) -> {
+                        EventBusException failure = commit(topicLog, events);
+                        if (failure != null) {
+                            failures.put(topicLog, failure);
+                        }
+                    });
+                    for (QueuedEvent queued : group) {
+                        EventBusException failure = failures.get(queued.topicLog);
+                        if (failure == null) {
+                            queued.future.complete(queued.event.offset);
+                        } else {
+                            queued.future.completeExceptionally(failure);
+                        }
+                    }
+                    committedGroups++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                continue;
+            } finally {
+                group.clear();
+                byTopic.clear();
+                failures.clear();
+            }
+            if (System.currentTimeMillis() >= nextRetention) {
+                applyRetention();
+                nextRetention = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+            }
+        }
+    }
+
+    /**
+     * 写入并提交一个主题的一批事件；失败时回滚该主题并返回异常，本批该主题的Future以异常完成
+     */
+    private EventBusException commit(TopicLog topicLog, List<TopicLog.PendingEvent> events) {
+        topicLog.mark();
+        try {
+            topicLog.append(events, System.currentTimeMillis());
+            topicLog.commit();
+            publishedEvents += events.size();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.error("EVENT_BUS_WRITE_FAILED: topic: {}, events: {} - {}", topicLog.getTopic(), events.size(),
+                    e.getMessage(), e);
+            try {
+                topicLog.rollback();
+            } catch (IOException rollbackError) {
+                log.error("EVENT_BUS_ROLLBACK_FAILED: topic: {} - {}", topicLog.getTopic(), rollbackError.getMessage());
+            }
+            failedEvents += events.size();
+            return new EventBusException("Failed to write events to topic " + topicLog.getTopic(), e);
+        }
+    }
+
+    private void applyRetention() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (TopicLog topicLog : topics.values()) {
+            try {
+                int deleted = topicLog.deleteSegmentsBefore(cutoff);
+                if (deleted > 0) {
+                    log.info("EVENT_BUS_RETENTION: topic: {}, deletedSegments: {}", topicLog.getTopic(), deleted);
+                }
+            } catch (IOException e) {
+                log.warn("EVENT_BUS_RETENTION_FAILED: topic: {} - {}", topicLog.getTopic(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 队列中的一条事件
+     */
+    private static final class QueuedEvent {
+
+        final TopicLog topicLog;
+        final TopicLog.PendingEvent event;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        QueuedEvent(TopicLog topicLog, TopicLog.PendingEvent event) {
+            this.topicLog = topicLog;
+            this.event = event;
+        }
+    }
+}
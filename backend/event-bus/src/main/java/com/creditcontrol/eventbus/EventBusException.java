@@ -0,0 +1,15 @@
+package com.creditcontrol.eventbus;
+
+/**
+ * 事件总线异常 (总线未打开、主题名无效、日志损坏或写入失败)
+ */
+public class EventBusException extends RuntimeException {
+
+    public EventBusException(String message) {
+        super(message);
+    }
+
+    public EventBusException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
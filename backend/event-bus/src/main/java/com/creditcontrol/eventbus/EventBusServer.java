@@ -0,0 +1,207 @@
+package com.creditcontrol.eventbus;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 事件总线的HTTP拉取接口，供同一主机上的其他服务消费
+ * GET /eventbus/topics                                           主题列表及offset范围 (JSON)
+ * GET /eventbus/topics/{topic}/events?offset=&maxBytes=&waitMs=   原始事件帧 (application/octet-stream)，
+ *     响应头 Event-Next-Offset / Event-First-Offset / Event-End-Offset / Event-Truncated
+ * 没有新事件时请求最多挂起waitMs毫秒 (长轮询)，每个挂起的请求占用一个处理线程。
+ */
+@Slf4j
+public class EventBusServer implements Closeable {
+
+    public static final String NEXT_OFFSET_HEADER = "Event-Next-Offset";
+    public static final String FIRST_OFFSET_HEADER = "Event-First-Offset";
+    public static final String END_OFFSET_HEADER = "Event-End-Offset";
+    public static final String TRUNCATED_HEADER = "Event-Truncated";
+
+    private static final String BASE_PATH = "/eventbus/topics";
+    private static final int MAX_FETCH_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_WAIT_MS = 30_000;
+
+    private final EventBus bus;
+    private final String host;
+    private final int port;
+    private final int threads;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public EventBusServer(EventBus bus, String host, int port, int threads) {
+        this.bus = bus;
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+    }
+
+    public synchronized void start() throws IOException {
+        // JDK HttpServer默认不关Nagle，响应头和内容分两次写时客户端延迟确认，每次拉取多约40ms；须在首次创建前设置
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "eventbus-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(BASE_PATH, this::handle);
+        server.start();
+        log.info("EVENT_BUS_SERVER_STARTED: address: {}, threads: {}", server.getAddress(), threads);
+    }
+
+    /**
+     * 实际监听的端口 (构造时传0则为系统分配的端口)
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(BASE_PATH) || path.equals(BASE_PATH + "/")) {
+                sendTopics(exchange);
+                return;
+            }
+            String rest = path.substring(BASE_PATH.length());
+            if (!rest.startsWith("/") || !rest.endsWith("/events")) {
+                sendText(exchange, 404, "Not found");
+                return;
+            }
+            String topic = rest.substring(1, rest.length() - "/events".length());
+            sendEvents(exchange, topic);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendText(exchange, 503, "Server is shutting down");
+        } catch (IOException | RuntimeException e) {
+            log.error("EVENT_BUS_SERVER_ERROR: uri: {} - {}", exchange.getRequestURI(), e.getMessage(), e);
+            sendText(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendEvents(HttpExchange exchange, String topic) throws IOException, InterruptedException {
+        Map<String, String> params = queryParams(exchange.getRequestURI());
+        long offset = longParam(params, "offset", 0);
+        long maxBytes = longParam(params, "maxBytes", 1024 * 1024);
+        long waitMs = longParam(params, "waitMs", 0);
+        if (offset < 0 || maxBytes <= 0 || maxBytes > MAX_FETCH_BYTES || waitMs < 0) {
+            throw new IllegalArgumentException("offset and waitMs must not be negative, maxBytes must be between 1 and "
+                    + MAX_FETCH_BYTES);
+        }
+
+        TopicLog.ReadResult result = bus.read(topic, offset, (int) maxBytes, Math.min(waitMs, MAX_WAIT_MS));
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set(NEXT_OFFSET_HEADER, Long.toString(result.nextOffset));
+        exchange.getResponseHeaders().set(FIRST_OFFSET_HEADER, Long.toString(result.firstOffset));
+        exchange.getResponseHeaders().set(END_OFFSET_HEADER, Long.toString(result.endOffset));
+        exchange.getResponseHeaders().set(TRUNCATED_HEADER, Boolean.toString(result.truncated));
+        int length = result.frames.remaining();
+        exchange.sendResponseHeaders(200, length == 0 ? -1 : length);
+        if (length > 0) {
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(result.frames.array(), result.frames.arrayOffset() + result.frames.position(), length);
+            }
+        }
+    }
+
+    private void sendTopics(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder("{\"topics\":[");
+        List<String> topics = bus.getTopics();
+        for (int i = 0; i < topics.size(); i++) {
+            String topic = topics.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            // 主题名只允许 [a-z0-9._-]，无需转义
+            json.append("{\"name\":\"").append(topic)
+                    .append("\",\"firstOffset\":").append(bus.getFirstOffset(topic))
+                    .append(",\"endOffset\":").append(bus.getEndOffset(topic))
+                    .append(",\"segments\":").append(bus.getSegmentCount(topic))
+                    .append('}');
+        }
+        json.append("],\"publishedEvents\":").append(bus.getPublishedEvents())
+                .append(",\"failedEvents\":").append(bus.getFailedEvents())
+                .append(",\"queueDepth\":").append(bus.getQueueDepth())
+                .append('}');
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message == null ? "" : message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private static Map<String, String> queryParams(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return params;
+    }
+
+    private static long longParam(Map<String, String> params, String name, long defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("EVENT_BUS_SERVER_STOPPED: port: {}", port);
+    }
+}
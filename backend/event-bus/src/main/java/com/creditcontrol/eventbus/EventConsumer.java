@@ -0,0 +1,135 @@
+package com.creditcontrol.eventbus;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拉取式消费者
+ * 单线程循环: 从已提交的offset拉取 → 交给处理器 → 提交新offset。拉取或处理失败时按指数退避重试同一批，
+ * offset早于主题保留范围时从最早的事件继续并记录跳过的数量。
+ */
+@Slf4j
+public class EventConsumer implements Closeable {
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final String name;
+    private final String topic;
+    private final EventSource source;
+    private final OffsetStore offsets;
+    private final EventHandler handler;
+    private final int maxBytes;
+    private final long waitMs;
+
+    private volatile boolean running;
+    private volatile long position;
+    private volatile long consumedEvents;
+    private volatile long failures;
+    private volatile long skippedEvents;
+    private Thread thread;
+
+    public EventConsumer(String name, String topic, EventSource source, OffsetStore offsets, EventHandler handler,
+                         int maxBytes, long waitMs) {
+        this.name = name;
+        this.topic = topic;
+        this.source = source;
+        this.offsets = offsets;
+        this.handler = handler;
+        this.maxBytes = maxBytes;
+        this.waitMs = waitMs;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        position = offsets.get(topic, 0);
+        running = true;
+        thread = new Thread(this::consumeLoop, "eventbus-consumer-" + name);
+        thread.start();
+        log.info("EVENT_CONSUMER_STARTED: consumer: {}, topic: {}, offset: {}", name, topic, position);
+    }
+
+    private void consumeLoop() {
+        long backoff = 100;
+        while (running) {
+            try {
+                EventBatch batch = source.fetch(topic, position, maxBytes, waitMs);
+                if (batch.isTruncated()) {
+                    long skipped = batch.getFirstOffset() - position;
+                    skippedEvents += Math.max(0, skipped);
+                    log.warn("EVENT_CONSUMER_TRUNCATED: consumer: {}, topic: {}, offset: {}, firstOffset: {}",
+                            name, topic, position, batch.getFirstOffset());
+                }
+                if (!batch.getEvents().isEmpty()) {
+                    handler.handle(batch.getEvents());
+                    consumedEvents += batch.getEvents().size();
+                }
+                if (batch.getNextOffset() != position) {
+                    offsets.commit(topic, batch.getNextOffset());
+                    position = batch.getNextOffset();
+                }
+                backoff = 100;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failures++;
+                log.error("EVENT_CONSUMER_FAILED: consumer: {}, topic: {}, offset: {}, retryInMs: {} - {}",
+                        name, topic, position, backoff, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * 下一条要处理的事件的offset
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    public long getConsumedEvents() {
+        return consumedEvents;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getSkippedEvents() {
+        return skippedEvents;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("EVENT_CONSUMER_STOPPED: consumer: {}, topic: {}, offset: {}, consumed: {}",
+                name, topic, position, consumedEvents);
+    }
+}
@@ -0,0 +1,82 @@
+package com.creditcontrol.eventbus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 事件帧编解码
+ * 帧格式: [int 长度][int CRC32][long offset][long 时间戳][short 键长度 (-1为null)][键 UTF-8][内容]，
+ * 长度和CRC只覆盖头部之后的字节。日志文件和HTTP响应使用同一格式，服务端直接返回日志中的字节。
+ */
+final class EventFrames {
+
+    static final int HEADER_BYTES = 8;
+    static final int FIXED_BYTES = 8 + 8 + 2;
+    /** 头部加offset，跳过帧时只需读这么多字节 */
+    static final int PEEK_BYTES = HEADER_BYTES + 8;
+
+    private EventFrames() {
+    }
+
+    static int frameLength(byte[] key, byte[] payload) {
+        return HEADER_BYTES + FIXED_BYTES + (key == null ? 0 : key.length) + payload.length;
+    }
+
+    static void encode(ByteBuffer buffer, long offset, long timestamp, byte[] key, byte[] payload, CRC32 crc) {
+        int start = buffer.position();
+        int length = FIXED_BYTES + (key == null ? 0 : key.length) + payload.length;
+        buffer.position(start + HEADER_BYTES);
+        buffer.putLong(offset).putLong(timestamp);
+        if (key == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) key.length).put(key);
+        }
+        buffer.put(payload);
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + HEADER_BYTES, length);
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    /**
+     * 解码缓冲区中的完整帧并校验CRC，校验失败时抛出EventBusException
+     */
+    static List<Event> decode(ByteBuffer frames) {
+        List<Event> events = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        int position = frames.position();
+        int limit = frames.limit();
+        while (limit - position >= HEADER_BYTES) {
+            int length = frames.getInt(position);
+            int payloadStart = position + HEADER_BYTES;
+            if (length < FIXED_BYTES || length > limit - payloadStart) {
+                break;
+            }
+            crc.reset();
+            crc.update(frames.slice(payloadStart, length));
+            if ((int) crc.getValue() != frames.getInt(position + 4)) {
+                throw new EventBusException("Event frame checksum mismatch at byte " + position);
+            }
+            long offset = frames.getLong(payloadStart);
+            long timestamp = frames.getLong(payloadStart + 8);
+            int keyLength = frames.getShort(payloadStart + 16);
+            int cursor = payloadStart + FIXED_BYTES;
+            String key = null;
+            if (keyLength >= 0) {
+                byte[] keyBytes = new byte[keyLength];
+                frames.get(cursor, keyBytes);
+                key = new String(keyBytes, StandardCharsets.UTF_8);
+                cursor += keyLength;
+            }
+            byte[] payload = new byte[payloadStart + length - cursor];
+            frames.get(cursor, payload);
+            events.add(new Event(offset, timestamp, key, payload));
+            position = payloadStart + length;
+        }
+        return events;
+    }
+}
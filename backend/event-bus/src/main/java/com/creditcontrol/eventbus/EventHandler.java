@@ -0,0 +1,12 @@
+package com.creditcontrol.eventbus;
+
+import java.util.List;
+
+/**
+ * 消费者的事件处理器，正常返回后提交offset；抛出异常时同一批事件稍后重新投递
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+    void handle(List<Event> events) throws Exception;
+}
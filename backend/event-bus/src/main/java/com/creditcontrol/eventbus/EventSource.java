@@ -0,0 +1,14 @@
+package com.creditcontrol.eventbus;
+
+import java.io.IOException;
+
+/**
+ * 事件拉取接口，本进程的 {@link EventBus} 和远程的 {@link RemoteEventSource} 都实现它
+ */
+public interface EventSource {
+
+    /**
+     * 从offset开始拉取最多约maxBytes字节的事件；没有新事件时最多等待waitMs毫秒
+     */
+    EventBatch fetch(String topic, long offset, int maxBytes, long waitMs) throws IOException, InterruptedException;
+}
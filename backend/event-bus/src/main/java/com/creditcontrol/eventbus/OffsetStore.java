@@ -0,0 +1,56 @@
+package com.creditcontrol.eventbus;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * 消费者offset存储
+ * 每个消费者一个properties文件 (主题=下次拉取的offset)，先写临时文件并fsync再原子替换，进程或系统崩溃时保留上一次提交的内容。
+ * 处理在提交之前，崩溃后最后一批事件会重新投递 (至少一次)，处理器需要按offset或事件内容去重。
+ */
+@Slf4j
+public class OffsetStore {
+
+    private final Path file;
+    private final Properties offsets = new Properties();
+
+    public OffsetStore(Path directory, String consumer) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(consumer + ".offsets");
+        if (Files.exists(file)) {
+            try (InputStream input = Files.newInputStream(file)) {
+                offsets.load(input);
+            }
+            log.info("EVENT_OFFSETS_LOADED: consumer: {}, offsets: {}", consumer, offsets);
+        }
+    }
+
+    public synchronized long get(String topic, long defaultOffset) {
+        String value = offsets.getProperty(topic);
+        return value == null ? defaultOffset : Long.parseLong(value);
+    }
+
+    public synchronized void commit(String topic, long offset) throws IOException {
+        offsets.setProperty(topic, Long.toString(offset));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream output = Channels.newOutputStream(channel);
+            offsets.store(output, null);
+            output.flush();
+            // 改名前先落盘，否则掉电后可能留下改名已生效但内容为空的offset文件
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
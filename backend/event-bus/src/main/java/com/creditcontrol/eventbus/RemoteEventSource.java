@@ -0,0 +1,61 @@
+package com.creditcontrol.eventbus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 通过 {@link EventBusServer} 的HTTP接口拉取事件，HTTP/1.1长连接复用
+ */
+public class RemoteEventSource implements EventSource {
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final Duration timeout;
+
+    /**
+     * @param baseUrl 如 http://127.0.0.1:9081
+     */
+    public RemoteEventSource(String baseUrl, Duration timeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public EventBatch fetch(String topic, long offset, int maxBytes, long waitMs) throws IOException, InterruptedException {
+        URI uri = URI.create(baseUrl + "/eventbus/topics/" + URLEncoder.encode(topic, StandardCharsets.UTF_8)
+                + "/events?offset=" + offset + "&maxBytes=" + maxBytes + "&waitMs=" + waitMs);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout.plusMillis(waitMs))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Event fetch failed with HTTP " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        List<Event> events = EventFrames.decode(ByteBuffer.wrap(response.body()));
+        return new EventBatch(events,
+                longHeader(response, EventBusServer.NEXT_OFFSET_HEADER),
+                longHeader(response, EventBusServer.FIRST_OFFSET_HEADER),
+                longHeader(response, EventBusServer.END_OFFSET_HEADER),
+                Boolean.parseBoolean(response.headers().firstValue(EventBusServer.TRUNCATED_HEADER).orElse("false")));
+    }
+
+    private static long longHeader(HttpResponse<?> response, String name) throws IOException {
+        String value = response.headers().firstValue(name)
+                .orElseThrow(() -> new IOException("Missing response header " + name));
+        return Long.parseLong(value);
+    }
+}
@@ -0,0 +1,480 @@
+package com.creditcontrol.eventbus;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 单个主题的分段日志
+ * 按大小分段 (events-<首个offset>.log)，帧不跨分段；每个分段在内存中保留稀疏索引 (约每4KB一项)，打开时扫描重建。
+ * 只有总线写线程追加；读者可以并发读取，只能看到已提交 (offset小于nextOffset) 的帧。
+ */
+@Slf4j
+final class TopicLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int INDEX_INTERVAL_BYTES = 4096;
+
+    private final String topic;
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final CRC32 writeCrc = new CRC32();
+    private final Object appended = new Object();
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(256 * 1024);
+    private FileChannel channel;
+    private Segment active;
+    private long channelSize;
+    private long lastIndexedPosition;
+    private long pendingNextOffset;
+    private Segment markSegment;
+    private long markSize;
+    private long markNextOffset;
+
+    /** 读者可见的最后一条事件的offset + 1 */
+    private volatile long nextOffset;
+
+    TopicLog(String topic, Path directory, long segmentBytes, boolean fsync) {
+        this.topic = topic;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 扫描所有分段重建索引，截断最后一个分段中不完整的尾帧
+     */
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> bases = segmentBases();
+        for (int i = 0; i < bases.size(); i++) {
+            boolean last = i == bases.size() - 1;
+            Segment segment = new Segment(bases.get(i), segmentPath(bases.get(i)));
+            long size = Files.size(segment.path);
+            long validBytes = scan(segment, size);
+            if (validBytes < size) {
+                if (!last) {
+                    segment.close();
+                    throw new EventBusException("Event log segment " + segment.path + " is corrupt at offset " + validBytes);
+                }
+                log.warn("EVENT_LOG_RECOVERY: truncating torn tail of {} from {} to {} bytes", segment.path, size, validBytes);
+                try (FileChannel recovery = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                    recovery.truncate(validBytes);
+                    recovery.force(true);
+                }
+            }
+            segment.size = validBytes;
+            segments.put(segment.baseOffset, segment);
+        }
+        if (!segments.isEmpty()) {
+            active = segments.lastEntry().getValue();
+            channel = FileChannel.open(active.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channelSize = active.size;
+            lastIndexedPosition = active.lastIndexedPosition();
+            nextOffset = active.nextOffset;
+        }
+        pendingNextOffset = nextOffset;
+    }
+
+    /**
+     * 把一批事件编码写入缓冲区，分配offset；提交前读者不可见
+     */
+    void append(List<PendingEvent> events, long timestamp) throws IOException {
+        for (PendingEvent event : events) {
+            int frameLength = EventFrames.frameLength(event.key, event.payload);
+            long pendingSize = channelSize + writeBuffer.position();
+            if (active == null || (pendingSize > 0 && pendingSize + frameLength > segmentBytes)) {
+                flush(false);
+                roll(pendingNextOffset);
+            }
+            if (writeBuffer.remaining() < frameLength) {
+                flush(false);
+                if (writeBuffer.capacity() < frameLength) {
+                    writeBuffer = ByteBuffer.allocate(frameLength);
+                }
+            }
+            long position = channelSize + writeBuffer.position();
+            if (position == 0 || position - lastIndexedPosition >= INDEX_INTERVAL_BYTES) {
+                active.addIndex(pendingNextOffset, position);
+                lastIndexedPosition = position;
+            }
+            EventFrames.encode(writeBuffer, pendingNextOffset, timestamp, event.key, event.payload, writeCrc);
+            event.offset = pendingNextOffset++;
+        }
+    }
+
+    /**
+     * 记录一批追加开始前的位置
+     */
+    void mark() {
+        markSegment = active;
+        markSize = channelSize;
+        markNextOffset = pendingNextOffset;
+    }
+
+    /**
+     * 写出缓冲区 (按配置fsync)，之后读者可以看到本批事件并唤醒等待的拉取
+     */
+    void commit() throws IOException {
+        flush(fsync);
+        nextOffset = pendingNextOffset;
+        synchronized (appended) {
+            appended.notifyAll();
+        }
+    }
+
+    /**
+     * 写入失败时回滚到mark位置: 删除本批新建的分段，截断原分段中本批已写出的帧
+     */
+    void rollback() throws IOException {
+        writeBuffer.clear();
+        while (active != null && active != markSegment) {
+            channel.close();
+            channel = null;
+            segments.remove(active.baseOffset);
+            active.close();
+            Files.deleteIfExists(active.path);
+            Map.Entry<Long, Segment> previous = segments.lastEntry();
+            active = previous == null ? null : previous.getValue();
+            if (active != null) {
+                channel = FileChannel.open(active.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        }
+        pendingNextOffset = markNextOffset;
+        if (active == null) {
+            channelSize = 0L;
+            return;
+        }
+        channel.truncate(markSize);
+        channelSize = markSize;
+        active.size = markSize;
+        active.truncateIndex(markNextOffset);
+        lastIndexedPosition = active.lastIndexedPosition();
+    }
+
+    /**
+     * 从offset开始读取已提交的完整帧，最多约maxBytes字节 (单帧超过maxBytes时仍返回这一帧)
+     */
+    ReadResult read(long offset, int maxBytes) throws IOException {
+        long end = nextOffset;
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        long firstOffset = first == null ? end : first.getKey();
+        boolean truncated = offset < firstOffset;
+        long from = Math.max(offset, firstOffset);
+        if (from >= end) {
+            return new ReadResult(ByteBuffer.allocate(0), 0, Math.min(from, end), firstOffset, end, truncated);
+        }
+
+        Segment segment = segments.floorEntry(from).getValue();
+        long limit = segment.size;
+        long position = segment.floorPosition(from);
+        ByteBuffer peek = ByteBuffer.allocate(EventFrames.PEEK_BYTES);
+        int frameLength;
+        while (true) {
+            if (position + EventFrames.PEEK_BYTES > limit) {
+                return new ReadResult(ByteBuffer.allocate(0), 0, from, firstOffset, end, truncated);
+            }
+            readFully(segment.channel, peek.clear(), position);
+            frameLength = EventFrames.HEADER_BYTES + peek.getInt(0);
+            if (peek.getLong(EventFrames.HEADER_BYTES) >= from) {
+                break;
+            }
+            position += frameLength;
+        }
+
+        int want = (int) Math.min(limit - position, Math.max(maxBytes, frameLength));
+        ByteBuffer chunk = ByteBuffer.allocate(want);
+        readFully(segment.channel, chunk, position);
+        int used = 0;
+        int count = 0;
+        long next = from;
+        while (want - used >= EventFrames.PEEK_BYTES) {
+            int length = EventFrames.HEADER_BYTES + chunk.getInt(used);
+            long frameOffset = chunk.getLong(used + EventFrames.HEADER_BYTES);
+            if (used + length > want || frameOffset >= end) {
+                break;
+            }
+            used += length;
+            next = frameOffset + 1;
+            count++;
+        }
+        chunk.position(0).limit(used);
+        return new ReadResult(chunk, count, next, firstOffset, end, truncated);
+    }
+
+    /**
+     * 等待offset之后有新事件提交，返回是否已有
+     */
+    boolean awaitAppend(long offset, long waitMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMs;
+        synchronized (appended) {
+            long remaining = waitMs;
+            while (nextOffset <= offset && remaining > 0) {
+                appended.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+        return nextOffset > offset;
+    }
+
+    /**
+     * 删除最后修改时间早于cutoff的非活动分段，返回删除的分段数；只由写线程调用
+     */
+    int deleteSegmentsBefore(long cutoff) throws IOException {
+        int deleted = 0;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active || Files.getLastModifiedTime(segment.path).toMillis() >= cutoff) {
+                continue;
+            }
+            segments.remove(segment.baseOffset);
+            segment.close();
+            Files.deleteIfExists(segment.path);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    long getNextOffset() {
+        return nextOffset;
+    }
+
+    long getFirstOffset() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first == null ? nextOffset : first.getKey();
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush(true);
+            channel.close();
+            channel = null;
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private void roll(long baseOffset) throws IOException {
+        if (channel != null) {
+            if (fsync) {
+                channel.force(false);
+            }
+            channel.close();
+        }
+        Segment segment = new Segment(baseOffset, segmentPath(baseOffset));
+        channel = FileChannel.open(segment.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment.size = 0L;
+        segment.nextOffset = baseOffset;
+        segments.put(baseOffset, segment);
+        active = segment;
+        channelSize = 0L;
+        lastIndexedPosition = 0L;
+        log.debug("EVENT_LOG_SEGMENT_ROLLED: topic: {}, baseOffset: {}", topic, baseOffset);
+    }
+
+    private void flush(boolean force) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channelSize += channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        if (active != null) {
+            active.size = channelSize;
+        }
+        if (force && channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 内存映射扫描一个分段，校验每帧并重建稀疏索引，返回最后一个有效帧结束处的偏移量
+     */
+    private static long scan(Segment segment, long size) throws IOException {
+        segment.nextOffset = segment.baseOffset;
+        if (size == 0) {
+            return 0L;
+        }
+        MappedByteBuffer buffer = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        long lastIndexed = -INDEX_INTERVAL_BYTES;
+        int offset = 0;
+        while (size - offset >= EventFrames.HEADER_BYTES) {
+            int length = buffer.getInt(offset);
+            int payloadStart = offset + EventFrames.HEADER_BYTES;
+            if (length < EventFrames.FIXED_BYTES || length > size - payloadStart) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(payloadStart, length));
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("EVENT_LOG_CORRUPT_FRAME: {} at offset {} - checksum mismatch", segment.path, offset);
+                break;
+            }
+            long frameOffset = buffer.getLong(payloadStart);
+            if (frameOffset != segment.nextOffset) {
+                log.warn("EVENT_LOG_CORRUPT_FRAME: {} at offset {} - expected event {}, found {}",
+                        segment.path, offset, segment.nextOffset, frameOffset);
+                break;
+            }
+            if (offset - lastIndexed >= INDEX_INTERVAL_BYTES) {
+                segment.addIndex(frameOffset, offset);
+                lastIndexed = offset;
+            }
+            segment.nextOffset = frameOffset + 1;
+            offset = payloadStart + length;
+        }
+        return offset;
+    }
+
+    private static void readFully(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = file.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of event log at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+    }
+
+    private List<Long> segmentBases() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(bases::add);
+        }
+        return bases;
+    }
+
+    private Path segmentPath(long baseOffset) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, baseOffset, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 待写入的事件，offset在写入后设置
+     */
+    static final class PendingEvent {
+
+        final byte[] key;
+        final byte[] payload;
+        long offset;
+
+        PendingEvent(byte[] key, byte[] payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * 一次读取的结果，frames是完整帧的原始字节
+     */
+    static final class ReadResult {
+
+        final ByteBuffer frames;
+        final int count;
+        final long nextOffset;
+        final long firstOffset;
+        final long endOffset;
+        final boolean truncated;
+
+        ReadResult(ByteBuffer frames, int count, long nextOffset, long firstOffset, long endOffset, boolean truncated) {
+            this.frames = frames;
+            this.count = count;
+            this.nextOffset = nextOffset;
+            this.firstOffset = firstOffset;
+            this.endOffset = endOffset;
+            this.truncated = truncated;
+        }
+    }
+
+    /**
+     * 日志分段，读通道可被多个读者并发使用 (按位置读取)
+     */
+    private static final class Segment implements Closeable {
+
+        final long baseOffset;
+        final Path path;
+        final FileChannel channel;
+        /** 已写出的字节数 */
+        volatile long size;
+        long nextOffset;
+
+        private long[] indexOffsets = new long[64];
+        private long[] indexPositions = new long[64];
+        private int indexSize;
+
+        Segment(long baseOffset, Path path) throws IOException {
+            this.baseOffset = baseOffset;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        synchronized void addIndex(long offset, long position) {
+            if (indexSize == indexOffsets.length) {
+                indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+                indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+            }
+            indexOffsets[indexSize] = offset;
+            indexPositions[indexSize] = position;
+            indexSize++;
+        }
+
+        /**
+         * 不大于offset的最后一个索引项的文件位置
+         */
+        synchronized long floorPosition(long offset) {
+            int index = Arrays.binarySearch(indexOffsets, 0, indexSize, offset);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index < 0 ? 0L : indexPositions[index];
+        }
+
+        synchronized void truncateIndex(long offset) {
+            while (indexSize > 0 && indexOffsets[indexSize - 1] >= offset) {
+                indexSize--;
+            }
+            nextOffset = offset;
+        }
+
+        synchronized long lastIndexedPosition() {
+            return indexSize == 0 ? -INDEX_INTERVAL_BYTES : indexPositions[indexSize - 1];
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.creditcontrol.eventbus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 主题日志: 提交可见性、分段滚动、稀疏索引读取、回滚与启动恢复
+ */
+class TopicLogTest {
+
+    private static final long SEGMENT_BYTES = 16 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final List<TopicLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeLogs() throws IOException {
+        for (TopicLog topicLog : opened) {
+            topicLog.close();
+        }
+    }
+
+    @Test
+    void makesEventsVisibleOnlyAfterCommit() throws IOException {
+        TopicLog topicLog = open();
+        List<TopicLog.PendingEvent> batch = events(0, 3);
+        topicLog.append(batch, 1_000L);
+
+        assertThat(topicLog.read(0, 4096).count).isZero();
+        assertThat(batch).extracting(event -> event.offset).containsExactly(0L, 1L, 2L);
+
+        topicLog.commit();
+        List<Event> events = read(topicLog, 0, 4096);
+        assertThat(events).extracting(Event::getOffset).containsExactly(0L, 1L, 2L);
+        assertThat(events.get(1).getKey()).isEqualTo("key-1");
+        assertThat(events.get(1).getPayloadAsString()).isEqualTo("payload-1");
+        assertThat(events.get(1).getTimestamp()).isEqualTo(1_000L);
+    }
+
+    @Test
+    void readsFromAnyOffsetAcrossSegments() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 2000);
+
+        assertThat(topicLog.getSegmentCount()).isGreaterThan(1);
+        for (long from : new long[]{0, 1, 37, 999, 1500, 1999}) {
+            TopicLog.ReadResult result = topicLog.read(from, 64);
+            List<Event> events = EventFrames.decode(result.frames);
+            assertThat(events).isNotEmpty();
+            assertThat(events.get(0).getOffset()).isEqualTo(from);
+            assertThat(result.nextOffset).isEqualTo(events.get(events.size() - 1).getOffset() + 1);
+        }
+        assertThat(topicLog.read(2000, 4096).count).isZero();
+        assertThat(topicLog.read(2000, 4096).nextOffset).isEqualTo(2000L);
+    }
+
+    @Test
+    void reopensWithSameOffsets() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 500);
+        topicLog.close();
+        opened.remove(topicLog);
+
+        TopicLog reopened = open();
+        assertThat(reopened.getNextOffset()).isEqualTo(500L);
+        assertThat(read(reopened, 250, 1).get(0).getKey()).isEqualTo("key-250");
+
+        List<TopicLog.PendingEvent> batch = events(500, 1);
+        reopened.append(batch, 2_000L);
+        reopened.commit();
+        assertThat(batch.get(0).offset).isEqualTo(500L);
+    }
+
+    @Test
+    void truncatesTornTailOfLastSegment() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 10);
+        topicLog.close();
+        opened.remove(topicLog);
+        Path last = lastSegment();
+        long intact = Files.size(last);
+        // 崩溃时只写出了帧头和部分载荷
+        Files.write(last, new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        TopicLog reopened = open();
+        assertThat(Files.size(last)).isEqualTo(intact);
+        assertThat(reopened.getNextOffset()).isEqualTo(10L);
+        appendAndCommit(reopened, 10, 1);
+        assertThat(read(reopened, 9, 4096)).extracting(Event::getOffset).containsExactly(9L, 10L);
+    }
+
+    @Test
+    void truncatesAtChecksumMismatchInLastSegment() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 10);
+        topicLog.close();
+        opened.remove(topicLog);
+        Path last = lastSegment();
+        long frame = EventFrames.frameLength(key(0), payload(0));
+        flipByte(last, 5 * frame + 20);
+
+        TopicLog reopened = open();
+        assertThat(reopened.getNextOffset()).isEqualTo(5L);
+        assertThat(Files.size(last)).isEqualTo(5 * frame);
+    }
+
+    @Test
+    void refusesToOpenWithCorruptEarlierSegment() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 2000);
+        topicLog.close();
+        opened.remove(topicLog);
+        Path first;
+        try (Stream<Path> files = Files.list(directory)) {
+            first = files.sorted().findFirst().orElseThrow();
+        }
+        flipByte(first, 100);
+
+        TopicLog reopened = new TopicLog("test", directory, SEGMENT_BYTES, false);
+        assertThatThrownBy(reopened::open).isInstanceOf(EventBusException.class);
+    }
+
+    @Test
+    void rollsBackUncommittedBatchIncludingNewSegments() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 100);
+        int segments = topicLog.getSegmentCount();
+
+        topicLog.mark();
+        // 追加时滚动出的新分段已经写出，模拟提交前写入失败
+        topicLog.append(events(100, 2000), 2_000L);
+        assertThat(topicLog.getSegmentCount()).isGreaterThan(segments);
+        topicLog.rollback();
+
+        assertThat(topicLog.getSegmentCount()).isEqualTo(segments);
+        assertThat(topicLog.getNextOffset()).isEqualTo(100L);
+        List<TopicLog.PendingEvent> batch = events(100, 1);
+        topicLog.append(batch, 3_000L);
+        topicLog.commit();
+        assertThat(batch.get(0).offset).isEqualTo(100L);
+        topicLog.close();
+        opened.remove(topicLog);
+
+        TopicLog reopened = open();
+        assertThat(reopened.getNextOffset()).isEqualTo(101L);
+        assertThat(read(reopened, 100, 4096)).singleElement()
+                .satisfies(event -> assertThat(event.getTimestamp()).isEqualTo(3_000L));
+    }
+
+    @Test
+    void reportsTruncationAfterSegmentsAreDeleted() throws IOException {
+        TopicLog topicLog = open();
+        appendAndCommit(topicLog, 0, 2000);
+        int segments = topicLog.getSegmentCount();
+
+        assertThat(topicLog.deleteSegmentsBefore(Long.MAX_VALUE)).isEqualTo(segments - 1);
+        long firstOffset = topicLog.getFirstOffset();
+        assertThat(firstOffset).isPositive();
+
+        TopicLog.ReadResult result = topicLog.read(0, 64);
+        assertThat(result.truncated).isTrue();
+        assertThat(result.firstOffset).isEqualTo(firstOffset);
+        assertThat(EventFrames.decode(result.frames).get(0).getOffset()).isEqualTo(firstOffset);
+    }
+
+    private TopicLog open() throws IOException {
+        TopicLog topicLog = new TopicLog("test", directory, SEGMENT_BYTES, false);
+        topicLog.open();
+        opened.add(topicLog);
+        return topicLog;
+    }
+
+    private static void appendAndCommit(TopicLog topicLog, int from, int count) throws IOException {
+        topicLog.append(events(from, count), 1_000L);
+        topicLog.commit();
+    }
+
+    private static List<Event> read(TopicLog topicLog, long offset, int maxBytes) throws IOException {
+        return EventFrames.decode(topicLog.read(offset, maxBytes).frames);
+    }
+
+    private static List<TopicLog.PendingEvent> events(int from, int count) {
+        List<TopicLog.PendingEvent> events = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            events.add(new TopicLog.PendingEvent(key(i), payload(i)));
+        }
+        return events;
+    }
+
+    private static byte[] key(int i) {
+        return String.format("key-%d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("payload-%d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+    private static void flipByte(Path path, long offset) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            file.read(one, offset);
+            one.put(0, (byte) (one.get(0) ^ 0x01)).rewind();
+            file.write(one, offset);
+        }
+    }
+}
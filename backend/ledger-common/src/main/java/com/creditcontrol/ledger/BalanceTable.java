@@ -0,0 +1,148 @@
+package com.creditcontrol.ledger;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 账户余额表
+ * 开放寻址的 long→long 哈希表 (账户ID不为0，0表示空槽)。只有账本写线程修改，
+ * 读取使用乐观读，写线程每批次只加一次写锁。
+ */
+final class BalanceTable {
+
+    private static final long EMPTY = 0L;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    BalanceTable(int expectedAccounts) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedAccounts * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    long get(long account) {
+        long stamp = lock.tryOptimisticRead();
+        long[] currentKeys = keys;
+        long[] currentValues = values;
+        // 扩容替换数组期间两者长度可能不一致，此时直接退回读锁
+        long balance = currentKeys.length == currentValues.length ? find(currentKeys, currentValues, account) : 0L;
+        if (currentKeys.length != currentValues.length || !lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                balance = find(keys, values, account);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return balance;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 入账一批分录，期间阻塞读取
+     */
+    void apply(LedgerEntry[] entries, int count) {
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < count; i++) {
+                LedgerEntry entry = entries[i];
+                long[] accounts = entry.getAccounts();
+                long[] amounts = entry.getAmounts();
+                for (int p = 0; p < accounts.length; p++) {
+                    add(accounts[p], amounts[p]);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 回放时使用，调用方保证没有并发读取
+     */
+    void add(long account, long amount) {
+        int mask = keys.length - 1;
+        int slot = slot(account, mask);
+        while (true) {
+            long key = keys[slot];
+            if (key == account) {
+                values[slot] += amount;
+                return;
+            }
+            if (key == EMPTY) {
+                keys[slot] = account;
+                values[slot] = amount;
+                if (++size * 4 > keys.length * 3) {
+                    resize();
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * 复制非空余额，返回 [账户ID数组, 余额数组]，只能由写线程调用
+     */
+    long[][] snapshot() {
+        long[] snapshotKeys = new long[size];
+        long[] snapshotValues = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                snapshotKeys[n] = keys[i];
+                snapshotValues[n] = values[i];
+                n++;
+            }
+        }
+        return new long[][]{snapshotKeys, snapshotValues};
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        long[] newKeys = new long[oldKeys.length * 2];
+        long[] newValues = new long[oldKeys.length * 2];
+        int mask = newKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], mask);
+                while (newKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newValues[slot] = oldValues[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static long find(long[] keys, long[] values, long account) {
+        int mask = keys.length - 1;
+        int slot = slot(account, mask);
+        // 乐观读可能看到扩容中的数组，最多探测一整圈
+        for (int probes = 0; probes < keys.length; probes++) {
+            long key = keys[slot];
+            if (key == account) {
+                return values[slot];
+            }
+            if (key == EMPTY) {
+                return 0L;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0L;
+    }
+
+    private static int slot(long account, int mask) {
+        long h = account * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,307 @@
+package com.creditcontrol.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 复式记账账本
+ * 调用方按事务提交记账 (一次post是一帧，要么全部入账要么全部不入账)，单个写线程把队列中的
+ * 多次提交合并为一组写入并一次fsync，落盘后更新内存余额再完成Future。
+ * 每入账checkpointInterval笔分录后台写一次余额检查点，重启时加载最新检查点并只回放其后的帧。
+ */
+@Slf4j
+public class Ledger implements Closeable {
+
+    private static final int MAX_GROUP_POSTS = 1024;
+
+    private final Path directory;
+    private final long checkpointInterval;
+    private final int queueCapacity;
+    private final LedgerLog ledgerLog;
+    private final LedgerCheckpoint checkpoint;
+    private final BalanceTable balances = new BalanceTable(1024);
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+
+    private BlockingQueue<PendingPost> queue;
+    private ExecutorService checkpointExecutor;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile IOException failure;
+
+    private volatile long lastSequence;
+    private volatile long lastSourceTimestamp;
+    private volatile long checkpointSequence;
+    private volatile long postedEntries;
+    private volatile long committedGroups;
+
+    public Ledger(Path directory, long segmentBytes, long checkpointInterval, int queueCapacity) {
+        if (segmentBytes < 1024 * 1024 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ledger segment size must be between 1MB and 2GB");
+        }
+        this.directory = directory;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        this.queueCapacity = queueCapacity;
+        this.ledgerLog = new LedgerLog(directory, segmentBytes);
+        this.checkpoint = new LedgerCheckpoint(directory);
+    }
+
+    /**
+     * 加载检查点、回放其后的日志帧并启动写线程
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        long startTime = System.currentTimeMillis();
+
+        long[] position = checkpoint.load(balances);
+        long checkpointAccounts = balances.size();
+        LedgerLog.ReplayResult replay = ledgerLog.replay(position[0], balances);
+        checkpointSequence = position[0];
+        lastSequence = replay.lastSequence;
+        lastSourceTimestamp = Math.max(position[1], replay.lastSourceTimestamp);
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        checkpointExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ledger-checkpoint"));
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-writer");
+        writer.start();
+        log.info("LEDGER_OPENED: directory: {}, checkpointSequence: {}, checkpointAccounts: {}, replayedFrames: {}, "
+                        + "replayedPostings: {}, segments: {}, lastSequence: {}, accounts: {}, duration: {}ms",
+                directory, checkpointSequence, checkpointAccounts, replay.frames, replay.postings, replay.segments,
+                lastSequence, balances.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 提交一笔事务的全部分录，返回的Future在落盘并入账后完成，值为最后一笔分录的序号。
+     * 队列已满时阻塞调用方 (背压)；账本写入失败后拒绝后续提交，由上游在重启后补记。
+     */
+    public CompletableFuture<Long> post(long sourceTimestamp, List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Ledger post must contain at least one entry");
+        }
+        if (!running) {
+            throw new LedgerException("Ledger is not open");
+        }
+        if (failure != null) {
+            throw new LedgerException("Ledger is unavailable after a write failure", failure);
+        }
+        PendingPost pending = new PendingPost(sourceTimestamp, List.copyOf(entries));
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerException("Interrupted while queueing ledger post", e);
+        }
+        return pending.future;
+    }
+
+    public CompletableFuture<Long> post(long sourceTimestamp, LedgerEntry entry) {
+        return post(sourceTimestamp, List.of(entry));
+    }
+
+    /**
+     * 账户当前余额 (借方为正)，只包含已落盘的分录
+     */
+    public long getBalance(long accountId) {
+        return balances.get(accountId);
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * 已入账提交中最大的来源时间戳，上游据此判断重启后需要补记的范围
+     */
+    public long getLastSourceTimestamp() {
+        return lastSourceTimestamp;
+    }
+
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    public long getPostedEntries() {
+        return postedEntries;
+    }
+
+    public long getCommittedGroups() {
+        return committedGroups;
+    }
+
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    public int getAccountCount() {
+        return balances.size();
+    }
+
+    /**
+     * 停止写线程，写入最终检查点并关闭日志
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            checkpointExecutor.shutdown();
+            checkpointExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure == null && lastSequence > checkpointSequence) {
+            long[][] snapshot = balances.snapshot();
+            checkpoint.save(lastSequence, lastSourceTimestamp, snapshot[0], snapshot[1]);
+            checkpointSequence = lastSequence;
+        }
+        ledgerLog.close();
+        log.info("LEDGER_CLOSED: lastSequence: {}, postedEntries: {}, committedGroups: {}",
+                lastSequence, postedEntries, committedGroups);
+    }
+
+    private void writeLoop() {
+        List<PendingPost> group = new ArrayList<>(MAX_GROUP_POSTS);
+        LedgerEntry[] applied = new LedgerEntry[256];
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPost first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP_POSTS - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                continue;
+            }
+            applied = commit(group, applied);
+            group.clear();
+        }
+    }
+
+    /**
+     * 写入一组提交并fsync，成功后入账并完成Future
+     */
+    private LedgerEntry[] commit(List<PendingPost> group, LedgerEntry[] applied) {
+        if (failure != null) {
+            fail(group, failure);
+            return applied;
+        }
+        long sequence = lastSequence;
+        long sourceTimestamp = lastSourceTimestamp;
+        int entryCount = 0;
+        ledgerLog.mark();
+        try {
+            for (PendingPost pending : group) {
+                ledgerLog.encode(sequence + 1, pending.sourceTimestamp, pending.entries);
+                sequence += pending.entries.size();
+                pending.lastSequence = sequence;
+                sourceTimestamp = Math.max(sourceTimestamp, pending.sourceTimestamp);
+                entryCount += pending.entries.size();
+            }
+            ledgerLog.sync();
+        } catch (IOException | RuntimeException e) {
+            IOException cause = e instanceof IOException io ? io : new IOException(e);
+            log.error("LEDGER_GROUP_FAILED: posts: {} - {}", group.size(), e.getMessage(), e);
+            try {
+                ledgerLog.rollback();
+            } catch (IOException suppressed) {
+                cause.addSuppressed(suppressed);
+            }
+            failure = cause;
+            fail(group, cause);
+            return applied;
+        }
+
+        if (applied.length < entryCount) {
+            applied = new LedgerEntry[Math.max(entryCount, applied.length * 2)];
+        }
+        int n = 0;
+        for (PendingPost pending : group) {
+            for (LedgerEntry entry : pending.entries) {
+                applied[n++] = entry;
+            }
+        }
+        balances.apply(applied, n);
+        Arrays.fill(applied, 0, n, null);
+        lastSequence = sequence;
+        lastSourceTimestamp = sourceTimestamp;
+        postedEntries += entryCount;
+        committedGroups++;
+        for (PendingPost pending : group) {
+            pending.future.complete(pending.lastSequence);
+        }
+
+        if (lastSequence - checkpointSequence >= checkpointInterval) {
+            scheduleCheckpoint();
+        }
+        return applied;
+    }
+
+    /**
+     * 在写线程中复制余额，由后台线程写检查点文件，上一个检查点未写完时跳过
+     */
+    private void scheduleCheckpoint() {
+        if (!checkpointRunning.compareAndSet(false, true)) {
+            return;
+        }
+        long sequence = lastSequence;
+        long sourceTimestamp = lastSourceTimestamp;
+        long[][] snapshot = balances.snapshot();
+        checkpointExecutor.execute(() -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                checkpoint.save(sequence, sourceTimestamp, snapshot[0], snapshot[1]);
+                checkpointSequence = sequence;
+                log.info("LEDGER_CHECKPOINT_WRITTEN: sequence: {}, accounts: {}, duration: {}ms",
+                        sequence, snapshot[0].length, System.currentTimeMillis() - startTime);
+            } catch (IOException | RuntimeException e) {
+                log.error("LEDGER_CHECKPOINT_FAILED: sequence: {} - {}", sequence, e.getMessage(), e);
+            } finally {
+                checkpointRunning.set(false);
+            }
+        });
+    }
+
+    private static void fail(List<PendingPost> group, IOException cause) {
+        LedgerException exception = new LedgerException("Failed to persist ledger postings", cause);
+        for (PendingPost pending : group) {
+            pending.future.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * 等待落盘的一次提交
+     */
+    private static final class PendingPost {
+
+        final long sourceTimestamp;
+        final List<LedgerEntry> entries;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        long lastSequence;
+
+        PendingPost(long sourceTimestamp, List<LedgerEntry> entries) {
+            this.sourceTimestamp = sourceTimestamp;
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.creditcontrol.ledger;
+
+/**
+ * 科目表
+ * 账户ID = 科目代码(高16位) | 所属客户ID(低48位)，系统账户的客户ID为0
+ */
+public enum LedgerAccount {
+
+    /** 已受理、尚未结算的到账款 (系统) */
+    PAYMENT_CLEARING(1),
+
+    /** 已结算到银行的资金 (系统) */
+    BANK(2),
+
+    /** 客户应收账款，客户付款记贷方 */
+    CUSTOMER_RECEIVABLE(3),
+
+    /** 已发放的信用额度总额 (系统) */
+    CREDIT_LINES(4),
+
+    /** 客户可用信用额度 */
+    CREDIT_AVAILABLE(5),
+
+    /** 客户已用信用额度 */
+    CREDIT_USED(6);
+
+    public static final long SYSTEM_OWNER = 0L;
+    private static final int OWNER_BITS = 48;
+    private static final long OWNER_MASK = (1L << OWNER_BITS) - 1;
+
+    private final int code;
+
+    LedgerAccount(int code) {
+        this.code = code;
+    }
+
+    /**
+     * 客户账户ID
+     */
+    public long id(long ownerId) {
+        if (ownerId < 0 || ownerId > OWNER_MASK) {
+            throw new IllegalArgumentException("Ledger account owner out of range: " + ownerId);
+        }
+        return ((long) code << OWNER_BITS) | ownerId;
+    }
+
+    /**
+     * 系统账户ID
+     */
+    public long systemId() {
+        return id(SYSTEM_OWNER);
+    }
+}
@@ -0,0 +1,127 @@
+package com.creditcontrol.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 余额检查点
+ * 文件 checkpoint-<最后序号>.ckpt: [int 魔数][int 版本][long 最后序号][long 来源时间戳][int 账户数]
+ * [(long 账户, long 余额)...][int CRC32]。先写临时文件再原子替换，保留最近若干个。
+ */
+@Slf4j
+final class LedgerCheckpoint {
+
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+    private static final int MAGIC = 0x4C444743;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+    private static final int RETAINED = 2;
+
+    private final Path directory;
+
+    LedgerCheckpoint(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 加载最新的有效检查点到余额表，返回 [最后序号, 来源时间戳]，没有检查点时返回 [0, 0]
+     */
+    long[] load(BalanceTable balances) throws IOException {
+        for (Path path : checkpoints()) {
+            long[] position = read(path, balances);
+            if (position != null) {
+                return position;
+            }
+            log.warn("LEDGER_CHECKPOINT_INVALID: {} - falling back to previous checkpoint", path);
+        }
+        return new long[]{0L, 0L};
+    }
+
+    /**
+     * 写入检查点并删除更早的检查点
+     */
+    void save(long lastSequence, long lastSourceTimestamp, long[] accounts, long[] balances) throws IOException {
+        int length = HEADER_BYTES + accounts.length * 16 + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(lastSequence).putLong(lastSourceTimestamp).putInt(accounts.length);
+        for (int i = 0; i < accounts.length; i++) {
+            buffer.putLong(accounts[i]).putLong(balances[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path target = directory.resolve(String.format("%s%020d%s", CHECKPOINT_PREFIX, lastSequence, CHECKPOINT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> existing = checkpoints();
+        for (int i = RETAINED; i < existing.size(); i++) {
+            Files.deleteIfExists(existing.get(i));
+        }
+    }
+
+    private static long[] read(Path path, BalanceTable balances) throws IOException {
+        long size = Files.size(path);
+        if (size < HEADER_BYTES + 4) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int count = buffer.getInt(24);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || count < 0
+                || size != HEADER_BYTES + (long) count * 16 + 4) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, (int) size - 4));
+        if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+            return null;
+        }
+        int position = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            balances.add(buffer.getLong(position), buffer.getLong(position + 8));
+            position += 16;
+        }
+        return new long[]{buffer.getLong(8), buffer.getLong(16)};
+    }
+
+    /**
+     * 已有检查点，最新的在前
+     */
+    private List<Path> checkpoints() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(CHECKPOINT_PREFIX) && name.endsWith(CHECKPOINT_SUFFIX);
+            }).forEach(paths::add);
+        }
+        paths.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+        return paths;
+    }
+}
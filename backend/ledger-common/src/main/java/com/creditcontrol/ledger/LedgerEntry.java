@@ -0,0 +1,94 @@
+package com.creditcontrol.ledger;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 一笔复式记账分录: 若干借贷明细，借方金额为正、贷方为负，合计必须为0
+ */
+@Getter
+public final class LedgerEntry {
+
+    static final int MAX_POSTINGS = Short.MAX_VALUE;
+
+    private final LedgerEntryType type;
+
+    /** 业务参考号 (例如付款ID) */
+    private final long reference;
+
+    private final long[] accounts;
+
+    private final long[] amounts;
+
+    private LedgerEntry(LedgerEntryType type, long reference, long[] accounts, long[] amounts) {
+        this.type = type;
+        this.reference = reference;
+        this.accounts = accounts;
+        this.amounts = amounts;
+    }
+
+    public int size() {
+        return accounts.length;
+    }
+
+    public static Builder builder(LedgerEntryType type, long reference) {
+        return new Builder(type, reference);
+    }
+
+    public static final class Builder {
+
+        private final LedgerEntryType type;
+        private final long reference;
+        private long[] accounts = new long[4];
+        private long[] amounts = new long[4];
+        private int size;
+
+        private Builder(LedgerEntryType type, long reference) {
+            this.type = type;
+            this.reference = reference;
+        }
+
+        public Builder debit(long account, long amountCents) {
+            return add(account, amountCents);
+        }
+
+        public Builder credit(long account, long amountCents) {
+            return add(account, -amountCents);
+        }
+
+        /**
+         * 生成分录，借贷不平或明细少于两条时抛出IllegalArgumentException
+         */
+        public LedgerEntry build() {
+            if (size < 2) {
+                throw new IllegalArgumentException("Ledger entry needs at least two postings");
+            }
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total = Math.addExact(total, amounts[i]);
+            }
+            if (total != 0) {
+                throw new IllegalArgumentException("Ledger entry is not balanced: " + total);
+            }
+            return new LedgerEntry(type, reference, Arrays.copyOf(accounts, size), Arrays.copyOf(amounts, size));
+        }
+
+        private Builder add(long account, long amountCents) {
+            if (amountCents == 0 || amountCents == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("Posting amount must be non-zero");
+            }
+            if (size == MAX_POSTINGS) {
+                throw new IllegalArgumentException("Too many postings in one ledger entry");
+            }
+            if (size == accounts.length) {
+                accounts = Arrays.copyOf(accounts, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            accounts[size] = account;
+            amounts[size] = amountCents;
+            size++;
+            return this;
+        }
+    }
+}
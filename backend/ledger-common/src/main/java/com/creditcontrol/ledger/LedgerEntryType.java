@@ -0,0 +1,40 @@
+package com.creditcontrol.ledger;
+
+/**
+ * 分录类型，代码写入日志，只能追加不能修改
+ */
+public enum LedgerEntryType {
+
+    PAYMENT_ACCEPTED(1),
+    PAYMENT_SETTLED(2),
+    PAYMENT_FAILED(3),
+    CREDIT_LIMIT_CHANGE(10),
+    CREDIT_DRAW(11),
+    CREDIT_REPAYMENT(12);
+
+    private static final LedgerEntryType[] BY_CODE = new LedgerEntryType[128];
+
+    static {
+        for (LedgerEntryType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    LedgerEntryType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static LedgerEntryType ofCode(int code) {
+        LedgerEntryType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown ledger entry type: " + code);
+        }
+        return type;
+    }
+}
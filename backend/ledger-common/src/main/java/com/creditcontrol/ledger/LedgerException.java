@@ -0,0 +1,15 @@
+package com.creditcontrol.ledger;
+
+/**
+ * 账本异常 (写入队列已满、账本已关闭或落盘失败)
+ */
+public class LedgerException extends RuntimeException {
+
+    public LedgerException(String message) {
+        super(message);
+    }
+
+    public LedgerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
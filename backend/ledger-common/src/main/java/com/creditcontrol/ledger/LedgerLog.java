@@ -0,0 +1,281 @@
+package com.creditcontrol.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 追加写账本日志
+ * 按大小分段 (ledger-<首个序号>.log)，每次提交是一帧:
+ * [int 长度][int CRC32][long 首个序号][long 来源时间戳][int 分录数][分录...]，
+ * 分录为 [long 参考号][byte 类型][short 明细数][(long 账户, long 金额)...]。
+ * 帧是原子单位，恢复时截断最后一个分段中不完整的尾帧。
+ */
+@Slf4j
+final class LedgerLog implements Closeable {
+
+    static final int HEADER_BYTES = 8;
+    static final int FRAME_FIXED_BYTES = 8 + 8 + 4;
+    static final int ENTRY_FIXED_BYTES = 8 + 1 + 2;
+    static final int POSTING_BYTES = 16;
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final CRC32 writeCrc = new CRC32();
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(1024 * 1024);
+    private FileChannel channel;
+    private Path channelSegment;
+    private long channelSize;
+    private Path markSegment;
+    private long markSize;
+
+    LedgerLog(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 回放序号大于afterSequence的帧到余额表，截断最后一个分段的不完整尾帧
+     */
+    ReplayResult replay(long afterSequence, BalanceTable balances) throws IOException {
+        List<Long> segments = segmentSequences();
+        ReplayResult result = new ReplayResult(afterSequence);
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            if (!last && segments.get(i + 1) <= afterSequence + 1) {
+                continue;
+            }
+            Path segment = segmentPath(segments.get(i));
+            long size = Files.size(segment);
+            long validBytes = scan(segment, size, afterSequence, balances, result);
+            if (validBytes < size) {
+                if (!last) {
+                    throw new LedgerException("Ledger segment " + segment + " is corrupt at offset " + validBytes);
+                }
+                log.warn("LEDGER_RECOVERY: truncating torn tail of {} from {} to {} bytes", segment, size, validBytes);
+                try (FileChannel recovery = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    recovery.truncate(validBytes);
+                    recovery.force(true);
+                }
+            }
+            result.segments++;
+        }
+        if (!segments.isEmpty()) {
+            channelSegment = segmentPath(segments.get(segments.size() - 1));
+            channel = FileChannel.open(channelSegment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channelSize = channel.size();
+        }
+        return result;
+    }
+
+    /**
+     * 把一次提交编码为一帧写入缓冲区，帧不跨分段
+     */
+    void encode(long firstSequence, long sourceTimestamp, List<LedgerEntry> entries) throws IOException {
+        int payloadLength = FRAME_FIXED_BYTES;
+        for (LedgerEntry entry : entries) {
+            payloadLength += ENTRY_FIXED_BYTES + entry.size() * POSTING_BYTES;
+        }
+        int frameLength = HEADER_BYTES + payloadLength;
+        long pendingSize = channelSize + writeBuffer.position();
+        if (channel == null || (pendingSize > 0 && pendingSize + frameLength > segmentBytes)) {
+            flush(false);
+            roll(firstSequence);
+        }
+        if (writeBuffer.remaining() < frameLength) {
+            flush(false);
+            if (writeBuffer.capacity() < frameLength) {
+                writeBuffer = ByteBuffer.allocate(frameLength);
+            }
+        }
+
+        int start = writeBuffer.position();
+        writeBuffer.position(start + HEADER_BYTES);
+        writeBuffer.putLong(firstSequence).putLong(sourceTimestamp).putInt(entries.size());
+        for (LedgerEntry entry : entries) {
+            long[] accounts = entry.getAccounts();
+            long[] amounts = entry.getAmounts();
+            writeBuffer.putLong(entry.getReference())
+                    .put((byte) entry.getType().getCode())
+                    .putShort((short) accounts.length);
+            for (int p = 0; p < accounts.length; p++) {
+                writeBuffer.putLong(accounts[p]).putLong(amounts[p]);
+            }
+        }
+        writeCrc.reset();
+        writeCrc.update(writeBuffer.array(), start + HEADER_BYTES, payloadLength);
+        writeBuffer.putInt(start, payloadLength);
+        writeBuffer.putInt(start + 4, (int) writeCrc.getValue());
+    }
+
+    /**
+     * 写出缓冲区并fsync，返回时本组所有帧已持久化
+     */
+    void sync() throws IOException {
+        flush(true);
+    }
+
+    /**
+     * 记录一组提交开始前的写入位置
+     */
+    void mark() {
+        markSegment = channelSegment;
+        markSize = channelSize;
+    }
+
+    /**
+     * 写入失败时回滚到mark位置: 删除本组新建的分段，截断原分段中本组已写出的帧
+     */
+    void rollback() throws IOException {
+        writeBuffer.clear();
+        if (channel != null && channelSegment != markSegment) {
+            channel.close();
+            channel = null;
+            Files.deleteIfExists(channelSegment);
+        }
+        if (markSegment == null) {
+            channelSegment = null;
+            channelSize = 0L;
+            return;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(markSegment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channelSegment = markSegment;
+        }
+        channel.truncate(markSize);
+        channelSize = markSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+            channelSegment = null;
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+        channelSegment = segmentPath(firstSequence);
+        channel = FileChannel.open(channelSegment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSize = channel.size();
+        log.info("LEDGER_SEGMENT_ROLLED: firstSequence: {}", firstSequence);
+    }
+
+    private void flush(boolean force) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channelSize += channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        if (force && channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 内存映射扫描一个分段，直接把明细累加到余额表，返回最后一个有效帧结束处的偏移量
+     */
+    private static long scan(Path segment, long size, long afterSequence,
+                             BalanceTable balances, ReplayResult result) throws IOException {
+        if (size == 0) {
+            return 0L;
+        }
+        CRC32 crc = new CRC32();
+        MappedByteBuffer buffer;
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int offset = 0;
+        while (size - offset >= HEADER_BYTES) {
+            int length = buffer.getInt(offset);
+            int expectedCrc = buffer.getInt(offset + 4);
+            int payloadStart = offset + HEADER_BYTES;
+            if (length < FRAME_FIXED_BYTES || length > size - payloadStart) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(payloadStart, length));
+            if ((int) crc.getValue() != expectedCrc) {
+                log.warn("LEDGER_CORRUPT_FRAME: {} at offset {} - checksum mismatch", segment, offset);
+                break;
+            }
+
+            long firstSequence = buffer.getLong(payloadStart);
+            long sourceTimestamp = buffer.getLong(payloadStart + 8);
+            int entryCount = buffer.getInt(payloadStart + 16);
+            if (firstSequence > afterSequence) {
+                int position = payloadStart + FRAME_FIXED_BYTES;
+                for (int e = 0; e < entryCount; e++) {
+                    int postings = buffer.getShort(position + 9);
+                    position += ENTRY_FIXED_BYTES;
+                    for (int p = 0; p < postings; p++) {
+                        balances.add(buffer.getLong(position), buffer.getLong(position + 8));
+                        position += POSTING_BYTES;
+                    }
+                    result.postings += postings;
+                }
+                result.lastSequence = firstSequence + entryCount - 1;
+                result.frames++;
+            }
+            result.lastSourceTimestamp = Math.max(result.lastSourceTimestamp, sourceTimestamp);
+            offset = payloadStart + length;
+        }
+        return offset;
+    }
+
+    private List<Long> segmentSequences() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(sequences::add);
+        }
+        return sequences;
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 回放结果
+     */
+    static final class ReplayResult {
+
+        long lastSequence;
+        long lastSourceTimestamp;
+        long frames;
+        long postings;
+        int segments;
+
+        ReplayResult(long afterSequence) {
+            this.lastSequence = afterSequence;
+        }
+    }
+}
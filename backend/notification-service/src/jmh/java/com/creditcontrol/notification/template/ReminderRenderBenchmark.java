@@ -0,0 +1,95 @@
+package com.creditcontrol.notification.template;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 催款提醒渲染吞吐量
+ * 每次调用渲染100万条个性化的PAYMENT_REMINDER (中英文交替)，结果已按OperationsPerInvocation折算为每秒渲染条数。
+ * renderArrays是批量发送时复用位置数组的路径，resolveAndRenderMaps是单条发送时按请求解析模板、按变量名取值的路径。
+ * 运行: mvn -Pjmh test-compile exec:exec -Djmh.args=ReminderRenderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ReminderRenderBenchmark {
+
+    static final int REMINDERS = 1_000_000;
+    /** 预先生成的客户数 (2的幂)，渲染时循环使用，输入数据不随提醒条数增长 */
+    private static final int CUSTOMERS = 1 << 16;
+    private static final String[] LOCALES = {"en", "zh"};
+
+    private TemplateRegistry registry;
+    private NotificationTemplate[] templates;
+    private String[][][] arrayValues;
+    private Map<String, Object>[] mapValues;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        registry = new TemplateRegistry();
+        ReflectionTestUtils.setField(registry, "defaultLocale", "en");
+        registry.loadDefaults();
+
+        templates = new NotificationTemplate[LOCALES.length];
+        arrayValues = new String[LOCALES.length][CUSTOMERS][];
+        mapValues = new Map[CUSTOMERS];
+        for (int customer = 0; customer < CUSTOMERS; customer++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("customerName", "Customer " + (100000 + customer));
+            values.put("amount", String.format("%d.%02d", 100 + customer % 50000, customer % 100));
+            values.put("currency", customer % 3 == 0 ? "USD" : "CNY");
+            values.put("invoiceNumber", "INV-2026-" + (500000 + customer));
+            values.put("dueDate", "2026-11-" + (10 + customer % 20));
+            mapValues[customer] = values;
+        }
+        for (int l = 0; l < LOCALES.length; l++) {
+            templates[l] = registry.resolve("PAYMENT_REMINDER", null, LOCALES[l]);
+            List<String> variables = templates[l].getVariables();
+            for (int customer = 0; customer < CUSTOMERS; customer++) {
+                String[] values = new String[variables.size()];
+                for (int v = 0; v < values.length; v++) {
+                    values[v] = mapValues[customer].get(variables.get(v)).toString();
+                }
+                arrayValues[l][customer] = values;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REMINDERS)
+    public void renderArrays(Blackhole blackhole) {
+        for (int i = 0; i < REMINDERS; i++) {
+            int locale = i & 1;
+            blackhole.consume(templates[locale].render(arrayValues[locale][i & (CUSTOMERS - 1)]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REMINDERS)
+    public void resolveAndRenderMaps(Blackhole blackhole) {
+        for (int i = 0; i < REMINDERS; i++) {
+            NotificationTemplate template = registry.resolve("PAYMENT_REMINDER", null, LOCALES[i & 1]);
+            blackhole.consume(template.render(mapValues[i & (CUSTOMERS - 1)]));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.creditcontrol.notification.alert;
+
+/**
+ * 告警实例
+ * 条件由不满足变为满足时产生 (ACTIVE)，由满足变为不满足或规则被删除时结束 (RESOLVED)；
+ * 期间可被确认 (ACKNOWLEDGED)。状态字段由分片线程和确认请求并发修改，使用volatile发布
+ */
+public class Alert {
+
+    public enum Status {
+        ACTIVE, ACKNOWLEDGED, RESOLVED
+    }
+
+    private final long alertId;
+    private final String ruleId;
+    private final int ruleOrdinal;
+    private final String type;
+    private final long customerId;
+    private final String customerName;
+    private final AlertSeverity severity;
+    private final String message;
+    private final double value;
+    private final long raisedAt;
+
+    private volatile Status status = Status.ACTIVE;
+    private volatile long acknowledgedAt;
+    private volatile long resolvedAt;
+
+    Alert(long alertId, AlertRule rule, long customerId, String customerName, String message, double value,
+          long raisedAt) {
+        this.alertId = alertId;
+        this.ruleId = rule.getRuleId();
+        this.ruleOrdinal = rule.getOrdinal();
+        this.type = rule.getAlertType();
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.severity = rule.getSeverity();
+        this.message = message;
+        this.value = value;
+        this.raisedAt = raisedAt;
+    }
+
+    synchronized boolean acknowledge() {
+        if (status != Status.ACTIVE) {
+            return false;
+        }
+        acknowledgedAt = System.currentTimeMillis();
+        status = Status.ACKNOWLEDGED;
+        return true;
+    }
+
+    synchronized void resolve(long timestamp) {
+        resolvedAt = timestamp;
+        status = Status.RESOLVED;
+    }
+
+    public long getAlertId() {
+        return alertId;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    int getRuleOrdinal() {
+        return ruleOrdinal;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public AlertSeverity getSeverity() {
+        return severity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public long getRaisedAt() {
+        return raisedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getAcknowledgedAt() {
+        return acknowledgedAt;
+    }
+
+    public long getResolvedAt() {
+        return resolvedAt;
+    }
+}
@@ -0,0 +1,369 @@
+package com.creditcontrol.notification.alert;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 告警规则引擎
+ * 事件按客户ID分到固定数量的分片，每个分片一个有界队列和一个单写线程，客户状态只在分片线程内访问，无需加锁。
+ * 每个事件只评估其携带字段上的规则 (见 {@link RuleIndex})，条件满足状态发生变化时才产生或结束告警。
+ * 未结束的告警发布到并发Map供查询，已结束的告警保留最近 recent-resolved-capacity 条。
+ * 超过 customer-idle-ttl-ms 没有事件且没有未结束告警的客户状态会被移除，再次出现时按新客户处理。
+ */
+@Component
+@Slf4j
+public class AlertEngine {
+
+    @Autowired
+    private AlertRuleRegistry ruleRegistry;
+
+    @Autowired(required = false)
+    private List<AlertListener> listeners = List.of();
+
+    @Value("${creditcontrol.notification.alerts.shards:4}")
+    private int shardCount;
+
+    @Value("${creditcontrol.notification.alerts.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${creditcontrol.notification.alerts.max-batch-size:4096}")
+    private int maxBatchSize;
+
+    @Value("${creditcontrol.notification.alerts.recent-resolved-capacity:1000}")
+    private int recentResolvedCapacity;
+
+    @Value("${creditcontrol.notification.alerts.customer-idle-ttl-ms:86400000}")
+    private long customerIdleTtlMs;
+
+    @Value("${creditcontrol.notification.alerts.eviction-interval-ms:60000}")
+    private long evictionIntervalMs;
+
+    private final AtomicLong alertSequence = new AtomicLong();
+    private final Map<Long, Alert> openAlerts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<Alert> recentResolved = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentResolvedSize = new AtomicInteger();
+
+    private final AtomicLong eventsAccepted = new AtomicLong();
+    private final AtomicLong eventsRejected = new AtomicLong();
+    private final AtomicLong eventsProcessed = new AtomicLong();
+    private final AtomicLong rulesEvaluated = new AtomicLong();
+    private final AtomicLong alertsRaised = new AtomicLong();
+    private final AtomicLong alertsResolved = new AtomicLong();
+    private final AtomicLong customersEvicted = new AtomicLong();
+
+    private Shard[] shards;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        shards = new Shard[shardCount];
+        running = true;
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+        log.info("ALERT_ENGINE_STARTED: shards: {}, queueCapacity: {}, maxBatchSize: {}",
+                shardCount, queueCapacity, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        log.info("ALERT_ENGINE_STOPPED: processed: {}, raised: {}, resolved: {}",
+                eventsProcessed.get(), alertsRaised.get(), alertsResolved.get());
+    }
+
+    /**
+     * 提交事件，所在分片队列已满时返回false
+     */
+    public boolean offer(AlertEvent event) {
+        if (!running || !shards[shardOf(event.getCustomerId())].queue.offer(event)) {
+            eventsRejected.incrementAndGet();
+            return false;
+        }
+        eventsAccepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 确认告警，告警不存在或不是ACTIVE状态时返回null
+     */
+    public Alert acknowledge(long alertId) {
+        Alert alert = openAlerts.get(alertId);
+        return alert != null && alert.acknowledge() ? alert : null;
+    }
+
+    public Alert getAlert(long alertId) {
+        Alert alert = openAlerts.get(alertId);
+        if (alert != null) {
+            return alert;
+        }
+        for (Alert resolved : recentResolved) {
+            if (resolved.getAlertId() == alertId) {
+                return resolved;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 未结束 (ACTIVE/ACKNOWLEDGED) 的告警
+     */
+    public Collection<Alert> getOpenAlerts() {
+        return openAlerts.values();
+    }
+
+    /**
+     * 最近结束的告警，新的在前
+     */
+    public Collection<Alert> getRecentResolved() {
+        return recentResolved;
+    }
+
+    public long getEventsAccepted() {
+        return eventsAccepted.get();
+    }
+
+    public long getEventsRejected() {
+        return eventsRejected.get();
+    }
+
+    public long getEventsProcessed() {
+        return eventsProcessed.get();
+    }
+
+    public long getRulesEvaluated() {
+        return rulesEvaluated.get();
+    }
+
+    public long getAlertsRaised() {
+        return alertsRaised.get();
+    }
+
+    public long getAlertsResolved() {
+        return alertsResolved.get();
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Shard shard : shards) {
+            depth += shard.queue.size();
+        }
+        return depth;
+    }
+
+    public int getCustomersTracked() {
+        int customers = 0;
+        for (Shard shard : shards) {
+            customers += shard.customerCount;
+        }
+        return customers;
+    }
+
+    public long getCustomersEvicted() {
+        return customersEvicted.get();
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    private int shardOf(long customerId) {
+        long hash = customerId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shardCount);
+    }
+
+    private void onResolved(Alert alert, long timestamp, List<Alert> resolved) {
+        alert.resolve(timestamp);
+        openAlerts.remove(alert.getAlertId());
+        recentResolved.addFirst(alert);
+        if (recentResolvedSize.incrementAndGet() > recentResolvedCapacity && recentResolved.pollLast() != null) {
+            recentResolvedSize.decrementAndGet();
+        }
+        resolved.add(alert);
+    }
+
+    private void notifyListeners(List<Alert> raised, List<Alert> resolved) {
+        for (AlertListener listener : listeners) {
+            try {
+                listener.onAlerts(raised, resolved);
+            } catch (RuntimeException e) {
+                log.error("ALERT_LISTENER_ERROR: {} - {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 一个分片: 队列、单写线程和该分片客户的状态
+     */
+    private final class Shard {
+
+        final BlockingQueue<AlertEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final Thread thread;
+        /** 按访问顺序排列，最久没有事件的客户在前 */
+        final LinkedHashMap<Long, CustomerAlertState> customers = new LinkedHashMap<>(16, 0.75f, true);
+        volatile int customerCount;
+        long indexVersion;
+        long nextEvictionAt;
+
+        Shard(int id) {
+            thread = new Thread(this::run, "alert-shard-" + id);
+        }
+
+        void run() {
+            List<AlertEvent> batch = new ArrayList<>(maxBatchSize);
+            List<Alert> raised = new ArrayList<>();
+            List<Alert> resolved = new ArrayList<>();
+            while (running || !queue.isEmpty()) {
+                try {
+                    AlertEvent first = queue.poll(10, TimeUnit.MILLISECONDS);
+                    RuleIndex index = ruleRegistry.getIndex();
+                    if (index.version() != indexVersion) {
+                        resolveRemovedRules(index, resolved);
+                        indexVersion = index.version();
+                    }
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, maxBatchSize - 1);
+                        long evaluated = 0;
+                        for (AlertEvent event : batch) {
+                            evaluated += evaluate(index, event, raised, resolved);
+                        }
+                        eventsProcessed.addAndGet(batch.size());
+                        rulesEvaluated.addAndGet(evaluated);
+                        batch.clear();
+                    }
+                    evictIdleCustomers();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("ALERT_SHARD_ERROR: {} - {}", thread.getName(), e.getMessage(), e);
+                    batch.clear();
+                }
+                if (!raised.isEmpty() || !resolved.isEmpty()) {
+                    alertsRaised.addAndGet(raised.size());
+                    alertsResolved.addAndGet(resolved.size());
+                    notifyListeners(List.copyOf(raised), List.copyOf(resolved));
+                    raised.clear();
+                    resolved.clear();
+                }
+            }
+        }
+
+        /**
+         * 评估一个事件，返回评估的规则数
+         */
+        int evaluate(RuleIndex index, AlertEvent event, List<Alert> raised, List<Alert> resolved) {
+            CustomerAlertState state = customers.get(event.getCustomerId());
+            if (state == null) {
+                state = new CustomerAlertState();
+                customers.put(event.getCustomerId(), state);
+                customerCount = customers.size();
+            }
+            state.lastSeenAt = System.currentTimeMillis();
+            if (event.getCustomerName() != null) {
+                state.customerName = event.getCustomerName();
+            }
+            int evaluated = 0;
+            for (int field = 0; field < AlertField.COUNT; field++) {
+                double value = event.value(field);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                double previous = state.lastValues[field];
+                for (AlertRule rule : index.rulesFor(field)) {
+                    evaluated++;
+                    boolean matches = rule.matches(value, previous);
+                    Alert open = state.activeAlert(rule.getOrdinal());
+                    if (matches && open == null) {
+                        Alert alert = new Alert(alertSequence.incrementAndGet(), rule, event.getCustomerId(),
+                                state.customerName, rule.formatMessage(value, previous), value, event.getTimestamp());
+                        state.activate(alert);
+                        openAlerts.put(alert.getAlertId(), alert);
+                        raised.add(alert);
+                    } else if (!matches && open != null) {
+                        state.deactivate(rule.getOrdinal());
+                        onResolved(open, event.getTimestamp(), resolved);
+                    }
+                }
+                state.lastValues[field] = value;
+            }
+            return evaluated;
+        }
+
+        /**
+         * 移除空闲且没有未结束告警的客户；从最久未访问的一端扫描，遇到未空闲的客户即停止
+         */
+        void evictIdleCustomers() {
+            long now = System.currentTimeMillis();
+            if (now < nextEvictionAt) {
+                return;
+            }
+            nextEvictionAt = now + evictionIntervalMs;
+            long idleBefore = now - customerIdleTtlMs;
+            int evicted = 0;
+            Iterator<CustomerAlertState> states = customers.values().iterator();
+            while (states.hasNext()) {
+                CustomerAlertState state = states.next();
+                if (state.lastSeenAt > idleBefore) {
+                    break;
+                }
+                // 有未结束告警的客户要保留，之后的事件才能结束告警
+                if (state.active == null) {
+                    states.remove();
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                customerCount = customers.size();
+                customersEvicted.addAndGet(evicted);
+                log.debug("ALERT_CUSTOMERS_EVICTED: {} - evicted: {}, tracked: {}", thread.getName(), evicted, customerCount);
+            }
+        }
+
+        /**
+         * 规则索引变化后结束已删除规则下的告警
+         */
+        void resolveRemovedRules(RuleIndex index, List<Alert> resolved) {
+            long now = System.currentTimeMillis();
+            for (CustomerAlertState state : customers.values()) {
+                if (state.active == null) {
+                    continue;
+                }
+                Iterator<Map.Entry<Integer, Alert>> entries = state.active.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Alert alert = entries.next().getValue();
+                    if (!index.contains(alert.getRuleOrdinal())) {
+                        entries.remove();
+                        onResolved(alert, now, resolved);
+                    }
+                }
+                if (state.active.isEmpty()) {
+                    state.active = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.creditcontrol.notification.alert;
+
+import java.util.Arrays;
+
+/**
+ * 输入事件，字段值按 {@link AlertField} 序号保存，NaN表示事件未携带该字段
+ */
+public final class AlertEvent {
+
+    private final AlertEventType type;
+    private final long customerId;
+    private final String customerName;
+    private final long timestamp;
+    private final double[] values;
+
+    public AlertEvent(AlertEventType type, long customerId, String customerName, long timestamp) {
+        this.type = type;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.timestamp = timestamp;
+        this.values = new double[AlertField.COUNT];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * 设置字段值，字段必须属于该事件类型
+     */
+    public AlertEvent with(AlertField field, double value) {
+        if (field.getEventType() != type) {
+            throw new IllegalArgumentException(field + " is not a field of " + type + " events");
+        }
+        values[field.ordinal()] = value;
+        return this;
+    }
+
+    public AlertEventType getType() {
+        return type;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    double value(int field) {
+        return values[field];
+    }
+}
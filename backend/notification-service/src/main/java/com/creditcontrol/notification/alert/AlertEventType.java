@@ -0,0 +1,13 @@
+package com.creditcontrol.notification.alert;
+
+/**
+ * 告警事件类型
+ */
+public enum AlertEventType {
+    /** 信用使用率变化: 使用率、额度、可用额度 */
+    CREDIT_UTILIZATION,
+    /** 付款状态: 金额、逾期天数 */
+    PAYMENT,
+    /** 风险评分变化 */
+    RISK_SCORE
+}
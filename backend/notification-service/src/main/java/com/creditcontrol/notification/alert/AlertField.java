@@ -0,0 +1,35 @@
+package com.creditcontrol.notification.alert;
+
+import java.util.Locale;
+
+/**
+ * 规则可引用的事件字段，每个字段属于一种事件类型
+ */
+public enum AlertField {
+    UTILIZATION(AlertEventType.CREDIT_UTILIZATION),
+    CREDIT_LIMIT(AlertEventType.CREDIT_UTILIZATION),
+    AVAILABLE_CREDIT(AlertEventType.CREDIT_UTILIZATION),
+    PAYMENT_AMOUNT(AlertEventType.PAYMENT),
+    DAYS_OVERDUE(AlertEventType.PAYMENT),
+    RISK_SCORE(AlertEventType.RISK_SCORE);
+
+    public static final int COUNT = values().length;
+
+    private final AlertEventType eventType;
+
+    AlertField(AlertEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public AlertEventType getEventType() {
+        return eventType;
+    }
+
+    public static AlertField parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown alert field: " + value);
+        }
+    }
+}
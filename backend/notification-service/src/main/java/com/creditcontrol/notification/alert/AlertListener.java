@@ -0,0 +1,14 @@
+package com.creditcontrol.notification.alert;
+
+import java.util.List;
+
+/**
+ * 告警状态变化监听器，由分片线程在每批事件处理完后调用，实现不应阻塞
+ */
+public interface AlertListener {
+
+    /**
+     * raised为本批新产生的告警，resolved为本批结束的告警
+     */
+    void onAlerts(List<Alert> raised, List<Alert> resolved);
+}
@@ -0,0 +1,42 @@
+package com.creditcontrol.notification.alert;
+
+import java.util.Locale;
+
+/**
+ * 规则比较方式，CHANGE_GTE 比较与该客户上一次取值之差的绝对值
+ */
+public enum AlertOperator {
+    GT(">"), GTE(">="), LT("<"), LTE("<="), CHANGE_GTE("changed by >=");
+
+    private final String symbol;
+
+    AlertOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * previous为NaN表示没有上一次取值
+     */
+    boolean matches(double value, double previous, double threshold) {
+        switch (this) {
+            case GT: return value > threshold;
+            case GTE: return value >= threshold;
+            case LT: return value < threshold;
+            case LTE: return value <= threshold;
+            case CHANGE_GTE: return !Double.isNaN(previous) && Math.abs(value - previous) >= threshold;
+            default: return false;
+        }
+    }
+
+    public static AlertOperator parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown alert operator: " + value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.creditcontrol.notification.alert;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 告警规则 (不可变)
+ * ordinal为引擎内部编号，创建后不变也不复用，客户告警状态按编号记录
+ */
+@Getter
+@Builder
+public class AlertRule {
+
+    private final int ordinal;
+
+    private final String ruleId;
+
+    /** 告警类型，如 CREDIT_LIMIT_EXCEEDED */
+    private final String alertType;
+
+    private final AlertField field;
+
+    private final AlertOperator operator;
+
+    private final double threshold;
+
+    private final AlertSeverity severity;
+
+    /** 可用占位符: {value} {previous} {threshold}；为空时按字段和条件生成 */
+    private final String messageTemplate;
+
+    private final long createdAt;
+
+    boolean matches(double value, double previous) {
+        return operator.matches(value, previous, threshold);
+    }
+
+    String formatMessage(double value, double previous) {
+        if (messageTemplate == null || messageTemplate.isBlank()) {
+            String base = field + " " + operator.getSymbol() + " " + format(threshold) + ": " + format(value);
+            return operator == AlertOperator.CHANGE_GTE ? base + " (was " + format(previous) + ")" : base;
+        }
+        return messageTemplate
+                .replace("{value}", format(value))
+                .replace("{previous}", format(previous))
+                .replace("{threshold}", format(threshold));
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
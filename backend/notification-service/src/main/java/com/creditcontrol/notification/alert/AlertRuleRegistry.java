@@ -0,0 +1,86 @@
+package com.creditcontrol.notification.alert;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警规则注册表
+ * 规则变更时重建不可变的 {@link RuleIndex} 并以volatile引用发布，分片线程每批读取一次
+ */
+@Component
+@Slf4j
+public class AlertRuleRegistry {
+
+    private final Map<String, AlertRule> rules = new LinkedHashMap<>();
+    private int nextOrdinal;
+    private long version;
+    private volatile RuleIndex index = new RuleIndex(0, List.of());
+
+    /**
+     * 默认规则，对应原来固定返回的三类告警
+     */
+    @PostConstruct
+    public void registerDefaults() {
+        add("CREDIT_LIMIT_EXCEEDED", AlertField.UTILIZATION, AlertOperator.GT, 90, AlertSeverity.HIGH,
+                "Credit utilization exceeded {threshold}% ({value}%)");
+        add("PAYMENT_OVERDUE", AlertField.DAYS_OVERDUE, AlertOperator.GTE, 15, AlertSeverity.MEDIUM,
+                "Payment overdue by {value} days");
+        add("RISK_SCORE_CHANGE", AlertField.RISK_SCORE, AlertOperator.CHANGE_GTE, 5, AlertSeverity.LOW,
+                "Risk score changed from {previous} to {value}");
+    }
+
+    public synchronized AlertRule add(String alertType, AlertField field, AlertOperator operator, double threshold,
+                                      AlertSeverity severity, String messageTemplate) {
+        int ordinal = nextOrdinal++;
+        AlertRule rule = AlertRule.builder()
+                .ordinal(ordinal)
+                .ruleId("RULE_" + ordinal)
+                .alertType(alertType)
+                .field(field)
+                .operator(operator)
+                .threshold(threshold)
+                .severity(severity)
+                .messageTemplate(messageTemplate)
+                .createdAt(System.currentTimeMillis())
+                .build();
+        rules.put(rule.getRuleId(), rule);
+        publish();
+        log.info("ALERT_RULE_ADDED: ruleId: {}, alertType: {}, condition: {} {} {}",
+                rule.getRuleId(), alertType, field, operator, threshold);
+        return rule;
+    }
+
+    /**
+     * 删除规则，该规则下未结束的告警由分片线程在下一批处理时结束
+     */
+    public synchronized AlertRule remove(String ruleId) {
+        AlertRule rule = rules.remove(ruleId);
+        if (rule != null) {
+            publish();
+            log.info("ALERT_RULE_REMOVED: ruleId: {}", ruleId);
+        }
+        return rule;
+    }
+
+    public synchronized List<AlertRule> getRules() {
+        return new ArrayList<>(rules.values());
+    }
+
+    public synchronized AlertRule getRule(String ruleId) {
+        return rules.get(ruleId);
+    }
+
+    RuleIndex getIndex() {
+        return index;
+    }
+
+    private void publish() {
+        index = new RuleIndex(++version, new ArrayList<>(rules.values()));
+    }
+}
@@ -0,0 +1,8 @@
+package com.creditcontrol.notification.alert;
+
+/**
+ * 告警级别
+ */
+public enum AlertSeverity {
+    LOW, MEDIUM, HIGH
+}
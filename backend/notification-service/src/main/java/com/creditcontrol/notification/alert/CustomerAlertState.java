@@ -0,0 +1,45 @@
+package com.creditcontrol.notification.alert;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个客户的告警状态，只由所属分片线程访问
+ */
+final class CustomerAlertState {
+
+    /** 各字段上一次的取值，NaN表示未出现过 */
+    final double[] lastValues = new double[AlertField.COUNT];
+    String customerName;
+    /** 分片线程最近一次处理该客户事件的时间 */
+    long lastSeenAt;
+    /** 规则编号 -> 未结束的告警，没有告警时为null以节省内存 */
+    Map<Integer, Alert> active;
+
+    CustomerAlertState() {
+        Arrays.fill(lastValues, Double.NaN);
+    }
+
+    Alert activeAlert(int ruleOrdinal) {
+        return active == null ? null : active.get(ruleOrdinal);
+    }
+
+    void activate(Alert alert) {
+        if (active == null) {
+            active = new HashMap<>(4);
+        }
+        active.put(alert.getRuleOrdinal(), alert);
+    }
+
+    Alert deactivate(int ruleOrdinal) {
+        if (active == null) {
+            return null;
+        }
+        Alert alert = active.remove(ruleOrdinal);
+        if (active.isEmpty()) {
+            active = null;
+        }
+        return alert;
+    }
+}
@@ -0,0 +1,60 @@
+package com.creditcontrol.notification.alert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则索引 (不可变)
+ * 按字段分组，事件只评估其携带字段上的规则；每个版本整体替换
+ */
+final class RuleIndex {
+
+    private static final AlertRule[] NONE = new AlertRule[0];
+
+    private final long version;
+    private final AlertRule[][] byField;
+    private final int maxOrdinal;
+
+    RuleIndex(long version, List<AlertRule> rules) {
+        this.version = version;
+        List<List<AlertRule>> grouped = new ArrayList<>(AlertField.COUNT);
+        for (int i = 0; i < AlertField.COUNT; i++) {
+            grouped.add(new ArrayList<>());
+        }
+        int max = -1;
+        for (AlertRule rule : rules) {
+            grouped.get(rule.getField().ordinal()).add(rule);
+            max = Math.max(max, rule.getOrdinal());
+        }
+        this.byField = new AlertRule[AlertField.COUNT][];
+        for (int i = 0; i < AlertField.COUNT; i++) {
+            byField[i] = grouped.get(i).isEmpty() ? NONE : grouped.get(i).toArray(NONE);
+        }
+        this.maxOrdinal = max;
+    }
+
+    long version() {
+        return version;
+    }
+
+    AlertRule[] rulesFor(int field) {
+        return byField[field];
+    }
+
+    /**
+     * 规则是否仍在当前版本中
+     */
+    boolean contains(int ordinal) {
+        if (ordinal > maxOrdinal) {
+            return false;
+        }
+        for (AlertRule[] rules : byField) {
+            for (AlertRule rule : rules) {
+                if (rule.getOrdinal() == ordinal) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
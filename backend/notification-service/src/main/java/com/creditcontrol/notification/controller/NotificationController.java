@@ -1,8 +1,31 @@
 package com.creditcontrol.notification.controller;
 
+import com.creditcontrol.notification.alert.AlertRule;
+import com.creditcontrol.notification.alert.AlertSeverity;
+import com.creditcontrol.notification.dto.AlertDto;
+import com.creditcontrol.notification.dto.AlertEventRequest;
+import com.creditcontrol.notification.dto.AlertRuleRequest;
+import com.creditcontrol.notification.dto.DeliveryReceiptRequest;
+import com.creditcontrol.notification.dto.NotificationDto;
+import com.creditcontrol.notification.dto.NotificationHistoryStatsDto;
+import com.creditcontrol.notification.dto.NotificationRequest;
+import com.creditcontrol.notification.dto.NotificationTemplateDto;
+import com.creditcontrol.notification.dto.TemplateRequest;
+import com.creditcontrol.notification.exception.NotificationRejectedException;
+import com.creditcontrol.notification.service.AlertService;
+import com.creditcontrol.notification.service.NotificationDispatchService;
+import com.creditcontrol.notification.service.NotificationHistoryService;
+import com.creditcontrol.notification.service.NotificationTemplateService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import lombok.extern.slf4j.Slf4j;
+import java.io.IOException;
 import java.util.*;
 import java.time.Instant;
 
@@ -12,111 +35,418 @@ import java.time.Instant;
 @Slf4j
 public class NotificationController {
 
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private NotificationDispatchService dispatchService;
+
+    @Autowired
+    private NotificationHistoryService historyService;
+
+    @Autowired
+    private NotificationTemplateService templateService;
+
+    /**
+     * 查询告警，默认返回未结束 (ACTIVE/ACKNOWLEDGED) 的告警
+     */
     @GetMapping("/alerts")
-    public ResponseEntity<Map<String, Object>> getAlerts() {
-        log.info("API_REQUEST: GET /api/v1/notifications/alerts");
-        
-        List<Map<String, Object>> alerts = Arrays.asList(
-            Map.of(
-                "alertId", 1,
-                "type", "CREDIT_LIMIT_EXCEEDED",
-                "customerId", 2,
-                "customerName", "XYZ Trading Corp",
-                "message", "Credit utilization exceeded 90%",
-                "severity", "HIGH",
-                "timestamp", "2025-10-09T07:30:00Z",
-                "status", "ACTIVE"
-            ),
-            Map.of(
-                "alertId", 2,
-                "type", "PAYMENT_OVERDUE",
-                "customerId", 4,
-                "customerName", "Tech Solutions LLC",
-                "message", "Payment overdue by 15 days",
-                "severity", "MEDIUM",
-                "timestamp", "2025-10-09T06:15:00Z",
-                "status", "ACTIVE"
-            ),
-            Map.of(
-                "alertId", 3,
-                "type", "RISK_SCORE_CHANGE",
-                "customerId", 1,
-                "customerName", "ABC Manufacturing Ltd",
-                "message", "Risk score improved from 80 to 85",
-                "severity", "LOW",
-                "timestamp", "2025-10-09T05:00:00Z",
-                "status", "ACKNOWLEDGED"
-            )
-        );
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("data", Map.of(
-            "alerts", alerts,
-            "totalAlerts", 3,
-            "activeAlerts", 2,
-            "highSeverityAlerts", 1
-        ));
+    public ResponseEntity<Map<String, Object>> getAlerts(@RequestParam(required = false) String status,
+                                                         @RequestParam(required = false) String severity,
+                                                         @RequestParam(required = false) Long customerId,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        log.info("API_REQUEST: GET /api/v1/notifications/alerts - status: {}, severity: {}, customerId: {}",
+                status, severity, customerId);
+
+        Map<String, Object> data;
+        try {
+            data = alertService.getAlerts(status, severity, customerId, Math.max(1, Math.min(limit, 1000)));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
         response.put("message", "Alerts retrieved successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/alerts/{alertId}")
+    public ResponseEntity<Map<String, Object>> getAlert(@PathVariable long alertId) {
+        log.info("API_REQUEST: GET /api/v1/notifications/alerts/{}", alertId);
+
+        AlertDto alert = alertService.getAlert(alertId);
+        if (alert == null) {
+            return error(HttpStatus.NOT_FOUND, "Alert not found: " + alertId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alert);
+        response.put("message", "Alert retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/alerts/{alertId}/acknowledge")
+    public ResponseEntity<Map<String, Object>> acknowledgeAlert(@PathVariable long alertId) {
+        log.info("API_REQUEST: POST /api/v1/notifications/alerts/{}/acknowledge", alertId);
+
+        AlertDto alert = alertService.acknowledge(alertId);
+        if (alert == null) {
+            return error(HttpStatus.NOT_FOUND, "Active alert not found: " + alertId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alert);
+        response.put("message", "Alert acknowledged");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 提交信用使用率、付款、风险评分事件，按客户分片异步评估告警规则
+     */
+    @PostMapping("/events")
+    public ResponseEntity<Map<String, Object>> submitEvents(@RequestBody @Valid List<@Valid AlertEventRequest> events) {
+        log.info("API_REQUEST: POST /api/v1/notifications/events - count: {}", events.size());
+
+        try {
+            int accepted = alertService.submitEvents(events);
+            if (accepted == 0 && !events.isEmpty()) {
+                return error(HttpStatus.SERVICE_UNAVAILABLE, "Alert event queue is full, please retry later");
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", Map.of("accepted", accepted, "rejected", events.size() - accepted));
+            response.put("message", "Alert events accepted");
+            response.put("timestamp", Instant.now().toString());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/rules")
+    public ResponseEntity<Map<String, Object>> getRules() {
+        log.info("API_REQUEST: GET /api/v1/notifications/rules");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alertService.getRules());
+        response.put("message", "Alert rules retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/rules")
+    public ResponseEntity<Map<String, Object>> createRule(@RequestBody @Valid AlertRuleRequest request) {
+        log.info("API_REQUEST: POST /api/v1/notifications/rules - alertType: {}", request.getAlertType());
+
+        AlertRule rule;
+        try {
+            rule = alertService.createRule(request);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", rule);
+        response.put("message", "Alert rule created successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @DeleteMapping("/rules/{ruleId}")
+    public ResponseEntity<Map<String, Object>> deleteRule(@PathVariable String ruleId) {
+        log.info("API_REQUEST: DELETE /api/v1/notifications/rules/{}", ruleId);
+
+        AlertRule rule = alertService.deleteRule(ruleId);
+        if (rule == null) {
+            return error(HttpStatus.NOT_FOUND, "Alert rule not found: " + ruleId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", rule);
+        response.put("message", "Alert rule deleted successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/alerts/stats")
+    public ResponseEntity<Map<String, Object>> getAlertStats() {
+        log.info("API_REQUEST: GET /api/v1/notifications/alerts/stats");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alertService.getStats());
+        response.put("message", "Alert engine statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 告警推送 (SSE)，代替轮询 /alerts
+     * 事件: ALERT_RAISED / ALERT_ACKNOWLEDGED / ALERT_RESOLVED，data为告警JSON；
+     * 重连时带Last-Event-ID补发错过的事件，收到reset事件时应重新查询 /alerts
+     */
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAlerts(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+                                                   @RequestParam(required = false) Long lastEventId,
+                                                   @RequestParam(required = false) AlertSeverity severity,
+                                                   @RequestParam(required = false) Long customerId) {
+        log.info("API_REQUEST: GET /api/v1/notifications/alerts/stream - lastEventId: {}, severity: {}, customerId: {}",
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId, severity, customerId);
+
+        SseEmitter emitter = alertService.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId,
+                severity, customerId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        // 禁止Nginx缓冲，事件立即送达
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    @GetMapping("/alerts/stream/stats")
+    public ResponseEntity<Map<String, Object>> getAlertStreamStats() {
+        log.info("API_REQUEST: GET /api/v1/notifications/alerts/stream/stats");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alertService.getStreamStats());
+        response.put("message", "Alert stream statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 告警通知去重 (同一客户同一类型) 和接收人限流的统计
+     */
+    @GetMapping("/alerts/notifications/stats")
+    public ResponseEntity<Map<String, Object>> getAlertNotificationStats() {
+        log.info("API_REQUEST: GET /api/v1/notifications/alerts/notifications/stats");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alertService.getNotificationStats());
+        response.put("message", "Alert notification statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 放入对应渠道的发送队列，立即返回QUEUED；队列满时返回503和Retry-After
+     */
     @PostMapping("/send")
-    public ResponseEntity<Map<String, Object>> sendNotification(@RequestBody Map<String, Object> notificationRequest) {
-        log.info("API_REQUEST: POST /api/v1/notifications/send");
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("data", Map.of(
-            "notificationId", "NOT_" + System.currentTimeMillis(),
-            "status", "SENT",
-            "recipient", notificationRequest.get("recipient"),
-            "channel", notificationRequest.get("channel"),
-            "message", notificationRequest.get("message"),
-            "sentAt", Instant.now().toString()
-        ));
-        response.put("message", "Notification sent successfully");
+    public ResponseEntity<Map<String, Object>> sendNotification(@RequestBody @Valid NotificationRequest notificationRequest) {
+        log.info("API_REQUEST: POST /api/v1/notifications/send - channel: {}", notificationRequest.getChannel());
+
+        NotificationDto notification;
+        try {
+            notification = dispatchService.send(notificationRequest);
+        } catch (NotificationRejectedException e) {
+            return rejected(e);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", notification);
+        response.put("message", "Notification queued successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @PostMapping("/send/batch")
+    public ResponseEntity<Map<String, Object>> sendNotificationBatch(
+            @RequestBody @Valid List<@Valid NotificationRequest> notificationRequests) {
+        log.info("API_REQUEST: POST /api/v1/notifications/send/batch - count: {}", notificationRequests.size());
+
+        Map<String, Object> result;
+        try {
+            result = dispatchService.sendBatch(notificationRequests);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if ((int) result.get("accepted") == 0 && !notificationRequests.isEmpty()) {
+            return rejected(new NotificationRejectedException("Notification queues are full, please retry later",
+                    (long) result.get("retryAfterSeconds")));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", result);
+        response.put("message", "Notifications queued");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/dispatch/stats")
+    public ResponseEntity<Map<String, Object>> getDispatchStats() {
+        log.info("API_REQUEST: GET /api/v1/notifications/dispatch/stats");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", dispatchService.getStats());
+        response.put("message", "Dispatch statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 客户通知历史，新的在前；使用上一页返回的nextCursor翻页
+     */
     @GetMapping("/history/{customerId}")
-    public ResponseEntity<Map<String, Object>> getNotificationHistory(@PathVariable Long customerId) {
-        log.info("API_REQUEST: GET /api/v1/notifications/history/{}", customerId);
-        
-        List<Map<String, Object>> history = Arrays.asList(
-            Map.of(
-                "notificationId", "NOT_1728123456789",
-                "type", "PAYMENT_REMINDER",
-                "message", "Payment due in 3 days",
-                "channel", "EMAIL",
-                "status", "DELIVERED",
-                "sentAt", "2025-10-06T10:00:00Z"
-            ),
-            Map.of(
-                "notificationId", "NOT_1728023456789",
-                "type", "CREDIT_LIMIT_UPDATE",
-                "message", "Your credit limit has been increased to $500,000",
-                "channel", "SMS",
-                "status", "DELIVERED",
-                "sentAt", "2025-10-01T14:30:00Z"
-            )
-        );
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("data", Map.of(
-            "customerId", customerId,
-            "notifications", history,
-            "totalSent", 2,
-            "deliveryRate", 100.0
-        ));
+    public ResponseEntity<Map<String, Object>> getNotificationHistory(@PathVariable Long customerId,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "50") int limit) {
+        log.info("API_REQUEST: GET /api/v1/notifications/history/{} - cursor: {}, limit: {}", customerId, cursor, limit);
+
+        Map<String, Object> data;
+        try {
+            data = historyService.getHistory(customerId, cursor, Math.max(1, Math.min(limit, 500)));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            log.error("NOTIFICATION_HISTORY_READ_FAILED: customerId: {} - {}", customerId, e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to read notification history");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
         response.put("message", "Notification history retrieved successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 提供方送达回执 (DELIVERED / BOUNCED)
+     */
+    @PostMapping("/receipts")
+    public ResponseEntity<Map<String, Object>> recordReceipt(@RequestBody @Valid DeliveryReceiptRequest request) {
+        log.info("API_REQUEST: POST /api/v1/notifications/receipts - notificationId: {}", request.getNotificationId());
+
+        try {
+            if (!historyService.recordReceipt(request)) {
+                return error(HttpStatus.NOT_FOUND, "Unknown or expired notification: " + request.getNotificationId());
+            }
+        } catch (NotificationRejectedException e) {
+            return rejected(e);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", Map.of("notificationId", request.getNotificationId(),
+                "status", request.getStatus().toUpperCase(Locale.ROOT)));
+        response.put("message", "Delivery receipt recorded");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/history/stats")
+    public ResponseEntity<Map<String, Object>> getHistoryStats() {
+        log.info("API_REQUEST: GET /api/v1/notifications/history/stats");
+
+        NotificationHistoryStatsDto stats;
+        try {
+            stats = historyService.getStats();
+        } catch (IOException e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to read notification history statistics");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", stats);
+        response.put("message", "Notification history statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 各模板各语言的最新版本；指定templateId时返回该模板的所有版本
+     */
+    @GetMapping("/templates")
+    public ResponseEntity<Map<String, Object>> getTemplates(@RequestParam(required = false) String templateId) {
+        log.info("API_REQUEST: GET /api/v1/notifications/templates - templateId: {}", templateId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", templateService.getTemplates(templateId));
+        response.put("message", "Templates retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/templates")
+    public ResponseEntity<Map<String, Object>> registerTemplate(@RequestBody @Valid TemplateRequest request) {
+        log.info("API_REQUEST: POST /api/v1/notifications/templates - templateId: {}, locale: {}",
+                request.getTemplateId(), request.getLocale());
+
+        NotificationTemplateDto template;
+        try {
+            template = templateService.register(request);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", template);
+        response.put("message", "Template registered successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * 用给定变量渲染模板但不发送
+     */
+    @PostMapping("/templates/{templateId}/preview")
+    public ResponseEntity<Map<String, Object>> previewTemplate(@PathVariable String templateId,
+                                                               @RequestParam(required = false) Integer version,
+                                                               @RequestParam(required = false) String locale,
+                                                               @RequestBody(required = false) Map<String, String> variables) {
+        log.info("API_REQUEST: POST /api/v1/notifications/templates/{}/preview - version: {}, locale: {}",
+                templateId, version, locale);
+
+        Map<String, Object> preview;
+        try {
+            preview = templateService.preview(templateId, version, locale, variables);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", preview);
+        response.put("message", "Template rendered successfully");
+        response.put("timestamp", Instant.now().toString());
+
         return ResponseEntity.ok(response);
     }
 
@@ -136,10 +466,45 @@ public class NotificationController {
         response.put("description", "Alert and Communication Service");
         response.put("version", "1.0.0");
         response.put("endpoints", Arrays.asList(
-            "GET /api/v1/notifications/alerts",
+            "GET /api/v1/notifications/alerts?status=&severity=&customerId=&limit=",
+            "GET /api/v1/notifications/alerts/{alertId}",
+            "POST /api/v1/notifications/alerts/{alertId}/acknowledge",
+            "GET /api/v1/notifications/alerts/stats",
+            "GET /api/v1/notifications/alerts/stream?severity=&customerId= (text/event-stream)",
+            "GET /api/v1/notifications/alerts/stream/stats",
+            "GET /api/v1/notifications/alerts/notifications/stats",
+            "POST /api/v1/notifications/events",
+            "GET /api/v1/notifications/rules",
+            "POST /api/v1/notifications/rules",
+            "DELETE /api/v1/notifications/rules/{ruleId}",
             "POST /api/v1/notifications/send",
-            "GET /api/v1/notifications/history/{customerId}"
+            "POST /api/v1/notifications/send/batch",
+            "GET /api/v1/notifications/dispatch/stats",
+            "GET /api/v1/notifications/history/{customerId}?cursor=&limit=",
+            "GET /api/v1/notifications/history/stats",
+            "POST /api/v1/notifications/receipts",
+            "GET /api/v1/notifications/templates?templateId=",
+            "POST /api/v1/notifications/templates",
+            "POST /api/v1/notifications/templates/{templateId}/preview?version=&locale="
         ));
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        response.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(status).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> rejected(NotificationRejectedException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        response.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+}
@@ -0,0 +1,307 @@
+package com.creditcontrol.notification.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单个渠道的发送管道
+ * 有界队列 + concurrency个工作线程；每个线程凑批 (最多batchSize条，最多等待lingerMs)，
+ * 按令牌桶限速后整批交给提供方。失败的通知在未超过maxAttempts时按指数退避 (带随机抖动) 留在该线程等待，
+ * 到期后排在新通知之前重试，否则标记FAILED。
+ */
+@Slf4j
+public final class ChannelDispatcher {
+
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final NotificationChannel channel;
+    private final NotificationProvider provider;
+    private final List<DeliveryListener> listeners;
+    private final BlockingQueue<Notification> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int maxAttempts;
+    private final long backoffBaseNanos;
+    private final long backoffMaxNanos;
+    private final double ratePerSecond;
+    private final TokenBucket rateLimiter;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong latencyMicrosTotal = new AtomicLong();
+    private final AtomicLong latencyMicrosMax = new AtomicLong();
+
+    private volatile boolean running;
+
+    ChannelDispatcher(NotificationChannel channel, NotificationProvider provider, List<DeliveryListener> listeners,
+                      int queueCapacity, int batchSize, long lingerMs, int concurrency, double ratePerSecond,
+                      int maxAttempts, long backoffBaseMs, long backoffMaxMs) {
+        this.channel = channel;
+        this.provider = provider;
+        this.listeners = listeners;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBaseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, backoffBaseMs));
+        this.backoffMaxNanos = Math.max(backoffBaseNanos, TimeUnit.MILLISECONDS.toNanos(backoffMaxMs));
+        this.ratePerSecond = ratePerSecond;
+        this.rateLimiter = new TokenBucket(ratePerSecond, Math.max(ratePerSecond / 10, batchSize));
+        for (int i = 0; i < Math.max(1, concurrency); i++) {
+            workers.add(new Thread(this::workLoop, "notify-" + channel.name().toLowerCase() + "-" + i));
+        }
+    }
+
+    void start() {
+        running = true;
+        workers.forEach(Thread::start);
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (!queue.isEmpty()) {
+            log.warn("NOTIFICATION_QUEUE_DISCARDED: channel: {}, pending: {}", channel, queue.size());
+        }
+    }
+
+    boolean offer(Notification notification) {
+        if (running && queue.offer(notification)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 按当前积压和限速估算排空队列所需的秒数，用于Retry-After
+     */
+    long estimateDrainSeconds() {
+        if (ratePerSecond <= 0) {
+            return 1;
+        }
+        return Math.max(1, (long) Math.ceil(queue.size() / ratePerSecond));
+    }
+
+    private void workLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        // 等待退避的重试留在本线程，不与调用方争抢队列容量
+        PriorityQueue<Retry> retries = new PriorityQueue<>();
+        while (running || !queue.isEmpty() || !retries.isEmpty()) {
+            try {
+                // 到期的重试排在新通知之前发送；停止时不再等待退避，最后尝试一次
+                long now = System.nanoTime();
+                while (batch.size() < batchSize && !retries.isEmpty()
+                        && (!running || retries.peek().dueNanos - now <= 0)) {
+                    batch.add(retries.poll().notification);
+                }
+                if (batch.isEmpty()) {
+                    long timeout = retries.isEmpty()
+                            ? IDLE_POLL_NANOS : Math.max(1, Math.min(IDLE_POLL_NANOS, retries.peek().dueNanos - now));
+                    Notification first = queue.poll(timeout, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long wait = rateLimiter.reserve(batch.size());
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            List<Notification> failures = deliver(batch);
+            batch.clear();
+            long now = System.nanoTime();
+            for (Notification notification : failures) {
+                retries.add(new Retry(now + backoff(notification.getAttempts()), notification));
+            }
+        }
+    }
+
+    /**
+     * 第n次失败后的等待时间: base * 2^(n-1)，不超过max，另加最多20%的随机抖动，避免失败的批次同时重试
+     */
+    private long backoff(int attempts) {
+        long delay = backoffBaseNanos << Math.min(Math.max(attempts - 1, 0), 30);
+        delay = Math.min(delay <= 0 ? backoffMaxNanos : delay, backoffMaxNanos);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    /**
+     * 先取走已排队的，不满一批时在linger时间内继续等待
+     */
+    private void fillBatch(List<Notification> batch) throws InterruptedException {
+        queue.drainTo(batch, batchSize - batch.size());
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Notification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    /**
+     * 发送一批，返回需要重试的通知
+     */
+    private List<Notification> deliver(List<Notification> batch) {
+        for (Notification notification : batch) {
+            notification.markSending();
+        }
+        Set<Notification> failedSet;
+        String reason;
+        try {
+            List<Notification> failures = provider.send(batch);
+            failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            failedSet.addAll(failures);
+            reason = "Rejected by " + channel + " provider";
+        } catch (IOException | RuntimeException e) {
+            log.warn("NOTIFICATION_BATCH_FAILED: channel: {}, size: {} - {}", channel, batch.size(), e.getMessage());
+            failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            failedSet.addAll(batch);
+            reason = e.getMessage();
+        }
+        batches.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        List<Notification> completed = new ArrayList<>(batch.size());
+        List<Notification> retries = new ArrayList<>();
+        for (Notification notification : batch) {
+            if (!failedSet.contains(notification)) {
+                notification.markSent(now);
+                sent.incrementAndGet();
+                recordLatency((nowNanos - notification.getQueuedNanos()) / 1000);
+                completed.add(notification);
+            } else if (notification.getAttempts() < maxAttempts && running) {
+                notification.markRetry(reason);
+                retries.add(notification);
+                retried.incrementAndGet();
+            } else {
+                notification.markFailed(reason);
+                failed.incrementAndGet();
+                completed.add(notification);
+            }
+        }
+        for (DeliveryListener listener : listeners) {
+            try {
+                listener.onDelivered(completed);
+            } catch (RuntimeException e) {
+                log.error("DELIVERY_LISTENER_ERROR: {} - {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+        return retries;
+    }
+
+    private void recordLatency(long micros) {
+        latencyMicrosTotal.addAndGet(micros);
+        latencyMicrosMax.accumulateAndGet(micros, Math::max);
+    }
+
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public int getConcurrency() {
+        return workers.size();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRetried() {
+        return retried.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getAverageLatencyMicros() {
+        long count = sent.get();
+        return count == 0 ? 0 : latencyMicrosTotal.get() / count;
+    }
+
+    public long getMaxLatencyMicros() {
+        return latencyMicrosMax.get();
+    }
+
+    /**
+     * 等待退避的重试，按到期时间排序
+     */
+    private static final class Retry implements Comparable<Retry> {
+
+        final long dueNanos;
+        final Notification notification;
+
+        Retry(long dueNanos, Notification notification) {
+            this.dueNanos = dueNanos;
+            this.notification = notification;
+        }
+
+        @Override
+        public int compareTo(Retry other) {
+            return Long.compare(dueNanos - other.dueNanos, 0);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.creditcontrol.notification.dispatch;
+
+import java.util.List;
+
+/**
+ * 发送结果监听器，由渠道工作线程在每批发送后调用，实现不应阻塞
+ */
+public interface DeliveryListener {
+
+    /**
+     * 本批已结束 (SENT或最终FAILED) 的通知
+     */
+    void onDelivered(List<Notification> completed);
+}
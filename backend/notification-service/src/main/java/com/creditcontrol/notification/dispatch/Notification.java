@@ -0,0 +1,113 @@
+package com.creditcontrol.notification.dispatch;
+
+/**
+ * 待发送的通知
+ * 状态: QUEUED → SENDING → SENT/FAILED，发送失败且未超过重试次数时回到QUEUED
+ */
+public class Notification {
+
+    public enum Status {
+        QUEUED, SENDING, SENT, FAILED
+    }
+
+    private final String notificationId;
+    private final NotificationChannel channel;
+    private final String recipient;
+    private final String subject;
+    private final String message;
+    private final Long customerId;
+    private final String type;
+    private final long queuedAt;
+    private final long queuedNanos;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int attempts;
+    private volatile long sentAt;
+    private volatile String error;
+
+    public Notification(String notificationId, NotificationChannel channel, String recipient, String subject,
+                        String message, Long customerId, String type) {
+        this.notificationId = notificationId;
+        this.channel = channel;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.message = message;
+        this.customerId = customerId;
+        this.type = type;
+        this.queuedAt = System.currentTimeMillis();
+        this.queuedNanos = System.nanoTime();
+    }
+
+    void markSending() {
+        attempts++;
+        status = Status.SENDING;
+    }
+
+    void markSent(long timestamp) {
+        sentAt = timestamp;
+        error = null;
+        status = Status.SENT;
+    }
+
+    void markRetry(String reason) {
+        error = reason;
+        status = Status.QUEUED;
+    }
+
+    void markFailed(String reason) {
+        error = reason;
+        status = Status.FAILED;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getQueuedAt() {
+        return queuedAt;
+    }
+
+    long getQueuedNanos() {
+        return queuedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getSentAt() {
+        return sentAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,18 @@
+package com.creditcontrol.notification.dispatch;
+
+import java.util.Locale;
+
+/**
+ * 通知渠道
+ */
+public enum NotificationChannel {
+    EMAIL, SMS, WEBHOOK;
+
+    public static NotificationChannel parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown notification channel: " + value);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.creditcontrol.notification.dispatch;
+
+import com.creditcontrol.notification.exception.NotificationRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知分发器
+ * 每个渠道一条独立的发送管道 (见 {@link ChannelDispatcher})，某个渠道变慢或积压不会影响其他渠道。
+ * 队列满时立即拒绝并给出建议重试时间，而不是阻塞调用线程。
+ * 渠道参数: creditcontrol.notification.dispatch.&lt;channel&gt;.{queue-capacity,batch-size,linger-ms,concurrency,rate-per-second,max-attempts}
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired(required = false)
+    private List<NotificationProvider> providers = List.of();
+
+    @Autowired(required = false)
+    private List<DeliveryListener> listeners = List.of();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<NotificationChannel, ChannelDispatcher> channels = new EnumMap<>(NotificationChannel.class);
+
+    @PostConstruct
+    public void start() {
+        for (NotificationProvider provider : providers) {
+            NotificationChannel channel = provider.getChannel();
+            if (channels.containsKey(channel)) {
+                throw new IllegalStateException("Multiple providers configured for channel " + channel);
+            }
+            String prefix = "creditcontrol.notification.dispatch." + channel.name().toLowerCase(Locale.ROOT) + ".";
+            ChannelDispatcher dispatcher = new ChannelDispatcher(channel, provider, listeners,
+                    environment.getProperty(prefix + "queue-capacity", Integer.class, 10000),
+                    environment.getProperty(prefix + "batch-size", Integer.class, 100),
+                    environment.getProperty(prefix + "linger-ms", Long.class, 20L),
+                    environment.getProperty(prefix + "concurrency", Integer.class, 2),
+                    environment.getProperty(prefix + "rate-per-second", Double.class, 0.0),
+                    environment.getProperty(prefix + "max-attempts", Integer.class, 3),
+                    environment.getProperty(prefix + "retry-backoff-base-ms", Long.class, 1000L),
+                    environment.getProperty(prefix + "retry-backoff-max-ms", Long.class, 60000L));
+            channels.put(channel, dispatcher);
+            dispatcher.start();
+            log.info("NOTIFICATION_CHANNEL_STARTED: channel: {}, provider: {}, queueCapacity: {}, batchSize: {}, concurrency: {}, ratePerSecond: {}",
+                    channel, provider.getClass().getSimpleName(), dispatcher.getQueueCapacity(),
+                    dispatcher.getBatchSize(), dispatcher.getConcurrency(), dispatcher.getRatePerSecond());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (ChannelDispatcher dispatcher : channels.values()) {
+            dispatcher.stop();
+        }
+        log.info("NOTIFICATION_DISPATCHER_STOPPED");
+    }
+
+    /**
+     * 放入渠道队列，立即返回QUEUED状态的通知
+     * 渠道未配置提供方时抛出IllegalArgumentException，队列满时抛出NotificationRejectedException
+     */
+    public Notification submit(NotificationChannel channel, String recipient, String subject, String message,
+                               Long customerId, String type) {
+        ChannelDispatcher dispatcher = channels.get(channel);
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("No provider configured for channel " + channel);
+        }
+        Notification notification = new Notification(nextId(), channel, recipient, subject, message, customerId, type);
+        if (!dispatcher.offer(notification)) {
+            throw new NotificationRejectedException("Notification queue for " + channel + " is full",
+                    dispatcher.estimateDrainSeconds());
+        }
+        return notification;
+    }
+
+    public List<ChannelDispatcher> getChannels() {
+        return new ArrayList<>(channels.values());
+    }
+
+    private String nextId() {
+        return "NOT_" + System.currentTimeMillis() + "_" + sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,17 @@
+package com.creditcontrol.notification.dispatch;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 通知发送提供方 (邮件网关、短信网关、Webhook等)，每个渠道一个实现，由Spring注入
+ */
+public interface NotificationProvider {
+
+    NotificationChannel getChannel();
+
+    /**
+     * 批量发送，返回未能发送的通知 (全部成功时为空列表)；抛出异常表示整批失败，整批按失败重试
+     */
+    List<Notification> send(List<Notification> batch) throws IOException;
+}
@@ -0,0 +1,35 @@
+package com.creditcontrol.notification.dispatch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流，ratePerSecond不大于0表示不限流
+ */
+final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond, double burst) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1.0, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 预留permits个令牌 (可透支)，返回调用方需要等待的纳秒数
+     */
+    synchronized long reserve(int permits) {
+        if (ratePerNano <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) (-tokens / ratePerNano);
+    }
+}
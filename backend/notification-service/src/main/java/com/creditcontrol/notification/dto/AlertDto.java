@@ -0,0 +1,61 @@
+package com.creditcontrol.notification.dto;
+
+import com.creditcontrol.notification.alert.Alert;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 告警DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertDto {
+
+    private long alertId;
+
+    private String ruleId;
+
+    private String type;
+
+    private long customerId;
+
+    private String customerName;
+
+    private String message;
+
+    private String severity;
+
+    private double value;
+
+    private String timestamp;
+
+    /** ACTIVE / ACKNOWLEDGED / RESOLVED */
+    private String status;
+
+    private String acknowledgedAt;
+
+    private String resolvedAt;
+
+    public static AlertDto from(Alert alert) {
+        return AlertDto.builder()
+                .alertId(alert.getAlertId())
+                .ruleId(alert.getRuleId())
+                .type(alert.getType())
+                .customerId(alert.getCustomerId())
+                .customerName(alert.getCustomerName())
+                .message(alert.getMessage())
+                .severity(alert.getSeverity().name())
+                .value(alert.getValue())
+                .timestamp(Instant.ofEpochMilli(alert.getRaisedAt()).toString())
+                .status(alert.getStatus().name())
+                .acknowledgedAt(alert.getAcknowledgedAt() > 0 ? Instant.ofEpochMilli(alert.getAcknowledgedAt()).toString() : null)
+                .resolvedAt(alert.getResolvedAt() > 0 ? Instant.ofEpochMilli(alert.getResolvedAt()).toString() : null)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 告警引擎运行指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertEngineStatsDto {
+
+    private int shards;
+
+    private int rules;
+
+    private long eventsAccepted;
+
+    /** 分片队列已满被拒绝的事件数 */
+    private long eventsRejected;
+
+    private long eventsProcessed;
+
+    /** 平均每个事件评估的规则数 */
+    private double rulesPerEvent;
+
+    private long alertsRaised;
+
+    private long alertsResolved;
+
+    private int openAlerts;
+
+    private int queueDepth;
+
+    private int customersTracked;
+
+    /** 空闲后被移除的客户状态数 */
+    private long customersEvicted;
+}
@@ -0,0 +1,56 @@
+package com.creditcontrol.notification.dto;
+
+import com.creditcontrol.notification.alert.AlertEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * 告警事件请求DTO
+ * CREDIT_UTILIZATION需要utilization或creditLimit+availableCredit，PAYMENT需要amount或daysOverdue，RISK_SCORE需要riskScore
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertEventRequest {
+
+    @NotNull(message = "Event type is required")
+    private AlertEventType type;
+
+    @NotNull(message = "Customer ID is required")
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    private String customerName;
+
+    /** 事件发生时间，为空时取接收时间 */
+    private Instant occurredAt;
+
+    /** 使用率 (%)，为空时由额度和可用额度计算 */
+    @DecimalMin(value = "0.0", message = "Utilization must not be negative")
+    private Double utilization;
+
+    @DecimalMin(value = "0.00", message = "Credit limit must not be negative")
+    private BigDecimal creditLimit;
+
+    @DecimalMin(value = "0.00", message = "Available credit must not be negative")
+    private BigDecimal availableCredit;
+
+    @DecimalMin(value = "0.00", message = "Amount must not be negative")
+    private BigDecimal amount;
+
+    @Min(value = 0, message = "Days overdue must not be negative")
+    private Integer daysOverdue;
+
+    @Min(value = 0, message = "Risk score must be between 0 and 100")
+    @Max(value = 100, message = "Risk score must be between 0 and 100")
+    private Integer riskScore;
+}
@@ -0,0 +1,49 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警通知去重和限流指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertNotificationStatsDto {
+
+    private boolean enabled;
+
+    /** 通过去重、实际发出通知的告警数 */
+    private long alertsNotified;
+
+    /** 去重窗口内重复的告警数 */
+    private long duplicatesSuppressed;
+
+    /** 因接收人超过限额未发送的通知数 */
+    private long throttledSuppressed;
+
+    private long notificationsQueued;
+
+    /** 渠道队列已满未能入队的通知数 */
+    private long notificationsRejected;
+
+    private Map<String, Long> duplicatesByType;
+
+    /** 各告警类型的去重窗口 (分钟) */
+    private Map<String, Long> dedupWindowMinutes;
+
+    private long throttleWindowMinutes;
+
+    private int maxPerRecipient;
+
+    /** 去重和限流时间桶中的键数 */
+    private int trackedKeys;
+
+    private Map<String, List<String>> recipients;
+}
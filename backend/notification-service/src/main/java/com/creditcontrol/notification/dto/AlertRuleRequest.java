@@ -0,0 +1,39 @@
+package com.creditcontrol.notification.dto;
+
+import com.creditcontrol.notification.alert.AlertSeverity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * 告警规则创建请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertRuleRequest {
+
+    @NotBlank(message = "Alert type is required")
+    @Pattern(regexp = "^[A-Z][A-Z0-9_]{1,63}$", message = "Alert type must be upper case letters, digits and underscores")
+    private String alertType;
+
+    /** UTILIZATION / CREDIT_LIMIT / AVAILABLE_CREDIT / PAYMENT_AMOUNT / DAYS_OVERDUE / RISK_SCORE */
+    @NotBlank(message = "Field is required")
+    private String field;
+
+    /** GT / GTE / LT / LTE / CHANGE_GTE */
+    @NotBlank(message = "Operator is required")
+    private String operator;
+
+    @NotNull(message = "Threshold is required")
+    private Double threshold;
+
+    @NotNull(message = "Severity is required")
+    private AlertSeverity severity;
+
+    private String messageTemplate;
+}
@@ -0,0 +1,44 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 告警推送 (SSE) 指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertStreamStatsDto {
+
+    private int subscribers;
+
+    private int maxSubscribers;
+
+    /** 每个订阅者最多缓冲的未发送事件数 */
+    private int bufferSize;
+
+    private int replayCapacity;
+
+    private long lastEventId;
+
+    private long eventsPublished;
+
+    /** 入站队列已满丢弃的告警变化数 */
+    private long eventsDropped;
+
+    /** 重连时按Last-Event-ID补发的事件数 */
+    private long eventsReplayed;
+
+    /** 无法补发、要求客户端重新加载的次数 */
+    private long resets;
+
+    /** 缓冲区满被断开的慢客户端数 */
+    private long slowConsumersEvicted;
+
+    /** 订阅数已满被拒绝的连接数 */
+    private long subscribersRejected;
+}
@@ -0,0 +1,32 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
+
+/**
+ * 提供方送达回执请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryReceiptRequest {
+
+    @NotBlank(message = "Notification ID is required")
+    private String notificationId;
+
+    @NotBlank(message = "Receipt status is required")
+    @Pattern(regexp = "(?i)DELIVERED|BOUNCED", message = "Receipt status must be DELIVERED or BOUNCED")
+    private String status;
+
+    @Size(max = 500, message = "Detail must not exceed 500 characters")
+    private String detail;
+
+    /** 回执时间，为空时取接收时间 */
+    private Instant occurredAt;
+}
@@ -0,0 +1,49 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个通知渠道的发送指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchStatsDto {
+
+    private String channel;
+
+    private int queueDepth;
+
+    private int queueCapacity;
+
+    private int concurrency;
+
+    private int batchSize;
+
+    /** 每秒发送上限，0表示不限 */
+    private double ratePerSecond;
+
+    private long accepted;
+
+    /** 队列已满被拒绝的通知数 */
+    private long rejected;
+
+    private long sent;
+
+    private long failed;
+
+    private long retried;
+
+    private long batches;
+
+    private double averageBatchSize;
+
+    /** 入队到发送成功的平均耗时 (微秒) */
+    private long averageLatencyMicros;
+
+    private long maxLatencyMicros;
+}
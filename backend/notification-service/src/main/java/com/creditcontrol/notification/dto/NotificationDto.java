@@ -0,0 +1,60 @@
+package com.creditcontrol.notification.dto;
+
+import com.creditcontrol.notification.dispatch.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 通知DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDto {
+
+    private String notificationId;
+
+    private String channel;
+
+    private String recipient;
+
+    private String subject;
+
+    private String message;
+
+    private Long customerId;
+
+    private String type;
+
+    private String status;
+
+    private int attempts;
+
+    private String error;
+
+    private Instant queuedAt;
+
+    private Instant sentAt;
+
+    public static NotificationDto from(Notification notification) {
+        return NotificationDto.builder()
+                .notificationId(notification.getNotificationId())
+                .channel(notification.getChannel().name())
+                .recipient(notification.getRecipient())
+                .subject(notification.getSubject())
+                .message(notification.getMessage())
+                .customerId(notification.getCustomerId())
+                .type(notification.getType())
+                .status(notification.getStatus().name())
+                .attempts(notification.getAttempts())
+                .error(notification.getError())
+                .queuedAt(Instant.ofEpochMilli(notification.getQueuedAt()))
+                .sentAt(notification.getSentAt() > 0 ? Instant.ofEpochMilli(notification.getSentAt()) : null)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.creditcontrol.notification.dto;
+
+import com.creditcontrol.notification.history.HistoryEntry;
+import com.creditcontrol.notification.history.HistoryRecord;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 通知历史DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationHistoryDto {
+
+    private String notificationId;
+
+    private String type;
+
+    private String channel;
+
+    private String recipient;
+
+    private String subject;
+
+    private String message;
+
+    /** 最终状态: SENT / FAILED，有回执时为 DELIVERED / BOUNCED */
+    private String status;
+
+    private int attempts;
+
+    /** 发送成功或最终失败的时间 */
+    private String sentAt;
+
+    private String receiptAt;
+
+    /** 失败原因或回执说明 */
+    private String detail;
+
+    public static NotificationHistoryDto from(HistoryEntry entry) {
+        HistoryRecord notification = entry.getNotification();
+        HistoryRecord receipt = entry.getReceipt();
+        return NotificationHistoryDto.builder()
+                .notificationId(notification.getNotificationId())
+                .type(notification.getType())
+                .channel(notification.getChannel() == null ? null : notification.getChannel().name())
+                .recipient(notification.getRecipient())
+                .subject(notification.getSubject())
+                .message(notification.getMessage())
+                .status(receipt != null ? receipt.getStatus().name() : notification.getStatus().name())
+                .attempts(notification.getAttempts())
+                .sentAt(Instant.ofEpochMilli(notification.getTimestamp()).toString())
+                .receiptAt(receipt != null ? Instant.ofEpochMilli(receipt.getTimestamp()).toString() : null)
+                .detail(receipt != null ? receipt.getDetail() : notification.getDetail())
+                .build();
+    }
+}
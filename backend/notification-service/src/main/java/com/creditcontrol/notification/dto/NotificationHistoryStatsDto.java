@@ -0,0 +1,42 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 通知历史存储指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationHistoryStatsDto {
+
+    private long recordsWritten;
+
+    private long batchesWritten;
+
+    private double averageBatchSize;
+
+    /** 写队列长时间满被丢弃的记录数 */
+    private long recordsDropped;
+
+    private long writeFailures;
+
+    private long replayedRecords;
+
+    private int queueDepth;
+
+    private int customersIndexed;
+
+    private int segments;
+
+    private int rateWindowDays;
+
+    /** 各渠道滚动窗口内的送达率 (%) */
+    private Map<String, Double> deliveryRateByChannel;
+}
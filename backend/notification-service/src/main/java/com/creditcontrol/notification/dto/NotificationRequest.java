@@ -0,0 +1,54 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.util.Map;
+
+/**
+ * 发送通知请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRequest {
+
+    /** EMAIL / SMS / WEBHOOK */
+    @NotBlank(message = "Channel is required")
+    private String channel;
+
+    /** 邮箱、手机号或回调URL */
+    @NotBlank(message = "Recipient is required")
+    @Size(max = 500, message = "Recipient must not exceed 500 characters")
+    private String recipient;
+
+    @Size(max = 200, message = "Subject must not exceed 200 characters")
+    private String subject;
+
+    /** 不使用模板时必填 */
+    @Size(max = 10000, message = "Message must not exceed 10000 characters")
+    private String message;
+
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    /** 通知类型，如 PAYMENT_REMINDER、CREDIT_LIMIT_UPDATE */
+    private String type;
+
+    /** 使用模板渲染标题和正文，设置后忽略subject和message */
+    @Size(max = 64, message = "Template ID must not exceed 64 characters")
+    private String templateId;
+
+    /** 为空时使用最新版本 */
+    @Positive(message = "Template version must be positive")
+    private Integer templateVersion;
+
+    @Size(max = 35, message = "Locale must not exceed 35 characters")
+    private String locale;
+
+    private Map<String, String> variables;
+}
@@ -0,0 +1,46 @@
+package com.creditcontrol.notification.dto;
+
+import com.creditcontrol.notification.template.NotificationTemplate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 通知模板DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationTemplateDto {
+
+    private String templateId;
+
+    private int version;
+
+    private String locale;
+
+    private String subject;
+
+    private String body;
+
+    private List<String> variables;
+
+    private Instant createdAt;
+
+    public static NotificationTemplateDto from(NotificationTemplate template) {
+        return NotificationTemplateDto.builder()
+                .templateId(template.getTemplateId())
+                .version(template.getVersion())
+                .locale(template.getLocale())
+                .subject(template.getSubject())
+                .body(template.getBody())
+                .variables(template.getVariables())
+                .createdAt(Instant.ofEpochMilli(template.getCreatedAt()))
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.creditcontrol.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * 通知模板注册请求DTO，同一模板ID和语言再次注册时生成新版本
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateRequest {
+
+    @NotBlank(message = "Template ID is required")
+    @Pattern(regexp = "^[A-Z][A-Z0-9_]{1,63}$", message = "Template ID must be upper case letters, digits and underscores")
+    private String templateId;
+
+    /** 如 en、zh、zh-CN，为空时使用默认语言 */
+    @Size(max = 35, message = "Locale must not exceed 35 characters")
+    private String locale;
+
+    /** 标题模板，变量写作 {{name}} */
+    @Size(max = 200, message = "Subject must not exceed 200 characters")
+    private String subject;
+
+    @NotBlank(message = "Body is required")
+    @Size(max = 10000, message = "Body must not exceed 10000 characters")
+    private String body;
+}
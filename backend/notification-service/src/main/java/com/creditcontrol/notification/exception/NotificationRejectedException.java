@@ -0,0 +1,18 @@
+package com.creditcontrol.notification.exception;
+
+/**
+ * 通知渠道队列已满，调用方应在retryAfterSeconds后重试
+ */
+public class NotificationRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public NotificationRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
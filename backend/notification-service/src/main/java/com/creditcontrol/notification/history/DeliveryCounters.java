@@ -0,0 +1,76 @@
+package com.creditcontrol.notification.history;
+
+import java.util.Arrays;
+
+/**
+ * 按天滚动的发送结果计数 (最近days天)
+ * 每天一个槽，槽按 epochDay % days 复用，写入新的一天时清零；所有计数在一个int数组中，每个客户约160字节。
+ */
+final class DeliveryCounters {
+
+    private static final HistoryRecord.Status[] STATUSES = HistoryRecord.Status.values();
+    private static final int WIDTH = 1 + STATUSES.length;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final int days;
+    /** 每槽 [epochDay, SENT, FAILED, DELIVERED, BOUNCED] */
+    private final int[] slots;
+
+    DeliveryCounters(int days) {
+        this.days = Math.max(1, days);
+        this.slots = new int[this.days * WIDTH];
+        for (int i = 0; i < this.days; i++) {
+            slots[i * WIDTH] = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 记录一条结果，早于窗口的记录 (如启动回放的旧数据) 忽略
+     */
+    synchronized void record(HistoryRecord.Status status, long timestamp) {
+        int day = (int) Math.floorDiv(timestamp, DAY_MILLIS);
+        int base = Math.floorMod(day, days) * WIDTH;
+        if (slots[base] != day) {
+            if (slots[base] > day) {
+                return;
+            }
+            Arrays.fill(slots, base + 1, base + WIDTH, 0);
+            slots[base] = day;
+        }
+        slots[base + 1 + status.ordinal()]++;
+    }
+
+    /**
+     * 窗口内各状态的计数，下标为 {@link HistoryRecord.Status#ordinal()}
+     */
+    synchronized long[] totals(long now) {
+        int today = (int) Math.floorDiv(now, DAY_MILLIS);
+        long[] totals = new long[STATUSES.length];
+        for (int i = 0; i < days; i++) {
+            int base = i * WIDTH;
+            if (slots[base] > today - days && slots[base] <= today) {
+                for (int s = 0; s < STATUSES.length; s++) {
+                    totals[s] += slots[base + 1 + s];
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 送达率 (%) = (成功发送 - 退回) / (成功发送 + 最终失败)，窗口内没有发送时返回null
+     */
+    static Double deliveryRate(long[] totals) {
+        long sent = totals[HistoryRecord.Status.SENT.ordinal()];
+        long attempted = sent + totals[HistoryRecord.Status.FAILED.ordinal()];
+        if (attempted == 0) {
+            return null;
+        }
+        long delivered = Math.max(0, sent - totals[HistoryRecord.Status.BOUNCED.ordinal()]);
+        return Math.round(delivered * 10000.0 / attempted) / 100.0;
+    }
+
+    int getDays() {
+        return days;
+    }
+}
@@ -0,0 +1,78 @@
+package com.creditcontrol.notification.history;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 通知历史翻页游标
+ * 对外是不透明的字符串: Base64URL([long 日志位置][8字节 HMAC-SHA256(客户ID, 位置) 截断])，
+ * 调用方无法构造或改写位置去读取日志中的任意偏移，也不能把一个客户的游标用于另一个客户。
+ * 未配置密钥时每次启动随机生成，重启前签发的游标随之失效。
+ */
+final class HistoryCursor {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 8;
+    private static final int CURSOR_BYTES = 8 + MAC_BYTES;
+
+    private final SecretKeySpec key;
+
+    HistoryCursor(String secret) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    String encode(long customerId, long position) {
+        ByteBuffer cursor = ByteBuffer.allocate(CURSOR_BYTES);
+        cursor.putLong(position).put(mac(customerId, position));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.array());
+    }
+
+    /**
+     * 返回游标中的日志位置，游标格式不符或签名不匹配时抛出IllegalArgumentException
+     */
+    long decode(long customerId, String value) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid history cursor");
+        }
+        if (bytes.length != CURSOR_BYTES) {
+            throw new IllegalArgumentException("Invalid history cursor");
+        }
+        ByteBuffer cursor = ByteBuffer.wrap(bytes);
+        long position = cursor.getLong();
+        byte[] signature = new byte[MAC_BYTES];
+        cursor.get(signature);
+        if (!MessageDigest.isEqual(signature, mac(customerId, position))) {
+            throw new IllegalArgumentException("Invalid history cursor");
+        }
+        return position;
+    }
+
+    private byte[] mac(long customerId, long position) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal(ByteBuffer.allocate(16).putLong(customerId).putLong(position).array());
+            byte[] truncated = new byte[MAC_BYTES];
+            System.arraycopy(digest, 0, truncated, 0, MAC_BYTES);
+            return truncated;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
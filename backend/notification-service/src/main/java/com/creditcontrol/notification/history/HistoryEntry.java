@@ -0,0 +1,23 @@
+package com.creditcontrol.notification.history;
+
+/**
+ * 历史查询结果中的一条通知，receipt为该通知最新的回执 (可为null)
+ */
+public final class HistoryEntry {
+
+    private final HistoryRecord notification;
+    private final HistoryRecord receipt;
+
+    HistoryEntry(HistoryRecord notification, HistoryRecord receipt) {
+        this.notification = notification;
+        this.receipt = receipt;
+    }
+
+    public HistoryRecord getNotification() {
+        return notification;
+    }
+
+    public HistoryRecord getReceipt() {
+        return receipt;
+    }
+}
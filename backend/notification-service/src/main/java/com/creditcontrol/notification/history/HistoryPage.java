@@ -0,0 +1,25 @@
+package com.creditcontrol.notification.history;
+
+import java.util.List;
+
+/**
+ * 一页客户通知历史，新的在前；nextCursor为下一页的游标，没有更多时为null
+ */
+public final class HistoryPage {
+
+    private final List<HistoryEntry> entries;
+    private final String nextCursor;
+
+    HistoryPage(List<HistoryEntry> entries, String nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<HistoryEntry> getEntries() {
+        return entries;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
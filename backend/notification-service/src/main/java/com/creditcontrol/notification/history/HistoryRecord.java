@@ -0,0 +1,125 @@
+package com.creditcontrol.notification.history;
+
+import com.creditcontrol.notification.dispatch.Notification;
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+
+/**
+ * 通知历史记录 (不可变)
+ * SENT/FAILED为发送结果，DELIVERED/BOUNCED为提供方回执，回执只带通知ID和说明。
+ * position为记录在历史日志中的位置，写入后才有值；previousPosition指向同一客户的上一条记录，
+ * 客户的历史沿这条链倒序读取，不需要扫描。
+ */
+public final class HistoryRecord {
+
+    public enum Status {
+        SENT, FAILED, DELIVERED, BOUNCED;
+
+        public boolean isReceipt() {
+            return this == DELIVERED || this == BOUNCED;
+        }
+    }
+
+    private final long timestamp;
+    private final long customerId;
+    private final Status status;
+    private final NotificationChannel channel;
+    private final int attempts;
+    private final String notificationId;
+    private final String recipient;
+    private final String subject;
+    private final String message;
+    private final String type;
+    private final String detail;
+
+    private long position;
+    private long previousPosition;
+
+    HistoryRecord(long timestamp, long customerId, Status status, NotificationChannel channel, int attempts,
+                  String notificationId, String recipient, String subject, String message, String type, String detail) {
+        this.timestamp = timestamp;
+        this.customerId = customerId;
+        this.status = status;
+        this.channel = channel;
+        this.attempts = attempts;
+        this.notificationId = notificationId;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.message = message;
+        this.type = type;
+        this.detail = detail;
+    }
+
+    static HistoryRecord of(Notification notification) {
+        boolean sent = notification.getStatus() == Notification.Status.SENT;
+        return new HistoryRecord(sent ? notification.getSentAt() : System.currentTimeMillis(),
+                notification.getCustomerId() == null ? 0L : notification.getCustomerId(),
+                sent ? Status.SENT : Status.FAILED, notification.getChannel(), notification.getAttempts(),
+                notification.getNotificationId(), notification.getRecipient(), notification.getSubject(),
+                notification.getMessage(), notification.getType(), notification.getError());
+    }
+
+    static HistoryRecord receipt(long timestamp, long customerId, NotificationChannel channel, String notificationId,
+                                 Status status, String detail) {
+        return new HistoryRecord(timestamp, customerId, status, channel, 0, notificationId, null, null, null, null,
+                detail);
+    }
+
+    void setPosition(long position, long previousPosition) {
+        this.position = position;
+        this.previousPosition = previousPosition;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** 0表示未关联客户 */
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /** 失败原因或回执说明 */
+    public String getDetail() {
+        return detail;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    long getPreviousPosition() {
+        return previousPosition;
+    }
+}
@@ -0,0 +1,365 @@
+package com.creditcontrol.notification.history;
+
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 通知历史追加写日志
+ * 按大小分段 (history-&lt;分段号&gt;.log)，每条记录一帧:
+ * [int 长度][int CRC32][long 同客户上一条位置][long 时间戳][long 客户ID][byte 状态][byte 渠道][short 次数]
+ * [通知ID][接收人][标题][内容][类型][说明]，字符串为 [int 字节数 (-1表示null)][UTF-8]。
+ * 位置 = 分段号 &lt;&lt; 40 | 段内偏移。写入只由历史写线程调用，读取可并发。
+ */
+@Slf4j
+final class NotificationHistoryLog implements Closeable {
+
+    static final long NO_POSITION = -1L;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_BYTES = 8 + 8 + 8 + 1 + 1 + 2;
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final HistoryRecord.Status[] STATUSES = HistoryRecord.Status.values();
+    private static final NotificationChannel[] CHANNELS = NotificationChannel.values();
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final CRC32 writeCrc = new CRC32();
+    private final Map<Integer, FileChannel> readers = new ConcurrentHashMap<>();
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(1024 * 1024);
+    private FileChannel channel;
+    private int segment;
+    private long channelSize;
+
+    NotificationHistoryLog(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按写入顺序回放全部记录，截断最后一个分段的不完整尾帧；返回记录数
+     */
+    long replay(Consumer<HistoryRecord> consumer) throws IOException {
+        List<Integer> segments = segments();
+        long[] records = {0};
+        Consumer<HistoryRecord> counting = record -> {
+            records[0]++;
+            consumer.accept(record);
+        };
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segmentPath(segments.get(i));
+            long size = Files.size(path);
+            long validBytes = scan(segments.get(i), path, size, counting);
+            if (validBytes < size) {
+                if (i < segments.size() - 1) {
+                    log.warn("NOTIFICATION_HISTORY_CORRUPT: {} is unreadable after offset {}", path, validBytes);
+                    continue;
+                }
+                log.warn("NOTIFICATION_HISTORY_RECOVERY: truncating torn tail of {} from {} to {} bytes",
+                        path, size, validBytes);
+                try (FileChannel recovery = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    recovery.truncate(validBytes);
+                    recovery.force(true);
+                }
+            }
+        }
+        if (!segments.isEmpty()) {
+            segment = segments.get(segments.size() - 1);
+            channel = FileChannel.open(segmentPath(segment), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channelSize = channel.size();
+        }
+        return records[0];
+    }
+
+    /**
+     * 把记录编码到写缓冲区并返回其位置，记录不跨分段；需调用flush才写出
+     */
+    long append(HistoryRecord record, long previousPosition) throws IOException {
+        byte[][] strings = {
+                utf8(record.getNotificationId()), utf8(record.getRecipient()), utf8(record.getSubject()),
+                utf8(record.getMessage()), utf8(record.getType()), utf8(record.getDetail())};
+        int payloadLength = FIXED_BYTES;
+        for (byte[] value : strings) {
+            payloadLength += 4 + (value == null ? 0 : value.length);
+        }
+        int frameLength = HEADER_BYTES + payloadLength;
+        long pendingSize = channelSize + writeBuffer.position();
+        if (channel == null || (pendingSize > 0 && pendingSize + frameLength > segmentBytes)) {
+            flush(false);
+            roll();
+        }
+        if (writeBuffer.remaining() < frameLength) {
+            flush(false);
+            if (writeBuffer.capacity() < frameLength) {
+                writeBuffer = ByteBuffer.allocate(frameLength);
+            }
+        }
+
+        long position = ((long) segment << OFFSET_BITS) | (channelSize + writeBuffer.position());
+        int start = writeBuffer.position();
+        writeBuffer.position(start + HEADER_BYTES);
+        writeBuffer.putLong(previousPosition)
+                .putLong(record.getTimestamp())
+                .putLong(record.getCustomerId())
+                .put((byte) record.getStatus().ordinal())
+                .put((byte) (record.getChannel() == null ? -1 : record.getChannel().ordinal()))
+                .putShort((short) Math.min(record.getAttempts(), Short.MAX_VALUE));
+        for (byte[] value : strings) {
+            if (value == null) {
+                writeBuffer.putInt(-1);
+            } else {
+                writeBuffer.putInt(value.length).put(value);
+            }
+        }
+        writeCrc.reset();
+        writeCrc.update(writeBuffer.array(), start + HEADER_BYTES, payloadLength);
+        writeBuffer.putInt(start, payloadLength);
+        writeBuffer.putInt(start + 4, (int) writeCrc.getValue());
+        record.setPosition(position, previousPosition);
+        return position;
+    }
+
+    /**
+     * 写出缓冲区，force为true时fsync
+     */
+    void flush(boolean force) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channelSize += channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        if (force && channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 写出失败后丢弃缓冲区并切换到新分段，半写的帧留在旧分段末尾，回放时跳过
+     */
+    void recover() throws IOException {
+        writeBuffer.clear();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            segment++;
+        }
+        roll();
+    }
+
+    /**
+     * 读取指定位置的记录；分段已被清理、位置超出分段或记录损坏时返回null
+     */
+    HistoryRecord read(long position) throws IOException {
+        if (position < 0) {
+            return null;
+        }
+        int segmentId = (int) (position >>> OFFSET_BITS);
+        long offset = position & OFFSET_MASK;
+        FileChannel reader;
+        try {
+            reader = readers.computeIfAbsent(segmentId, id -> {
+                try {
+                    return FileChannel.open(segmentPath(id), StandardOpenOption.READ);
+                } catch (IOException e) {
+                    throw new SegmentUnavailableException(e);
+                }
+            });
+        } catch (SegmentUnavailableException e) {
+            if (e.getCause() instanceof NoSuchFileException) {
+                return null;
+            }
+            throw (IOException) e.getCause();
+        }
+        try {
+            // 帧长度按分段的实际大小校验，损坏的长度字段不会导致按配置的分段上限分配缓冲区
+            long available = reader.size() - offset - HEADER_BYTES;
+            if (available < FIXED_BYTES) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(reader, header, offset);
+            int length = header.getInt(0);
+            if (length < FIXED_BYTES || length > available) {
+                return null;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(reader, payload, offset + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                return null;
+            }
+            payload.flip();
+            return decode(payload, position);
+        } catch (ClosedChannelException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 删除最后修改时间早于cutoff的分段 (当前写入分段除外)，返回删除的分段数
+     */
+    int deleteSegmentsBefore(long cutoffMillis) throws IOException {
+        int deleted = 0;
+        for (int id : segments()) {
+            if (id == segment) {
+                continue;
+            }
+            Path path = segmentPath(id);
+            if (Files.getLastModifiedTime(path).toMillis() < cutoffMillis) {
+                FileChannel reader = readers.remove(id);
+                if (reader != null) {
+                    reader.close();
+                }
+                Files.deleteIfExists(path);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    int getSegmentCount() throws IOException {
+        return segments().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush(true);
+            channel.close();
+            channel = null;
+        }
+        for (FileChannel reader : readers.values()) {
+            reader.close();
+        }
+        readers.clear();
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            segment++;
+        }
+        channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSize = channel.size();
+        log.info("NOTIFICATION_HISTORY_SEGMENT_ROLLED: segment: {}", segment);
+    }
+
+    /**
+     * 内存映射扫描一个分段，返回最后一个有效帧结束处的偏移量
+     */
+    private long scan(int segmentId, Path path, long size, Consumer<HistoryRecord> consumer) throws IOException {
+        if (size == 0) {
+            return 0L;
+        }
+        CRC32 crc = new CRC32();
+        MappedByteBuffer buffer;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int offset = 0;
+        while (size - offset >= HEADER_BYTES) {
+            int length = buffer.getInt(offset);
+            int payloadStart = offset + HEADER_BYTES;
+            if (length < FIXED_BYTES || length > size - payloadStart) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(payloadStart, length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            consumer.accept(decode(buffer.slice(payloadStart, length), ((long) segmentId << OFFSET_BITS) | offset));
+            offset = payloadStart + length;
+        }
+        return offset;
+    }
+
+    private static HistoryRecord decode(ByteBuffer payload, long position) {
+        long previousPosition = payload.getLong();
+        long timestamp = payload.getLong();
+        long customerId = payload.getLong();
+        HistoryRecord.Status status = STATUSES[payload.get()];
+        int channelOrdinal = payload.get();
+        int attempts = payload.getShort();
+        HistoryRecord record = new HistoryRecord(timestamp, customerId, status,
+                channelOrdinal < 0 ? null : CHANNELS[channelOrdinal], attempts,
+                string(payload), string(payload), string(payload), string(payload), string(payload), string(payload));
+        record.setPosition(position, previousPosition);
+        return record;
+    }
+
+    private static void readFully(FileChannel reader, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (reader.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of notification history segment");
+            }
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<Integer> segments() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(ids::add);
+        }
+        return ids;
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 在computeIfAbsent中传递打开分段失败的原因
+     */
+    private static final class SegmentUnavailableException extends RuntimeException {
+
+        SegmentUnavailableException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.creditcontrol.notification.history;
+
+import com.creditcontrol.notification.dispatch.DeliveryListener;
+import com.creditcontrol.notification.dispatch.Notification;
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import com.creditcontrol.notification.exception.NotificationRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知历史存储
+ * 发送结果 (由分发器回调) 和提供方回执进入有界队列，单个写线程把一批记录一次写入追加日志并fsync。
+ * 每条记录带同一客户上一条记录的位置，内存中每个客户只保存最新位置和按天滚动的送达计数，
+ * 查询沿链倒序读取，只读取返回的记录。启动时扫描日志重建索引；超过保留期的分段整体删除。
+ */
+@Component
+@Slf4j
+public class NotificationHistoryStore implements DeliveryListener {
+
+    @Value("${creditcontrol.notification.history.directory:data/history}")
+    private String directory;
+
+    @Value("${creditcontrol.notification.history.segment-bytes:268435456}")
+    private long segmentBytes;
+
+    @Value("${creditcontrol.notification.history.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${creditcontrol.notification.history.max-batch-size:4096}")
+    private int maxBatchSize;
+
+    @Value("${creditcontrol.notification.history.fsync:true}")
+    private boolean fsync;
+
+    @Value("${creditcontrol.notification.history.rate-window-days:7}")
+    private int rateWindowDays;
+
+    @Value("${creditcontrol.notification.history.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${creditcontrol.notification.history.receipt-index-capacity:200000}")
+    private int receiptIndexCapacity;
+
+    @Value("${creditcontrol.notification.history.cursor-secret:}")
+    private String cursorSecret;
+
+    private NotificationHistoryLog historyLog;
+    private HistoryCursor cursors;
+    private BlockingQueue<HistoryRecord> queue;
+    private final Map<Long, CustomerHistory> customers = new ConcurrentHashMap<>();
+    private final Map<NotificationChannel, DeliveryCounters> channelCounters = new EnumMap<>(NotificationChannel.class);
+    /** 近期通知ID → (客户ID &lt;&lt; 8 | 渠道序号)，用于把回执关联到客户 */
+    private Map<String, Long> recentNotifications;
+
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong recordsDropped = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private volatile long replayedRecords;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path path = Paths.get(directory);
+        Files.createDirectories(path);
+        long startTime = System.currentTimeMillis();
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            channelCounters.put(channel, new DeliveryCounters(rateWindowDays));
+        }
+        recentNotifications = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > receiptIndexCapacity;
+            }
+        };
+
+        cursors = new HistoryCursor(cursorSecret);
+        historyLog = new NotificationHistoryLog(path, segmentBytes);
+        replayedRecords = historyLog.replay(this::index);
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "notification-history-writer");
+        writer.start();
+        log.info("NOTIFICATION_HISTORY_OPENED: directory: {}, segments: {}, replayedRecords: {}, customers: {}, duration: {}ms",
+                path, historyLog.getSegmentCount(), replayedRecords, customers.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        historyLog.close();
+        log.info("NOTIFICATION_HISTORY_CLOSED: written: {}, dropped: {}", recordsWritten.get(), recordsDropped.get());
+    }
+
+    @Override
+    public void onDelivered(List<Notification> completed) {
+        for (Notification notification : completed) {
+            try {
+                // 写线程跟不上时让分发线程等待，压力传回分发队列
+                if (!queue.offer(HistoryRecord.of(notification), 5, TimeUnit.SECONDS)) {
+                    recordsDropped.incrementAndGet();
+                    log.error("NOTIFICATION_HISTORY_DROPPED: notificationId: {}", notification.getNotificationId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recordsDropped.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 记录提供方回执；通知ID不在近期索引中时返回null，队列满时抛出NotificationRejectedException
+     */
+    public HistoryRecord recordReceipt(String notificationId, boolean delivered, String detail, long timestamp) {
+        Long target;
+        synchronized (recentNotifications) {
+            target = recentNotifications.get(notificationId);
+        }
+        if (target == null) {
+            return null;
+        }
+        HistoryRecord receipt = HistoryRecord.receipt(timestamp, target >>> 8,
+                NotificationChannel.values()[(int) (target & 0xff)], notificationId,
+                delivered ? HistoryRecord.Status.DELIVERED : HistoryRecord.Status.BOUNCED, detail);
+        if (!queue.offer(receipt)) {
+            recordsDropped.incrementAndGet();
+            throw new NotificationRejectedException("Notification history queue is full", 1);
+        }
+        return receipt;
+    }
+
+    /**
+     * 按时间倒序查询客户的通知，回执合并到对应通知上。cursor为上一页的nextCursor，
+     * 不是本服务为该客户签发的游标时抛出IllegalArgumentException
+     */
+    public HistoryPage query(long customerId, String cursor, int limit) throws IOException {
+        long position;
+        if (cursor != null && !cursor.isEmpty()) {
+            position = cursors.decode(customerId, cursor);
+        } else {
+            CustomerHistory history = customers.get(customerId);
+            position = history == null ? NotificationHistoryLog.NO_POSITION : history.head;
+        }
+        List<HistoryEntry> entries = new ArrayList<>(limit);
+        Map<String, HistoryRecord> receipts = new HashMap<>();
+        int budget = limit * 4 + 16;
+        while (position != NotificationHistoryLog.NO_POSITION && entries.size() < limit && budget-- > 0) {
+            HistoryRecord record = historyLog.read(position);
+            // 链上的位置可能指向已被清理的分段，只接受属于该客户的记录
+            if (record == null || record.getCustomerId() != customerId) {
+                position = NotificationHistoryLog.NO_POSITION;
+                break;
+            }
+            if (record.getStatus().isReceipt()) {
+                receipts.putIfAbsent(record.getNotificationId(), record);
+            } else {
+                entries.add(new HistoryEntry(record, receipts.remove(record.getNotificationId())));
+            }
+            position = record.getPreviousPosition();
+        }
+        return new HistoryPage(entries,
+                position == NotificationHistoryLog.NO_POSITION ? null : cursors.encode(customerId, position));
+    }
+
+    /**
+     * 客户在滚动窗口内的计数，下标为 {@link HistoryRecord.Status#ordinal()}；没有记录时返回null
+     */
+    public long[] customerTotals(long customerId) {
+        CustomerHistory history = customers.get(customerId);
+        return history == null ? null : history.counters.totals(System.currentTimeMillis());
+    }
+
+    /**
+     * 客户累计的通知条数 (不含回执)
+     */
+    public long customerNotificationCount(long customerId) {
+        CustomerHistory history = customers.get(customerId);
+        return history == null ? 0 : history.notifications;
+    }
+
+    public Map<NotificationChannel, long[]> channelTotals() {
+        long now = System.currentTimeMillis();
+        Map<NotificationChannel, long[]> totals = new EnumMap<>(NotificationChannel.class);
+        channelCounters.forEach((channel, counters) -> totals.put(channel, counters.totals(now)));
+        return totals;
+    }
+
+    public static Double deliveryRate(long[] totals) {
+        return DeliveryCounters.deliveryRate(totals);
+    }
+
+    private void writeLoop() {
+        List<HistoryRecord> batch = new ArrayList<>(maxBatchSize);
+        Map<Long, Long> batchHeads = new HashMap<>();
+        long nextRetention = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                HistoryRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    write(batch, batchHeads);
+                }
+                if (System.currentTimeMillis() >= nextRetention) {
+                    int deleted = historyLog.deleteSegmentsBefore(
+                            System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+                    if (deleted > 0) {
+                        log.info("NOTIFICATION_HISTORY_RETENTION: deletedSegments: {}", deleted);
+                    }
+                    nextRetention = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                writeFailures.incrementAndGet();
+                log.error("NOTIFICATION_HISTORY_WRITE_FAILED: records: {} - {}", batch.size(), e.getMessage(), e);
+                try {
+                    historyLog.recover();
+                } catch (IOException recoveryError) {
+                    log.error("NOTIFICATION_HISTORY_RECOVERY_FAILED: {}", recoveryError.getMessage(), recoveryError);
+                }
+            } finally {
+                batch.clear();
+                batchHeads.clear();
+            }
+        }
+    }
+
+    /**
+     * 一批记录编码后一次写出；落盘后才更新索引，查询不会读到未写出的位置
+     */
+    private void write(List<HistoryRecord> batch, Map<Long, Long> batchHeads) throws IOException {
+        for (HistoryRecord record : batch) {
+            long customerId = record.getCustomerId();
+            long previous = NotificationHistoryLog.NO_POSITION;
+            if (customerId != 0) {
+                Long pending = batchHeads.get(customerId);
+                CustomerHistory history = customers.get(customerId);
+                previous = pending != null ? pending : history != null ? history.head : NotificationHistoryLog.NO_POSITION;
+            }
+            long position = historyLog.append(record, previous);
+            if (customerId != 0) {
+                batchHeads.put(customerId, position);
+            }
+        }
+        historyLog.flush(fsync);
+        for (HistoryRecord record : batch) {
+            index(record);
+        }
+        recordsWritten.addAndGet(batch.size());
+        batchesWritten.incrementAndGet();
+    }
+
+    private void index(HistoryRecord record) {
+        HistoryRecord.Status status = record.getStatus();
+        if (record.getChannel() != null) {
+            channelCounters.get(record.getChannel()).record(status, record.getTimestamp());
+        }
+        if (record.getCustomerId() == 0) {
+            return;
+        }
+        CustomerHistory history = customers.computeIfAbsent(record.getCustomerId(),
+                id -> new CustomerHistory(rateWindowDays));
+        history.counters.record(status, record.getTimestamp());
+        if (!status.isReceipt()) {
+            history.notifications++;
+            if (record.getChannel() != null) {
+                synchronized (recentNotifications) {
+                    recentNotifications.put(record.getNotificationId(),
+                            (record.getCustomerId() << 8) | record.getChannel().ordinal());
+                }
+            }
+        }
+        history.head = record.getPosition();
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten.get();
+    }
+
+    public long getRecordsDropped() {
+        return recordsDropped.get();
+    }
+
+    public long getWriteFailures() {
+        return writeFailures.get();
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCustomersIndexed() {
+        return customers.size();
+    }
+
+    public int getSegmentCount() throws IOException {
+        return historyLog.getSegmentCount();
+    }
+
+    public int getRateWindowDays() {
+        return rateWindowDays;
+    }
+
+    /**
+     * 一个客户的索引: 最新记录位置、累计通知数和滚动计数；只由写线程修改
+     */
+    private static final class CustomerHistory {
+
+        final DeliveryCounters counters;
+        volatile long head = NotificationHistoryLog.NO_POSITION;
+        volatile long notifications;
+
+        CustomerHistory(int days) {
+            this.counters = new DeliveryCounters(days);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.creditcontrol.notification.provider;
+
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 模拟邮件网关，批量提交 (SMTP连接复用)
+ */
+@Component
+@ConditionalOnProperty(name = "creditcontrol.notification.providers.stub-enabled", havingValue = "true", matchIfMissing = true)
+public class StubEmailProvider extends StubNotificationProvider {
+
+    @Autowired
+    public StubEmailProvider(Environment environment) {
+        super(NotificationChannel.EMAIL, environment, 50, 1);
+    }
+}
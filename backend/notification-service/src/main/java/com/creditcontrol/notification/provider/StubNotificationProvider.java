@@ -0,0 +1,67 @@
+package com.creditcontrol.notification.provider;
+
+import com.creditcontrol.notification.dispatch.Notification;
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import com.creditcontrol.notification.dispatch.NotificationProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 本地模拟的发送提供方，不连接真实网关
+ * 每批耗时 base-latency-ms + per-message-latency-ms × 条数，每条按 failure-rate 随机失败。
+ * 参数: creditcontrol.notification.providers.stub.&lt;channel&gt;.{base-latency-ms,per-message-latency-ms,failure-rate}
+ */
+@Slf4j
+public abstract class StubNotificationProvider implements NotificationProvider {
+
+    private final NotificationChannel channel;
+    private final long baseLatencyMicros;
+    private final long perMessageLatencyMicros;
+    private final double failureRate;
+
+    protected StubNotificationProvider(NotificationChannel channel, Environment environment,
+                                       double defaultBaseLatencyMs, double defaultPerMessageLatencyMs) {
+        String prefix = "creditcontrol.notification.providers.stub." + channel.name().toLowerCase(Locale.ROOT) + ".";
+        this.channel = channel;
+        this.baseLatencyMicros = (long) (environment.getProperty(prefix + "base-latency-ms", Double.class,
+                defaultBaseLatencyMs) * 1000);
+        this.perMessageLatencyMicros = (long) (environment.getProperty(prefix + "per-message-latency-ms", Double.class,
+                defaultPerMessageLatencyMs) * 1000);
+        this.failureRate = environment.getProperty(prefix + "failure-rate", Double.class, 0.0);
+    }
+
+    @Override
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public List<Notification> send(List<Notification> batch) throws IOException {
+        long micros = baseLatencyMicros + perMessageLatencyMicros * batch.size();
+        try {
+            Thread.sleep(micros / 1000, (int) (micros % 1000) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending " + channel + " batch");
+        }
+        if (failureRate <= 0) {
+            return List.of();
+        }
+        List<Notification> failed = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (Notification notification : batch) {
+            if (random.nextDouble() < failureRate) {
+                failed.add(notification);
+            }
+        }
+        log.debug("STUB_BATCH_SENT: channel: {}, size: {}, failed: {}", channel, batch.size(), failed.size());
+        return failed;
+    }
+}
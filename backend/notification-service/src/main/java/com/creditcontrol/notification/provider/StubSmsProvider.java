@@ -0,0 +1,20 @@
+package com.creditcontrol.notification.provider;
+
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 模拟短信网关批量接口
+ */
+@Component
+@ConditionalOnProperty(name = "creditcontrol.notification.providers.stub-enabled", havingValue = "true", matchIfMissing = true)
+public class StubSmsProvider extends StubNotificationProvider {
+
+    @Autowired
+    public StubSmsProvider(Environment environment) {
+        super(NotificationChannel.SMS, environment, 20, 2);
+    }
+}
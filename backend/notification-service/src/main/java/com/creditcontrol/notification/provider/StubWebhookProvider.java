@@ -0,0 +1,20 @@
+package com.creditcontrol.notification.provider;
+
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 模拟Webhook回调，每条单独请求，单条耗时高
+ */
+@Component
+@ConditionalOnProperty(name = "creditcontrol.notification.providers.stub-enabled", havingValue = "true", matchIfMissing = true)
+public class StubWebhookProvider extends StubNotificationProvider {
+
+    @Autowired
+    public StubWebhookProvider(Environment environment) {
+        super(NotificationChannel.WEBHOOK, environment, 10, 5);
+    }
+}
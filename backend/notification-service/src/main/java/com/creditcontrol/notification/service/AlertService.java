@@ -0,0 +1,262 @@
+package com.creditcontrol.notification.service;
+
+import com.creditcontrol.notification.alert.Alert;
+import com.creditcontrol.notification.alert.AlertEngine;
+import com.creditcontrol.notification.alert.AlertEvent;
+import com.creditcontrol.notification.alert.AlertField;
+import com.creditcontrol.notification.alert.AlertOperator;
+import com.creditcontrol.notification.alert.AlertRule;
+import com.creditcontrol.notification.alert.AlertRuleRegistry;
+import com.creditcontrol.notification.alert.AlertSeverity;
+import com.creditcontrol.notification.dto.AlertDto;
+import com.creditcontrol.notification.dto.AlertEngineStatsDto;
+import com.creditcontrol.notification.dto.AlertEventRequest;
+import com.creditcontrol.notification.dto.AlertNotificationStatsDto;
+import com.creditcontrol.notification.dto.AlertStreamStatsDto;
+import com.creditcontrol.notification.dto.AlertRuleRequest;
+import com.creditcontrol.notification.stream.AlertBroadcaster;
+import com.creditcontrol.notification.throttle.AlertNotifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 告警业务服务层
+ */
+@Service
+@Slf4j
+public class AlertService {
+
+    @Autowired
+    private AlertEngine engine;
+
+    @Autowired
+    private AlertRuleRegistry ruleRegistry;
+
+    @Autowired
+    private AlertNotifier notifier;
+
+    @Autowired
+    private AlertBroadcaster broadcaster;
+
+    /**
+     * 提交事件，返回被接受的数量；缺少类型所需字段时抛出IllegalArgumentException
+     */
+    public int submitEvents(List<AlertEventRequest> requests) {
+        log.info("SERVICE_CALL: submitAlertEvents - count: {}", requests.size());
+        List<AlertEvent> events = requests.stream().map(AlertService::toEvent).collect(Collectors.toList());
+        int accepted = 0;
+        for (AlertEvent event : events) {
+            if (engine.offer(event)) {
+                accepted++;
+            }
+        }
+        if (accepted < events.size()) {
+            log.warn("ALERT_EVENTS_REJECTED: rejected: {}, queueDepth: {}", events.size() - accepted, engine.getQueueDepth());
+        }
+        return accepted;
+    }
+
+    /**
+     * 查询告警，status为空时返回未结束的告警；按产生时间倒序，最多limit条
+     */
+    public Map<String, Object> getAlerts(String status, String severity, Long customerId, int limit) {
+        Alert.Status statusFilter = status == null ? null : parse(Alert.Status.class, status, "alert status");
+        AlertSeverity severityFilter = severity == null ? null : parse(AlertSeverity.class, severity, "severity");
+        Stream<Alert> source = statusFilter == Alert.Status.RESOLVED
+                ? engine.getRecentResolved().stream()
+                : engine.getOpenAlerts().stream();
+        List<Alert> matched = source
+                .filter(alert -> statusFilter == null || alert.getStatus() == statusFilter)
+                .filter(alert -> severityFilter == null || alert.getSeverity() == severityFilter)
+                .filter(alert -> customerId == null || alert.getCustomerId() == customerId)
+                .collect(Collectors.toList());
+
+        long active = 0;
+        long high = 0;
+        for (Alert alert : engine.getOpenAlerts()) {
+            if (alert.getStatus() == Alert.Status.ACTIVE) {
+                active++;
+            }
+            if (alert.getSeverity() == AlertSeverity.HIGH) {
+                high++;
+            }
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("alerts", matched.stream()
+                .sorted(Comparator.comparingLong(Alert::getRaisedAt).reversed())
+                .limit(limit)
+                .map(AlertDto::from)
+                .collect(Collectors.toList()));
+        data.put("matchedAlerts", matched.size());
+        data.put("totalAlerts", engine.getOpenAlerts().size());
+        data.put("activeAlerts", active);
+        data.put("highSeverityAlerts", high);
+        return data;
+    }
+
+    public AlertDto acknowledge(long alertId) {
+        log.info("SERVICE_CALL: acknowledgeAlert - alertId: {}", alertId);
+        Alert alert = engine.acknowledge(alertId);
+        if (alert == null) {
+            return null;
+        }
+        broadcaster.publishAcknowledged(alert);
+        return AlertDto.from(alert);
+    }
+
+    public AlertDto getAlert(long alertId) {
+        Alert alert = engine.getAlert(alertId);
+        return alert == null ? null : AlertDto.from(alert);
+    }
+
+    public List<AlertRule> getRules() {
+        return ruleRegistry.getRules();
+    }
+
+    /**
+     * 创建规则，字段或比较方式无效时抛出IllegalArgumentException
+     */
+    public AlertRule createRule(AlertRuleRequest request) {
+        log.info("SERVICE_CALL: createAlertRule - alertType: {}, field: {}, operator: {}, threshold: {}",
+                request.getAlertType(), request.getField(), request.getOperator(), request.getThreshold());
+        return ruleRegistry.add(request.getAlertType(), AlertField.parse(request.getField()),
+                AlertOperator.parse(request.getOperator()), request.getThreshold(), request.getSeverity(),
+                request.getMessageTemplate());
+    }
+
+    public AlertRule deleteRule(String ruleId) {
+        log.info("SERVICE_CALL: deleteAlertRule - ruleId: {}", ruleId);
+        return ruleRegistry.remove(ruleId);
+    }
+
+    public AlertEngineStatsDto getStats() {
+        long processed = engine.getEventsProcessed();
+        return AlertEngineStatsDto.builder()
+                .shards(engine.getShardCount())
+                .rules(ruleRegistry.getRules().size())
+                .eventsAccepted(engine.getEventsAccepted())
+                .eventsRejected(engine.getEventsRejected())
+                .eventsProcessed(processed)
+                .rulesPerEvent(processed == 0 ? 0.0 : Math.round(engine.getRulesEvaluated() * 100.0 / processed) / 100.0)
+                .alertsRaised(engine.getAlertsRaised())
+                .alertsResolved(engine.getAlertsResolved())
+                .openAlerts(engine.getOpenAlerts().size())
+                .queueDepth(engine.getQueueDepth())
+                .customersTracked(engine.getCustomersTracked())
+                .customersEvicted(engine.getCustomersEvicted())
+                .build();
+    }
+
+    /**
+     * 订阅告警推送，订阅数已满时返回null
+     */
+    public SseEmitter subscribe(Long lastEventId, AlertSeverity severity, Long customerId) {
+        log.info("SERVICE_CALL: subscribeAlertStream - lastEventId: {}, severity: {}, customerId: {}",
+                lastEventId, severity, customerId);
+        return broadcaster.subscribe(lastEventId == null ? 0 : lastEventId,
+                severity == null ? null : severity.name(), customerId);
+    }
+
+    public AlertStreamStatsDto getStreamStats() {
+        return AlertStreamStatsDto.builder()
+                .subscribers(broadcaster.getSubscriberCount())
+                .maxSubscribers(broadcaster.getMaxSubscribers())
+                .bufferSize(broadcaster.getBufferSize())
+                .replayCapacity(broadcaster.getReplayCapacity())
+                .lastEventId(broadcaster.getLastEventId())
+                .eventsPublished(broadcaster.getEventsPublished())
+                .eventsDropped(broadcaster.getEventsDropped())
+                .eventsReplayed(broadcaster.getEventsReplayed())
+                .resets(broadcaster.getResets())
+                .slowConsumersEvicted(broadcaster.getSlowConsumersEvicted())
+                .subscribersRejected(broadcaster.getSubscribersRejected())
+                .build();
+    }
+
+    public AlertNotificationStatsDto getNotificationStats() {
+        Map<String, List<String>> recipients = new LinkedHashMap<>();
+        notifier.getRecipients().forEach((severity, list) -> recipients.put(severity.name(), list));
+        return AlertNotificationStatsDto.builder()
+                .enabled(notifier.isEnabled())
+                .alertsNotified(notifier.getAlertsNotified())
+                .duplicatesSuppressed(notifier.getDuplicatesSuppressed())
+                .throttledSuppressed(notifier.getThrottledSuppressed())
+                .notificationsQueued(notifier.getNotificationsQueued())
+                .notificationsRejected(notifier.getNotificationsRejected())
+                .duplicatesByType(notifier.getDuplicatesByType())
+                .dedupWindowMinutes(notifier.getDedupWindows())
+                .throttleWindowMinutes(notifier.getThrottleWindowMinutes())
+                .maxPerRecipient(notifier.getMaxPerRecipient())
+                .trackedKeys(notifier.getTrackedKeys())
+                .recipients(recipients)
+                .build();
+    }
+
+    private static AlertEvent toEvent(AlertEventRequest request) {
+        long timestamp = request.getOccurredAt() != null ? request.getOccurredAt().toEpochMilli() : System.currentTimeMillis();
+        AlertEvent event = new AlertEvent(request.getType(), request.getCustomerId(), request.getCustomerName(), timestamp);
+        boolean valid;
+        switch (request.getType()) {
+            case CREDIT_UTILIZATION:
+                Double utilization = request.getUtilization();
+                BigDecimal limit = request.getCreditLimit();
+                BigDecimal available = request.getAvailableCredit();
+                if (utilization == null && limit != null && available != null && limit.signum() > 0) {
+                    utilization = limit.subtract(available).doubleValue() * 100.0 / limit.doubleValue();
+                }
+                if (utilization != null) {
+                    event.with(AlertField.UTILIZATION, utilization);
+                }
+                if (limit != null) {
+                    event.with(AlertField.CREDIT_LIMIT, limit.doubleValue());
+                }
+                if (available != null) {
+                    event.with(AlertField.AVAILABLE_CREDIT, available.doubleValue());
+                }
+                valid = utilization != null || limit != null || available != null;
+                break;
+            case PAYMENT:
+                if (request.getAmount() != null) {
+                    event.with(AlertField.PAYMENT_AMOUNT, request.getAmount().doubleValue());
+                }
+                if (request.getDaysOverdue() != null) {
+                    event.with(AlertField.DAYS_OVERDUE, request.getDaysOverdue());
+                }
+                valid = request.getAmount() != null || request.getDaysOverdue() != null;
+                break;
+            case RISK_SCORE:
+                if (request.getRiskScore() != null) {
+                    event.with(AlertField.RISK_SCORE, request.getRiskScore());
+                }
+                valid = request.getRiskScore() != null;
+                break;
+            default:
+                valid = false;
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Missing fields for " + request.getType() + " event of customer "
+                    + request.getCustomerId());
+        }
+        return event;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.creditcontrol.notification.service;
+
+import com.creditcontrol.notification.dispatch.ChannelDispatcher;
+import com.creditcontrol.notification.dispatch.Notification;
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import com.creditcontrol.notification.dispatch.NotificationDispatcher;
+import com.creditcontrol.notification.dto.DispatchStatsDto;
+import com.creditcontrol.notification.dto.NotificationDto;
+import com.creditcontrol.notification.dto.NotificationRequest;
+import com.creditcontrol.notification.exception.NotificationRejectedException;
+import com.creditcontrol.notification.template.RenderedMessage;
+import com.creditcontrol.notification.template.TemplateRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 通知发送业务服务层
+ */
+@Service
+@Slf4j
+public class NotificationDispatchService {
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    @Autowired
+    private TemplateRegistry templateRegistry;
+
+    /**
+     * 放入渠道队列；队列满时抛出NotificationRejectedException，模板或变量无效时抛出IllegalArgumentException
+     */
+    public NotificationDto send(NotificationRequest request) {
+        log.info("SERVICE_CALL: sendNotification - channel: {}, customerId: {}", request.getChannel(), request.getCustomerId());
+        return NotificationDto.from(submit(request, render(request)));
+    }
+
+    /**
+     * 批量放入队列，逐条处理，被拒绝的不影响其他通知；渠道、模板或变量无效时整批拒绝
+     */
+    public Map<String, Object> sendBatch(List<NotificationRequest> requests) {
+        log.info("SERVICE_CALL: sendNotificationBatch - count: {}", requests.size());
+        requests.forEach(request -> NotificationChannel.parse(request.getChannel()));
+        // 先全部渲染，校验失败时不会有部分通知已入队
+        List<RenderedMessage> messages = new ArrayList<>(requests.size());
+        requests.forEach(request -> messages.add(render(request)));
+
+        List<NotificationDto> accepted = new ArrayList<>(requests.size());
+        int rejected = 0;
+        long retryAfterSeconds = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                accepted.add(NotificationDto.from(submit(requests.get(i), messages.get(i))));
+            } catch (NotificationRejectedException e) {
+                rejected++;
+                retryAfterSeconds = Math.max(retryAfterSeconds, e.getRetryAfterSeconds());
+            }
+        }
+        if (rejected > 0) {
+            log.warn("NOTIFICATIONS_REJECTED: rejected: {}, retryAfterSeconds: {}", rejected, retryAfterSeconds);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accepted", accepted.size());
+        result.put("rejected", rejected);
+        result.put("retryAfterSeconds", retryAfterSeconds);
+        result.put("notifications", accepted);
+        return result;
+    }
+
+    public List<DispatchStatsDto> getStats() {
+        return dispatcher.getChannels().stream().map(NotificationDispatchService::toStats).collect(Collectors.toList());
+    }
+
+    private Notification submit(NotificationRequest request, RenderedMessage message) {
+        String type = request.getType() != null ? request.getType() : request.getTemplateId();
+        return dispatcher.submit(NotificationChannel.parse(request.getChannel()), request.getRecipient(),
+                message.getSubject(), message.getBody(), request.getCustomerId(), type);
+    }
+
+    /**
+     * 有模板ID时按模板渲染 (模板没有标题时保留请求中的subject)，否则直接使用请求中的内容
+     */
+    private RenderedMessage render(NotificationRequest request) {
+        if (request.getTemplateId() == null) {
+            if (request.getMessage() == null || request.getMessage().isBlank()) {
+                throw new IllegalArgumentException("Either message or templateId is required");
+            }
+            return RenderedMessage.of(request.getSubject(), request.getMessage());
+        }
+        RenderedMessage rendered = templateRegistry
+                .resolve(request.getTemplateId(), request.getTemplateVersion(), request.getLocale())
+                .render(request.getVariables());
+        return rendered.getSubject() != null ? rendered : RenderedMessage.of(request.getSubject(), rendered.getBody());
+    }
+
+    private static DispatchStatsDto toStats(ChannelDispatcher channel) {
+        long batches = channel.getBatches();
+        return DispatchStatsDto.builder()
+                .channel(channel.getChannel().name())
+                .queueDepth(channel.getQueueDepth())
+                .queueCapacity(channel.getQueueCapacity())
+                .concurrency(channel.getConcurrency())
+                .batchSize(channel.getBatchSize())
+                .ratePerSecond(channel.getRatePerSecond())
+                .accepted(channel.getAccepted())
+                .rejected(channel.getRejected())
+                .sent(channel.getSent())
+                .failed(channel.getFailed())
+                .retried(channel.getRetried())
+                .batches(batches)
+                .averageBatchSize(batches == 0 ? 0.0
+                        : (double) (channel.getSent() + channel.getFailed() + channel.getRetried()) / batches)
+                .averageLatencyMicros(channel.getAverageLatencyMicros())
+                .maxLatencyMicros(channel.getMaxLatencyMicros())
+                .build();
+    }
+}
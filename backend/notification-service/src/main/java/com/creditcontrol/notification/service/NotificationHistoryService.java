@@ -0,0 +1,83 @@
+package com.creditcontrol.notification.service;
+
+import com.creditcontrol.notification.dto.DeliveryReceiptRequest;
+import com.creditcontrol.notification.dto.NotificationHistoryDto;
+import com.creditcontrol.notification.dto.NotificationHistoryStatsDto;
+import com.creditcontrol.notification.history.HistoryPage;
+import com.creditcontrol.notification.history.HistoryRecord;
+import com.creditcontrol.notification.history.NotificationHistoryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 通知历史业务服务层
+ */
+@Service
+@Slf4j
+public class NotificationHistoryService {
+
+    @Autowired
+    private NotificationHistoryStore historyStore;
+
+    public Map<String, Object> getHistory(long customerId, String cursor, int limit) throws IOException {
+        log.info("SERVICE_CALL: getNotificationHistory - customerId: {}, cursor: {}, limit: {}", customerId, cursor, limit);
+        HistoryPage page = historyStore.query(customerId, cursor, limit);
+        long[] totals = historyStore.customerTotals(customerId);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("customerId", customerId);
+        data.put("notifications", page.getEntries().stream().map(NotificationHistoryDto::from).collect(Collectors.toList()));
+        data.put("nextCursor", page.getNextCursor());
+        data.put("totalSent", historyStore.customerNotificationCount(customerId));
+        data.put("deliveryRate", totals == null ? null : NotificationHistoryStore.deliveryRate(totals));
+        data.put("rateWindowDays", historyStore.getRateWindowDays());
+        if (totals != null) {
+            Map<String, Long> window = new LinkedHashMap<>();
+            for (HistoryRecord.Status status : HistoryRecord.Status.values()) {
+                window.put(status.name().toLowerCase(Locale.ROOT), totals[status.ordinal()]);
+            }
+            data.put("window", window);
+        }
+        return data;
+    }
+
+    /**
+     * 记录送达回执，通知ID未知时返回false
+     */
+    public boolean recordReceipt(DeliveryReceiptRequest request) {
+        log.info("SERVICE_CALL: recordDeliveryReceipt - notificationId: {}, status: {}",
+                request.getNotificationId(), request.getStatus());
+        long timestamp = request.getOccurredAt() != null ? request.getOccurredAt().toEpochMilli() : System.currentTimeMillis();
+        return historyStore.recordReceipt(request.getNotificationId(),
+                "DELIVERED".equalsIgnoreCase(request.getStatus()), request.getDetail(), timestamp) != null;
+    }
+
+    public NotificationHistoryStatsDto getStats() throws IOException {
+        Map<String, Double> rates = new TreeMap<>();
+        historyStore.channelTotals().forEach((channel, totals) ->
+                rates.put(channel.name(), NotificationHistoryStore.deliveryRate(totals)));
+        long batches = historyStore.getBatchesWritten();
+        return NotificationHistoryStatsDto.builder()
+                .recordsWritten(historyStore.getRecordsWritten())
+                .batchesWritten(batches)
+                .averageBatchSize(batches == 0 ? 0.0
+                        : Math.round(historyStore.getRecordsWritten() * 100.0 / batches) / 100.0)
+                .recordsDropped(historyStore.getRecordsDropped())
+                .writeFailures(historyStore.getWriteFailures())
+                .replayedRecords(historyStore.getReplayedRecords())
+                .queueDepth(historyStore.getQueueDepth())
+                .customersIndexed(historyStore.getCustomersIndexed())
+                .segments(historyStore.getSegmentCount())
+                .rateWindowDays(historyStore.getRateWindowDays())
+                .deliveryRateByChannel(rates)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.creditcontrol.notification.service;
+
+import com.creditcontrol.notification.dto.NotificationTemplateDto;
+import com.creditcontrol.notification.dto.TemplateRequest;
+import com.creditcontrol.notification.template.NotificationTemplate;
+import com.creditcontrol.notification.template.RenderedMessage;
+import com.creditcontrol.notification.template.TemplateRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 通知模板业务服务层
+ */
+@Service
+@Slf4j
+public class NotificationTemplateService {
+
+    @Autowired
+    private TemplateRegistry registry;
+
+    /**
+     * templateId为空时返回各模板各语言的最新版本，否则返回该模板的所有版本
+     */
+    public Map<String, Object> getTemplates(String templateId) {
+        List<NotificationTemplate> templates = templateId == null ? registry.getLatest() : registry.getVersions(templateId);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("templates", templates.stream().map(NotificationTemplateDto::from).collect(Collectors.toList()));
+        data.put("defaultLocale", registry.getDefaultLocale());
+        data.put("cachedResolutions", registry.getCachedEntries());
+        data.put("cacheHits", registry.getCacheHits());
+        data.put("cacheMisses", registry.getCacheMisses());
+        return data;
+    }
+
+    /**
+     * 注册新版本，模板格式错误时抛出IllegalArgumentException
+     */
+    public NotificationTemplateDto register(TemplateRequest request) {
+        log.info("SERVICE_CALL: registerTemplate - templateId: {}, locale: {}", request.getTemplateId(), request.getLocale());
+        return NotificationTemplateDto.from(registry.register(request.getTemplateId(), request.getLocale(),
+                request.getSubject(), request.getBody()));
+    }
+
+    /**
+     * 按发送时的解析规则渲染但不发送；模板不存在或缺少变量时抛出IllegalArgumentException
+     */
+    public Map<String, Object> preview(String templateId, Integer version, String locale, Map<String, String> variables) {
+        NotificationTemplate template = registry.resolve(templateId, version, locale);
+        RenderedMessage rendered = template.render(variables);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("templateId", template.getTemplateId());
+        data.put("version", template.getVersion());
+        data.put("locale", template.getLocale());
+        data.put("subject", rendered.getSubject());
+        data.put("body", rendered.getBody());
+        return data;
+    }
+}
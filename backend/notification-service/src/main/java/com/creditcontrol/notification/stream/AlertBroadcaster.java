@@ -0,0 +1,373 @@
+package com.creditcontrol.notification.stream;
+
+import com.creditcontrol.notification.alert.Alert;
+import com.creditcontrol.notification.alert.AlertListener;
+import com.creditcontrol.notification.dto.AlertDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 告警SSE广播
+ * 告警变化 (产生/确认/结束) 先进入入站队列，由单个广播线程编号、写入重放环并分发到各订阅者的有界缓冲区，
+ * 因此每个订阅者看到的事件编号严格递增。发送线程池负责实际写出，慢的客户端只会填满自己的缓冲区，
+ * 缓冲区满时断开该连接；客户端 (EventSource) 重连时带上Last-Event-ID，从重放环补发错过的事件，
+ * 超出重放范围时发送reset事件，客户端应重新查询 GET /alerts。
+ * 事件编号以进程启动时间为纪元 (启动秒数左移20位，不超过JavaScript的安全整数) 起始，重启后的编号总大于之前进程的编号，
+ * 因此带着上一进程编号或未知编号 (大于当前最新编号) 重连的客户端都会收到reset，不会错配重放。
+ */
+@Component
+@Slf4j
+public class AlertBroadcaster implements AlertListener {
+
+    private static final String RAISED = "ALERT_RAISED";
+    private static final String ACKNOWLEDGED = "ALERT_ACKNOWLEDGED";
+    private static final String RESOLVED = "ALERT_RESOLVED";
+    /** 纪元内编号占用的位数，每秒运行时间可容纳约100万个事件 */
+    private static final int EPOCH_SHIFT = 20;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${creditcontrol.notification.alerts.stream.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${creditcontrol.notification.alerts.stream.buffer-size:1024}")
+    private int bufferSize;
+
+    @Value("${creditcontrol.notification.alerts.stream.replay-capacity:10000}")
+    private int replayCapacity;
+
+    @Value("${creditcontrol.notification.alerts.stream.inbound-capacity:65536}")
+    private int inboundCapacity;
+
+    @Value("${creditcontrol.notification.alerts.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${creditcontrol.notification.alerts.stream.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${creditcontrol.notification.alerts.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private BlockingQueue<Change> inbound;
+    private final ConcurrentLinkedQueue<AlertSubscriber> joining = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong subscriberSequence = new AtomicLong();
+
+    // 以下只由广播线程访问
+    private final List<AlertSubscriber> subscribers = new ArrayList<>();
+    private AlertStreamEvent[] replay;
+    /** 本进程的纪元，本进程第一个事件的编号为epochBase + 1 */
+    private long epochBase;
+    private long lastEventId;
+
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private final AtomicLong eventsDropped = new AtomicLong();
+    private final AtomicLong eventsReplayed = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong slowConsumersEvicted = new AtomicLong();
+    private final AtomicLong subscribersRejected = new AtomicLong();
+    private volatile long publishedEventId;
+
+    private ExecutorService senders;
+    private Thread thread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        inbound = new ArrayBlockingQueue<>(inboundCapacity);
+        replay = new AlertStreamEvent[replayCapacity];
+        epochBase = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) << EPOCH_SHIFT;
+        lastEventId = epochBase;
+        publishedEventId = epochBase;
+        AtomicInteger senderId = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread sender = new Thread(runnable, "alert-stream-sender-" + senderId.incrementAndGet());
+            sender.setDaemon(true);
+            return sender;
+        });
+        running = true;
+        thread = new Thread(this::run, "alert-stream-broadcaster");
+        thread.start();
+        log.info("ALERT_STREAM_STARTED: maxSubscribers: {}, bufferSize: {}, replayCapacity: {}, senderThreads: {}",
+                maxSubscribers, bufferSize, replayCapacity, senderThreads);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        for (AlertSubscriber subscriber : subscribers) {
+            subscriber.closed = true;
+            subscriber.emitter.complete();
+        }
+        senders.shutdown();
+        log.info("ALERT_STREAM_STOPPED: published: {}, evicted: {}", eventsPublished.get(), slowConsumersEvicted.get());
+    }
+
+    @Override
+    public void onAlerts(List<Alert> raised, List<Alert> resolved) {
+        for (Alert alert : raised) {
+            publish(RAISED, alert);
+        }
+        for (Alert alert : resolved) {
+            publish(RESOLVED, alert);
+        }
+    }
+
+    public void publishAcknowledged(Alert alert) {
+        publish(ACKNOWLEDGED, alert);
+    }
+
+    /**
+     * 建立订阅；lastEventId大于0时先补发之后的事件。订阅数已满时返回null
+     */
+    public SseEmitter subscribe(long lastEventId, String severity, Long customerId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            subscribersRejected.incrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        AlertSubscriber subscriber = new AlertSubscriber(subscriberSequence.incrementAndGet(), emitter, severity,
+                customerId, lastEventId, bufferSize);
+        emitter.onCompletion(() -> subscriber.closed = true);
+        emitter.onTimeout(() -> subscriber.closed = true);
+        emitter.onError(e -> subscriber.closed = true);
+        joining.add(subscriber);
+        return emitter;
+    }
+
+    private void publish(String name, Alert alert) {
+        if (!inbound.offer(new Change(name, alert))) {
+            eventsDropped.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        List<Change> batch = new ArrayList<>();
+        long nextHeartbeat = System.currentTimeMillis() + heartbeatIntervalMs;
+        while (running) {
+            try {
+                Change first = inbound.poll(50, TimeUnit.MILLISECONDS);
+                removeClosed();
+                for (AlertSubscriber subscriber; (subscriber = joining.poll()) != null; ) {
+                    join(subscriber);
+                }
+                if (first != null) {
+                    batch.add(first);
+                    inbound.drainTo(batch);
+                    for (Change change : batch) {
+                        broadcast(toEvent(change));
+                    }
+                    batch.clear();
+                    publishedEventId = lastEventId;
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextHeartbeat) {
+                    for (AlertSubscriber subscriber : subscribers) {
+                        if (subscriber.buffer.isEmpty() && subscriber.buffer.offer(AlertStreamEvent.HEARTBEAT)) {
+                            schedule(subscriber);
+                        }
+                    }
+                    nextHeartbeat = now + heartbeatIntervalMs;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("ALERT_STREAM_ERROR: {}", e.getMessage(), e);
+                batch.clear();
+            }
+        }
+    }
+
+    private AlertStreamEvent toEvent(Change change) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(AlertDto.from(change.alert));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize alert " + change.alert.getAlertId(), e);
+        }
+        AlertStreamEvent event = new AlertStreamEvent(++lastEventId, change.name, json,
+                change.alert.getSeverity().name(), change.alert.getCustomerId());
+        replay[(int) (event.id % replayCapacity)] = event;
+        eventsPublished.incrementAndGet();
+        return event;
+    }
+
+    private void broadcast(AlertStreamEvent event) {
+        for (AlertSubscriber subscriber : subscribers) {
+            if (subscriber.closed || !subscriber.accepts(event)) {
+                continue;
+            }
+            if (subscriber.buffer.offer(event)) {
+                schedule(subscriber);
+            } else {
+                evict(subscriber);
+            }
+        }
+    }
+
+    /**
+     * 新订阅者: 从重放环补发lastEventId之后的事件，然后开始接收实时事件
+     */
+    private void join(AlertSubscriber subscriber) {
+        long from = subscriber.lastEventId;
+        if (from > 0 && from != lastEventId) {
+            long oldest = Math.max(epochBase + 1, lastEventId - replayCapacity + 1);
+            long missed = 0;
+            if (from > lastEventId) {
+                // 不是本进程发出的编号 (客户端伪造或时钟回拨后的旧进程)，无法判断错过了什么
+                resets.incrementAndGet();
+                subscriber.buffer.offer(new AlertStreamEvent(0, "reset",
+                        "{\"reason\":\"UNKNOWN_EVENT_ID\",\"lastEventId\":" + lastEventId + "}", null, 0));
+            } else if (from + 1 < oldest) {
+                resets.incrementAndGet();
+                subscriber.buffer.offer(new AlertStreamEvent(0, "reset",
+                        "{\"reason\":\"REPLAY_UNAVAILABLE\",\"lastEventId\":" + lastEventId + "}", null, 0));
+            } else {
+                for (long id = from + 1; id <= lastEventId; id++) {
+                    AlertStreamEvent event = replay[(int) (id % replayCapacity)];
+                    if (!subscriber.accepts(event)) {
+                        continue;
+                    }
+                    if (!subscriber.buffer.offer(event)) {
+                        // 积压超过缓冲区，补发不完，改为通知客户端重新加载
+                        subscriber.buffer.clear();
+                        resets.incrementAndGet();
+                        subscriber.buffer.offer(new AlertStreamEvent(0, "reset",
+                                "{\"reason\":\"REPLAY_TOO_LARGE\",\"lastEventId\":" + lastEventId + "}", null, 0));
+                        missed = 0;
+                        break;
+                    }
+                    missed++;
+                }
+            }
+            eventsReplayed.addAndGet(missed);
+        }
+        subscribers.add(subscriber);
+        if (!subscriber.buffer.isEmpty()) {
+            schedule(subscriber);
+        }
+        log.debug("ALERT_STREAM_SUBSCRIBED: subscriberId: {}, lastEventId: {}", subscriber.subscriberId, from);
+    }
+
+    private void evict(AlertSubscriber subscriber) {
+        subscriber.closed = true;
+        slowConsumersEvicted.incrementAndGet();
+        log.warn("ALERT_STREAM_EVICTED: subscriberId: {}, buffered: {}, delivered: {}",
+                subscriber.subscriberId, subscriber.buffer.size(), subscriber.delivered);
+        subscriber.emitter.complete();
+    }
+
+    private void removeClosed() {
+        Iterator<AlertSubscriber> iterator = subscribers.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().closed) {
+                iterator.remove();
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 保证每个订阅者同时只有一个发送任务；任务结束后再检查一次，避免漏掉期间放入的事件
+     */
+    private void schedule(AlertSubscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(AlertSubscriber subscriber) {
+        do {
+            try {
+                subscriber.drain();
+            } catch (IOException | RuntimeException e) {
+                subscriber.closed = true;
+                subscriber.buffer.clear();
+                log.debug("ALERT_STREAM_DISCONNECTED: subscriberId: {} - {}", subscriber.subscriberId, e.getMessage());
+            }
+            subscriber.scheduled.set(false);
+        } while (!subscriber.closed && !subscriber.buffer.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getReplayCapacity() {
+        return replayCapacity;
+    }
+
+    public long getLastEventId() {
+        return publishedEventId;
+    }
+
+    public long getEventsPublished() {
+        return eventsPublished.get();
+    }
+
+    public long getEventsDropped() {
+        return eventsDropped.get();
+    }
+
+    public long getEventsReplayed() {
+        return eventsReplayed.get();
+    }
+
+    public long getResets() {
+        return resets.get();
+    }
+
+    public long getSlowConsumersEvicted() {
+        return slowConsumersEvicted.get();
+    }
+
+    public long getSubscribersRejected() {
+        return subscribersRejected.get();
+    }
+
+    /**
+     * 入站的告警变化
+     */
+    private static final class Change {
+
+        final String name;
+        final Alert alert;
+
+        Change(String name, Alert alert) {
+            this.name = name;
+            this.alert = alert;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.creditcontrol.notification.stream;
+
+/**
+ * 推送给订阅者的告警事件，JSON只序列化一次，所有订阅者共享
+ */
+final class AlertStreamEvent {
+
+    /** 心跳，只发送SSE注释行，不占用事件编号 */
+    static final AlertStreamEvent HEARTBEAT = new AlertStreamEvent(0, "heartbeat", null, null, 0);
+
+    final long id;
+    final String name;
+    final String json;
+    final String severity;
+    final long customerId;
+
+    AlertStreamEvent(long id, String name, String json, String severity, long customerId) {
+        this.id = id;
+        this.name = name;
+        this.json = json;
+        this.severity = severity;
+        this.customerId = customerId;
+    }
+}
@@ -0,0 +1,61 @@
+package com.creditcontrol.notification.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个SSE连接
+ * 广播线程只向有界缓冲区放事件，由发送线程池写出；缓冲区满说明客户端跟不上，由广播线程断开
+ */
+final class AlertSubscriber {
+
+    final long subscriberId;
+    final SseEmitter emitter;
+    final String severity;
+    final Long customerId;
+    final long lastEventId;
+    final long connectedAt = System.currentTimeMillis();
+    final BlockingQueue<AlertStreamEvent> buffer;
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    volatile boolean closed;
+    volatile long delivered;
+
+    AlertSubscriber(long subscriberId, SseEmitter emitter, String severity, Long customerId, long lastEventId,
+                    int bufferSize) {
+        this.subscriberId = subscriberId;
+        this.emitter = emitter;
+        this.severity = severity;
+        this.customerId = customerId;
+        this.lastEventId = lastEventId;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    boolean accepts(AlertStreamEvent event) {
+        return event == AlertStreamEvent.HEARTBEAT
+                || ((severity == null || severity.equals(event.severity))
+                && (customerId == null || customerId == event.customerId));
+    }
+
+    /**
+     * 写出缓冲区中的全部事件，只在发送线程中调用
+     */
+    void drain() throws IOException {
+        AlertStreamEvent event;
+        while (!closed && (event = buffer.poll()) != null) {
+            if (event == AlertStreamEvent.HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name);
+                if (event.id > 0) {
+                    builder.id(Long.toString(event.id));
+                }
+                emitter.send(builder.data(event.json == null ? "{}" : event.json));
+                delivered++;
+            }
+        }
+    }
+}
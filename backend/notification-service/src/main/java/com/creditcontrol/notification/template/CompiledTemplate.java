@@ -0,0 +1,100 @@
+package com.creditcontrol.notification.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的模板文本
+ * "Dear {{customerName}}, ..." 解析为文字段和变量槽交替的数组: literals[0] slot[0] literals[1] ... literals[n]，
+ * 变量名在编译时登记到模板的变量表并编号 (标题和正文共用一张表)，渲染时按编号取值，不再解析文本
+ */
+final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String source;
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private CompiledTemplate(String source, String[] literals, int[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 解析模板，占位符为 {{变量名}}，变量名只能包含字母、数字、下划线和点；格式错误时抛出IllegalArgumentException。
+     * 新出现的变量追加到variables中
+     */
+    static CompiledTemplate compile(String source, Map<String, Integer> variables) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (!isValidName(name)) {
+                throw new IllegalArgumentException("Invalid placeholder name '" + name + "' at offset " + open);
+            }
+            literals.add(source.substring(position, open));
+            slots.add(variables.computeIfAbsent(name, key -> variables.size()));
+            position = close + CLOSE.length();
+        }
+        return new CompiledTemplate(source, literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * 按变量编号取值渲染
+     */
+    void render(String[] values, StringBuilder out) {
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(values[slots[i]]).append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * 估算渲染结果长度，用于预留缓冲区
+     */
+    int estimateLength(String[] values) {
+        int length = literalLength;
+        for (int slot : slots) {
+            length += values[slot].length();
+        }
+        return length;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    private static boolean isValidName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package com.creditcontrol.notification.template;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通知模板的一个版本 (不可变)，标题和正文在创建时编译
+ */
+public final class NotificationTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final String templateId;
+    private final int version;
+    private final String locale;
+    private final CompiledTemplate subject;
+    private final CompiledTemplate body;
+    private final String[] variables;
+    private final long createdAt;
+
+    NotificationTemplate(String templateId, int version, String locale, String subject, String body, long createdAt) {
+        Map<String, Integer> table = new LinkedHashMap<>();
+        this.templateId = templateId;
+        this.version = version;
+        this.locale = locale;
+        this.subject = subject == null || subject.isEmpty() ? null : CompiledTemplate.compile(subject, table);
+        this.body = CompiledTemplate.compile(body, table);
+        this.variables = table.keySet().toArray(new String[0]);
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * 渲染标题和正文；缺少变量时抛出IllegalArgumentException
+     */
+    public RenderedMessage render(Map<String, ?> values) {
+        String[] resolved = new String[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Object value = values == null ? null : values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing template variable '" + variables[i] + "' for "
+                        + templateId + " v" + version + " (" + locale + ")");
+            }
+            resolved[i] = value.toString();
+        }
+        return render(resolved);
+    }
+
+    /**
+     * 按 {@link #getVariables()} 的顺序给出变量值渲染，批量发送时调用方可复用数组
+     */
+    public RenderedMessage render(String[] values) {
+        StringBuilder buffer = BUFFER.get();
+        try {
+            String renderedSubject = null;
+            if (subject != null) {
+                buffer.setLength(0);
+                buffer.ensureCapacity(subject.estimateLength(values));
+                subject.render(values, buffer);
+                renderedSubject = buffer.toString();
+            }
+            buffer.setLength(0);
+            buffer.ensureCapacity(body.estimateLength(values));
+            body.render(values, buffer);
+            return new RenderedMessage(renderedSubject, buffer.toString());
+        } finally {
+            buffer.setLength(0);
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public String getSubject() {
+        return subject == null ? null : subject.getSource();
+    }
+
+    public String getBody() {
+        return body.getSource();
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
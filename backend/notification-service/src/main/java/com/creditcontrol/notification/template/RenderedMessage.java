@@ -0,0 +1,27 @@
+package com.creditcontrol.notification.template;
+
+/**
+ * 渲染结果，模板没有标题时subject为null
+ */
+public final class RenderedMessage {
+
+    private final String subject;
+    private final String body;
+
+    RenderedMessage(String subject, String body) {
+        this.subject = subject;
+        this.body = body;
+    }
+
+    public static RenderedMessage of(String subject, String body) {
+        return new RenderedMessage(subject, body);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,179 @@
+package com.creditcontrol.notification.template;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知模板注册表
+ * 模板按 (模板ID, 语言) 分版本保存，每个版本在注册时编译一次。
+ * 解析 (模板ID, 版本, 语言) 时依次尝试 完整语言标签 → 语言 → 默认语言，结果缓存，注册新版本时清空缓存。
+ * 缓存带代数: 解析前记下代数，写入缓存时与注册在同一把锁下比对，注册期间查到的旧结果不会写回缓存。
+ */
+@Component
+@Slf4j
+public class TemplateRegistry {
+
+    private static final int MAX_RESOLVED_ENTRIES = 10000;
+
+    @Value("${creditcontrol.notification.templates.default-locale:en}")
+    private String defaultLocale;
+
+    /** 模板ID|语言 → 按版本升序的不可变列表 */
+    private final Map<String, List<NotificationTemplate>> versions = new ConcurrentHashMap<>();
+    /** 模板ID|版本 (0为最新)|请求的语言 → 解析结果 */
+    private final Map<String, NotificationTemplate> resolved = new ConcurrentHashMap<>();
+    /** 每次注册加一，只在持有锁时修改 */
+    private volatile long generation;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    @PostConstruct
+    public void loadDefaults() {
+        defaultLocale = normalizeLocale(defaultLocale);
+        register("PAYMENT_REMINDER", "en", "Payment reminder: invoice {{invoiceNumber}}",
+                "Dear {{customerName}}, your payment of {{amount}} {{currency}} for invoice {{invoiceNumber}} "
+                        + "is due on {{dueDate}}. Please ignore this message if you have already paid.");
+        register("PAYMENT_REMINDER", "zh", "付款提醒: 发票 {{invoiceNumber}}",
+                "尊敬的{{customerName}}，您的发票{{invoiceNumber}}应付金额{{amount}} {{currency}}将于{{dueDate}}到期。如已付款请忽略本通知。");
+        register("PAYMENT_OVERDUE", "en", "Payment overdue: invoice {{invoiceNumber}}",
+                "Dear {{customerName}}, your payment of {{amount}} {{currency}} for invoice {{invoiceNumber}} "
+                        + "is {{daysOverdue}} days overdue. Please arrange payment as soon as possible.");
+        register("PAYMENT_OVERDUE", "zh", "逾期提醒: 发票 {{invoiceNumber}}",
+                "尊敬的{{customerName}}，您的发票{{invoiceNumber}}应付金额{{amount}} {{currency}}已逾期{{daysOverdue}}天，请尽快安排付款。");
+        register("CREDIT_LIMIT_UPDATE", "en", "Your credit limit has been updated",
+                "Dear {{customerName}}, your credit limit has been changed to {{creditLimit}} {{currency}}, "
+                        + "effective {{effectiveDate}}.");
+        register("CREDIT_LIMIT_UPDATE", "zh", "信用额度调整通知",
+                "尊敬的{{customerName}}，您的信用额度已调整为{{creditLimit}} {{currency}}，自{{effectiveDate}}起生效。");
+        log.info("NOTIFICATION_TEMPLATES_LOADED: templates: {}, defaultLocale: {}", versions.size(), defaultLocale);
+    }
+
+    /**
+     * 注册模板的新版本并返回；模板格式错误时抛出IllegalArgumentException
+     */
+    public synchronized NotificationTemplate register(String templateId, String locale, String subject, String body) {
+        String normalized = normalizeLocale(locale);
+        String key = templateId + "|" + normalized;
+        List<NotificationTemplate> existing = versions.getOrDefault(key, List.of());
+        int version = existing.isEmpty() ? 1 : existing.get(existing.size() - 1).getVersion() + 1;
+        NotificationTemplate template = new NotificationTemplate(templateId, version, normalized, subject, body,
+                System.currentTimeMillis());
+        List<NotificationTemplate> updated = new ArrayList<>(existing);
+        updated.add(template);
+        versions.put(key, List.copyOf(updated));
+        generation++;
+        resolved.clear();
+        log.info("NOTIFICATION_TEMPLATE_REGISTERED: templateId: {}, locale: {}, version: {}, variables: {}",
+                templateId, normalized, version, template.getVariables());
+        return template;
+    }
+
+    /**
+     * 解析模板，version为null时取最新版本；找不到时抛出IllegalArgumentException
+     */
+    public NotificationTemplate resolve(String templateId, Integer version, String locale) {
+        String cacheKey = templateId + "|" + (version == null ? 0 : version) + "|" + locale;
+        NotificationTemplate template = resolved.get(cacheKey);
+        if (template != null) {
+            cacheHits.incrementAndGet();
+            return template;
+        }
+        cacheMisses.incrementAndGet();
+        long observed = generation;
+        template = lookup(templateId, version, locale == null ? defaultLocale : normalizeLocale(locale));
+        if (template == null) {
+            throw new IllegalArgumentException("Template not found: " + templateId
+                    + (version == null ? "" : " v" + version) + (locale == null ? "" : " (" + locale + ")"));
+        }
+        synchronized (this) {
+            if (generation == observed) {
+                // 语言参数来自请求，限制缓存大小
+                if (resolved.size() >= MAX_RESOLVED_ENTRIES) {
+                    resolved.clear();
+                }
+                resolved.put(cacheKey, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * 各 (模板ID, 语言) 的最新版本
+     */
+    public List<NotificationTemplate> getLatest() {
+        List<NotificationTemplate> latest = new ArrayList<>();
+        for (List<NotificationTemplate> list : versions.values()) {
+            latest.add(list.get(list.size() - 1));
+        }
+        latest.sort(Comparator.comparing(NotificationTemplate::getTemplateId).thenComparing(NotificationTemplate::getLocale));
+        return latest;
+    }
+
+    public List<NotificationTemplate> getVersions(String templateId) {
+        List<NotificationTemplate> result = new ArrayList<>();
+        versions.forEach((key, list) -> {
+            if (key.startsWith(templateId + "|")) {
+                result.addAll(list);
+            }
+        });
+        result.sort(Comparator.comparing(NotificationTemplate::getLocale).thenComparingInt(NotificationTemplate::getVersion));
+        return result;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public int getCachedEntries() {
+        return resolved.size();
+    }
+
+    public String getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    private NotificationTemplate lookup(String templateId, Integer version, String locale) {
+        String language = Locale.forLanguageTag(locale).getLanguage();
+        for (String candidate : new String[]{locale, language, defaultLocale}) {
+            List<NotificationTemplate> list = versions.get(templateId + "|" + candidate);
+            if (list == null) {
+                continue;
+            }
+            if (version == null) {
+                return list.get(list.size() - 1);
+            }
+            for (NotificationTemplate template : list) {
+                if (template.getVersion() == version) {
+                    return template;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * zh_cn / zh-CN → zh-CN，无法识别时返回默认语言
+     */
+    private String normalizeLocale(String locale) {
+        if (locale == null || locale.isBlank()) {
+            return defaultLocale;
+        }
+        String tag = Locale.forLanguageTag(locale.trim().replace('_', '-')).toLanguageTag();
+        return "und".equals(tag) ? defaultLocale : tag;
+    }
+}
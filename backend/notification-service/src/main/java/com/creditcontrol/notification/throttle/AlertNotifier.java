@@ -0,0 +1,249 @@
+package com.creditcontrol.notification.throttle;
+
+import com.creditcontrol.notification.alert.Alert;
+import com.creditcontrol.notification.alert.AlertListener;
+import com.creditcontrol.notification.alert.AlertSeverity;
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import com.creditcontrol.notification.dispatch.NotificationDispatcher;
+import com.creditcontrol.notification.exception.NotificationRejectedException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 告警通知: 新产生的告警按严重程度发给配置的接收人
+ * 1. 去重: 同一客户同一告警类型在窗口内只通知一次 (使用率在阈值附近反复跨越时告警会反复产生)
+ * 2. 限流: 每个接收人在窗口内最多收到 max-per-recipient 条
+ * 两者都用 {@link WindowedCounter}，被抑制的只计数，告警本身照常记录。
+ * 去重窗口只在至少一条通知进入发送队列后才开始，全部被限流或拒绝时下次告警仍会尝试通知。
+ */
+@Component
+@Slf4j
+public class AlertNotifier implements AlertListener {
+
+    private static final String PREFIX = "creditcontrol.notification.alerts.notify.";
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${creditcontrol.notification.alerts.notify.enabled:true}")
+    private boolean enabled;
+
+    @Value("${creditcontrol.notification.alerts.notify.dedup.default-window-minutes:60}")
+    private long defaultDedupWindowMinutes;
+
+    @Value("${creditcontrol.notification.alerts.notify.dedup.buckets:12}")
+    private int dedupBuckets;
+
+    @Value("${creditcontrol.notification.alerts.notify.throttle.window-minutes:60}")
+    private long throttleWindowMinutes;
+
+    @Value("${creditcontrol.notification.alerts.notify.throttle.buckets:12}")
+    private int throttleBuckets;
+
+    @Value("${creditcontrol.notification.alerts.notify.throttle.max-per-recipient:100}")
+    private int maxPerRecipient;
+
+    private final Map<AlertSeverity, List<Recipient>> recipients = new EnumMap<>(AlertSeverity.class);
+    private final Map<String, WindowedCounter> dedupByType = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> duplicatesByType = new ConcurrentHashMap<>();
+    private WindowedCounter throttle;
+
+    private final AtomicLong alertsNotified = new AtomicLong();
+    private final AtomicLong duplicatesSuppressed = new AtomicLong();
+    private final AtomicLong throttledSuppressed = new AtomicLong();
+    private final AtomicLong notificationsQueued = new AtomicLong();
+    private final AtomicLong notificationsRejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        throttle = new WindowedCounter(TimeUnit.MINUTES.toMillis(throttleWindowMinutes), throttleBuckets);
+        for (AlertSeverity severity : AlertSeverity.values()) {
+            String value = environment.getProperty(PREFIX + "recipients." + severity.name().toLowerCase(Locale.ROOT), "");
+            List<Recipient> list = new ArrayList<>();
+            for (String entry : value.split(",")) {
+                if (!entry.isBlank()) {
+                    list.add(Recipient.parse(entry.trim()));
+                }
+            }
+            recipients.put(severity, List.copyOf(list));
+        }
+        log.info("ALERT_NOTIFIER_STARTED: enabled: {}, dedupWindowMinutes: {}, throttleWindowMinutes: {}, maxPerRecipient: {}, recipients: {}",
+                enabled, defaultDedupWindowMinutes, throttleWindowMinutes, maxPerRecipient, recipients);
+    }
+
+    @Override
+    public void onAlerts(List<Alert> raised, List<Alert> resolved) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Alert alert : raised) {
+            // 同一客户的告警总由同一个分片线程回调，先检查后记录不会与其他线程交错
+            WindowedCounter dedup = dedupCounter(alert.getType());
+            if (!dedup.isBelow(alert.getCustomerId(), 1, now)) {
+                duplicatesSuppressed.incrementAndGet();
+                duplicatesByType.computeIfAbsent(alert.getType(), type -> new AtomicLong()).incrementAndGet();
+                continue;
+            }
+            boolean queued = false;
+            for (Recipient recipient : recipients.getOrDefault(alert.getSeverity(), List.of())) {
+                if (!throttle.tryAcquire(recipient.key, maxPerRecipient, now)) {
+                    throttledSuppressed.incrementAndGet();
+                    continue;
+                }
+                try {
+                    dispatcher.submit(recipient.channel, recipient.address,
+                            "[" + alert.getSeverity() + "] " + alert.getType() + " - "
+                                    + (alert.getCustomerName() != null ? alert.getCustomerName() : "Customer " + alert.getCustomerId()),
+                            alert.getMessage(), alert.getCustomerId(), alert.getType());
+                    notificationsQueued.incrementAndGet();
+                    queued = true;
+                } catch (NotificationRejectedException | IllegalArgumentException e) {
+                    notificationsRejected.incrementAndGet();
+                    log.warn("ALERT_NOTIFICATION_REJECTED: alertId: {}, channel: {} - {}",
+                            alert.getAlertId(), recipient.channel, e.getMessage());
+                }
+            }
+            if (queued) {
+                dedup.record(alert.getCustomerId(), now);
+                alertsNotified.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 告警类型的去重窗口，可按类型覆盖: creditcontrol.notification.alerts.notify.dedup.windows.&lt;TYPE&gt; (分钟)
+     */
+    private WindowedCounter dedupCounter(String type) {
+        WindowedCounter counter = dedupByType.get(type);
+        if (counter == null) {
+            counter = dedupByType.computeIfAbsent(type, key -> new WindowedCounter(TimeUnit.MINUTES.toMillis(
+                    environment.getProperty(PREFIX + "dedup.windows." + key, Long.class, defaultDedupWindowMinutes)),
+                    dedupBuckets));
+        }
+        return counter;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getAlertsNotified() {
+        return alertsNotified.get();
+    }
+
+    public long getDuplicatesSuppressed() {
+        return duplicatesSuppressed.get();
+    }
+
+    public long getThrottledSuppressed() {
+        return throttledSuppressed.get();
+    }
+
+    public long getNotificationsQueued() {
+        return notificationsQueued.get();
+    }
+
+    public long getNotificationsRejected() {
+        return notificationsRejected.get();
+    }
+
+    public Map<String, Long> getDuplicatesByType() {
+        Map<String, Long> result = new TreeMap<>();
+        duplicatesByType.forEach((type, count) -> result.put(type, count.get()));
+        return result;
+    }
+
+    /**
+     * 各告警类型的去重窗口 (分钟)
+     */
+    public Map<String, Long> getDedupWindows() {
+        Map<String, Long> result = new TreeMap<>();
+        dedupByType.forEach((type, counter) -> result.put(type, TimeUnit.MILLISECONDS.toMinutes(counter.getWindowMillis())));
+        return result;
+    }
+
+    public int getTrackedKeys() {
+        long now = System.currentTimeMillis();
+        int total = throttle.trackedKeys(now);
+        for (WindowedCounter counter : dedupByType.values()) {
+            total += counter.trackedKeys(now);
+        }
+        return total;
+    }
+
+    public long getThrottleWindowMinutes() {
+        return throttleWindowMinutes;
+    }
+
+    public int getMaxPerRecipient() {
+        return maxPerRecipient;
+    }
+
+    public Map<AlertSeverity, List<String>> getRecipients() {
+        Map<AlertSeverity, List<String>> result = new EnumMap<>(AlertSeverity.class);
+        recipients.forEach((severity, list) -> result.put(severity,
+                list.stream().map(Recipient::toString).collect(Collectors.toList())));
+        return result;
+    }
+
+    /**
+     * 接收人，配置格式 CHANNEL:address；key为渠道+地址的64位哈希，用作限流键
+     */
+    private static final class Recipient {
+
+        final NotificationChannel channel;
+        final String address;
+        final long key;
+
+        Recipient(NotificationChannel channel, String address) {
+            this.channel = channel;
+            this.address = address;
+            this.key = hash(channel.name() + ":" + address);
+        }
+
+        static Recipient parse(String value) {
+            int colon = value.indexOf(':');
+            if (colon <= 0 || colon == value.length() - 1) {
+                throw new IllegalArgumentException("Invalid alert recipient, expected CHANNEL:address: " + value);
+            }
+            return new Recipient(NotificationChannel.parse(value.substring(0, colon)), value.substring(colon + 1));
+        }
+
+        /**
+         * FNV-1a 64位
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return channel + ":" + address;
+        }
+    }
+}
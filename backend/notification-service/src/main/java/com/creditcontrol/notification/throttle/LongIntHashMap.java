@@ -0,0 +1,90 @@
+package com.creditcontrol.notification.throttle;
+
+import java.util.Arrays;
+
+/**
+ * long → 正整数计数的开放寻址哈希表 (线性探测)，每项12字节，无装箱
+ * 值为0表示空槽，因此只支持递增计数；不支持单项删除，只能整体清空
+ */
+final class LongIntHashMap {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    LongIntHashMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    void increment(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (counts[i] != 0) {
+            if (keys[i] == key) {
+                counts[i]++;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        counts[i] = 1;
+        if (++size * 4 > keys.length * 3) {
+            rehash();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 清空；突发流量后扩大的表恢复初始大小，释放内存
+     */
+    void clear() {
+        if (keys.length > INITIAL_CAPACITY * 4) {
+            allocate(INITIAL_CAPACITY);
+        } else if (size > 0) {
+            Arrays.fill(counts, 0);
+        }
+        size = 0;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] != 0) {
+                int i = slot(oldKeys[j], mask);
+                while (counts[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
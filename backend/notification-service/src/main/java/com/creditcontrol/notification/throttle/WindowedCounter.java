@@ -0,0 +1,92 @@
+package com.creditcontrol.notification.throttle;
+
+/**
+ * 滑动时间窗口计数器
+ * 窗口切成buckets个时间桶，每桶一张 {@link LongIntHashMap}；桶过期时整体清空并复用，
+ * 内存只与窗口内出现过的键数有关，不需要逐键过期扫描。窗口精度为一个桶的长度。
+ */
+final class WindowedCounter {
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final LongIntHashMap[] buckets;
+    private final long[] bucketIds;
+
+    WindowedCounter(long windowMillis, int bucketCount) {
+        int count = Math.max(1, bucketCount);
+        this.windowMillis = windowMillis;
+        this.bucketMillis = Math.max(1, windowMillis / count);
+        this.buckets = new LongIntHashMap[count];
+        this.bucketIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = new LongIntHashMap();
+            bucketIds[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 窗口内计数小于limit时计数加一并返回true，否则返回false
+     */
+    synchronized boolean tryAcquire(long key, int limit, long now) {
+        if (count(key, now) >= limit) {
+            return false;
+        }
+        increment(key, now);
+        return true;
+    }
+
+    /**
+     * 窗口内计数是否小于limit，不计数；与 {@link #record} 配合用于结果确定后才计数的场景
+     */
+    synchronized boolean isBelow(long key, int limit, long now) {
+        return count(key, now) < limit;
+    }
+
+    /**
+     * 计数加一
+     */
+    synchronized void record(long key, long now) {
+        increment(key, now);
+    }
+
+    /**
+     * 各时间桶中的键数之和 (同一个键在多个桶中出现时重复计算)
+     */
+    synchronized int trackedKeys(long now) {
+        long current = now / bucketMillis;
+        int total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketIds[i] > current - buckets.length && bucketIds[i] <= current) {
+                total += buckets[i].size();
+            }
+        }
+        return total;
+    }
+
+    private int count(long key, long now) {
+        long current = now / bucketMillis;
+        int total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketIds[i] > current - buckets.length && bucketIds[i] <= current) {
+                total += buckets[i].get(key);
+            } else if (buckets[i].size() > 0) {
+                buckets[i].clear();
+            }
+        }
+        return total;
+    }
+
+    private void increment(long key, long now) {
+        long current = now / bucketMillis;
+        int slot = (int) Math.floorMod(current, (long) buckets.length);
+        if (bucketIds[slot] != current) {
+            buckets[slot].clear();
+            bucketIds[slot] = current;
+        }
+        buckets[slot].increment(key);
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+}
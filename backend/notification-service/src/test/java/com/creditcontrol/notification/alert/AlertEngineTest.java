@@ -0,0 +1,91 @@
+package com.creditcontrol.notification.alert;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 空闲客户状态的淘汰: 有未结束告警的客户保留，淘汰后再次出现按新客户处理
+ */
+class AlertEngineTest {
+
+    private static final long IDLE_TTL_MS = 50L;
+
+    private final AlertRuleRegistry ruleRegistry = new AlertRuleRegistry();
+    private final AlertEngine engine = new AlertEngine();
+
+    @BeforeEach
+    void setUp() {
+        ruleRegistry.registerDefaults();
+        ReflectionTestUtils.setField(engine, "ruleRegistry", ruleRegistry);
+        ReflectionTestUtils.setField(engine, "shardCount", 1);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 1024);
+        ReflectionTestUtils.setField(engine, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(engine, "recentResolvedCapacity", 100);
+        ReflectionTestUtils.setField(engine, "customerIdleTtlMs", IDLE_TTL_MS);
+        ReflectionTestUtils.setField(engine, "evictionIntervalMs", 5L);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    void keepsIdleCustomerWithOpenAlertUntilItResolves() throws InterruptedException {
+        engine.offer(utilization(1L, 50));
+        engine.offer(utilization(2L, 95));
+        awaitTrue(() -> engine.getEventsProcessed() == 2L);
+        assertThat(engine.getOpenAlerts()).hasSize(1);
+
+        awaitTrue(() -> engine.getCustomersEvicted() == 1L);
+        Thread.sleep(IDLE_TTL_MS * 2);
+        assertThat(engine.getCustomersTracked()).isEqualTo(1);
+        assertThat(engine.getCustomersEvicted()).isEqualTo(1L);
+
+        engine.offer(utilization(2L, 40));
+        awaitTrue(() -> engine.getAlertsResolved() == 1L);
+        assertThat(engine.getOpenAlerts()).isEmpty();
+        awaitTrue(() -> engine.getCustomersTracked() == 0);
+        assertThat(engine.getCustomersEvicted()).isEqualTo(2L);
+    }
+
+    @Test
+    void treatsEvictedCustomerAsNewWhenItReturns() throws InterruptedException {
+        engine.offer(riskScore(3L, 40));
+        awaitTrue(() -> engine.getCustomersEvicted() == 1L);
+
+        // 淘汰前的取值已丢弃，变化量规则没有上一次取值可比较
+        engine.offer(riskScore(3L, 80));
+        awaitTrue(() -> engine.getEventsProcessed() == 2L);
+        assertThat(engine.getAlertsRaised()).isZero();
+
+        engine.offer(riskScore(3L, 90));
+        awaitTrue(() -> engine.getAlertsRaised() == 1L);
+        assertThat(engine.getOpenAlerts()).extracting(Alert::getCustomerId).containsExactly(3L);
+    }
+
+    private static AlertEvent utilization(long customerId, double percent) {
+        return new AlertEvent(AlertEventType.CREDIT_UTILIZATION, customerId, "Customer " + customerId,
+                System.currentTimeMillis()).with(AlertField.UTILIZATION, percent);
+    }
+
+    private static AlertEvent riskScore(long customerId, double score) {
+        return new AlertEvent(AlertEventType.RISK_SCORE, customerId, "Customer " + customerId,
+                System.currentTimeMillis()).with(AlertField.RISK_SCORE, score);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5L);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.creditcontrol.notification.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 翻页游标的签名校验
+ */
+class HistoryCursorTest {
+
+    @Test
+    void decodesOwnCursor() {
+        HistoryCursor cursor = new HistoryCursor("secret");
+        long position = (3L << 40) | 12_345L;
+
+        assertThat(cursor.decode(42L, cursor.encode(42L, position))).isEqualTo(position);
+        assertThat(cursor.decode(42L, cursor.encode(42L, 0L))).isZero();
+    }
+
+    @Test
+    void acceptsCursorFromInstanceWithSameSecret() {
+        String value = new HistoryCursor("secret").encode(42L, 100L);
+
+        assertThat(new HistoryCursor("secret").decode(42L, value)).isEqualTo(100L);
+        assertThatThrownBy(() -> new HistoryCursor("other").decode(42L, value))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherCustomer() {
+        HistoryCursor cursor = new HistoryCursor("secret");
+        String value = cursor.encode(42L, 100L);
+
+        assertThatThrownBy(() -> cursor.decode(43L, value)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRewrittenPosition() {
+        HistoryCursor cursor = new HistoryCursor("secret");
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor.encode(42L, 100L));
+        bytes[7] ^= 0x01;
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        assertThatThrownBy(() -> cursor.decode(42L, tampered)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        HistoryCursor cursor = new HistoryCursor("secret");
+        String shortValue = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[8]);
+
+        for (String value : new String[]{"", "not base64!", "100", shortValue}) {
+            assertThatThrownBy(() -> cursor.decode(42L, value))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid history cursor");
+        }
+    }
+
+    @Test
+    void generatesRandomKeyWithoutSecret() {
+        HistoryCursor first = new HistoryCursor("");
+        HistoryCursor second = new HistoryCursor(null);
+        String value = first.encode(42L, 100L);
+
+        assertThat(first.decode(42L, value)).isEqualTo(100L);
+        assertThatThrownBy(() -> second.decode(42L, value)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
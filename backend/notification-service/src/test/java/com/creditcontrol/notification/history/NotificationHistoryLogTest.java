@@ -0,0 +1,205 @@
+package com.creditcontrol.notification.history;
+
+import com.creditcontrol.notification.dispatch.NotificationChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 通知历史日志: 回放、尾帧恢复、分段滚动与按位置读取的边界校验
+ */
+class NotificationHistoryLogTest {
+
+    private static final long SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final List<NotificationHistoryLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeLogs() throws IOException {
+        for (NotificationHistoryLog historyLog : opened) {
+            historyLog.close();
+        }
+    }
+
+    @Test
+    void readsBackAppendedRecordsAndCustomerChain() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        long first = historyLog.append(sent(42L, "N-1", "您好"), NotificationHistoryLog.NO_POSITION);
+        long second = historyLog.append(HistoryRecord.receipt(2_000L, 42L, NotificationChannel.SMS, "N-1",
+                HistoryRecord.Status.DELIVERED, "ok"), first);
+        historyLog.flush(true);
+
+        HistoryRecord record = historyLog.read(second);
+        assertThat(record.getStatus()).isEqualTo(HistoryRecord.Status.DELIVERED);
+        assertThat(record.getChannel()).isEqualTo(NotificationChannel.SMS);
+        assertThat(record.getRecipient()).isNull();
+        assertThat(record.getDetail()).isEqualTo("ok");
+        assertThat(record.getPosition()).isEqualTo(second);
+        assertThat(record.getPreviousPosition()).isEqualTo(first);
+
+        HistoryRecord previous = historyLog.read(record.getPreviousPosition());
+        assertThat(previous.getNotificationId()).isEqualTo("N-1");
+        assertThat(previous.getMessage()).isEqualTo("您好");
+        assertThat(previous.getAttempts()).isEqualTo(2);
+        assertThat(previous.getPreviousPosition()).isEqualTo(NotificationHistoryLog.NO_POSITION);
+    }
+
+    @Test
+    void replaysInWriteOrderAcrossSegments() throws IOException {
+        NotificationHistoryLog historyLog = open(1024);
+        List<String> ids = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ids.add("N-" + i);
+            positions.add(historyLog.append(sent(i, "N-" + i, "message " + i), NotificationHistoryLog.NO_POSITION));
+        }
+        historyLog.close();
+        opened.remove(historyLog);
+
+        NotificationHistoryLog reopened = open(1024);
+        List<HistoryRecord> replayed = new ArrayList<>();
+        assertThat(reopened.replay(replayed::add)).isEqualTo(40L);
+        assertThat(reopened.getSegmentCount()).isGreaterThan(1);
+        assertThat(replayed).extracting(HistoryRecord::getNotificationId).containsExactlyElementsOf(ids);
+        assertThat(replayed).extracting(HistoryRecord::getPosition).containsExactlyElementsOf(positions);
+        assertThat(reopened.read(positions.get(39)).getCustomerId()).isEqualTo(39L);
+    }
+
+    @Test
+    void truncatesTornTailOfLastSegment() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        historyLog.append(sent(1L, "N-1", "a"), NotificationHistoryLog.NO_POSITION);
+        historyLog.append(sent(2L, "N-2", "b"), NotificationHistoryLog.NO_POSITION);
+        historyLog.close();
+        opened.remove(historyLog);
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        // 崩溃时只写出了帧头和部分载荷
+        Files.write(segment, new byte[]{0, 0, 0, 80, 1, 2, 3, 4, 9, 9, 9}, StandardOpenOption.APPEND);
+
+        NotificationHistoryLog reopened = open(SEGMENT_BYTES);
+        List<HistoryRecord> replayed = new ArrayList<>();
+        assertThat(reopened.replay(replayed::add)).isEqualTo(2L);
+        assertThat(Files.size(segment)).isEqualTo(intact);
+
+        long next = reopened.append(sent(3L, "N-3", "c"), NotificationHistoryLog.NO_POSITION);
+        reopened.flush(true);
+        assertThat(next & ((1L << 40) - 1)).isEqualTo(intact);
+        assertThat(reopened.read(next).getNotificationId()).isEqualTo("N-3");
+    }
+
+    @Test
+    void skipsCorruptTailOfEarlierSegment() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        historyLog.append(sent(1L, "N-1", "a"), NotificationHistoryLog.NO_POSITION);
+        historyLog.flush(false);
+        // 写出失败后切换到新分段，半写的帧留在旧分段末尾
+        Files.write(onlySegment(), new byte[]{0, 0, 0, 80, 1, 2}, StandardOpenOption.APPEND);
+        historyLog.recover();
+        historyLog.append(sent(2L, "N-2", "b"), NotificationHistoryLog.NO_POSITION);
+        historyLog.close();
+        opened.remove(historyLog);
+
+        NotificationHistoryLog reopened = open(SEGMENT_BYTES);
+        List<HistoryRecord> replayed = new ArrayList<>();
+        assertThat(reopened.replay(replayed::add)).isEqualTo(2L);
+        assertThat(replayed).extracting(HistoryRecord::getNotificationId).containsExactly("N-1", "N-2");
+        assertThat(reopened.getSegmentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void stopsReplayAtChecksumMismatch() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        historyLog.append(sent(1L, "N-1", "a"), NotificationHistoryLog.NO_POSITION);
+        long second = historyLog.append(sent(2L, "N-2", "b"), NotificationHistoryLog.NO_POSITION);
+        historyLog.close();
+        opened.remove(historyLog);
+        flipByte(onlySegment(), second + 20);
+
+        NotificationHistoryLog reopened = open(SEGMENT_BYTES);
+        assertThat(reopened.replay(record -> { })).isEqualTo(1L);
+        assertThat(Files.size(onlySegment())).isEqualTo(second);
+    }
+
+    @Test
+    void returnsNullForPositionsOutsideTheLog() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        long first = historyLog.append(sent(1L, "N-1", "a"), NotificationHistoryLog.NO_POSITION);
+        historyLog.flush(true);
+        long size = Files.size(onlySegment());
+
+        assertThat(historyLog.read(NotificationHistoryLog.NO_POSITION)).isNull();
+        assertThat(historyLog.read(Long.MIN_VALUE)).isNull();
+        assertThat(historyLog.read(size)).isNull();
+        assertThat(historyLog.read(size + 1_000_000L)).isNull();
+        assertThat(historyLog.read((7L << 40) | first)).isNull();
+        // 指向帧中间: 长度字段是载荷中的数据
+        assertThat(historyLog.read(first + 4)).isNull();
+        assertThat(historyLog.read(first)).isNotNull();
+    }
+
+    @Test
+    void returnsNullWhenLengthExceedsSegment() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        long first = historyLog.append(sent(1L, "N-1", "a"), NotificationHistoryLog.NO_POSITION);
+        historyLog.flush(true);
+        try (FileChannel file = FileChannel.open(onlySegment(), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), first);
+        }
+
+        assertThat(historyLog.read(first)).isNull();
+    }
+
+    @Test
+    void returnsNullOnChecksumMismatch() throws IOException {
+        NotificationHistoryLog historyLog = open(SEGMENT_BYTES);
+        long first = historyLog.append(sent(1L, "N-1", "a"), NotificationHistoryLog.NO_POSITION);
+        historyLog.flush(true);
+        flipByte(onlySegment(), first + 30);
+
+        assertThat(historyLog.read(first)).isNull();
+    }
+
+    private NotificationHistoryLog open(long segmentBytes) throws IOException {
+        NotificationHistoryLog historyLog = new NotificationHistoryLog(directory, segmentBytes);
+        opened.add(historyLog);
+        historyLog.replay(record -> { });
+        return historyLog;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().findFirst().orElseThrow();
+        }
+    }
+
+    private static void flipByte(Path path, long offset) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            file.read(one, offset);
+            one.put(0, (byte) (one.get(0) ^ 0x01)).rewind();
+            file.write(one, offset);
+        }
+    }
+
+    private static HistoryRecord sent(long customerId, String notificationId, String message) {
+        return new HistoryRecord(1_000L + customerId, customerId, HistoryRecord.Status.SENT, NotificationChannel.EMAIL,
+                2, notificationId, "customer" + customerId + "@example.com", "Payment reminder", message,
+                "PAYMENT_REMINDER", null);
+    }
+}
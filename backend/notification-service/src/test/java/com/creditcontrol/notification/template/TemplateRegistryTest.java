@@ -0,0 +1,54 @@
+package com.creditcontrol.notification.template;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 模板解析的语言回退与缓存失效
+ */
+class TemplateRegistryTest {
+
+    private final TemplateRegistry registry = new TemplateRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "defaultLocale", "en");
+        registry.register("WELCOME", "en", "Hello", "Hello {{customerName}}");
+        registry.register("WELCOME", "zh", "你好", "你好 {{customerName}}");
+    }
+
+    @Test
+    void fallsBackFromRegionToLanguageToDefault() {
+        assertThat(registry.resolve("WELCOME", null, "zh-CN").getLocale()).isEqualTo("zh");
+        assertThat(registry.resolve("WELCOME", null, "fr").getLocale()).isEqualTo("en");
+        assertThat(registry.resolve("WELCOME", null, null).getLocale()).isEqualTo("en");
+        assertThatThrownBy(() -> registry.resolve("MISSING", null, "en"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cachesResolvedTemplates() {
+        NotificationTemplate first = registry.resolve("WELCOME", null, "zh-CN");
+        NotificationTemplate second = registry.resolve("WELCOME", null, "zh-CN");
+
+        assertThat(second).isSameAs(first);
+        assertThat(registry.getCacheMisses()).isEqualTo(1L);
+        assertThat(registry.getCacheHits()).isEqualTo(1L);
+        assertThat(registry.getCachedEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void registeringNewVersionInvalidatesLatest() {
+        assertThat(registry.resolve("WELCOME", null, "en").getVersion()).isEqualTo(1);
+
+        registry.register("WELCOME", "en", "Hi", "Hi {{customerName}}");
+
+        assertThat(registry.getCachedEntries()).isZero();
+        assertThat(registry.resolve("WELCOME", null, "en").getVersion()).isEqualTo(2);
+        assertThat(registry.resolve("WELCOME", 1, "en").getSubject()).isEqualTo("Hello");
+    }
+}
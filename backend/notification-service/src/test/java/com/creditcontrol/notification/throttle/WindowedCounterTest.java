@@ -0,0 +1,87 @@
+package com.creditcontrol.notification.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 滑动窗口计数: 限额、按桶过期以及先判断后计数
+ */
+class WindowedCounterTest {
+
+    /** 60秒窗口，6个桶，每桶10秒 */
+    private static final long WINDOW = 60_000L;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void acquiresUpToLimitWithinWindow() {
+        WindowedCounter counter = new WindowedCounter(WINDOW, 6);
+
+        assertThat(counter.tryAcquire(1L, 3, START)).isTrue();
+        assertThat(counter.tryAcquire(1L, 3, START + 1_000)).isTrue();
+        assertThat(counter.tryAcquire(1L, 3, START + 25_000)).isTrue();
+        assertThat(counter.tryAcquire(1L, 3, START + 50_000)).isFalse();
+        assertThat(counter.tryAcquire(2L, 3, START + 50_000)).isTrue();
+    }
+
+    @Test
+    void expiresCountsBucketByBucket() {
+        WindowedCounter counter = new WindowedCounter(WINDOW, 6);
+        counter.record(1L, START);
+        counter.record(1L, START + 30_000);
+
+        assertThat(counter.isBelow(1L, 2, START + 55_000)).isFalse();
+        // 第一次计数所在的桶滑出窗口，第二次仍在窗口内
+        assertThat(counter.isBelow(1L, 2, START + WINDOW + 10_000)).isTrue();
+        assertThat(counter.isBelow(1L, 1, START + WINDOW + 10_000)).isFalse();
+        // 两个桶都滑出窗口
+        assertThat(counter.isBelow(1L, 1, START + 30_000 + WINDOW + 10_000)).isTrue();
+    }
+
+    @Test
+    void reusesBucketSlotAfterFullRotation() {
+        WindowedCounter counter = new WindowedCounter(WINDOW, 6);
+        counter.record(1L, START);
+        counter.record(1L, START);
+
+        // 一个窗口之后落在同一个桶位，旧计数不能残留
+        long later = START + WINDOW;
+        counter.record(1L, later);
+        assertThat(counter.isBelow(1L, 2, later)).isTrue();
+        assertThat(counter.trackedKeys(later)).isEqualTo(1);
+    }
+
+    @Test
+    void isBelowDoesNotCount() {
+        WindowedCounter counter = new WindowedCounter(WINDOW, 6);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(counter.isBelow(1L, 1, START + i)).isTrue();
+        }
+        counter.record(1L, START + 10);
+        assertThat(counter.isBelow(1L, 1, START + 11)).isFalse();
+        assertThat(counter.tryAcquire(1L, 1, START + 12)).isFalse();
+        assertThat(counter.tryAcquire(1L, 2, START + 12)).isTrue();
+    }
+
+    @Test
+    void tracksKeysOnlyInsideWindow() {
+        WindowedCounter counter = new WindowedCounter(WINDOW, 6);
+        counter.record(1L, START);
+        counter.record(2L, START);
+        counter.record(2L, START + 20_000);
+
+        assertThat(counter.trackedKeys(START + 20_000)).isEqualTo(3);
+        assertThat(counter.trackedKeys(START + WINDOW + 5_000)).isEqualTo(1);
+        assertThat(counter.trackedKeys(START + 2 * WINDOW)).isZero();
+    }
+
+    @Test
+    void treatsZeroLimitAsClosed() {
+        WindowedCounter counter = new WindowedCounter(WINDOW, 1);
+
+        assertThat(counter.isBelow(1L, 0, START)).isFalse();
+        assertThat(counter.tryAcquire(1L, 0, START)).isFalse();
+        assertThat(counter.getWindowMillis()).isEqualTo(WINDOW);
+    }
+}
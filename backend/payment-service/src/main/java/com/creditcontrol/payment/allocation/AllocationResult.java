@@ -0,0 +1,50 @@
+package com.creditcontrol.payment.allocation;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 单笔付款的核销结果，金额单位为分
+ */
+@Getter
+@AllArgsConstructor
+public class AllocationResult {
+
+    private final Long customerId;
+
+    private final long amountCents;
+
+    private final MatchType matchType;
+
+    private final List<Line> lines;
+
+    /** 未核销、挂在客户账上的金额 */
+    private final long unappliedCents;
+
+    /**
+     * 核销到某一未结项的金额
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+
+        private final long itemId;
+
+        private final String invoiceNumber;
+
+        private final long appliedCents;
+
+        private final long remainingCents;
+
+        /** 核销的未结项，撤销核销时使用，不对外暴露 */
+        @Getter(AccessLevel.NONE)
+        private final OpenItem item;
+
+        OpenItem item() {
+            return item;
+        }
+    }
+}
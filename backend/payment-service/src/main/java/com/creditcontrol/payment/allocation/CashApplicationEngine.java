@@ -0,0 +1,277 @@
+package com.creditcontrol.payment.allocation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 付款核销引擎 (Cash Application)
+ * 维护未结项索引: 发票号哈希索引 (全局)，以及每个客户按到期日排序的集合和按金额的哈希索引。
+ * 匹配优先级: 附言发票号 → 同额未结项 → 两项金额之和 → 按到期日先后核销。
+ * 同一客户的核销在该客户的锁内串行执行，不同客户之间互不阻塞。
+ */
+@Component
+public class CashApplicationEngine {
+
+    private static final Comparator<OpenItem> BY_DUE_DATE =
+            Comparator.comparingInt(OpenItem::getDueEpochDay).thenComparingLong(OpenItem::getItemId);
+
+    @Value("${creditcontrol.payment.allocation.max-combination-candidates:500}")
+    private int maxCombinationCandidates;
+
+    private final AtomicLong itemSequence = new AtomicLong();
+    private final ConcurrentHashMap<String, OpenItem> byInvoiceNumber = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CustomerItems> byCustomer = new ConcurrentHashMap<>();
+
+    /**
+     * 登记未结项，发票号重复时返回null
+     */
+    public OpenItem addOpenItem(long customerId, String invoiceNumber, long amountCents, int dueEpochDay) {
+        String key = normalize(invoiceNumber);
+        OpenItem item = new OpenItem(itemSequence.incrementAndGet(), customerId, key, amountCents, dueEpochDay);
+        CustomerItems customer = byCustomer.computeIfAbsent(customerId, id -> new CustomerItems());
+        synchronized (customer) {
+            if (byInvoiceNumber.putIfAbsent(key, item) != null) {
+                return null;
+            }
+            customer.add(item);
+        }
+        return item;
+    }
+
+    /**
+     * 查询客户的全部未结项 (按到期日排序)
+     */
+    public List<OpenItem> getOpenItems(long customerId) {
+        CustomerItems customer = byCustomer.get(customerId);
+        if (customer == null) {
+            return List.of();
+        }
+        synchronized (customer) {
+            return new ArrayList<>(customer.byDueDate);
+        }
+    }
+
+    public int getOpenItemCount() {
+        return byInvoiceNumber.size();
+    }
+
+    /**
+     * 核销一笔付款。客户未知时只尝试附言发票号匹配
+     */
+    public AllocationResult allocate(Long customerId, long amountCents, String reference) {
+        List<OpenItem> referenced = findReferencedItems(customerId, reference);
+        Long owner = customerId != null
+                ? customerId
+                : (referenced.isEmpty() ? null : referenced.get(0).getCustomerId());
+        if (owner == null) {
+            return unmatched(null, amountCents);
+        }
+
+        CustomerItems customer = byCustomer.get(owner);
+        if (customer == null) {
+            return unmatched(owner, amountCents);
+        }
+
+        synchronized (customer) {
+            if (!referenced.isEmpty()) {
+                referenced.removeIf(item -> item.getCustomerId() != owner || item.getOutstandingCents() == 0);
+                if (!referenced.isEmpty()) {
+                    return apply(customer, owner, amountCents, MatchType.REFERENCE, referenced);
+                }
+            }
+
+            TreeSet<OpenItem> sameAmount = customer.byAmount.get(amountCents);
+            if (sameAmount != null && !sameAmount.isEmpty()) {
+                return apply(customer, owner, amountCents, MatchType.EXACT_AMOUNT, List.of(sameAmount.first()));
+            }
+
+            List<OpenItem> pair = findPair(customer, amountCents);
+            if (pair != null) {
+                return apply(customer, owner, amountCents, MatchType.COMBINATION, pair);
+            }
+
+            if (!customer.byDueDate.isEmpty()) {
+                return apply(customer, owner, amountCents, MatchType.OLDEST_FIRST, oldestCovering(customer, amountCents));
+            }
+        }
+        return unmatched(owner, amountCents);
+    }
+
+    /**
+     * 撤销一次核销: 把各行核销的金额加回对应的未结项，已核销完的未结项重新登记。
+     * 用于核销之后付款未能落盘的情况 (如流水导入中止或写入付款日志失败)
+     */
+    public void reverse(AllocationResult result) {
+        if (result == null || result.getLines().isEmpty()) {
+            return;
+        }
+        CustomerItems customer = byCustomer.get(result.getCustomerId());
+        if (customer == null) {
+            return;
+        }
+        synchronized (customer) {
+            for (AllocationResult.Line line : result.getLines()) {
+                OpenItem item = line.item();
+                long outstanding = item.getOutstandingCents();
+                long restored = Math.min(item.getOriginalCents(), outstanding + line.getAppliedCents());
+                if (outstanding == 0) {
+                    item.setOutstandingCents(restored);
+                    customer.add(item);
+                    byInvoiceNumber.putIfAbsent(item.getInvoiceNumber(), item);
+                } else {
+                    customer.updateOutstanding(item, restored);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从附言中提取发票号 (按非字母数字字符切分后查哈希索引)
+     */
+    private List<OpenItem> findReferencedItems(Long customerId, String reference) {
+        if (reference == null || reference.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<OpenItem> found = new LinkedHashSet<>();
+        int length = reference.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean tokenChar = i < length && isInvoiceChar(reference.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                OpenItem item = byInvoiceNumber.get(reference.substring(start, i).toUpperCase(Locale.ROOT));
+                if (item != null && (customerId == null || item.getCustomerId() == customerId)) {
+                    found.add(item);
+                }
+                start = -1;
+            }
+        }
+        List<OpenItem> items = new ArrayList<>(found);
+        items.sort(BY_DUE_DATE);
+        return items;
+    }
+
+    /**
+     * 在到期最早的若干未结项中寻找金额之和等于付款金额的两项，每项一次哈希查找
+     */
+    private List<OpenItem> findPair(CustomerItems customer, long amountCents) {
+        int examined = 0;
+        for (OpenItem first : customer.byDueDate) {
+            if (examined++ >= maxCombinationCandidates) {
+                break;
+            }
+            long rest = amountCents - first.getOutstandingCents();
+            if (rest <= 0) {
+                continue;
+            }
+            TreeSet<OpenItem> candidates = customer.byAmount.get(rest);
+            if (candidates == null) {
+                continue;
+            }
+            for (OpenItem second : candidates) {
+                if (second != first) {
+                    return List.of(first, second);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从到期最早的未结项开始，取到累计金额覆盖付款金额为止
+     */
+    private static List<OpenItem> oldestCovering(CustomerItems customer, long amountCents) {
+        List<OpenItem> items = new ArrayList<>();
+        long covered = 0;
+        for (OpenItem item : customer.byDueDate) {
+            items.add(item);
+            covered += item.getOutstandingCents();
+            if (covered >= amountCents) {
+                break;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 按给定顺序依次核销，最后一项可部分核销，剩余金额挂账
+     */
+    private AllocationResult apply(CustomerItems customer, long customerId, long amountCents,
+                                   MatchType matchType, List<OpenItem> targets) {
+        List<AllocationResult.Line> lines = new ArrayList<>(Math.min(targets.size(), 8));
+        long remaining = amountCents;
+        Iterator<OpenItem> iterator = targets.iterator();
+
+        while (remaining > 0 && iterator.hasNext()) {
+            OpenItem item = iterator.next();
+            long applied = Math.min(remaining, item.getOutstandingCents());
+            if (applied == 0) {
+                continue;
+            }
+            customer.updateOutstanding(item, item.getOutstandingCents() - applied);
+            if (item.getOutstandingCents() == 0) {
+                byInvoiceNumber.remove(item.getInvoiceNumber(), item);
+            }
+            remaining -= applied;
+            lines.add(new AllocationResult.Line(item.getItemId(), item.getInvoiceNumber(),
+                    applied, item.getOutstandingCents(), item));
+        }
+        return new AllocationResult(customerId, amountCents, matchType, lines, remaining);
+    }
+
+    private static AllocationResult unmatched(Long customerId, long amountCents) {
+        return new AllocationResult(customerId, amountCents, MatchType.UNMATCHED, List.of(), amountCents);
+    }
+
+    private static boolean isInvoiceChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+
+    private static String normalize(String invoiceNumber) {
+        return invoiceNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 单个客户的未结项索引
+     */
+    private static final class CustomerItems {
+
+        final TreeSet<OpenItem> byDueDate = new TreeSet<>(BY_DUE_DATE);
+        final Map<Long, TreeSet<OpenItem>> byAmount = new HashMap<>();
+
+        void add(OpenItem item) {
+            byDueDate.add(item);
+            byAmount.computeIfAbsent(item.getOutstandingCents(), amount -> new TreeSet<>(BY_DUE_DATE)).add(item);
+        }
+
+        void updateOutstanding(OpenItem item, long outstandingCents) {
+            TreeSet<OpenItem> previous = byAmount.get(item.getOutstandingCents());
+            if (previous != null) {
+                previous.remove(item);
+                if (previous.isEmpty()) {
+                    byAmount.remove(item.getOutstandingCents());
+                }
+            }
+            item.setOutstandingCents(outstandingCents);
+            if (outstandingCents == 0) {
+                byDueDate.remove(item);
+            } else {
+                byAmount.computeIfAbsent(outstandingCents, amount -> new TreeSet<>(BY_DUE_DATE)).add(item);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.creditcontrol.payment.allocation;
+
+/**
+ * 付款核销匹配方式 (按优先级排列)
+ */
+public enum MatchType {
+    /** 付款附言中的发票号命中未结项 */
+    REFERENCE,
+    /** 客户名下存在金额完全相同的未结项 */
+    EXACT_AMOUNT,
+    /** 客户名下两张未结项金额之和等于付款金额 */
+    COMBINATION,
+    /** 按到期日从早到晚依次核销 */
+    OLDEST_FIRST,
+    /** 无法匹配，整笔挂账 */
+    UNMATCHED
+}
@@ -0,0 +1,37 @@
+package com.creditcontrol.payment.allocation;
+
+import lombok.Getter;
+
+/**
+ * 应收未结项 (发票)
+ * 未结金额以long(分)保存，只在所属客户的锁内修改
+ */
+@Getter
+public class OpenItem {
+
+    private final long itemId;
+
+    private final long customerId;
+
+    private final String invoiceNumber;
+
+    private final long originalCents;
+
+    /** 到期日 (epoch day) */
+    private final int dueEpochDay;
+
+    private long outstandingCents;
+
+    public OpenItem(long itemId, long customerId, String invoiceNumber, long originalCents, int dueEpochDay) {
+        this.itemId = itemId;
+        this.customerId = customerId;
+        this.invoiceNumber = invoiceNumber;
+        this.originalCents = originalCents;
+        this.dueEpochDay = dueEpochDay;
+        this.outstandingCents = originalCents;
+    }
+
+    void setOutstandingCents(long outstandingCents) {
+        this.outstandingCents = outstandingCents;
+    }
+}
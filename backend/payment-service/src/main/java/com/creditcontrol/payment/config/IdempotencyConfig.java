@@ -0,0 +1,59 @@
+package com.creditcontrol.payment.config;
+
+import com.creditcontrol.payment.idempotency.IdempotencyStore;
+import com.creditcontrol.payment.idempotency.MemoryIdempotencyStore;
+import com.creditcontrol.payment.idempotency.RedisIdempotencyStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * 幂等键存储配置类
+ * creditcontrol.payment.idempotency.store = memory (默认，本地内存+落盘) 或 redis (多实例共享)
+ */
+@Configuration
+@Slf4j
+public class IdempotencyConfig {
+
+    @Value("${creditcontrol.payment.idempotency.retention-hours:24}")
+    private int retentionHours;
+
+    /**
+     * 本地幂等键存储，关闭时把内存桶落盘
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "creditcontrol.payment.idempotency.store", havingValue = "memory", matchIfMissing = true)
+    public MemoryIdempotencyStore memoryIdempotencyStore(
+            @Value("${creditcontrol.payment.idempotency.spill-directory:data/idempotency}") String spillDirectory,
+            @Value("${creditcontrol.payment.idempotency.memory-hours:1}") int memoryHours,
+            @Value("${creditcontrol.payment.idempotency.max-memory-entries:2000000}") long maxMemoryEntries)
+            throws IOException {
+        log.info("IDEMPOTENCY_CONFIG: store: memory, directory: {}, retentionHours: {}, memoryHours: {}, maxMemoryEntries: {}",
+                spillDirectory, retentionHours, memoryHours, maxMemoryEntries);
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(
+                Paths.get(spillDirectory), retentionHours, memoryHours, maxMemoryEntries);
+        store.open();
+        return store;
+    }
+
+    /**
+     * Redis幂等键存储
+     */
+    @Bean
+    @ConditionalOnProperty(name = "creditcontrol.payment.idempotency.store", havingValue = "redis")
+    public IdempotencyStore redisIdempotencyStore(
+            StringRedisTemplate redisTemplate,
+            @Value("${creditcontrol.payment.idempotency.redis-prefix:payment:idem:}") String keyPrefix,
+            @Value("${creditcontrol.payment.idempotency.in-flight-ttl-ms:30000}") long inFlightTtlMs) {
+        log.info("IDEMPOTENCY_CONFIG: store: redis, prefix: {}, retentionHours: {}", keyPrefix, retentionHours);
+        return new RedisIdempotencyStore(redisTemplate, keyPrefix,
+                Duration.ofHours(retentionHours), Duration.ofMillis(inFlightTtlMs));
+    }
+}
@@ -0,0 +1,29 @@
+package com.creditcontrol.payment.config;
+
+import com.creditcontrol.payment.journal.PaymentJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 付款日志配置类
+ */
+@Configuration
+@Slf4j
+public class JournalConfig {
+
+    @Value("${creditcontrol.payment.journal.directory:data/journal}")
+    private String journalDirectory;
+
+    /**
+     * 追加写付款日志，关闭时刷盘并释放文件句柄
+     */
+    @Bean(destroyMethod = "close")
+    public PaymentJournal paymentJournal() {
+        log.info("JOURNAL_CONFIG: directory: {}", journalDirectory);
+        return new PaymentJournal(Paths.get(journalDirectory));
+    }
+}
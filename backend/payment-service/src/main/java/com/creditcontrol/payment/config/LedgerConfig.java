@@ -0,0 +1,34 @@
+package com.creditcontrol.payment.config;
+
+import com.creditcontrol.ledger.Ledger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 复式记账账本配置类
+ */
+@Configuration
+@Slf4j
+public class LedgerConfig {
+
+    /**
+     * 付款资金账本，关闭时写入最终检查点
+     */
+    @Bean(destroyMethod = "close")
+    public Ledger paymentLedger(
+            @Value("${creditcontrol.payment.ledger.directory:data/ledger}") String directory,
+            @Value("${creditcontrol.payment.ledger.segment-bytes:268435456}") long segmentBytes,
+            @Value("${creditcontrol.payment.ledger.checkpoint-interval:1000000}") long checkpointInterval,
+            @Value("${creditcontrol.payment.ledger.queue-capacity:65536}") int queueCapacity) throws IOException {
+        log.info("LEDGER_CONFIG: directory: {}, segmentBytes: {}, checkpointInterval: {}, queueCapacity: {}",
+                directory, segmentBytes, checkpointInterval, queueCapacity);
+        Ledger ledger = new Ledger(Paths.get(directory), segmentBytes, checkpointInterval, queueCapacity);
+        ledger.open();
+        return ledger;
+    }
+}
@@ -1,11 +1,45 @@
 package com.creditcontrol.payment.controller;
 
+import com.creditcontrol.payment.dto.AllocationBatchResultDto;
+import com.creditcontrol.payment.dto.AllocationRequest;
+import com.creditcontrol.payment.dto.AllocationResultDto;
+import com.creditcontrol.payment.dto.OpenItemRequest;
+import com.creditcontrol.payment.dto.PaymentHistoryDto;
+import com.creditcontrol.payment.dto.PaymentRequest;
+import com.creditcontrol.payment.dto.PaymentSummaryDto;
+import com.creditcontrol.payment.dto.ReconciliationRequest;
+import com.creditcontrol.payment.dto.ReconciliationStatusDto;
+import com.creditcontrol.payment.dto.StatementImportRequest;
+import com.creditcontrol.payment.dto.StatementImportStatusDto;
+import com.creditcontrol.payment.dto.PaymentResultDto;
+import com.creditcontrol.payment.dto.SettlementStatsDto;
+import com.creditcontrol.payment.exception.PaymentRejectedException;
+import com.creditcontrol.payment.idempotency.IdempotencyLookup;
+import com.creditcontrol.payment.idempotency.IdempotencyStore;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import com.creditcontrol.payment.service.CashApplicationService;
+import com.creditcontrol.payment.service.PaymentHistoryService;
+import com.creditcontrol.payment.service.PaymentIngestionService;
+import com.creditcontrol.payment.service.PaymentSummaryService;
+import com.creditcontrol.payment.service.ReconciliationService;
+import com.creditcontrol.payment.service.StatementImportService;
+import com.creditcontrol.payment.settlement.SettlementScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.*;
-import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.time.Instant;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/v1/payments")
@@ -13,71 +47,456 @@ import java.time.Instant;
 @Slf4j
 public class PaymentController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    @Autowired
+    private PaymentIngestionService ingestionService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private CashApplicationService cashApplicationService;
+
+    @Autowired
+    private StatementImportService statementImportService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private PaymentHistoryService paymentHistoryService;
+
+    @Autowired
+    private PaymentSummaryService paymentSummaryService;
+
+    @Value("${creditcontrol.payment.ingestion.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    @Autowired
+    private SettlementScheduler settlementScheduler;
+
+    /**
+     * 客户付款历史，按受理时间倒序分页。from/to为UTC日期 (yyyy-MM-dd)，cursor取自上一页的nextCursor
+     */
     @GetMapping("/history/{customerId}")
-    public ResponseEntity<Map<String, Object>> getPaymentHistory(@PathVariable Long customerId) {
-        log.info("API_REQUEST: GET /api/v1/payments/history/{}", customerId);
-        
-        List<Map<String, Object>> payments = Arrays.asList(
-            Map.of("paymentId", 1, "amount", new BigDecimal("25000.00"), "date", "2025-10-01", "status", "COMPLETED", "method", "BANK_TRANSFER"),
-            Map.of("paymentId", 2, "amount", new BigDecimal("15000.00"), "date", "2025-09-15", "status", "COMPLETED", "method", "CHECK"),
-            Map.of("paymentId", 3, "amount", new BigDecimal("30000.00"), "date", "2025-08-30", "status", "COMPLETED", "method", "WIRE_TRANSFER")
-        );
-        
+    public ResponseEntity<Map<String, Object>> getPaymentHistory(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("API_REQUEST: GET /api/v1/payments/history/{} - from: {}, to: {}, cursor: {}, limit: {}",
+                customerId, from, to, cursor, limit);
+
+        try {
+            PaymentHistoryDto history = paymentHistoryService.getHistory(customerId, from, to, cursor, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", history);
+            response.put("message", "Payment history retrieved successfully");
+            response.put("timestamp", Instant.now().toString());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * 当天/当月付款汇总，由内存中的分钟/小时/天汇总桶合并得到
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> getPaymentSummary() {
+        log.info("API_REQUEST: GET /api/v1/payments/summary");
+
+        PaymentSummaryDto summary = paymentSummaryService.getSummary();
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("data", Map.of(
-            "customerId", customerId,
-            "payments", payments,
-            "totalPaid", new BigDecimal("70000.00"),
-            "averagePayment", new BigDecimal("23333.33"),
-            "onTimePayments", 3,
-            "latePayments", 0
-        ));
-        response.put("message", "Payment history retrieved successfully");
+        response.put("data", summary);
+        response.put("message", "Payment summary retrieved successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 受理付款: 写入付款日志并刷盘后返回确认，等待期间不占用请求线程。
+     * 携带Idempotency-Key时，保留期内的重复提交直接返回首次处理结果
+     */
     @PostMapping("/process")
-    public ResponseEntity<Map<String, Object>> processPayment(@RequestBody Map<String, Object> paymentRequest) {
-        log.info("API_REQUEST: POST /api/v1/payments/process");
-        
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> processPayment(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid PaymentRequest paymentRequest) {
+        log.info("API_REQUEST: POST /api/v1/payments/process - customerId: {}, method: {}, idempotent: {}",
+                paymentRequest.getCustomerId(), paymentRequest.getMethod(), idempotencyKey != null);
+
+        if (idempotencyKey == null) {
+            return submit(paymentRequest, null);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(error(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+        if (idempotencyKey.startsWith(IdempotencyStore.INTERNAL_KEY_PREFIX)) {
+            return CompletableFuture.completedFuture(error(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must not start with " + IdempotencyStore.INTERNAL_KEY_PREFIX));
+        }
+
+        long amountCents = paymentRequest.getAmount().movePointRight(2).longValueExact();
+        IdempotencyLookup lookup = idempotencyStore.reserve(idempotencyKey, paymentRequest.getCustomerId(), amountCents,
+                paymentRequest.getMethod(), paymentRequest.getReference());
+        switch (lookup.getOutcome()) {
+            case COMPLETED:
+                log.info("IDEMPOTENT_REPLAY: paymentId: {}", lookup.getRecord().getPaymentId());
+                ResponseEntity<Map<String, Object>> replay = accepted(lookup.getRecord());
+                return CompletableFuture.completedFuture(ResponseEntity.status(replay.getStatusCode())
+                        .header(IDEMPOTENT_REPLAY_HEADER, "true")
+                        .body(replay.getBody()));
+            case IN_PROGRESS:
+                log.warn("IDEMPOTENCY_CONFLICT: request with the same key is still in progress");
+                return CompletableFuture.completedFuture(error(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is already in progress"));
+            case MISMATCH:
+                log.warn("IDEMPOTENCY_MISMATCH: key reused with a different customer, amount, method or reference");
+                return CompletableFuture.completedFuture(error(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key was already used for a different payment"));
+            default:
+                break;
+        }
+
+        return submit(paymentRequest, idempotencyKey);
+    }
+
+    /**
+     * 结算调度统计
+     */
+    @GetMapping("/settlements/stats")
+    public ResponseEntity<Map<String, Object>> getSettlementStats() {
+        log.info("API_REQUEST: GET /api/v1/payments/settlements/stats");
+
+        SettlementStatsDto stats = SettlementStatsDto.builder()
+                .pending(settlementScheduler.getPendingCount())
+                .inFlight(settlementScheduler.getInFlightCount())
+                .scheduledTimers(settlementScheduler.getScheduledTimers())
+                .settled(settlementScheduler.getSettledCount())
+                .failed(settlementScheduler.getFailedCount())
+                .retries(settlementScheduler.getRetryCount())
+                .attemptTimeouts(settlementScheduler.getAttemptTimeoutCount())
+                .build();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", stats);
+        response.put("message", "Settlement statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 启动银行流水文件导入 (异步)，通过导入ID查询进度
+     */
+    @PostMapping("/statements/imports")
+    public ResponseEntity<Map<String, Object>> importStatement(@RequestBody @Valid StatementImportRequest importRequest) {
+        log.info("API_REQUEST: POST /api/v1/payments/statements/imports - fileName: {}, format: {}",
+                importRequest.getFileName(), importRequest.getFormat());
+
+        try {
+            StatementImportStatusDto status = statementImportService.startImport(importRequest);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", status);
+            response.put("message", "Statement import started");
+            response.put("timestamp", Instant.now().toString());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IOException e) {
+            log.error("STATEMENT_IMPORT_ERROR: {}", e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Statement import could not be started");
+        }
+    }
+
+    @GetMapping("/statements/imports")
+    public ResponseEntity<Map<String, Object>> getStatementImports() {
+        log.info("API_REQUEST: GET /api/v1/payments/statements/imports");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", statementImportService.getImports());
+        response.put("message", "Statement imports retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/statements/imports/{importId}")
+    public ResponseEntity<Map<String, Object>> getStatementImport(@PathVariable String importId) {
+        log.info("API_REQUEST: GET /api/v1/payments/statements/imports/{}", importId);
+
+        StatementImportStatusDto status = statementImportService.getImport(importId);
+        if (status == null) {
+            return error(HttpStatus.NOT_FOUND, "Statement import not found: " + importId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", status);
+        response.put("message", "Statement import retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/statements/imports/{importId}")
+    public ResponseEntity<Map<String, Object>> cancelStatementImport(@PathVariable String importId) {
+        log.info("API_REQUEST: DELETE /api/v1/payments/statements/imports/{}", importId);
+
+        StatementImportStatusDto status = statementImportService.cancelImport(importId);
+        if (status == null) {
+            return error(HttpStatus.NOT_FOUND, "Statement import not found: " + importId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", status);
+        response.put("message", "Statement import cancelled");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 启动日终对账 (异步)，差异写入对账输出目录，通过对账ID查询进度和统计
+     */
+    @PostMapping("/reconciliations")
+    public ResponseEntity<Map<String, Object>> startReconciliation(@RequestBody @Valid ReconciliationRequest reconciliationRequest) {
+        log.info("API_REQUEST: POST /api/v1/payments/reconciliations - date: {}, fileName: {}, format: {}",
+                reconciliationRequest.getDate(), reconciliationRequest.getFileName(), reconciliationRequest.getFormat());
+
+        try {
+            ReconciliationStatusDto status = reconciliationService.startReconciliation(reconciliationRequest);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", status);
+            response.put("message", "Reconciliation started");
+            response.put("timestamp", Instant.now().toString());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IOException e) {
+            log.error("RECONCILIATION_ERROR: {}", e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Reconciliation could not be started");
+        }
+    }
+
+    @GetMapping("/reconciliations")
+    public ResponseEntity<Map<String, Object>> getReconciliations() {
+        log.info("API_REQUEST: GET /api/v1/payments/reconciliations");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", reconciliationService.getReconciliations());
+        response.put("message", "Reconciliations retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/reconciliations/{reconciliationId}")
+    public ResponseEntity<Map<String, Object>> getReconciliation(@PathVariable String reconciliationId) {
+        log.info("API_REQUEST: GET /api/v1/payments/reconciliations/{}", reconciliationId);
+
+        ReconciliationStatusDto status = reconciliationService.getReconciliation(reconciliationId);
+        if (status == null) {
+            return error(HttpStatus.NOT_FOUND, "Reconciliation not found: " + reconciliationId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", status);
+        response.put("message", "Reconciliation retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/reconciliations/{reconciliationId}")
+    public ResponseEntity<Map<String, Object>> cancelReconciliation(@PathVariable String reconciliationId) {
+        log.info("API_REQUEST: DELETE /api/v1/payments/reconciliations/{}", reconciliationId);
+
+        ReconciliationStatusDto status = reconciliationService.cancelReconciliation(reconciliationId);
+        if (status == null) {
+            return error(HttpStatus.NOT_FOUND, "Reconciliation not found: " + reconciliationId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", status);
+        response.put("message", "Reconciliation cancelled");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> submit(PaymentRequest paymentRequest,
+                                                                          String idempotencyKey) {
+        try {
+            CompletableFuture<PaymentRecord> persisted = ingestionService.submit(paymentRequest);
+            if (idempotencyKey != null) {
+                // 幂等结果挂在落盘Future上而不是带超时的副本上: 确认超时但随后落盘成功时仍记录结果
+                persisted.whenComplete((record, failure) -> {
+                    if (failure == null) {
+                        idempotencyStore.complete(idempotencyKey, record);
+                    } else {
+                        idempotencyStore.release(idempotencyKey);
+                    }
+                });
+            }
+            return persisted.copy()
+                    .orTimeout(ackTimeoutMs, TimeUnit.MILLISECONDS)
+                    .thenApply(this::accepted)
+                    .exceptionally(this::failed);
+        } catch (PaymentRejectedException e) {
+            if (idempotencyKey != null) {
+                idempotencyStore.release(idempotencyKey);
+            }
+            return CompletableFuture.completedFuture(error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> accepted(PaymentRecord record) {
+        Instant acceptedAt = Instant.ofEpochMilli(record.getTimestampMillis());
+
+        PaymentResultDto result = PaymentResultDto.builder()
+                .paymentId(record.getPaymentId())
+                .transactionId(record.getTransactionId())
+                .status(record.getStatus())
+                .amount(record.getAmount())
+                .customerId(record.getCustomerId())
+                .method(record.getMethod())
+                .reference(record.getReference())
+                .acceptedAt(acceptedAt.toString())
+                .estimatedCompletion(Instant.ofEpochMilli(settlementScheduler.estimateCompletionMillis(record)).toString())
+                .build();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", result);
+        response.put("message", "Payment processing initiated");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> failed(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+        if (cause instanceof TimeoutException) {
+            log.warn("PAYMENT_ACK_TIMEOUT: no journal acknowledgement within {}ms", ackTimeoutMs);
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Payment acknowledgement timed out, please verify before retrying");
+        }
+        log.error("PAYMENT_PROCESS_ERROR: {}", cause.getMessage(), cause);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Payment could not be persisted");
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        response.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * 登记未结项 (发票)，供付款核销使用
+     */
+    @PostMapping("/open-items")
+    public ResponseEntity<Map<String, Object>> registerOpenItems(@RequestBody @Valid List<@Valid OpenItemRequest> openItems) {
+        log.info("API_REQUEST: POST /api/v1/payments/open-items - count: {}", openItems.size());
+
+        int registered = cashApplicationService.registerOpenItems(openItems);
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("data", Map.of(
-            "paymentId", new Random().nextInt(10000),
-            "status", "PROCESSING",
-            "amount", paymentRequest.get("amount"),
-            "customerId", paymentRequest.get("customerId"),
-            "method", paymentRequest.get("method"),
-            "transactionId", "TXN" + System.currentTimeMillis(),
-            "estimatedCompletion", "2025-10-10T10:00:00Z"
+            "registered", registered,
+            "duplicates", openItems.size() - registered
         ));
-        response.put("message", "Payment processing initiated");
+        response.put("message", "Open items registered successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
         return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/summary")
-    public ResponseEntity<Map<String, Object>> getPaymentSummary() {
-        log.info("API_REQUEST: GET /api/v1/payments/summary");
-        
+    @GetMapping("/open-items/{customerId}")
+    public ResponseEntity<Map<String, Object>> getOpenItems(@PathVariable Long customerId) {
+        log.info("API_REQUEST: GET /api/v1/payments/open-items/{}", customerId);
+
+        List<Map<String, Object>> openItems = cashApplicationService.getOpenItems(customerId);
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("data", Map.of(
-            "totalPaymentsToday", 15,
-            "totalAmountToday", new BigDecimal("450000.00"),
-            "totalPaymentsMonth", 234,
-            "totalAmountMonth", new BigDecimal("5600000.00"),
-            "pendingPayments", 8,
-            "failedPayments", 2,
-            "averageProcessingTime", "2.5 hours"
+            "customerId", customerId,
+            "openItems", openItems,
+            "count", openItems.size()
         ));
-        response.put("message", "Payment summary retrieved successfully");
+        response.put("message", "Open items retrieved successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 核销单笔到账款
+     */
+    @PostMapping("/allocations")
+    public ResponseEntity<Map<String, Object>> allocatePayment(@RequestBody @Valid AllocationRequest allocationRequest) {
+        log.info("API_REQUEST: POST /api/v1/payments/allocations - customerId: {}", allocationRequest.getCustomerId());
+
+        AllocationResultDto result = cashApplicationService.allocate(allocationRequest);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", result);
+        response.put("message", "Payment allocated successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 批量核销 (例如一份银行流水)，details=true时返回逐笔结果
+     */
+    @PostMapping("/allocations/batch")
+    public ResponseEntity<Map<String, Object>> allocatePayments(
+            @RequestBody @Valid List<@Valid AllocationRequest> allocationRequests,
+            @RequestParam(defaultValue = "false") boolean details) {
+        log.info("API_REQUEST: POST /api/v1/payments/allocations/batch - count: {}", allocationRequests.size());
+
+        AllocationBatchResultDto result = cashApplicationService.allocateBatch(allocationRequests, details);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", result);
+        response.put("message", "Payments allocated successfully");
+        response.put("timestamp", Instant.now().toString());
+
         return ResponseEntity.ok(response);
     }
 
@@ -97,9 +516,22 @@ public class PaymentController {
         response.put("description", "Payment Processing and Tracking Service");
         response.put("version", "1.0.0");
         response.put("endpoints", Arrays.asList(
-            "GET /api/v1/payments/history/{customerId}",
+            "GET /api/v1/payments/history/{customerId}?from=&to=&cursor=&limit=",
             "POST /api/v1/payments/process",
-            "GET /api/v1/payments/summary"
+            "POST /api/v1/payments/open-items",
+            "GET /api/v1/payments/open-items/{customerId}",
+            "POST /api/v1/payments/allocations",
+            "POST /api/v1/payments/allocations/batch",
+            "POST /api/v1/payments/statements/imports",
+            "GET /api/v1/payments/statements/imports",
+            "GET /api/v1/payments/statements/imports/{importId}",
+            "DELETE /api/v1/payments/statements/imports/{importId}",
+            "POST /api/v1/payments/reconciliations",
+            "GET /api/v1/payments/reconciliations",
+            "GET /api/v1/payments/reconciliations/{reconciliationId}",
+            "DELETE /api/v1/payments/reconciliations/{reconciliationId}",
+            "GET /api/v1/payments/summary",
+            "GET /api/v1/payments/settlements/stats"
         ));
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,35 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量付款核销汇总DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllocationBatchResultDto {
+
+    private int totalPayments;
+
+    private Map<String, Integer> matchTypeCounts;
+
+    private BigDecimal totalAmount;
+
+    private BigDecimal appliedAmount;
+
+    private BigDecimal unappliedAmount;
+
+    private long durationMillis;
+
+    /** 仅在请求明细时返回 */
+    private List<AllocationResultDto> results;
+}
@@ -0,0 +1,33 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+/**
+ * 付款核销请求DTO
+ * 客户ID可为空 (例如银行流水未能识别付款人)，此时只按附言中的发票号匹配
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllocationRequest {
+
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
+    @Digits(integer = 13, fraction = 2, message = "Amount must have at most 13 integer digits and 2 decimals")
+    private BigDecimal amount;
+
+    @Size(max = 500, message = "Reference must not exceed 500 characters")
+    private String reference;
+}
@@ -0,0 +1,47 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 付款核销结果DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllocationResultDto {
+
+    private Long customerId;
+
+    private BigDecimal amount;
+
+    private String matchType;
+
+    private List<AllocationLineDto> allocations;
+
+    private BigDecimal unappliedAmount;
+
+    /**
+     * 核销到单张发票的明细
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AllocationLineDto {
+
+        private String invoiceNumber;
+
+        private BigDecimal appliedAmount;
+
+        private BigDecimal remainingAmount;
+
+        private boolean fullyPaid;
+    }
+}
@@ -0,0 +1,39 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 未结项登记请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OpenItemRequest {
+
+    @NotNull(message = "Customer ID is required")
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    @NotBlank(message = "Invoice number is required")
+    @Size(max = 50, message = "Invoice number must not exceed 50 characters")
+    private String invoiceNumber;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
+    @Digits(integer = 13, fraction = 2, message = "Amount must have at most 13 integer digits and 2 decimals")
+    private BigDecimal amount;
+
+    @NotNull(message = "Due date is required")
+    private LocalDate dueDate;
+}
@@ -0,0 +1,33 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 客户付款历史分页DTO
+ * nextCursor作为下一页请求的cursor参数，为空表示没有更多数据
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentHistoryDto {
+
+    private Long customerId;
+
+    /** 累计已付款金额 (来自账本，不含结算失败的付款) */
+    private BigDecimal totalPaid;
+
+    private List<PaymentHistoryItemDto> payments;
+
+    private int count;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+}
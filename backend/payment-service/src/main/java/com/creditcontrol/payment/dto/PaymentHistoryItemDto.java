@@ -0,0 +1,32 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 付款历史条目DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentHistoryItemDto {
+
+    private long paymentId;
+
+    private String transactionId;
+
+    private BigDecimal amount;
+
+    private String date;
+
+    private String acceptedAt;
+
+    private PaymentStatus status;
+
+    private PaymentMethod method;
+}
@@ -0,0 +1,12 @@
+package com.creditcontrol.payment.dto;
+
+/**
+ * 付款方式
+ */
+public enum PaymentMethod {
+    BANK_TRANSFER,
+    WIRE_TRANSFER,
+    CHECK,
+    CREDIT_CARD,
+    CASH
+}
@@ -0,0 +1,37 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+/**
+ * 付款请求DTO
+ * 用于付款处理API的请求体验证
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRequest {
+
+    @NotNull(message = "Customer ID is required")
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
+    @Digits(integer = 13, fraction = 2, message = "Amount must have at most 13 integer digits and 2 decimals")
+    private BigDecimal amount;
+
+    @NotNull(message = "Payment method is required")
+    private PaymentMethod method;
+
+    @Size(max = 140, message = "Reference must not exceed 140 characters")
+    private String reference;
+}
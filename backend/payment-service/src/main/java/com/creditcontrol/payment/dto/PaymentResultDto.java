@@ -0,0 +1,37 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 付款处理结果DTO
+ * 付款记录已写入并刷盘到付款日志后返回
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentResultDto {
+
+    private long paymentId;
+
+    private String transactionId;
+
+    private PaymentStatus status;
+
+    private BigDecimal amount;
+
+    private Long customerId;
+
+    private PaymentMethod method;
+
+    private String reference;
+
+    private String acceptedAt;
+
+    private String estimatedCompletion;
+}
@@ -0,0 +1,10 @@
+package com.creditcontrol.payment.dto;
+
+/**
+ * 付款状态
+ */
+public enum PaymentStatus {
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,41 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 付款汇总DTO (UTC当天、当月)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSummaryDto {
+
+    private long totalPaymentsToday;
+
+    private BigDecimal totalAmountToday;
+
+    private long totalPaymentsMonth;
+
+    private BigDecimal totalAmountMonth;
+
+    private long pendingPayments;
+
+    private long completedPaymentsToday;
+
+    private long failedPayments;
+
+    /** 本月平均处理耗时，便于展示的文本 */
+    private String averageProcessingTime;
+
+    private long averageProcessingMillis;
+
+    private long p95ProcessingMillis;
+
+    private String asOf;
+}
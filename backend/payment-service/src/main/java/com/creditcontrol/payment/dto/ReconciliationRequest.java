@@ -0,0 +1,31 @@
+package com.creditcontrol.payment.dto;
+
+import com.creditcontrol.payment.statement.StatementFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+
+/**
+ * 日终对账请求DTO
+ * 用付款日志中date当天受理的付款与流水文件中起息日为date的行对账，文件名相对于流水收件目录
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRequest {
+
+    @NotNull(message = "Date is required")
+    private LocalDate date;
+
+    @NotBlank(message = "File name is required")
+    @Size(max = 255, message = "File name must not exceed 255 characters")
+    private String fileName;
+
+    @NotNull(message = "Format is required")
+    private StatementFormat format;
+}
@@ -0,0 +1,86 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 日终对账状态DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationStatusDto {
+
+    private String reconciliationId;
+
+    private String date;
+
+    private String fileName;
+
+    private String format;
+
+    private String state;
+
+    private String phase;
+
+    private long internalRecords;
+
+    private long bankRecords;
+
+    /** 起息日不是对账日的流水行 */
+    private long skippedBankRecords;
+
+    /** 起息日不是当天或由银行流水导入的付款日志记录 */
+    private long skippedInternalRecords;
+
+    private long malformedLines;
+
+    private long matched;
+
+    private long amountMismatches;
+
+    private long internalOnly;
+
+    private long bankOnly;
+
+    /** 外部排序溢写的有序段数，0表示全部在内存中完成 */
+    private int sortRuns;
+
+    private String breaksFile;
+
+    /** 前若干条差异，完整列表见差异文件 */
+    private List<Break> sampleBreaks;
+
+    private String startedAt;
+
+    private String finishedAt;
+
+    private String error;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Break {
+
+        private String type;
+
+        private Long paymentId;
+
+        private Long bankLineOffset;
+
+        private Long internalCustomerId;
+
+        private Long bankCustomerId;
+
+        private BigDecimal internalAmount;
+
+        private BigDecimal bankAmount;
+    }
+}
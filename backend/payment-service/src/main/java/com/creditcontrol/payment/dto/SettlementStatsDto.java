@@ -0,0 +1,37 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 结算调度统计DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementStatsDto {
+
+    /** 待结算付款数 (含正在结算的) */
+    private int pending;
+
+    /** 正在结算或正在写入终态记录的付款数 */
+    private int inFlight;
+
+    /** 时间轮上的定时器数 */
+    private int scheduledTimers;
+
+    /** 本次启动以来结算成功数 */
+    private long settled;
+
+    /** 本次启动以来结算失败数 */
+    private long failed;
+
+    /** 重试次数 */
+    private long retries;
+
+    /** 单次尝试超时次数 */
+    private long attemptTimeouts;
+}
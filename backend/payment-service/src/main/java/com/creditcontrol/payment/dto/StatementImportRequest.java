@@ -0,0 +1,29 @@
+package com.creditcontrol.payment.dto;
+
+import com.creditcontrol.payment.statement.StatementFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * 银行流水导入请求DTO
+ * 文件名相对于流水收件目录，resume为true时从上次检查点继续
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImportRequest {
+
+    @NotBlank(message = "File name is required")
+    @Size(max = 255, message = "File name must not exceed 255 characters")
+    private String fileName;
+
+    @NotNull(message = "Format is required")
+    private StatementFormat format;
+
+    private boolean resume = true;
+}
@@ -0,0 +1,59 @@
+package com.creditcontrol.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 银行流水导入状态DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImportStatusDto {
+
+    private String importId;
+
+    private String fileName;
+
+    private String format;
+
+    /** 流水内容标识 (SHA-256前128位) */
+    private String statementKey;
+
+    /** 无法识别客户的收款所在的未认领款项文件 */
+    private String unappliedFile;
+
+    private String state;
+
+    private long fileSize;
+
+    private long startOffset;
+
+    /** 已写入付款日志并记入检查点的文件偏移 */
+    private long checkpointOffset;
+
+    private long parsedRecords;
+
+    private long rejectedRecords;
+
+    private long unidentifiedRecords;
+
+    private long duplicateRecords;
+
+    private long persistedRecords;
+
+    private Map<String, Long> matchTypeCounts;
+
+    private long recordsPerSecond;
+
+    private String startedAt;
+
+    private String finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.creditcontrol.payment.exception;
+
+/**
+ * 付款日志读写异常
+ */
+public class PaymentJournalException extends RuntimeException {
+
+    public PaymentJournalException(String message) {
+        super(message);
+    }
+
+    public PaymentJournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.creditcontrol.payment.exception;
+
+/**
+ * 付款被拒绝异常 (接收队列已满或服务正在关闭)
+ */
+public class PaymentRejectedException extends RuntimeException {
+
+    public PaymentRejectedException(String message) {
+        super(message);
+    }
+
+    public PaymentRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
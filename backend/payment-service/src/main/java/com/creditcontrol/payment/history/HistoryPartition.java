@@ -0,0 +1,21 @@
+package com.creditcontrol.payment.history;
+
+import com.creditcontrol.payment.dto.PaymentStatus;
+
+import java.util.List;
+
+/**
+ * 一天 (按付款ID中的时间戳划分) 的付款历史分区
+ */
+interface HistoryPartition {
+
+    /**
+     * 按付款ID倒序收集客户在 [minPaymentId, beforePaymentId) 范围内的条目，最多limit条，返回收集的条数
+     */
+    int collect(long customerId, long beforePaymentId, long minPaymentId, int limit, List<PaymentHistoryEntry> out);
+
+    /**
+     * 更新付款状态，付款不在本分区时返回false
+     */
+    boolean updateStatus(long customerId, long paymentId, PaymentStatus status);
+}
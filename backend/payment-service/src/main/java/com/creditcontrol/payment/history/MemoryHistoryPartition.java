@@ -0,0 +1,102 @@
+package com.creditcontrol.payment.history;
+
+import com.creditcontrol.payment.dto.PaymentStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 尚未封存的分区 (当天及宽限期内的前一天)，每个客户一棵按付款ID排序的树
+ */
+final class MemoryHistoryPartition implements HistoryPartition {
+
+    private final int day;
+    private final ConcurrentHashMap<Long, NavigableMap<Long, PaymentHistoryEntry>> byCustomer = new ConcurrentHashMap<>();
+
+    MemoryHistoryPartition(int day) {
+        this.day = day;
+    }
+
+    int getDay() {
+        return day;
+    }
+
+    /**
+     * 添加付款，付款ID已存在时忽略 (日志回放)
+     */
+    void add(PaymentHistoryEntry entry) {
+        NavigableMap<Long, PaymentHistoryEntry> entries =
+                byCustomer.computeIfAbsent(entry.getCustomerId(), id -> new TreeMap<>());
+        synchronized (entries) {
+            entries.putIfAbsent(entry.getPaymentId(), entry);
+        }
+    }
+
+    @Override
+    public int collect(long customerId, long beforePaymentId, long minPaymentId, int limit,
+                       List<PaymentHistoryEntry> out) {
+        NavigableMap<Long, PaymentHistoryEntry> entries = byCustomer.get(customerId);
+        if (entries == null) {
+            return 0;
+        }
+        int collected = 0;
+        synchronized (entries) {
+            for (PaymentHistoryEntry entry : entries.subMap(minPaymentId, true, beforePaymentId, false)
+                    .descendingMap().values()) {
+                if (collected == limit) {
+                    break;
+                }
+                out.add(entry);
+                collected++;
+            }
+        }
+        return collected;
+    }
+
+    @Override
+    public boolean updateStatus(long customerId, long paymentId, PaymentStatus status) {
+        NavigableMap<Long, PaymentHistoryEntry> entries = byCustomer.get(customerId);
+        if (entries == null) {
+            return false;
+        }
+        synchronized (entries) {
+            PaymentHistoryEntry entry = entries.get(paymentId);
+            if (entry == null) {
+                return false;
+            }
+            entries.put(paymentId, entry.withStatus(status));
+            return true;
+        }
+    }
+
+    /**
+     * 按 (客户ID升序, 付款ID倒序) 导出全部条目，用于封存
+     */
+    List<PaymentHistoryEntry> snapshot() {
+        List<Long> customers = new ArrayList<>(byCustomer.keySet());
+        Collections.sort(customers);
+        List<PaymentHistoryEntry> entries = new ArrayList<>();
+        for (Long customerId : customers) {
+            NavigableMap<Long, PaymentHistoryEntry> customerEntries = byCustomer.get(customerId);
+            synchronized (customerEntries) {
+                entries.addAll(customerEntries.descendingMap().values());
+            }
+        }
+        return entries;
+    }
+
+    int size() {
+        int size = 0;
+        for (Map<Long, PaymentHistoryEntry> entries : byCustomer.values()) {
+            synchronized (entries) {
+                size += entries.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,33 @@
+package com.creditcontrol.payment.history;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.service.PaymentIdGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 付款历史条目 (付款的当前状态)，受理时间由付款ID推导
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentHistoryEntry {
+
+    private final long paymentId;
+
+    private final long customerId;
+
+    private final long amountCents;
+
+    private final PaymentMethod method;
+
+    private final PaymentStatus status;
+
+    public long getTimestampMillis() {
+        return PaymentIdGenerator.timestampOf(paymentId);
+    }
+
+    PaymentHistoryEntry withStatus(PaymentStatus newStatus) {
+        return new PaymentHistoryEntry(paymentId, customerId, amountCents, method, newStatus);
+    }
+}
@@ -0,0 +1,18 @@
+package com.creditcontrol.payment.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 一页付款历史，按付款ID倒序 (最新在前)。nextCursor为空表示没有更多数据
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentHistoryPage {
+
+    private final List<PaymentHistoryEntry> entries;
+
+    private final Long nextCursor;
+}
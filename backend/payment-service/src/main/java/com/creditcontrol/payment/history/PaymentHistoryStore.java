@@ -0,0 +1,275 @@
+package com.creditcontrol.payment.history;
+
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentCommitListener;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import com.creditcontrol.payment.service.PaymentIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 付款历史存储
+ * 按付款ID中的时间戳 (UTC日期) 分区: 当天的分区在内存中，过了宽限期后封存为按
+ * (客户ID, 付款ID倒序) 排序的内存映射文件。查询只访问日期范围内的分区，每个分区一次二分查找，
+ * 使用付款ID作为游标分页。数据由付款日志提交回调维护，启动时从水位线对应的日志分段回放补齐。
+ */
+@Component
+@Slf4j
+public class PaymentHistoryStore implements PaymentCommitListener {
+
+    private static final String PARTITION_PREFIX = "history-";
+    private static final String PARTITION_SUFFIX = ".idx";
+    private static final String WATERMARK_FILE = "history.watermark";
+    private static final DateTimeFormatter PARTITION_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int MAX_SEAL_ATTEMPTS = 3;
+
+    @Autowired
+    private PaymentJournal journal;
+
+    @Value("${creditcontrol.payment.history.directory:data/history}")
+    private String directory;
+
+    @Value("${creditcontrol.payment.history.seal-grace-ms:300000}")
+    private long sealGraceMs;
+
+    private final ConcurrentSkipListMap<Integer, HistoryPartition> partitions = new ConcurrentSkipListMap<>();
+    /** 封存互斥锁，封存写文件期间不持有对象锁，避免阻塞付款日志写线程 */
+    private final Object sealLock = new Object();
+    private Path directoryPath;
+
+    /**
+     * 加载已封存的分区，并从水位线开始回放付款日志重建内存分区和封存后的状态变化
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        directoryPath = Paths.get(directory);
+        Files.createDirectories(directoryPath);
+        long startTime = System.currentTimeMillis();
+
+        try (Stream<Path> files = Files.list(directoryPath)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(PARTITION_PREFIX) && name.endsWith(PARTITION_SUFFIX)) {
+                    SealedHistoryPartition partition = SealedHistoryPartition.open(path);
+                    partitions.put(partition.getDay(), partition);
+                }
+            }
+        }
+        int sealedPartitions = partitions.size();
+
+        LocalDate watermark = readWatermark();
+        long replayed = 0;
+        for (LocalDate day : journal.segmentDays()) {
+            if (watermark != null && day.isBefore(watermark)) {
+                continue;
+            }
+            long[] count = {0};
+            journal.replay(day, record -> {
+                apply(record, false);
+                count[0]++;
+            });
+            replayed += count[0];
+            // 日志分段d中只可能出现ID日期为d-1 (跨零点提交) 或d的新付款，更早的分区已经完整
+            sealBefore(Math.min((int) day.toEpochDay() - 1, sealableBefore()));
+        }
+
+        log.info("PAYMENT_HISTORY_OPENED: directory: {}, sealedPartitions: {}, watermark: {}, replayedRecords: {}, "
+                        + "memoryPartitions: {}, duration: {}ms",
+                directoryPath, sealedPartitions, watermark, replayed,
+                partitions.size() - countSealed(), System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public synchronized void onCommitted(List<PaymentRecord> records) {
+        for (PaymentRecord record : records) {
+            apply(record, true);
+        }
+    }
+
+    /**
+     * 查询客户付款历史，按付款ID倒序。from/to为闭区间 (UTC日期，可为空)，cursor为上一页的nextCursor
+     */
+    public PaymentHistoryPage query(long customerId, LocalDate from, LocalDate to, Long cursor, int limit) {
+        long upper = to == null ? Long.MAX_VALUE : PaymentIdGenerator.firstIdAt((to.toEpochDay() + 1) * DAY_MILLIS);
+        if (cursor != null) {
+            upper = Math.min(upper, cursor);
+        }
+        long lower = from == null ? 0L : PaymentIdGenerator.firstIdAt(from.toEpochDay() * DAY_MILLIS);
+        List<PaymentHistoryEntry> entries = new ArrayList<>(limit + 1);
+        if (upper <= lower) {
+            return new PaymentHistoryPage(entries, null);
+        }
+
+        for (HistoryPartition partition : partitions.subMap(dayOfId(lower), true, dayOfId(upper - 1), true)
+                .descendingMap().values()) {
+            partition.collect(customerId, upper, lower, limit + 1 - entries.size(), entries);
+            if (entries.size() > limit) {
+                break;
+            }
+        }
+
+        if (entries.size() > limit) {
+            entries.remove(limit);
+            return new PaymentHistoryPage(entries, entries.get(limit - 1).getPaymentId());
+        }
+        return new PaymentHistoryPage(entries, null);
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * 定期封存过了宽限期的内存分区，刷盘原地更新的状态并推进水位线
+     */
+    @Scheduled(fixedDelayString = "${creditcontrol.payment.history.maintenance-interval-ms:60000}")
+    public void maintain() {
+        try {
+            sealBefore(sealableBefore());
+        } catch (IOException e) {
+            log.error("PAYMENT_HISTORY_MAINTENANCE_ERROR: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (HistoryPartition partition : partitions.values()) {
+            if (partition instanceof SealedHistoryPartition) {
+                ((SealedHistoryPartition) partition).close();
+            }
+        }
+    }
+
+    private void apply(PaymentRecord record, boolean live) {
+        int day = dayOfId(record.getPaymentId());
+        HistoryPartition partition = partitions.get(day);
+
+        if (record.getStatus() == PaymentStatus.PROCESSING) {
+            if (partition instanceof SealedHistoryPartition) {
+                if (live) {
+                    log.warn("PAYMENT_HISTORY_LATE_RECORD: paymentId: {} belongs to sealed partition {}",
+                            record.getPaymentId(), LocalDate.ofEpochDay(day));
+                }
+                return;
+            }
+            MemoryHistoryPartition memory = (MemoryHistoryPartition) partition;
+            if (memory == null) {
+                memory = new MemoryHistoryPartition(day);
+                partitions.put(day, memory);
+            }
+            memory.add(new PaymentHistoryEntry(record.getPaymentId(), record.getCustomerId(),
+                    record.getAmountCents(), record.getMethod(), record.getStatus()));
+        } else if (partition == null
+                || !partition.updateStatus(record.getCustomerId(), record.getPaymentId(), record.getStatus())) {
+            log.debug("PAYMENT_HISTORY_UNKNOWN_PAYMENT: paymentId: {}, status: {}",
+                    record.getPaymentId(), record.getStatus());
+        }
+    }
+
+    /**
+     * 封存日期早于limitDay的内存分区，全部刷盘后把水位线推进到最早的未封存日期
+     */
+    private void sealBefore(int limitDay) throws IOException {
+        synchronized (sealLock) {
+            for (HistoryPartition partition : new ArrayList<>(partitions.headMap(limitDay).values())) {
+                if (partition instanceof MemoryHistoryPartition) {
+                    seal((MemoryHistoryPartition) partition);
+                }
+            }
+
+            int watermark = (int) LocalDate.now(ZoneOffset.UTC).toEpochDay();
+            for (HistoryPartition partition : partitions.values()) {
+                if (partition instanceof SealedHistoryPartition) {
+                    ((SealedHistoryPartition) partition).force();
+                } else {
+                    watermark = Math.min(watermark, ((MemoryHistoryPartition) partition).getDay());
+                }
+            }
+            writeWatermark(LocalDate.ofEpochDay(watermark));
+        }
+    }
+
+    /**
+     * 写分区文件期间写线程继续更新内存分区: 替换前在锁内把状态补到文件上，
+     * 如果期间有新付款加入则重新写入
+     */
+    private void seal(MemoryHistoryPartition memory) throws IOException {
+        LocalDate date = LocalDate.ofEpochDay(memory.getDay());
+        Path path = directoryPath.resolve(PARTITION_PREFIX + PARTITION_DATE.format(date) + PARTITION_SUFFIX);
+        long startTime = System.currentTimeMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            List<PaymentHistoryEntry> entries = memory.snapshot();
+            SealedHistoryPartition sealed = SealedHistoryPartition.write(path, memory.getDay(), entries);
+            synchronized (this) {
+                if (memory.size() == entries.size() || attempt == MAX_SEAL_ATTEMPTS) {
+                    List<PaymentHistoryEntry> current = memory.snapshot();
+                    if (current.size() != entries.size()) {
+                        log.warn("PAYMENT_HISTORY_SEAL_INCOMPLETE: partition {} still receiving payments, {} left out",
+                                date, current.size() - entries.size());
+                    }
+                    for (PaymentHistoryEntry entry : current) {
+                        sealed.updateStatus(entry.getCustomerId(), entry.getPaymentId(), entry.getStatus());
+                    }
+                    partitions.put(memory.getDay(), sealed);
+                    log.info("PAYMENT_HISTORY_SEALED: partition: {}, entries: {}, duration: {}ms",
+                            date, entries.size(), System.currentTimeMillis() - startTime);
+                    return;
+                }
+            }
+            sealed.close();
+        }
+    }
+
+    /**
+     * 过了宽限期的日期之前的分区可以封存
+     */
+    private int sealableBefore() {
+        return (int) Math.floorDiv(System.currentTimeMillis() - sealGraceMs, DAY_MILLIS);
+    }
+
+    private int countSealed() {
+        return (int) partitions.values().stream().filter(SealedHistoryPartition.class::isInstance).count();
+    }
+
+    private LocalDate readWatermark() throws IOException {
+        Path path = directoryPath.resolve(WATERMARK_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return LocalDate.parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim());
+    }
+
+    private void writeWatermark(LocalDate watermark) throws IOException {
+        Path path = directoryPath.resolve(WATERMARK_FILE);
+        Path temp = directoryPath.resolve(WATERMARK_FILE + ".tmp");
+        Files.write(temp, watermark.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int dayOfId(long paymentId) {
+        return (int) Math.floorDiv(PaymentIdGenerator.timestampOf(paymentId), DAY_MILLIS);
+    }
+}
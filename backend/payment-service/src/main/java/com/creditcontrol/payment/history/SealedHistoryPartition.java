@@ -0,0 +1,187 @@
+package com.creditcontrol.payment.history;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 已封存的分区文件
+ * 固定32字节条目按 (客户ID升序, 付款ID倒序) 排列并内存映射，查询为一次二分查找加顺序读取。
+ * 条目: [客户ID][付款ID][金额(分)][方式][状态][填充]；头部: [魔数][版本][日期][保留][条目数][保留]。
+ * 状态字节可原地更新 (结算等状态变化)，其余字段封存后不再改变。
+ */
+final class SealedHistoryPartition implements HistoryPartition, Closeable {
+
+    private static final int MAGIC = 0x50484953;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 32;
+    private static final int MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_BYTES) / ENTRY_BYTES;
+    private static final int STATUS_FIELD = 25;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final Path path;
+    private final int day;
+    private final int count;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private volatile boolean dirty;
+
+    private SealedHistoryPartition(Path path, int day, int count, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.day = day;
+        this.count = count;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 写入分区文件 (条目须已按 客户ID升序、付款ID倒序 排好)，先写临时文件再原子改名
+     */
+    static SealedHistoryPartition write(Path path, int day, List<PaymentHistoryEntry> entries) throws IOException {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IOException("Too many history entries for day " + day + ": " + entries.size());
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            chunk.putInt(MAGIC).putInt(VERSION).putInt(day).putInt(0).putLong(entries.size()).putLong(0L);
+            for (PaymentHistoryEntry entry : entries) {
+                if (chunk.remaining() < ENTRY_BYTES) {
+                    drain(out, chunk);
+                }
+                chunk.putLong(entry.getCustomerId())
+                        .putLong(entry.getPaymentId())
+                        .putLong(entry.getAmountCents())
+                        .put((byte) entry.getMethod().ordinal())
+                        .put((byte) entry.getStatus().ordinal())
+                        .putShort((short) 0)
+                        .putInt(0);
+            }
+            drain(out, chunk);
+            out.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    static SealedHistoryPartition open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Invalid payment history partition: " + path);
+            }
+            int day = buffer.getInt(8);
+            long count = buffer.getLong(16);
+            if (HEADER_BYTES + count * ENTRY_BYTES != buffer.capacity()) {
+                throw new IOException("Truncated payment history partition: " + path);
+            }
+            return new SealedHistoryPartition(path, day, (int) count, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int getDay() {
+        return day;
+    }
+
+    int size() {
+        return count;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public int collect(long customerId, long beforePaymentId, long minPaymentId, int limit,
+                       List<PaymentHistoryEntry> out) {
+        int collected = 0;
+        for (int index = lowerBound(customerId, beforePaymentId); index < count && collected < limit; index++) {
+            int position = HEADER_BYTES + index * ENTRY_BYTES;
+            long paymentId = buffer.getLong(position + 8);
+            if (buffer.getLong(position) != customerId || paymentId < minPaymentId) {
+                break;
+            }
+            out.add(new PaymentHistoryEntry(paymentId, customerId, buffer.getLong(position + 16),
+                    METHODS[buffer.get(position + 24)], STATUSES[buffer.get(position + STATUS_FIELD)]));
+            collected++;
+        }
+        return collected;
+    }
+
+    @Override
+    public boolean updateStatus(long customerId, long paymentId, PaymentStatus status) {
+        int index = lowerBound(customerId, paymentId + 1);
+        if (index >= count) {
+            return false;
+        }
+        int position = HEADER_BYTES + index * ENTRY_BYTES;
+        if (buffer.getLong(position) != customerId || buffer.getLong(position + 8) != paymentId) {
+            return false;
+        }
+        buffer.put(position + STATUS_FIELD, (byte) status.ordinal());
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * 把原地更新的状态刷到磁盘
+     */
+    void force() {
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * 第一个 (客户ID, 付款ID) 排在 (customerId, beforePaymentId) 之后的条目位置，
+     * 即该客户付款ID小于beforePaymentId的第一条
+     */
+    private int lowerBound(long customerId, long beforePaymentId) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int position = HEADER_BYTES + mid * ENTRY_BYTES;
+            long midCustomer = buffer.getLong(position);
+            if (midCustomer < customerId
+                    || (midCustomer == customerId && buffer.getLong(position + 8) >= beforePaymentId)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer chunk) throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            out.write(chunk);
+        }
+        chunk.clear();
+    }
+}
@@ -0,0 +1,60 @@
+package com.creditcontrol.payment.idempotency;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * 幂等键查询结果
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class IdempotencyLookup {
+
+    public enum Outcome {
+        /** 首次出现，已占用，调用方应继续处理 */
+        RESERVED,
+        /** 相同键的请求正在处理中 */
+        IN_PROGRESS,
+        /** 已有处理结果，直接返回 */
+        COMPLETED,
+        /** 相同键对应的请求内容不同 */
+        MISMATCH
+    }
+
+    private static final IdempotencyLookup RESERVED = new IdempotencyLookup(Outcome.RESERVED, null);
+    private static final IdempotencyLookup IN_PROGRESS = new IdempotencyLookup(Outcome.IN_PROGRESS, null);
+    private static final IdempotencyLookup MISMATCH = new IdempotencyLookup(Outcome.MISMATCH, null);
+
+    private final Outcome outcome;
+
+    private final PaymentRecord record;
+
+    public static IdempotencyLookup reserved() {
+        return RESERVED;
+    }
+
+    public static IdempotencyLookup inProgress() {
+        return IN_PROGRESS;
+    }
+
+    public static IdempotencyLookup mismatch() {
+        return MISMATCH;
+    }
+
+    /**
+     * 根据已保存的结果判断是重放还是请求内容冲突，请求的每个字段都必须与原请求相同
+     */
+    public static IdempotencyLookup completed(PaymentRecord record, long customerId, long amountCents,
+                                              PaymentMethod method, String reference) {
+        if (record.getCustomerId() != customerId || record.getAmountCents() != amountCents
+                || record.getMethod() != method || !Objects.equals(record.getReference(), reference)) {
+            return MISMATCH;
+        }
+        return new IdempotencyLookup(Outcome.COMPLETED, record);
+    }
+}
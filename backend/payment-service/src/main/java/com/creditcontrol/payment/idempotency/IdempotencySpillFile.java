@@ -0,0 +1,218 @@
+package com.creditcontrol.payment.idempotency;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * 落盘的幂等键哈希表
+ * 固定64字节槽位的开放寻址表 (线性探测)，以只读内存映射方式查询，每次查找为O(1)次探测。
+ * 槽位: [指纹高位][指纹低位][付款ID][客户ID][金额(分)][时间戳][方式][状态][附言长度][填充][附言偏移]
+ * 附言 (UTF-8) 依次存放在哈希表之后，命中时按偏移读取；附言长度为0表示没有附言。
+ */
+final class IdempotencySpillFile implements Closeable {
+
+    private static final int SLOT_BYTES = 64;
+    private static final int HEADER_BYTES = 16;
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_BYTES = 1L << REGION_SHIFT;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final long bucketHour;
+    private final long mask;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final Path path;
+    private final long referencesStart;
+
+    private IdempotencySpillFile(Path path, long bucketHour, long capacity, FileChannel channel,
+                                 MappedByteBuffer[] regions) {
+        this.path = path;
+        this.bucketHour = bucketHour;
+        this.mask = capacity - 1;
+        this.channel = channel;
+        this.regions = regions;
+        this.referencesStart = HEADER_BYTES + capacity * SLOT_BYTES;
+    }
+
+    /**
+     * 把一个时间桶写成哈希表文件 (先写临时文件再原子改名)，并以只读方式打开
+     */
+    static IdempotencySpillFile write(Path path, long bucketHour, Map<KeyFingerprint, PaymentRecord> entries)
+            throws IOException {
+        long capacity = Long.highestOneBit(Math.max(16L, entries.size() * 2L - 1)) << 1;
+        long mask = capacity - 1;
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(bucketHour).putLong(capacity);
+            header.flip();
+            out.write(header, 0);
+
+            MappedByteBuffer[] regions = map(out, FileChannel.MapMode.READ_WRITE, capacity);
+            long referencesStart = HEADER_BYTES + capacity * SLOT_BYTES;
+            long referenceOffset = 0;
+            for (Map.Entry<KeyFingerprint, PaymentRecord> entry : entries.entrySet()) {
+                KeyFingerprint fingerprint = entry.getKey();
+                long slot = fingerprint.getLow() & mask;
+                while (readLong(regions, slot, 0) != 0 || readLong(regions, slot, 8) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                String reference = entry.getValue().getReference();
+                byte[] bytes = reference == null ? new byte[0] : reference.getBytes(StandardCharsets.UTF_8);
+                writeSlot(regions, slot, fingerprint, entry.getValue(), bytes.length, referenceOffset);
+                if (bytes.length > 0) {
+                    ByteBuffer content = ByteBuffer.wrap(bytes);
+                    while (content.hasRemaining()) {
+                        out.write(content, referencesStart + referenceOffset + content.position());
+                    }
+                    referenceOffset += bytes.length;
+                }
+            }
+            for (MappedByteBuffer region : regions) {
+                region.force();
+            }
+            out.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    /**
+     * 只读打开已有的哈希表文件
+     */
+    static IdempotencySpillFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            long bucketHour = header.getLong();
+            long capacity = header.getLong();
+            return new IdempotencySpillFile(path, bucketHour, capacity, channel,
+                    map(channel, FileChannel.MapMode.READ_ONLY, capacity));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long getBucketHour() {
+        return bucketHour;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * 按指纹查找，未命中返回null
+     */
+    PaymentRecord find(KeyFingerprint fingerprint) {
+        long slot = fingerprint.getLow() & mask;
+        while (true) {
+            long high = readLong(regions, slot, 0);
+            long low = readLong(regions, slot, 8);
+            if (high == 0 && low == 0) {
+                return null;
+            }
+            if (high == fingerprint.getHigh() && low == fingerprint.getLow()) {
+                return readRecord(slot);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private PaymentRecord readRecord(long slot) {
+        return PaymentRecord.builder()
+                .paymentId(readLong(regions, slot, 16))
+                .customerId(readLong(regions, slot, 24))
+                .amountCents(readLong(regions, slot, 32))
+                .timestampMillis(readLong(regions, slot, 40))
+                .method(METHODS[readByte(regions, slot, 48)])
+                .status(STATUSES[readByte(regions, slot, 49)])
+                .reference(readReference(slot))
+                .build();
+    }
+
+    private String readReference(long slot) {
+        long offset = slot * SLOT_BYTES;
+        ByteBuffer region = regions[(int) (offset >>> REGION_SHIFT)];
+        int position = (int) (offset & (REGION_BYTES - 1));
+        int length = region.getShort(position + 50);
+        if (length == 0) {
+            return null;
+        }
+        ByteBuffer content = ByteBuffer.allocate(length);
+        long start = referencesStart + region.getLong(position + 56);
+        try {
+            while (content.hasRemaining()) {
+                if (channel.read(content, start + content.position()) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(content.array(), StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long capacity)
+            throws IOException {
+        long tableBytes = capacity * SLOT_BYTES;
+        int regionCount = (int) ((tableBytes + REGION_BYTES - 1) >>> REGION_SHIFT);
+        MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            long offset = (long) i << REGION_SHIFT;
+            regions[i] = channel.map(mode, HEADER_BYTES + offset, Math.min(REGION_BYTES, tableBytes - offset));
+        }
+        return regions;
+    }
+
+    private static void writeSlot(MappedByteBuffer[] regions, long slot, KeyFingerprint fingerprint,
+                                  PaymentRecord record, int referenceLength, long referenceOffset) {
+        long offset = slot * SLOT_BYTES;
+        ByteBuffer region = regions[(int) (offset >>> REGION_SHIFT)];
+        int position = (int) (offset & (REGION_BYTES - 1));
+        region.putLong(position, fingerprint.getHigh())
+                .putLong(position + 8, fingerprint.getLow())
+                .putLong(position + 16, record.getPaymentId())
+                .putLong(position + 24, record.getCustomerId())
+                .putLong(position + 32, record.getAmountCents())
+                .putLong(position + 40, record.getTimestampMillis())
+                .put(position + 48, (byte) record.getMethod().ordinal())
+                .put(position + 49, (byte) record.getStatus().ordinal())
+                .putShort(position + 50, (short) referenceLength)
+                .putLong(position + 56, referenceOffset);
+    }
+
+    private static long readLong(MappedByteBuffer[] regions, long slot, int field) {
+        long offset = slot * SLOT_BYTES;
+        return regions[(int) (offset >>> REGION_SHIFT)].getLong((int) (offset & (REGION_BYTES - 1)) + field);
+    }
+
+    private static byte readByte(MappedByteBuffer[] regions, long slot, int field) {
+        long offset = slot * SLOT_BYTES;
+        return regions[(int) (offset >>> REGION_SHIFT)].get((int) (offset & (REGION_BYTES - 1)) + field);
+    }
+}
@@ -0,0 +1,32 @@
+package com.creditcontrol.payment.idempotency;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.journal.PaymentRecord;
+
+/**
+ * 幂等键存储
+ * 保存Idempotency-Key与首次处理结果的对应关系，在保留期内重复提交返回原结果
+ */
+public interface IdempotencyStore {
+
+    /**
+     * 服务内部生成的键 (如流水导入) 的前缀，客户端提交的Idempotency-Key不允许以此开头
+     */
+    String INTERNAL_KEY_PREFIX = "internal:";
+
+    /**
+     * 尝试占用幂等键。未出现过的键被标记为处理中并返回RESERVED，
+     * 已完成的键返回原结果，请求内容 (客户、金额、方式、附言) 与原请求不一致时返回MISMATCH
+     */
+    IdempotencyLookup reserve(String key, long customerId, long amountCents, PaymentMethod method, String reference);
+
+    /**
+     * 记录处理成功的结果 (含附言，重放时原样返回) 并解除占用
+     */
+    void complete(String key, PaymentRecord record);
+
+    /**
+     * 处理失败时解除占用，允许客户端使用同一键重试
+     */
+    void release(String key);
+}
@@ -0,0 +1,38 @@
+package com.creditcontrol.payment.idempotency;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 幂等键的128位指纹
+ * 内存索引和落盘文件都只保存指纹，条目大小与客户端键长度无关
+ */
+@Getter
+@EqualsAndHashCode
+public final class KeyFingerprint {
+
+    private final long high;
+
+    private final long low;
+
+    public KeyFingerprint(long high, long low) {
+        this.high = high;
+        // 全零保留为落盘哈希表的空槽标记
+        this.low = (high == 0 && low == 0) ? 1L : low;
+    }
+
+    public static KeyFingerprint of(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new KeyFingerprint(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.creditcontrol.payment.idempotency;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 本地幂等键存储
+ * 结果按小时分桶保存在内存中，超过内存保留小时数的桶落盘为只读哈希表文件，超过保留期的整体丢弃。
+ * 内存条目超过上限时当前小时的桶也会被封存并落盘，之后的结果写入新桶，同一小时可以有多个落盘文件。
+ * 每次查询对每个内存桶和落盘文件各做一次O(1)探测。
+ */
+@Slf4j
+public class MemoryIdempotencyStore implements IdempotencyStore {
+
+    private static final String SPILL_PREFIX = "idempotency-";
+    private static final String SPILL_SUFFIX = ".idx";
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path spillDirectory;
+    private final int retentionHours;
+    private final int memoryHours;
+    private final long maxMemoryEntries;
+
+    private final ConcurrentHashMap<KeyFingerprint, Boolean> inFlight = new ConcurrentHashMap<>();
+    /** 内存中的桶，最新的在队首 */
+    private final ConcurrentLinkedDeque<Bucket> memoryBuckets = new ConcurrentLinkedDeque<>();
+    /** 已落盘的桶，最新的在前 */
+    private final CopyOnWriteArrayList<IdempotencySpillFile> spillFiles = new CopyOnWriteArrayList<>();
+    private final AtomicLong memoryEntries = new AtomicLong();
+    private final AtomicBoolean spillRequested = new AtomicBoolean();
+    private final ExecutorService spillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-spill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemoryIdempotencyStore(Path spillDirectory, int retentionHours, int memoryHours, long maxMemoryEntries) {
+        this.spillDirectory = spillDirectory;
+        this.retentionHours = retentionHours;
+        this.memoryHours = Math.max(1, memoryHours);
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+
+    /**
+     * 加载保留期内已落盘的桶，删除过期文件
+     */
+    public void open() throws IOException {
+        Files.createDirectories(spillDirectory);
+        long oldestHour = currentHour() - retentionHours;
+        List<IdempotencySpillFile> loaded = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (!name.startsWith(SPILL_PREFIX) || !name.endsWith(SPILL_SUFFIX)) {
+                    continue;
+                }
+                IdempotencySpillFile file = IdempotencySpillFile.open(path);
+                if (file.getBucketHour() < oldestHour) {
+                    file.close();
+                    Files.deleteIfExists(path);
+                } else {
+                    loaded.add(file);
+                }
+            }
+        }
+        loaded.sort((a, b) -> Long.compare(b.getBucketHour(), a.getBucketHour()));
+        spillFiles.addAll(loaded);
+        log.info("IDEMPOTENCY_STORE_OPENED: directory: {}, spilledBuckets: {}, retentionHours: {}",
+                spillDirectory, loaded.size(), retentionHours);
+    }
+
+    @Override
+    public IdempotencyLookup reserve(String key, long customerId, long amountCents, PaymentMethod method,
+                                     String reference) {
+        KeyFingerprint fingerprint = KeyFingerprint.of(key);
+        if (inFlight.putIfAbsent(fingerprint, Boolean.TRUE) != null) {
+            return IdempotencyLookup.inProgress();
+        }
+        // complete() 先写入桶再解除占用，所以占用成功后再查桶不会漏掉刚完成的结果
+        PaymentRecord existing = find(fingerprint);
+        if (existing == null) {
+            return IdempotencyLookup.reserved();
+        }
+        inFlight.remove(fingerprint);
+        return IdempotencyLookup.completed(existing, customerId, amountCents, method, reference);
+    }
+
+    /**
+     * 写入当前桶；桶在写入前被封存 (正在落盘) 时改写到新桶，不会丢失结果
+     */
+    @Override
+    public void complete(String key, PaymentRecord record) {
+        KeyFingerprint fingerprint = KeyFingerprint.of(key);
+        while (!currentBucket().put(fingerprint, record)) {
+            // 桶刚被封存，currentBucket() 会创建新桶
+        }
+        inFlight.remove(fingerprint);
+        if (memoryEntries.get() > maxMemoryEntries && spillRequested.compareAndSet(false, true)) {
+            spillExecutor.execute(this::maintain);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        inFlight.remove(KeyFingerprint.of(key));
+    }
+
+    public long getMemoryEntries() {
+        return memoryEntries.get();
+    }
+
+    public int getSpilledBuckets() {
+        return spillFiles.size();
+    }
+
+    /**
+     * 定期落盘旧桶并清理过期数据，内存条目超过上限时也会由完成结果的线程触发
+     */
+    @Scheduled(fixedDelayString = "${creditcontrol.payment.idempotency.maintenance-interval-ms:60000}")
+    public void maintain() {
+        spillRequested.set(false);
+        try {
+            spillOldBuckets(false);
+            expire();
+        } catch (IOException e) {
+            log.error("IDEMPOTENCY_MAINTENANCE_ERROR: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭时把全部内存桶落盘，重启后仍能识别重复请求
+     */
+    public void close() throws IOException {
+        spillExecutor.shutdown();
+        try {
+            spillExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spillOldBuckets(true);
+        for (IdempotencySpillFile file : spillFiles) {
+            file.close();
+        }
+    }
+
+    private PaymentRecord find(KeyFingerprint fingerprint) {
+        for (Bucket bucket : memoryBuckets) {
+            PaymentRecord record = bucket.entries.get(fingerprint);
+            if (record != null) {
+                return record;
+            }
+        }
+        for (IdempotencySpillFile file : spillFiles) {
+            PaymentRecord record = file.find(fingerprint);
+            if (record != null) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private Bucket currentBucket() {
+        long hour = currentHour();
+        Bucket head = memoryBuckets.peekFirst();
+        if (head != null && head.hour == hour && !head.sealed) {
+            return head;
+        }
+        synchronized (memoryBuckets) {
+            head = memoryBuckets.peekFirst();
+            if (head == null || head.hour != hour || head.sealed) {
+                head = new Bucket(hour);
+                memoryBuckets.addFirst(head);
+            }
+            return head;
+        }
+    }
+
+    /**
+     * 从最旧的桶开始落盘: 超过内存保留小时数的，或内存条目超过上限时的任意桶 (包括当前桶)
+     */
+    private synchronized void spillOldBuckets(boolean all) throws IOException {
+        long currentHour = currentHour();
+
+        Bucket oldest;
+        while ((oldest = memoryBuckets.peekLast()) != null) {
+            boolean tooOld = oldest.hour <= currentHour - memoryHours;
+            boolean overBudget = memoryEntries.get() > maxMemoryEntries;
+            if (!all && !tooOld && !overBudget) {
+                break;
+            }
+            // 封存后不再有写入，落盘内容就是桶的最终内容
+            oldest.seal();
+            if (!oldest.entries.isEmpty()) {
+                spill(oldest);
+            }
+            memoryBuckets.remove(oldest);
+            memoryEntries.addAndGet(-oldest.entries.size());
+        }
+    }
+
+    private void spill(Bucket bucket) throws IOException {
+        long startTime = System.currentTimeMillis();
+        IdempotencySpillFile file = IdempotencySpillFile.write(nextSpillPath(bucket.hour), bucket.hour, bucket.entries);
+        int index = 0;
+        while (index < spillFiles.size() && spillFiles.get(index).getBucketHour() > bucket.hour) {
+            index++;
+        }
+        spillFiles.add(index, file);
+        log.info("IDEMPOTENCY_BUCKET_SPILLED: hour: {}, entries: {}, file: {}, duration: {}ms",
+                bucket.hour, bucket.entries.size(), file.getPath().getFileName(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 同一小时可能落盘多次 (超出条目上限或重启前后)，按序号生成不重复的文件名
+     */
+    private Path nextSpillPath(long hour) {
+        int sequence = 0;
+        Path path;
+        do {
+            path = spillDirectory.resolve(SPILL_PREFIX + hour + "-" + sequence++ + SPILL_SUFFIX);
+        } while (Files.exists(path));
+        return path;
+    }
+
+    private void expire() throws IOException {
+        long oldestHour = currentHour() - retentionHours;
+        Iterator<Bucket> buckets = memoryBuckets.descendingIterator();
+        while (buckets.hasNext()) {
+            Bucket bucket = buckets.next();
+            if (bucket.hour < oldestHour) {
+                bucket.seal();
+                buckets.remove();
+                memoryEntries.addAndGet(-bucket.entries.size());
+            }
+        }
+        for (IdempotencySpillFile file : spillFiles) {
+            if (file.getBucketHour() < oldestHour) {
+                spillFiles.remove(file);
+                file.close();
+                Files.deleteIfExists(file.getPath());
+                log.info("IDEMPOTENCY_BUCKET_EXPIRED: hour: {}", file.getBucketHour());
+            }
+        }
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / HOUR_MILLIS;
+    }
+
+    /**
+     * 一小时内 (或该小时内存条目达到上限之前) 完成的幂等键
+     * 写入持读锁，封存持写锁: 封存返回后不会再有写入
+     */
+    private final class Bucket {
+
+        final long hour;
+        final ConcurrentHashMap<KeyFingerprint, PaymentRecord> entries = new ConcurrentHashMap<>();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile boolean sealed;
+
+        Bucket(long hour) {
+            this.hour = hour;
+        }
+
+        /**
+         * 桶已封存时返回false
+         */
+        boolean put(KeyFingerprint fingerprint, PaymentRecord record) {
+            lock.readLock().lock();
+            try {
+                if (sealed) {
+                    return false;
+                }
+                if (entries.put(fingerprint, record) == null) {
+                    memoryEntries.incrementAndGet();
+                }
+                return true;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void seal() {
+            lock.writeLock().lock();
+            try {
+                sealed = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
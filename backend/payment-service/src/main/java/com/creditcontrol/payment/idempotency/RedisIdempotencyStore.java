@@ -0,0 +1,97 @@
+package com.creditcontrol.payment.idempotency;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Redis幂等键存储
+ * 多实例共享时使用。占用时写入短TTL的处理中标记，完成后覆盖为结果并设置保留期TTL，
+ * 过期由Redis负责。
+ */
+@Slf4j
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final String IN_PROGRESS_MARKER = "P";
+    private static final String COMPLETED_MARKER = "C";
+    private static final String SEPARATOR = "|";
+    /** 附言放在最后一个字段，可以包含分隔符；没有附言时省略该字段 */
+    private static final int MAX_FIELDS = 8;
+    private static final String REFERENCE_MARKER = "R";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration retention;
+    private final Duration inFlightTtl;
+
+    public RedisIdempotencyStore(StringRedisTemplate redisTemplate, String keyPrefix,
+                                 Duration retention, Duration inFlightTtl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.retention = retention;
+        this.inFlightTtl = inFlightTtl;
+    }
+
+    @Override
+    public IdempotencyLookup reserve(String key, long customerId, long amountCents, PaymentMethod method,
+                                     String reference) {
+        String redisKey = redisKey(key);
+        Boolean reserved = redisTemplate.opsForValue().setIfAbsent(redisKey, IN_PROGRESS_MARKER, inFlightTtl);
+        if (Boolean.TRUE.equals(reserved)) {
+            return IdempotencyLookup.reserved();
+        }
+
+        String value = redisTemplate.opsForValue().get(redisKey);
+        if (value == null || value.startsWith(IN_PROGRESS_MARKER)) {
+            // 值为空说明刚好过期或被释放，按处理中处理，由客户端稍后重试
+            return IdempotencyLookup.inProgress();
+        }
+        return IdempotencyLookup.completed(decode(value), customerId, amountCents, method, reference);
+    }
+
+    @Override
+    public void complete(String key, PaymentRecord record) {
+        redisTemplate.opsForValue().set(redisKey(key), encode(record), retention);
+    }
+
+    @Override
+    public void release(String key) {
+        redisTemplate.delete(redisKey(key));
+    }
+
+    private String redisKey(String key) {
+        KeyFingerprint fingerprint = KeyFingerprint.of(key);
+        return keyPrefix + Long.toHexString(fingerprint.getHigh()) + Long.toHexString(fingerprint.getLow());
+    }
+
+    private static String encode(PaymentRecord record) {
+        String fields = String.join(SEPARATOR,
+                COMPLETED_MARKER,
+                Long.toString(record.getPaymentId()),
+                Long.toString(record.getCustomerId()),
+                Long.toString(record.getAmountCents()),
+                Long.toString(record.getTimestampMillis()),
+                record.getMethod().name(),
+                record.getStatus().name());
+        return record.getReference() == null
+                ? fields
+                : fields + SEPARATOR + REFERENCE_MARKER + record.getReference();
+    }
+
+    private static PaymentRecord decode(String value) {
+        String[] fields = value.split("\\|", MAX_FIELDS);
+        return PaymentRecord.builder()
+                .paymentId(Long.parseLong(fields[1]))
+                .customerId(Long.parseLong(fields[2]))
+                .amountCents(Long.parseLong(fields[3]))
+                .timestampMillis(Long.parseLong(fields[4]))
+                .method(PaymentMethod.valueOf(fields[5]))
+                .status(PaymentStatus.valueOf(fields[6]))
+                .reference(fields.length == MAX_FIELDS ? fields[7].substring(REFERENCE_MARKER.length()) : null)
+                .build();
+    }
+}
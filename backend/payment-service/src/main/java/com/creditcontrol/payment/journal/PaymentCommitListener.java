@@ -0,0 +1,12 @@
+package com.creditcontrol.payment.journal;
+
+import java.util.List;
+
+/**
+ * 付款日志提交监听器
+ * 每批记录刷盘后、确认返回给调用方之前，在写线程上按提交顺序回调。实现必须快速返回，不得阻塞写线程。
+ */
+public interface PaymentCommitListener {
+
+    void onCommitted(List<PaymentRecord> records);
+}
@@ -0,0 +1,321 @@
+package com.creditcontrol.payment.journal;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 追加写付款日志
+ * 按UTC日期分段 (payments-yyyyMMdd.journal)，每条记录格式为
+ * [int 长度][int CRC32][载荷]，批量写入后一次fsync (group commit)。
+ * 银行流水导入的记录在付款方式字节上置最高位，附言之后追加流水标识、行偏移和起息日，旧分段仍可读取。
+ * 启动时校验最新分段并截断未完整写入的尾部记录。
+ */
+@Slf4j
+public class PaymentJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "payments-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final DateTimeFormatter SEGMENT_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 8 * 4 + 1 + 1 + 2;
+    private static final int MAX_REFERENCE_BYTES = 1024;
+    private static final int STATEMENT_FLAG = 0x80;
+    private static final int STATEMENT_BYTES = 8 + 8 + 4;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final Path directory;
+    private final CRC32 writeCrc = new CRC32();
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(256 * 1024);
+    private FileChannel channel;
+    private LocalDate channelDay;
+
+    public PaymentJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 打开日志目录并恢复最新分段，返回其中最大的付款ID (无记录时返回0)
+     */
+    public synchronized long open() throws IOException {
+        Files.createDirectories(directory);
+        List<LocalDate> days = segmentDays();
+        if (days.isEmpty()) {
+            return 0L;
+        }
+
+        LocalDate latest = days.get(days.size() - 1);
+        Path segment = segmentPath(latest);
+        long[] maxId = {0L};
+        long validBytes = scan(segment, record -> maxId[0] = Math.max(maxId[0], record.getPaymentId()));
+
+        long size = Files.size(segment);
+        if (validBytes < size) {
+            log.warn("JOURNAL_RECOVERY: truncating torn tail of {} from {} to {} bytes", segment, size, validBytes);
+            try (FileChannel recovery = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                recovery.truncate(validBytes);
+                recovery.force(true);
+            }
+        }
+        log.info("JOURNAL_OPENED: directory: {}, segments: {}, latest: {}, maxPaymentId: {}",
+                directory, days.size(), latest, maxId[0]);
+        return maxId[0];
+    }
+
+    /**
+     * 批量追加记录并刷盘，返回时整批记录已持久化
+     */
+    public synchronized void append(List<PaymentRecord> records) throws IOException {
+        // 本批次写入前各分段的大小，-1表示分段由本批次创建
+        Map<LocalDate, Long> touched = new LinkedHashMap<>();
+        if (channel != null) {
+            touched.put(channelDay, channel.size());
+        }
+        writeBuffer.clear();
+        try {
+            for (PaymentRecord record : records) {
+                LocalDate day = dayOf(record.getTimestampMillis());
+                if (!day.equals(channelDay)) {
+                    flush(false);
+                    Path segment = segmentPath(day);
+                    touched.putIfAbsent(day, Files.exists(segment) ? Files.size(segment) : -1L);
+                    roll(day);
+                }
+                encode(record);
+            }
+            flush(true);
+        } catch (IOException e) {
+            writeBuffer.clear();
+            rollback(touched, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 顺序回放某一天的日志分段，遇到不完整或损坏的记录即停止
+     */
+    public void replay(LocalDate day, Consumer<PaymentRecord> consumer) throws IOException {
+        Path segment = segmentPath(day);
+        if (Files.exists(segment)) {
+            scan(segment, consumer);
+        }
+    }
+
+    /**
+     * 已存在的日志分段日期 (升序)
+     */
+    public List<LocalDate> segmentDays() throws IOException {
+        List<LocalDate> days = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return days;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                    .map(date -> LocalDate.parse(date, SEGMENT_DATE))
+                    .sorted()
+                    .forEach(days::add);
+        }
+        return days;
+    }
+
+    public Path segmentPath(LocalDate day) {
+        return directory.resolve(SEGMENT_PREFIX + SEGMENT_DATE.format(day) + SEGMENT_SUFFIX);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+            channelDay = null;
+        }
+    }
+
+    public static LocalDate dayOf(long timestampMillis) {
+        return Instant.ofEpochMilli(timestampMillis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private void roll(LocalDate day) throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+        channel = FileChannel.open(segmentPath(day),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelDay = day;
+    }
+
+    /**
+     * 回滚本批次在各分段中的部分写入 (批次跨越UTC零点时涉及多个分段)，避免后续记录被损坏的尾部截断。
+     * 当前分段随之关闭，下次追加时重新打开。
+     */
+    private void rollback(Map<LocalDate, Long> touched, IOException failure) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                failure.addSuppressed(suppressed);
+            }
+            channel = null;
+            channelDay = null;
+        }
+        for (Map.Entry<LocalDate, Long> segment : touched.entrySet()) {
+            Path path = segmentPath(segment.getKey());
+            try {
+                if (segment.getValue() < 0) {
+                    Files.deleteIfExists(path);
+                } else {
+                    try (FileChannel rollback = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                        rollback.truncate(segment.getValue());
+                    }
+                }
+            } catch (IOException suppressed) {
+                failure.addSuppressed(suppressed);
+            }
+        }
+    }
+
+    private void flush(boolean sync) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        if (sync && channel != null) {
+            channel.force(false);
+        }
+    }
+
+    private void encode(PaymentRecord record) throws IOException {
+        byte[] reference = record.getReference() == null
+                ? new byte[0]
+                : record.getReference().getBytes(StandardCharsets.UTF_8);
+        if (reference.length > MAX_REFERENCE_BYTES) {
+            throw new IOException("Payment reference too long: " + reference.length + " bytes");
+        }
+        boolean imported = record.isImported();
+        int payloadLength = FIXED_PAYLOAD_BYTES + reference.length + (imported ? STATEMENT_BYTES : 0);
+        if (writeBuffer.remaining() < HEADER_BYTES + payloadLength) {
+            flush(false);
+        }
+
+        int start = writeBuffer.position();
+        writeBuffer.position(start + HEADER_BYTES);
+        writeBuffer.putLong(record.getPaymentId())
+                .putLong(record.getCustomerId())
+                .putLong(record.getAmountCents())
+                .putLong(record.getTimestampMillis())
+                .put((byte) (record.getMethod().ordinal() | (imported ? STATEMENT_FLAG : 0)))
+                .put((byte) record.getStatus().ordinal())
+                .putShort((short) reference.length)
+                .put(reference);
+        if (imported) {
+            writeBuffer.putLong(record.getStatementId())
+                    .putLong(record.getStatementOffset())
+                    .putInt(record.getValueEpochDay());
+        }
+
+        writeCrc.reset();
+        writeCrc.update(writeBuffer.array(), start + HEADER_BYTES, payloadLength);
+        writeBuffer.putInt(start, payloadLength);
+        writeBuffer.putInt(start + 4, (int) writeCrc.getValue());
+    }
+
+    /**
+     * 扫描分段文件，返回最后一条有效记录结束处的偏移量
+     */
+    private static long scan(Path segment, Consumer<PaymentRecord> consumer) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[FIXED_PAYLOAD_BYTES + MAX_REFERENCE_BYTES + STATEMENT_BYTES];
+        long validBytes = 0L;
+
+        try (InputStream input = Files.newInputStream(segment);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(input, 256 * 1024))) {
+            while (true) {
+                int length;
+                int expectedCrc;
+                try {
+                    length = in.readInt();
+                    expectedCrc = in.readInt();
+                    if (length < FIXED_PAYLOAD_BYTES || length > payload.length) {
+                        log.warn("JOURNAL_CORRUPT_RECORD: {} at offset {} - invalid length {}", segment, validBytes, length);
+                        break;
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    log.warn("JOURNAL_CORRUPT_RECORD: {} at offset {} - checksum mismatch", segment, validBytes);
+                    break;
+                }
+                consumer.accept(decode(ByteBuffer.wrap(payload, 0, length)));
+                validBytes += HEADER_BYTES + length;
+            }
+        }
+        return validBytes;
+    }
+
+    private static PaymentRecord decode(ByteBuffer buffer) {
+        long paymentId = buffer.getLong();
+        long customerId = buffer.getLong();
+        long amountCents = buffer.getLong();
+        long timestamp = buffer.getLong();
+        int methodByte = buffer.get() & 0xFF;
+        PaymentMethod method = METHODS[methodByte & ~STATEMENT_FLAG];
+        PaymentStatus status = STATUSES[buffer.get()];
+        int referenceLength = buffer.getShort();
+        String reference = referenceLength == 0
+                ? null
+                : new String(buffer.array(), buffer.position(), referenceLength, StandardCharsets.UTF_8);
+
+        PaymentRecord.PaymentRecordBuilder builder = PaymentRecord.builder();
+        if ((methodByte & STATEMENT_FLAG) != 0) {
+            buffer.position(buffer.position() + referenceLength);
+            builder.statementId(buffer.getLong())
+                    .statementOffset(buffer.getLong())
+                    .valueEpochDay(buffer.getInt());
+        }
+        return builder
+                .paymentId(paymentId)
+                .customerId(customerId)
+                .amountCents(amountCents)
+                .timestampMillis(timestamp)
+                .method(method)
+                .status(status)
+                .reference(reference)
+                .build();
+    }
+}
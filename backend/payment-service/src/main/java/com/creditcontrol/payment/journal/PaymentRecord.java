@@ -0,0 +1,76 @@
+package com.creditcontrol.payment.journal;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 付款日志记录
+ * 每次付款受理或状态变更都追加一条记录，金额以long(分)保存
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRecord {
+
+    private long paymentId;
+
+    private long customerId;
+
+    private long amountCents;
+
+    private PaymentMethod method;
+
+    private PaymentStatus status;
+
+    private long timestampMillis;
+
+    private String reference;
+
+    /**
+     * 来源流水的标识 (文件内容哈希的前64位)，0表示不是由银行流水导入的记录
+     */
+    private long statementId;
+
+    /**
+     * 导入记录在流水文件中的行偏移
+     */
+    private long statementOffset;
+
+    /**
+     * 导入记录在流水中的起息日 (epoch day)
+     */
+    private int valueEpochDay;
+
+    /**
+     * 交易流水号，由付款ID派生，全局唯一
+     */
+    public String getTransactionId() {
+        return "TXN" + paymentId;
+    }
+
+    /**
+     * 是否由银行流水导入 (对账时不能作为内部记录与流水本身匹配)
+     */
+    public boolean isImported() {
+        return statementId != 0;
+    }
+
+    /**
+     * 起息日: 导入记录取流水中的起息日，其余记录为受理日 (UTC)
+     */
+    public LocalDate getValueDate() {
+        return isImported() ? LocalDate.ofEpochDay(valueEpochDay) : PaymentJournal.dayOf(timestampMillis);
+    }
+
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountCents, 2);
+    }
+}
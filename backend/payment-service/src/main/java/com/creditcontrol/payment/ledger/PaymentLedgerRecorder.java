@@ -0,0 +1,123 @@
+package com.creditcontrol.payment.ledger;
+
+import com.creditcontrol.ledger.Ledger;
+import com.creditcontrol.ledger.LedgerAccount;
+import com.creditcontrol.ledger.LedgerEntry;
+import com.creditcontrol.ledger.LedgerEntryType;
+import com.creditcontrol.payment.journal.PaymentCommitListener;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 付款资金记账
+ * 每批付款日志提交对应账本中的一次提交 (来源时间戳为批次时间戳):
+ * 受理 借 在途资金 / 贷 客户应收; 结算成功 借 银行存款 / 贷 在途资金; 失败 借 客户应收 / 贷 在途资金。
+ * 启动时回放付款日志中时间戳大于账本水位的批次补记。账本队列满时会阻塞写线程 (背压)。
+ */
+@Component
+@Slf4j
+public class PaymentLedgerRecorder implements PaymentCommitListener {
+
+    @Autowired
+    private Ledger ledger;
+
+    @Autowired
+    private PaymentJournal journal;
+
+    /**
+     * 补记账本落后于付款日志的批次，付款日志按批次时间戳严格递增
+     */
+    @PostConstruct
+    public void catchUp() throws IOException {
+        long watermark = ledger.getLastSourceTimestamp();
+        LocalDate fromDay = PaymentJournal.dayOf(watermark);
+        long startTime = System.currentTimeMillis();
+        List<PaymentRecord> batch = new ArrayList<>();
+        List<CompletableFuture<Long>> posts = new ArrayList<>();
+        long[] recorded = {0};
+
+        for (LocalDate day : journal.segmentDays()) {
+            if (day.isBefore(fromDay)) {
+                continue;
+            }
+            journal.replay(day, record -> {
+                if (record.getTimestampMillis() <= watermark) {
+                    return;
+                }
+                if (!batch.isEmpty() && batch.get(0).getTimestampMillis() != record.getTimestampMillis()) {
+                    posts.add(post(batch));
+                    batch.clear();
+                }
+                batch.add(record);
+                recorded[0]++;
+            });
+        }
+        if (!batch.isEmpty()) {
+            posts.add(post(batch));
+        }
+        CompletableFuture.allOf(posts.toArray(new CompletableFuture[0])).join();
+        log.info("PAYMENT_LEDGER_CAUGHT_UP: watermark: {}, batches: {}, records: {}, lastSequence: {}, duration: {}ms",
+                watermark, posts.size(), recorded[0], ledger.getLastSequence(), System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void onCommitted(List<PaymentRecord> records) {
+        post(records).whenComplete((sequence, error) -> {
+            if (error != null) {
+                log.error("PAYMENT_LEDGER_POST_FAILED: records: {} - {}", records.size(), error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 客户累计已付款金额 (分)，不含结算失败的付款
+     */
+    public long getTotalPaidCents(long customerId) {
+        return -ledger.getBalance(LedgerAccount.CUSTOMER_RECEIVABLE.id(customerId));
+    }
+
+    /**
+     * 在途资金余额 (分)
+     */
+    public long getClearingBalanceCents() {
+        return ledger.getBalance(LedgerAccount.PAYMENT_CLEARING.systemId());
+    }
+
+    private CompletableFuture<Long> post(List<PaymentRecord> records) {
+        List<LedgerEntry> entries = new ArrayList<>(records.size());
+        for (PaymentRecord record : records) {
+            entries.add(toEntry(record));
+        }
+        return ledger.post(records.get(0).getTimestampMillis(), entries);
+    }
+
+    private static LedgerEntry toEntry(PaymentRecord record) {
+        long clearing = LedgerAccount.PAYMENT_CLEARING.systemId();
+        long receivable = LedgerAccount.CUSTOMER_RECEIVABLE.id(record.getCustomerId());
+        long amount = record.getAmountCents();
+        return switch (record.getStatus()) {
+            case PROCESSING -> LedgerEntry.builder(LedgerEntryType.PAYMENT_ACCEPTED, record.getPaymentId())
+                    .debit(clearing, amount)
+                    .credit(receivable, amount)
+                    .build();
+            case COMPLETED -> LedgerEntry.builder(LedgerEntryType.PAYMENT_SETTLED, record.getPaymentId())
+                    .debit(LedgerAccount.BANK.systemId(), amount)
+                    .credit(clearing, amount)
+                    .build();
+            case FAILED -> LedgerEntry.builder(LedgerEntryType.PAYMENT_FAILED, record.getPaymentId())
+                    .debit(receivable, amount)
+                    .credit(clearing, amount)
+                    .build();
+        };
+    }
+}
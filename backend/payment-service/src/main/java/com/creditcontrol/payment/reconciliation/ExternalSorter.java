@@ -0,0 +1,412 @@
+package com.creditcontrol.payment.reconciliation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 对账记录外部排序
+ * 记录为4个long (匹配键, 金额, 标记, 客户ID)，按前三个字段升序。内存中按列存放，
+ * 缓冲区满时原地快速排序后写成一个有序分段文件；结束时多路归并，分段数超过归并路数上限时先分轮合并。
+ * 内存占用固定为 记录缓冲区 或 归并路数×读缓冲区，二者不同时存在。
+ */
+final class ExternalSorter implements Closeable {
+
+    static final int RECORD_BYTES = 32;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final Path workDirectory;
+    private final String prefix;
+    private final int ioBufferBytes;
+    private final int maxFanIn;
+
+    private long[] keys;
+    private long[] amounts;
+    private long[] tags;
+    private long[] customers;
+    private int size;
+
+    private final List<Path> runs = new ArrayList<>();
+    private int runSequence;
+    private long records;
+
+    /**
+     * @param memoryBudgetBytes 记录缓冲区和归并读缓冲区共用的内存预算
+     */
+    ExternalSorter(Path workDirectory, String prefix, long memoryBudgetBytes, int ioBufferBytes) {
+        this.workDirectory = workDirectory;
+        this.prefix = prefix;
+        this.ioBufferBytes = ioBufferBytes - ioBufferBytes % RECORD_BYTES;
+        this.maxFanIn = (int) Math.max(2, Math.min(1024, memoryBudgetBytes / this.ioBufferBytes - 1));
+        int capacity = (int) Math.max(1024, Math.min(Integer.MAX_VALUE - 8, memoryBudgetBytes / RECORD_BYTES));
+        this.keys = new long[capacity];
+        this.amounts = new long[capacity];
+        this.tags = new long[capacity];
+        this.customers = new long[capacity];
+    }
+
+    void add(long key, long amount, long tag, long customerId) throws IOException {
+        if (size == keys.length) {
+            spill();
+        }
+        keys[size] = key;
+        amounts[size] = amount;
+        tags[size] = tag;
+        customers[size] = customerId;
+        size++;
+        records++;
+    }
+
+    long getRecords() {
+        return records;
+    }
+
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * 结束写入，返回全部记录的有序游标。全部记录在内存中时不落盘
+     */
+    RecordCursor finish() throws IOException {
+        sort(0, size - 1);
+        if (runs.isEmpty()) {
+            return new MemoryCursor(keys, amounts, tags, customers, size);
+        }
+        if (size > 0) {
+            spillSorted();
+        }
+        releaseBuffer();
+        while (runs.size() > maxFanIn) {
+            List<Path> group = new ArrayList<>(runs.subList(0, maxFanIn));
+            runs.subList(0, maxFanIn).clear();
+            Path merged = nextRunPath();
+            try (MergeCursor cursor = new MergeCursor(group, ioBufferBytes);
+                 RunWriter writer = new RunWriter(merged, ioBufferBytes)) {
+                while (cursor.next()) {
+                    writer.write(cursor.key(), cursor.amount(), cursor.tag(), cursor.customerId());
+                }
+            }
+            for (Path path : group) {
+                Files.deleteIfExists(path);
+            }
+            runs.add(merged);
+        }
+        return new MergeCursor(new ArrayList<>(runs), ioBufferBytes);
+    }
+
+    /**
+     * 删除所有分段文件
+     */
+    @Override
+    public void close() throws IOException {
+        releaseBuffer();
+        for (Path path : runs) {
+            Files.deleteIfExists(path);
+        }
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        sort(0, size - 1);
+        spillSorted();
+    }
+
+    private void spillSorted() throws IOException {
+        Path path = nextRunPath();
+        try (RunWriter writer = new RunWriter(path, ioBufferBytes)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(keys[i], amounts[i], tags[i], customers[i]);
+            }
+        }
+        runs.add(path);
+        size = 0;
+    }
+
+    private Path nextRunPath() {
+        return workDirectory.resolve(prefix + "-run-" + (runSequence++) + ".tmp");
+    }
+
+    private void releaseBuffer() {
+        keys = null;
+        amounts = null;
+        tags = null;
+        customers = null;
+    }
+
+    private int compare(int a, int b) {
+        int c = Long.compare(keys[a], keys[b]);
+        if (c != 0) {
+            return c;
+        }
+        c = Long.compare(amounts[a], amounts[b]);
+        return c != 0 ? c : Long.compare(tags[a], tags[b]);
+    }
+
+    /**
+     * 四列同步交换的快速排序 (三数取中，小区间插入排序，先递归较短的一侧)
+     */
+    private void sort(int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, low) < 0) {
+                swap(middle, low);
+            }
+            if (compare(high, low) < 0) {
+                swap(high, low);
+            }
+            if (compare(high, middle) < 0) {
+                swap(high, middle);
+            }
+            swap(middle, high - 1);
+            int pivot = high - 1;
+            int i = low;
+            int j = high - 1;
+            while (true) {
+                while (compare(++i, pivot) < 0) {
+                    // 向右扫描
+                }
+                while (compare(--j, pivot) > 0) {
+                    // 向左扫描
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(i, j);
+            }
+            swap(i, high - 1);
+            if (i - low < high - i) {
+                sort(low, i - 1);
+                low = i + 1;
+            } else {
+                sort(i + 1, high);
+                high = i - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j, j - 1) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long amount = amounts[a];
+        amounts[a] = amounts[b];
+        amounts[b] = amount;
+        long tag = tags[a];
+        tags[a] = tags[b];
+        tags[b] = tag;
+        long customer = customers[a];
+        customers[a] = customers[b];
+        customers[b] = customer;
+    }
+
+    /**
+     * 分段文件顺序写入
+     */
+    private static final class RunWriter implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        RunWriter(Path path, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+        }
+
+        void write(long key, long amount, long tag, long customerId) throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                flush();
+            }
+            buffer.putLong(key).putLong(amount).putLong(tag).putLong(customerId);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 分段文件顺序读取，当前记录保存在字段中
+     */
+    private static final class RunReader implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        long key;
+        long amount;
+        long tag;
+        long customerId;
+
+        RunReader(Path path, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+            buffer.flip();
+        }
+
+        boolean next() throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                buffer.compact();
+                while (buffer.position() < RECORD_BYTES) {
+                    if (channel.read(buffer) < 0) {
+                        buffer.flip();
+                        return false;
+                    }
+                }
+                buffer.flip();
+            }
+            key = buffer.getLong();
+            amount = buffer.getLong();
+            tag = buffer.getLong();
+            customerId = buffer.getLong();
+            return true;
+        }
+
+        int compareTo(RunReader other) {
+            int c = Long.compare(key, other.key);
+            if (c != 0) {
+                return c;
+            }
+            c = Long.compare(amount, other.amount);
+            return c != 0 ? c : Long.compare(tag, other.tag);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 多路归并游标
+     */
+    private static final class MergeCursor implements RecordCursor {
+
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heap = new PriorityQueue<>(RunReader::compareTo);
+        private RunReader current;
+
+        MergeCursor(List<Path> runs, int bufferBytes) throws IOException {
+            try {
+                for (Path run : runs) {
+                    RunReader reader = new RunReader(run, bufferBytes);
+                    readers.add(reader);
+                    if (reader.next()) {
+                        heap.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (current != null && current.next()) {
+                heap.add(current);
+            }
+            current = heap.poll();
+            return current != null;
+        }
+
+        @Override
+        public long key() {
+            return current.key;
+        }
+
+        @Override
+        public long amount() {
+            return current.amount;
+        }
+
+        @Override
+        public long tag() {
+            return current.tag;
+        }
+
+        @Override
+        public long customerId() {
+            return current.customerId;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * 全部记录在内存中时的游标
+     */
+    private static final class MemoryCursor implements RecordCursor {
+
+        private final long[] keys;
+        private final long[] amounts;
+        private final long[] tags;
+        private final long[] customers;
+        private final int size;
+        private int index = -1;
+
+        MemoryCursor(long[] keys, long[] amounts, long[] tags, long[] customers, int size) {
+            this.keys = keys;
+            this.amounts = amounts;
+            this.tags = tags;
+            this.customers = customers;
+            this.size = size;
+        }
+
+        @Override
+        public boolean next() {
+            return ++index < size;
+        }
+
+        @Override
+        public long key() {
+            return keys[index];
+        }
+
+        @Override
+        public long amount() {
+            return amounts[index];
+        }
+
+        @Override
+        public long tag() {
+            return tags[index];
+        }
+
+        @Override
+        public long customerId() {
+            return customers[index];
+        }
+    }
+}
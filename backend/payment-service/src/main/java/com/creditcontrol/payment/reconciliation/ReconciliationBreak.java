@@ -0,0 +1,37 @@
+package com.creditcontrol.payment.reconciliation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 对账差异
+ */
+@Getter
+@AllArgsConstructor
+public class ReconciliationBreak {
+
+    public enum Type {
+        /** 附言匹配但金额不一致 */
+        AMOUNT_MISMATCH,
+        /** 只在付款日志中 */
+        INTERNAL_ONLY,
+        /** 只在银行流水中 */
+        BANK_ONLY
+    }
+
+    private final Type type;
+
+    /** 付款ID，银行单边时为null */
+    private final Long paymentId;
+
+    /** 流水行在文件中的偏移，内部单边时为null */
+    private final Long bankLineOffset;
+
+    private final Long internalCustomerId;
+
+    private final Long bankCustomerId;
+
+    private final Long internalAmountCents;
+
+    private final Long bankAmountCents;
+}
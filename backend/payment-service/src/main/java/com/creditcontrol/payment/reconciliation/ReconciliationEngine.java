@@ -0,0 +1,62 @@
+package com.creditcontrol.payment.reconciliation;
+
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.statement.StatementFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 对账引擎
+ * 持有对账任务共用的组件和参数，为每次对账创建一个 {@link ReconciliationJob}。
+ * 排序缓冲区受 memory-budget-bytes 限制，超出部分溢写到工作目录后多路归并。
+ * 所有对账任务共用一份预算: 同一时间只有一个任务持有排序许可，其余按提交顺序排队。
+ */
+@Component
+public class ReconciliationEngine {
+
+    @Autowired
+    PaymentJournal journal;
+
+    final Semaphore sortPermit = new Semaphore(1, true);
+
+    @Value("${creditcontrol.payment.reconciliation.memory-budget-bytes:67108864}")
+    long memoryBudgetBytes;
+
+    @Value("${creditcontrol.payment.reconciliation.io-buffer-bytes:1048576}")
+    int ioBufferBytes;
+
+    @Value("${creditcontrol.payment.statement.map-window-bytes:268435456}")
+    long mapWindowBytes;
+
+    @Value("${creditcontrol.payment.reconciliation.work-directory:data/reconciliation/work}")
+    private String workDirectory;
+
+    @Value("${creditcontrol.payment.reconciliation.output-directory:data/reconciliation/breaks}")
+    private String outputDirectory;
+
+    /**
+     * 启动对账任务，差异文件为 输出目录/breaks-{日期}-{对账ID}.csv
+     */
+    public ReconciliationJob start(String reconciliationId, LocalDate day, Path statementFile, StatementFormat format)
+            throws IOException {
+        Files.createDirectories(workPath());
+        Path output = Paths.get(outputDirectory);
+        Files.createDirectories(output);
+        Path breaksFile = output.resolve("breaks-" + day + "-" + reconciliationId + ".csv");
+        ReconciliationJob job = new ReconciliationJob(this, reconciliationId, day, statementFile, format, breaksFile);
+        job.start();
+        return job;
+    }
+
+    Path workPath() {
+        return Paths.get(workDirectory);
+    }
+}
@@ -0,0 +1,458 @@
+package com.creditcontrol.payment.reconciliation;
+
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.statement.StatementFormat;
+import com.creditcontrol.payment.statement.StatementReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单日对账任务
+ * 读取付款日志中起息日为当天的受理记录 (不含由银行流水导入的记录) 和银行流水中起息日为当天的行，
+ * 按 (附言键, 金额) 外部排序后顺序归并:
+ * 同一附言键下金额相同的一对记为匹配，剩余的按金额顺序两两配对记为金额不符，其余为单边。
+ * 差异逐行写入CSV文件，内存占用由排序缓冲区和分组剩余上限决定，与数据量无关。
+ * 同一时间只有一个任务占用排序缓冲区，其余任务排队等待，总内存不随并发对账数增长。
+ */
+@Slf4j
+public class ReconciliationJob {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    public enum Phase {
+        QUEUED, READING_JOURNAL, READING_STATEMENT, MERGING, DONE
+    }
+
+    static final long BANK_SIDE = 1L << 62;
+    private static final long ID_MASK = BANK_SIDE - 1;
+    private static final int MAX_SAMPLE_BREAKS = 20;
+    /** 单个附言键下未配对记录的缓冲上限，超出部分直接记为单边 */
+    private static final int MAX_GROUP_LEFTOVERS = 65536;
+    private static final long PERMIT_POLL_MS = 200;
+
+    private final ReconciliationEngine engine;
+    private final String reconciliationId;
+    private final LocalDate day;
+    private final Path statementFile;
+    private final StatementFormat format;
+    private final Path breaksFile;
+
+    private final AtomicLong internalRecords = new AtomicLong();
+    private final AtomicLong skippedInternalRecords = new AtomicLong();
+    private final AtomicLong bankRecords = new AtomicLong();
+    private final AtomicLong skippedBankRecords = new AtomicLong();
+    private final AtomicLong malformedLines = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong amountMismatches = new AtomicLong();
+    private final AtomicLong internalOnly = new AtomicLong();
+    private final AtomicLong bankOnly = new AtomicLong();
+    private final List<ReconciliationBreak> sampleBreaks = Collections.synchronizedList(new ArrayList<>());
+
+    private final Leftovers internalLeftovers = new Leftovers();
+    private final Leftovers bankLeftovers = new Leftovers();
+
+    private Thread worker;
+    private BufferedWriter breaksWriter;
+    private volatile State state = State.RUNNING;
+    private volatile Phase phase = Phase.QUEUED;
+    private volatile boolean cancelled;
+    private volatile int sortRuns;
+    private volatile String error;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    ReconciliationJob(ReconciliationEngine engine, String reconciliationId, LocalDate day,
+                      Path statementFile, StatementFormat format, Path breaksFile) {
+        this.engine = engine;
+        this.reconciliationId = reconciliationId;
+        this.day = day;
+        this.statementFile = statementFile;
+        this.format = format;
+        this.breaksFile = breaksFile;
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        worker = new Thread(this::run, "reconciliation-" + reconciliationId);
+        worker.start();
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public void await(long timeoutMillis) throws InterruptedException {
+        worker.join(timeoutMillis);
+    }
+
+    private void run() {
+        log.info("RECONCILIATION_STARTED: reconciliationId: {}, day: {}, statement: {}, format: {}",
+                reconciliationId, day, statementFile.getFileName(), format);
+        boolean permitted = false;
+        try {
+            acquireSortPermit();
+            permitted = true;
+            try (ExternalSorter sorter = new ExternalSorter(engine.workPath(), reconciliationId,
+                    engine.memoryBudgetBytes, engine.ioBufferBytes)) {
+                readJournal(sorter);
+                readStatement(sorter);
+
+                phase = Phase.MERGING;
+                try (RecordCursor cursor = sorter.finish();
+                     BufferedWriter writer = Files.newBufferedWriter(breaksFile, StandardCharsets.UTF_8)) {
+                    sortRuns = sorter.getRunCount();
+                    breaksWriter = writer;
+                    writer.write("type,payment_id,bank_line_offset,internal_customer_id,bank_customer_id,"
+                            + "internal_amount,bank_amount\n");
+                    merge(cursor);
+                }
+            }
+            // 溢写段在关闭排序器时删除，之后才对外报告完成
+            phase = Phase.DONE;
+            state = State.COMPLETED;
+        } catch (CancellationException e) {
+            state = State.CANCELLED;
+        } catch (IOException | RuntimeException e) {
+            log.error("RECONCILIATION_FAILED: reconciliationId: {} - {}", reconciliationId, e.getMessage(), e);
+            error = e.getMessage();
+            state = State.FAILED;
+        } finally {
+            if (permitted) {
+                engine.sortPermit.release();
+            }
+        }
+        finishedAt = System.currentTimeMillis();
+        log.info("RECONCILIATION_FINISHED: reconciliationId: {}, state: {}, internal: {}, bank: {}, matched: {}, "
+                        + "amountMismatches: {}, internalOnly: {}, bankOnly: {}, sortRuns: {}, duration: {}ms",
+                reconciliationId, state, internalRecords.get(), bankRecords.get(), matched.get(),
+                amountMismatches.get(), internalOnly.get(), bankOnly.get(), sortRuns, finishedAt - startedAt);
+    }
+
+    /**
+     * 等待排序缓冲区，排队期间可以取消
+     */
+    private void acquireSortPermit() {
+        try {
+            while (!engine.sortPermit.tryAcquire(PERMIT_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (cancelled) {
+                    throw new CancellationException("Reconciliation cancelled");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Reconciliation interrupted");
+        }
+    }
+
+    /**
+     * 受理记录的起息日即受理日 (UTC)，只需读取当天的日志分段。
+     * 由银行流水导入的记录本身就是流水的一部分，计入跳过数，不参与匹配
+     */
+    private void readJournal(ExternalSorter sorter) throws IOException {
+        phase = Phase.READING_JOURNAL;
+        try {
+            engine.journal.replay(day, record -> {
+                if (record.getStatus() != PaymentStatus.PROCESSING) {
+                    return;
+                }
+                if (record.isImported() || !record.getValueDate().equals(day)) {
+                    skippedInternalRecords.incrementAndGet();
+                    return;
+                }
+                checkCancelled(internalRecords.incrementAndGet());
+                add(sorter, ReferenceKey.ofInternal(record.getPaymentId(), record.getReference()),
+                        record.getAmountCents(), record.getPaymentId(), record.getCustomerId());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void readStatement(ExternalSorter sorter) throws IOException {
+        phase = Phase.READING_STATEMENT;
+        int epochDay = (int) day.toEpochDay();
+        try {
+            long malformed = StatementReader.read(statementFile, format, engine.mapWindowBytes,
+                    (offset, customerId, amountCents, valueDay, buffer, referenceStart, referenceLength) -> {
+                        if (valueDay != epochDay) {
+                            skippedBankRecords.incrementAndGet();
+                            return;
+                        }
+                        checkCancelled(bankRecords.incrementAndGet());
+                        add(sorter, ReferenceKey.ofBank(customerId, buffer, referenceStart, referenceLength),
+                                amountCents, BANK_SIDE | offset, customerId);
+                    });
+            malformedLines.set(malformed);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void add(ExternalSorter sorter, long key, long amount, long tag, long customerId) {
+        try {
+            sorter.add(key, amount, tag, customerId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 顺序归并: 同一键下先按金额配对，键结束时处理剩余记录
+     */
+    private void merge(RecordCursor cursor) throws IOException {
+        long count = 0;
+        boolean hasGroup = false;
+        long groupKey = 0;
+        long runAmount = 0;
+        // 当前金额下尚未配对的内部/银行记录 (在剩余列表中的起始位置)
+        int runInternalStart = 0;
+        int runBankStart = 0;
+
+        while (cursor.next()) {
+            checkCancelled(++count);
+            long key = cursor.key();
+            long amount = cursor.amount();
+            if (!hasGroup || key != groupKey) {
+                if (hasGroup) {
+                    pairRun(runInternalStart, runBankStart);
+                    closeGroup();
+                }
+                hasGroup = true;
+                groupKey = key;
+                runAmount = amount;
+                runInternalStart = 0;
+                runBankStart = 0;
+            } else if (amount != runAmount) {
+                pairRun(runInternalStart, runBankStart);
+                runAmount = amount;
+                runInternalStart = internalLeftovers.size;
+                runBankStart = bankLeftovers.size;
+            }
+
+            boolean bank = (cursor.tag() & BANK_SIDE) != 0;
+            Leftovers side = bank ? bankLeftovers : internalLeftovers;
+            if (side.size == MAX_GROUP_LEFTOVERS) {
+                emitUnmatched(bank, cursor.tag() & ID_MASK, cursor.customerId(), amount);
+            } else {
+                side.add(cursor.tag() & ID_MASK, cursor.customerId(), amount);
+            }
+        }
+        if (hasGroup) {
+            pairRun(runInternalStart, runBankStart);
+            closeGroup();
+        }
+    }
+
+    /**
+     * 同一金额下内部与银行记录一一匹配，匹配的从剩余列表中移除
+     */
+    private void pairRun(int internalStart, int bankStart) {
+        int pairs = Math.min(internalLeftovers.size - internalStart, bankLeftovers.size - bankStart);
+        if (pairs > 0) {
+            matched.addAndGet(pairs);
+            internalLeftovers.removeFrom(internalStart, pairs);
+            bankLeftovers.removeFrom(bankStart, pairs);
+        }
+    }
+
+    /**
+     * 键结束: 剩余记录按金额顺序两两配对为金额不符，多出的为单边
+     */
+    private void closeGroup() throws IOException {
+        int pairs = Math.min(internalLeftovers.size, bankLeftovers.size);
+        for (int i = 0; i < pairs; i++) {
+            amountMismatches.incrementAndGet();
+            emit(new ReconciliationBreak(ReconciliationBreak.Type.AMOUNT_MISMATCH,
+                    internalLeftovers.ids[i], bankLeftovers.ids[i],
+                    internalLeftovers.customers[i], bankLeftovers.customers[i],
+                    internalLeftovers.amounts[i], bankLeftovers.amounts[i]));
+        }
+        for (int i = pairs; i < internalLeftovers.size; i++) {
+            emitUnmatched(false, internalLeftovers.ids[i], internalLeftovers.customers[i], internalLeftovers.amounts[i]);
+        }
+        for (int i = pairs; i < bankLeftovers.size; i++) {
+            emitUnmatched(true, bankLeftovers.ids[i], bankLeftovers.customers[i], bankLeftovers.amounts[i]);
+        }
+        internalLeftovers.size = 0;
+        bankLeftovers.size = 0;
+    }
+
+    private void emitUnmatched(boolean bank, long id, long customerId, long amount) {
+        try {
+            if (bank) {
+                bankOnly.incrementAndGet();
+                emit(new ReconciliationBreak(ReconciliationBreak.Type.BANK_ONLY, null, id, null, customerId, null, amount));
+            } else {
+                internalOnly.incrementAndGet();
+                emit(new ReconciliationBreak(ReconciliationBreak.Type.INTERNAL_ONLY, id, null, customerId, null, amount, null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void emit(ReconciliationBreak item) throws IOException {
+        if (sampleBreaks.size() < MAX_SAMPLE_BREAKS) {
+            sampleBreaks.add(item);
+        }
+        BufferedWriter writer = breaksWriter;
+        writer.write(item.getType().name());
+        writer.write(',');
+        writer.write(item.getPaymentId() == null ? "" : item.getPaymentId().toString());
+        writer.write(',');
+        writer.write(item.getBankLineOffset() == null ? "" : item.getBankLineOffset().toString());
+        writer.write(',');
+        writer.write(item.getInternalCustomerId() == null ? "" : item.getInternalCustomerId().toString());
+        writer.write(',');
+        writer.write(item.getBankCustomerId() == null ? "" : item.getBankCustomerId().toString());
+        writer.write(',');
+        writer.write(item.getInternalAmountCents() == null ? "" : BigDecimal.valueOf(item.getInternalAmountCents(), 2).toPlainString());
+        writer.write(',');
+        writer.write(item.getBankAmountCents() == null ? "" : BigDecimal.valueOf(item.getBankAmountCents(), 2).toPlainString());
+        writer.write('\n');
+    }
+
+    private void checkCancelled(long count) {
+        if ((count & 0xFFFF) == 0 && cancelled) {
+            throw new CancellationException("Reconciliation cancelled");
+        }
+    }
+
+    public String getReconciliationId() {
+        return reconciliationId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public String getStatementFileName() {
+        return statementFile.getFileName().toString();
+    }
+
+    public StatementFormat getFormat() {
+        return format;
+    }
+
+    public String getBreaksFileName() {
+        return breaksFile.getFileName().toString();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getInternalRecords() {
+        return internalRecords.get();
+    }
+
+    public long getSkippedInternalRecords() {
+        return skippedInternalRecords.get();
+    }
+
+    public long getBankRecords() {
+        return bankRecords.get();
+    }
+
+    public long getSkippedBankRecords() {
+        return skippedBankRecords.get();
+    }
+
+    public long getMalformedLines() {
+        return malformedLines.get();
+    }
+
+    public long getMatched() {
+        return matched.get();
+    }
+
+    public long getAmountMismatches() {
+        return amountMismatches.get();
+    }
+
+    public long getInternalOnly() {
+        return internalOnly.get();
+    }
+
+    public long getBankOnly() {
+        return bankOnly.get();
+    }
+
+    public int getSortRuns() {
+        return sortRuns;
+    }
+
+    public List<ReconciliationBreak> getSampleBreaks() {
+        synchronized (sampleBreaks) {
+            return new ArrayList<>(sampleBreaks);
+        }
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * 一个附言键下某一侧尚未配对的记录 (按金额升序)
+     */
+    private static final class Leftovers {
+
+        long[] ids = new long[16];
+        long[] customers = new long[16];
+        long[] amounts = new long[16];
+        int size;
+
+        void add(long id, long customerId, long amount) {
+            if (size == ids.length) {
+                int capacity = Math.min(size * 2, MAX_GROUP_LEFTOVERS);
+                ids = Arrays.copyOf(ids, capacity);
+                customers = Arrays.copyOf(customers, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            ids[size] = id;
+            customers[size] = customerId;
+            amounts[size] = amount;
+            size++;
+        }
+
+        /**
+         * 删除 [from, from+count) 区间，只会删除末尾的当前金额段
+         */
+        void removeFrom(int from, int count) {
+            int tail = size - from - count;
+            System.arraycopy(ids, from + count, ids, from, tail);
+            System.arraycopy(customers, from + count, customers, from, tail);
+            System.arraycopy(amounts, from + count, amounts, from, tail);
+            size -= count;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.creditcontrol.payment.reconciliation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 按 (匹配键, 金额, 标记) 升序读取对账记录
+ */
+interface RecordCursor extends Closeable {
+
+    /**
+     * 前进到下一条记录，没有更多记录时返回false
+     */
+    boolean next() throws IOException;
+
+    long key();
+
+    long amount();
+
+    /** 来源标记 | 付款ID或流水行偏移 */
+    long tag();
+
+    long customerId();
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,72 @@
+package com.creditcontrol.payment.reconciliation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 对账匹配键: 附言 (去首尾空格、ASCII大写、最多140字节) 的64位哈希。
+ * 没有附言的内部付款使用交易流水号 (TXN+付款ID)，没有附言的银行流水按客户ID分组。
+ */
+final class ReferenceKey {
+
+    /** 与流水导入保存的附言长度上限一致 */
+    static final int MAX_REFERENCE_BYTES = 140;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ReferenceKey() {
+    }
+
+    static long ofInternal(long paymentId, String reference) {
+        if (reference != null) {
+            byte[] bytes = reference.getBytes(StandardCharsets.UTF_8);
+            long key = hash(ByteBuffer.wrap(bytes), 0, bytes.length);
+            if (key != 0) {
+                return key;
+            }
+        }
+        return ofText("TXN" + paymentId);
+    }
+
+    static long ofBank(long customerId, ByteBuffer buffer, int start, int length) {
+        long key = hash(buffer, start, start + length);
+        return key != 0 ? key : ofText("#" + customerId);
+    }
+
+    private static long ofText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return hash(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * 规范化后为空时返回0
+     */
+    private static long hash(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0L;
+        }
+        end = Math.min(end, start + MAX_REFERENCE_BYTES);
+        long h = FNV_OFFSET;
+        for (int i = start; i < end; i++) {
+            int b = buffer.get(i) & 0xFF;
+            if (b >= 'a' && b <= 'z') {
+                b -= 32;
+            }
+            h = (h ^ b) * FNV_PRIME;
+        }
+        // fmix64，改善低位分布
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1L : h;
+    }
+}
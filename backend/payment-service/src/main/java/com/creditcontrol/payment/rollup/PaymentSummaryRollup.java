@@ -0,0 +1,180 @@
+package com.creditcontrol.payment.rollup;
+
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentCommitListener;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import com.creditcontrol.payment.service.PaymentIdGenerator;
+import com.creditcontrol.payment.settlement.SettlementScheduler;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 付款汇总滚动统计
+ * 付款受理和状态变化时累加到当前分钟的桶中；整点后把上一小时的分钟桶合并为小时桶，
+ * 零点后把前一天的小时桶合并为天桶。当天汇总 = 当天小时桶 + 本小时分钟桶，
+ * 当月汇总 = 本月天桶 + 当天汇总，最多合并几十个桶。启动时回放本月的付款日志重建。
+ * 处理中的付款数直接取结算调度器的待结算数，不另行跟踪。
+ */
+@Component
+@Slf4j
+public class PaymentSummaryRollup implements PaymentCommitListener {
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private PaymentJournal journal;
+
+    @Autowired
+    private SettlementScheduler settlementScheduler;
+
+    @Value("${creditcontrol.payment.summary.retention-days:400}")
+    private int retentionDays;
+
+    private final TreeMap<Long, RollupBucket> minuteBuckets = new TreeMap<>();
+    private final TreeMap<Long, RollupBucket> hourBuckets = new TreeMap<>();
+    private final TreeMap<Long, RollupBucket> dayBuckets = new TreeMap<>();
+
+    /** 已看到的最新时间 (事件时间和墙钟中较大者)，决定桶的合并进度 */
+    private long clock;
+
+    /**
+     * 回放本月的付款日志重建汇总
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        long startTime = System.currentTimeMillis();
+        LocalDate monthStart = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        long[] replayed = {0};
+        synchronized (this) {
+            for (LocalDate day : journal.segmentDays()) {
+                if (!day.isBefore(monthStart)) {
+                    journal.replay(day, record -> {
+                        apply(record);
+                        replayed[0]++;
+                    });
+                }
+            }
+            advance(System.currentTimeMillis());
+        }
+        log.info("PAYMENT_SUMMARY_ROLLUP_OPENED: replayedRecords: {}, duration: {}ms",
+                replayed[0], System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public synchronized void onCommitted(List<PaymentRecord> records) {
+        for (PaymentRecord record : records) {
+            apply(record);
+        }
+    }
+
+    /**
+     * 当天和当月汇总
+     */
+    public synchronized PaymentSummarySnapshot summarize() {
+        advance(System.currentTimeMillis());
+        long dayStart = floor(clock, DAY_MILLIS);
+        long monthStart = LocalDate.ofEpochDay(dayStart / DAY_MILLIS).withDayOfMonth(1).toEpochDay() * DAY_MILLIS;
+
+        RollupBucket today = new RollupBucket(dayStart);
+        int buckets = sumInto(today, hourBuckets.tailMap(dayStart, true))
+                + sumInto(today, minuteBuckets);
+        RollupBucket month = new RollupBucket(monthStart);
+        buckets += sumInto(month, dayBuckets.subMap(monthStart, true, dayStart, false));
+        month.add(today);
+
+        return new PaymentSummarySnapshot(clock, today, month, settlementScheduler.getPendingCount(), buckets);
+    }
+
+    /**
+     * 空闲时也按墙钟推进合并
+     */
+    @Scheduled(fixedDelayString = "${creditcontrol.payment.summary.compaction-interval-ms:60000}")
+    public synchronized void maintain() {
+        advance(System.currentTimeMillis());
+    }
+
+    private void apply(PaymentRecord record) {
+        long timestamp = record.getTimestampMillis();
+        advance(timestamp);
+        RollupBucket bucket = bucketFor(timestamp);
+        if (record.getStatus() == PaymentStatus.PROCESSING) {
+            bucket.recordAccepted(record.getAmountCents());
+        } else {
+            long duration = Math.max(0, timestamp - PaymentIdGenerator.timestampOf(record.getPaymentId()));
+            bucket.recordFinished(record.getStatus() == PaymentStatus.COMPLETED, record.getAmountCents(), duration);
+        }
+    }
+
+    /**
+     * 当前小时内的事件进分钟桶，当天更早的进小时桶，更早的直接进天桶
+     */
+    private RollupBucket bucketFor(long timestamp) {
+        if (timestamp >= floor(clock, HOUR_MILLIS)) {
+            return minuteBuckets.computeIfAbsent(floor(timestamp, MINUTE_MILLIS), RollupBucket::new);
+        }
+        if (timestamp >= floor(clock, DAY_MILLIS)) {
+            return hourBuckets.computeIfAbsent(floor(timestamp, HOUR_MILLIS), RollupBucket::new);
+        }
+        return dayBuckets.computeIfAbsent(floor(timestamp, DAY_MILLIS), RollupBucket::new);
+    }
+
+    private void advance(long now) {
+        if (now <= clock) {
+            return;
+        }
+        long previousHour = floor(clock, HOUR_MILLIS);
+        clock = now;
+        if (floor(clock, HOUR_MILLIS) == previousHour) {
+            return;
+        }
+
+        compact(minuteBuckets, floor(clock, HOUR_MILLIS), hourBuckets, HOUR_MILLIS);
+        compact(hourBuckets, floor(clock, DAY_MILLIS), dayBuckets, DAY_MILLIS);
+        long oldestDay = floor(clock, DAY_MILLIS) - retentionDays * DAY_MILLIS;
+        dayBuckets.headMap(oldestDay).clear();
+        log.debug("PAYMENT_SUMMARY_COMPACTED: asOf: {}, minuteBuckets: {}, hourBuckets: {}, dayBuckets: {}",
+                Instant.ofEpochMilli(clock), minuteBuckets.size(), hourBuckets.size(), dayBuckets.size());
+    }
+
+    /**
+     * 把起始时间早于limit的细粒度桶合并进粗粒度桶
+     */
+    private static void compact(TreeMap<Long, RollupBucket> source, long limit,
+                                TreeMap<Long, RollupBucket> target, long targetMillis) {
+        Iterator<Map.Entry<Long, RollupBucket>> iterator = source.headMap(limit).entrySet().iterator();
+        while (iterator.hasNext()) {
+            RollupBucket bucket = iterator.next().getValue();
+            target.computeIfAbsent(floor(bucket.getStartMillis(), targetMillis), RollupBucket::new).add(bucket);
+            iterator.remove();
+        }
+    }
+
+    private static int sumInto(RollupBucket total, NavigableMap<Long, RollupBucket> buckets) {
+        for (RollupBucket bucket : buckets.values()) {
+            total.add(bucket);
+        }
+        return buckets.size();
+    }
+
+    private static long floor(long timestamp, long unit) {
+        return Math.floorDiv(timestamp, unit) * unit;
+    }
+}
@@ -0,0 +1,23 @@
+package com.creditcontrol.payment.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 某一时刻的汇总结果 (UTC当天、当月)
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentSummarySnapshot {
+
+    private final long asOfMillis;
+
+    private final RollupBucket today;
+
+    private final RollupBucket month;
+
+    private final long pendingPayments;
+
+    /** 本次汇总合并的桶数 */
+    private final int bucketsSummed;
+}
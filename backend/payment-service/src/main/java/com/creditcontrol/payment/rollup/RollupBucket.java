@@ -0,0 +1,97 @@
+package com.creditcontrol.payment.rollup;
+
+import lombok.Getter;
+
+/**
+ * 汇总桶: 一个时间段内 (分钟/小时/天) 的付款计数、金额(分) 和处理耗时直方图
+ * 直方图第i格统计耗时在 [2^i, 2^(i+1)) 秒内的付款 (第0格为2秒以内)。
+ */
+@Getter
+public class RollupBucket {
+
+    static final int HISTOGRAM_BINS = 25;
+
+    private final long startMillis;
+
+    private long payments;
+
+    private long amountCents;
+
+    private long completed;
+
+    private long completedAmountCents;
+
+    private long failed;
+
+    private long failedAmountCents;
+
+    private long processingMillis;
+
+    private final long[] histogram = new long[HISTOGRAM_BINS];
+
+    RollupBucket(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    void recordAccepted(long amount) {
+        payments++;
+        amountCents += amount;
+    }
+
+    void recordFinished(boolean succeeded, long amount, long durationMillis) {
+        if (succeeded) {
+            completed++;
+            completedAmountCents += amount;
+        } else {
+            failed++;
+            failedAmountCents += amount;
+        }
+        processingMillis += durationMillis;
+        histogram[bin(durationMillis)]++;
+    }
+
+    void add(RollupBucket other) {
+        payments += other.payments;
+        amountCents += other.amountCents;
+        completed += other.completed;
+        completedAmountCents += other.completedAmountCents;
+        failed += other.failed;
+        failedAmountCents += other.failedAmountCents;
+        processingMillis += other.processingMillis;
+        for (int i = 0; i < HISTOGRAM_BINS; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    /**
+     * 已结束 (完成或失败) 的付款的平均处理耗时，没有时返回0
+     */
+    public long getAverageProcessingMillis() {
+        long finished = completed + failed;
+        return finished == 0 ? 0 : processingMillis / finished;
+    }
+
+    /**
+     * 处理耗时分位数的上界 (毫秒)，按直方图格子估算
+     */
+    public long getProcessingPercentileMillis(double percentile) {
+        long finished = completed + failed;
+        if (finished == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(finished * percentile);
+        long seen = 0;
+        for (int i = 0; i < HISTOGRAM_BINS; i++) {
+            seen += histogram[i];
+            if (seen >= target) {
+                return (1L << (i + 1)) * 1000;
+            }
+        }
+        return (1L << HISTOGRAM_BINS) * 1000;
+    }
+
+    private static int bin(long durationMillis) {
+        long seconds = Math.max(1, durationMillis / 1000);
+        return Math.min(HISTOGRAM_BINS - 1, 63 - Long.numberOfLeadingZeros(seconds));
+    }
+}
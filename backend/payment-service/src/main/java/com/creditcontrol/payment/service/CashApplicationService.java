@@ -0,0 +1,151 @@
+package com.creditcontrol.payment.service;
+
+import com.creditcontrol.payment.allocation.AllocationResult;
+import com.creditcontrol.payment.allocation.CashApplicationEngine;
+import com.creditcontrol.payment.allocation.MatchType;
+import com.creditcontrol.payment.allocation.OpenItem;
+import com.creditcontrol.payment.dto.AllocationBatchResultDto;
+import com.creditcontrol.payment.dto.AllocationRequest;
+import com.creditcontrol.payment.dto.AllocationResultDto;
+import com.creditcontrol.payment.dto.OpenItemRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 付款核销业务服务层
+ * 负责DTO与核销引擎之间的转换，金额在引擎内部统一使用long(分)
+ */
+@Service
+@Slf4j
+public class CashApplicationService {
+
+    @Autowired
+    private CashApplicationEngine engine;
+
+    /**
+     * 批量登记未结项，返回成功登记的数量 (发票号重复的被忽略)
+     */
+    public int registerOpenItems(List<OpenItemRequest> requests) {
+        log.info("SERVICE_CALL: registerOpenItems - count: {}", requests.size());
+
+        int registered = 0;
+        for (OpenItemRequest request : requests) {
+            OpenItem item = engine.addOpenItem(request.getCustomerId(), request.getInvoiceNumber(),
+                    toCents(request.getAmount()), (int) request.getDueDate().toEpochDay());
+            if (item != null) {
+                registered++;
+            } else {
+                log.warn("DUPLICATE_OPEN_ITEM: invoiceNumber: {}", request.getInvoiceNumber());
+            }
+        }
+        log.info("OPEN_ITEMS_REGISTERED: registered: {}, duplicates: {}, totalOpenItems: {}",
+                registered, requests.size() - registered, engine.getOpenItemCount());
+        return registered;
+    }
+
+    /**
+     * 查询客户的未结项
+     */
+    public List<Map<String, Object>> getOpenItems(Long customerId) {
+        log.info("SERVICE_CALL: getOpenItems - customerId: {}", customerId);
+
+        return engine.getOpenItems(customerId).stream()
+                .map(item -> {
+                    Map<String, Object> view = new LinkedHashMap<>();
+                    view.put("invoiceNumber", item.getInvoiceNumber());
+                    view.put("originalAmount", fromCents(item.getOriginalCents()));
+                    view.put("outstandingAmount", fromCents(item.getOutstandingCents()));
+                    view.put("dueDate", java.time.LocalDate.ofEpochDay(item.getDueEpochDay()).toString());
+                    return view;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 核销单笔付款
+     */
+    public AllocationResultDto allocate(AllocationRequest request) {
+        AllocationResult result = engine.allocate(request.getCustomerId(), toCents(request.getAmount()),
+                request.getReference());
+        log.info("PAYMENT_ALLOCATED: customerId: {}, amount: {}, matchType: {}, invoices: {}, unapplied: {}",
+                result.getCustomerId(), request.getAmount(), result.getMatchType(),
+                result.getLines().size(), fromCents(result.getUnappliedCents()));
+        return toDto(result);
+    }
+
+    /**
+     * 批量核销 (例如一份银行流水)，按输入顺序处理
+     */
+    public AllocationBatchResultDto allocateBatch(List<AllocationRequest> requests, boolean includeDetails) {
+        log.info("SERVICE_CALL: allocateBatch - count: {}", requests.size());
+        long startTime = System.currentTimeMillis();
+
+        EnumMap<MatchType, Integer> counts = new EnumMap<>(MatchType.class);
+        List<AllocationResultDto> details = includeDetails ? new ArrayList<>(requests.size()) : null;
+        long totalCents = 0;
+        long unappliedCents = 0;
+
+        for (AllocationRequest request : requests) {
+            AllocationResult result = engine.allocate(request.getCustomerId(), toCents(request.getAmount()),
+                    request.getReference());
+            counts.merge(result.getMatchType(), 1, Integer::sum);
+            totalCents += result.getAmountCents();
+            unappliedCents += result.getUnappliedCents();
+            if (details != null) {
+                details.add(toDto(result));
+            }
+        }
+
+        Map<String, Integer> matchTypeCounts = new LinkedHashMap<>();
+        counts.forEach((type, count) -> matchTypeCounts.put(type.name(), count));
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("PAYMENT_BATCH_ALLOCATED: payments: {}, matchTypes: {}, duration: {}ms",
+                requests.size(), matchTypeCounts, duration);
+
+        return AllocationBatchResultDto.builder()
+                .totalPayments(requests.size())
+                .matchTypeCounts(matchTypeCounts)
+                .totalAmount(fromCents(totalCents))
+                .appliedAmount(fromCents(totalCents - unappliedCents))
+                .unappliedAmount(fromCents(unappliedCents))
+                .durationMillis(duration)
+                .results(details)
+                .build();
+    }
+
+    private AllocationResultDto toDto(AllocationResult result) {
+        List<AllocationResultDto.AllocationLineDto> lines = new ArrayList<>(result.getLines().size());
+        for (AllocationResult.Line line : result.getLines()) {
+            lines.add(AllocationResultDto.AllocationLineDto.builder()
+                    .invoiceNumber(line.getInvoiceNumber())
+                    .appliedAmount(fromCents(line.getAppliedCents()))
+                    .remainingAmount(fromCents(line.getRemainingCents()))
+                    .fullyPaid(line.getRemainingCents() == 0)
+                    .build());
+        }
+        return AllocationResultDto.builder()
+                .customerId(result.getCustomerId())
+                .amount(fromCents(result.getAmountCents()))
+                .matchType(result.getMatchType().name())
+                .allocations(lines)
+                .unappliedAmount(fromCents(result.getUnappliedCents()))
+                .build();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,87 @@
+package com.creditcontrol.payment.service;
+
+import com.creditcontrol.payment.dto.PaymentHistoryDto;
+import com.creditcontrol.payment.dto.PaymentHistoryItemDto;
+import com.creditcontrol.payment.history.PaymentHistoryEntry;
+import com.creditcontrol.payment.history.PaymentHistoryPage;
+import com.creditcontrol.payment.history.PaymentHistoryStore;
+import com.creditcontrol.payment.ledger.PaymentLedgerRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 付款历史业务服务层
+ */
+@Service
+@Slf4j
+public class PaymentHistoryService {
+
+    @Autowired
+    private PaymentHistoryStore historyStore;
+
+    @Autowired
+    private PaymentLedgerRecorder ledgerRecorder;
+
+    @Value("${creditcontrol.payment.history.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * 分页查询客户付款历史，参数不合法时抛出IllegalArgumentException
+     */
+    public PaymentHistoryDto getHistory(Long customerId, LocalDate from, LocalDate to, String cursor, int limit) {
+        log.info("SERVICE_CALL: getHistory - customerId: {}, from: {}, to: {}, cursor: {}, limit: {}",
+                customerId, from, to, cursor, limit);
+
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Long before = null;
+        if (cursor != null) {
+            try {
+                before = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        long startTime = System.nanoTime();
+        PaymentHistoryPage page = historyStore.query(customerId, from, to, before, limit);
+        log.debug("PAYMENT_HISTORY_QUERY: customerId: {}, entries: {}, duration: {}us",
+                customerId, page.getEntries().size(), (System.nanoTime() - startTime) / 1000);
+
+        List<PaymentHistoryItemDto> payments = new ArrayList<>(page.getEntries().size());
+        for (PaymentHistoryEntry entry : page.getEntries()) {
+            Instant acceptedAt = Instant.ofEpochMilli(entry.getTimestampMillis());
+            payments.add(PaymentHistoryItemDto.builder()
+                    .paymentId(entry.getPaymentId())
+                    .transactionId("TXN" + entry.getPaymentId())
+                    .amount(BigDecimal.valueOf(entry.getAmountCents(), 2))
+                    .date(LocalDate.ofInstant(acceptedAt, ZoneOffset.UTC).toString())
+                    .acceptedAt(acceptedAt.toString())
+                    .status(entry.getStatus())
+                    .method(entry.getMethod())
+                    .build());
+        }
+
+        return PaymentHistoryDto.builder()
+                .customerId(customerId)
+                .totalPaid(BigDecimal.valueOf(ledgerRecorder.getTotalPaidCents(customerId), 2))
+                .payments(payments)
+                .count(payments.size())
+                .nextCursor(page.getNextCursor() == null ? null : page.getNextCursor().toString())
+                .hasMore(page.getNextCursor() != null)
+                .build();
+    }
+}
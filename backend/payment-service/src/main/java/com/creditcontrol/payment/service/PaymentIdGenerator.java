@@ -0,0 +1,78 @@
+package com.creditcontrol.payment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 付款ID生成器
+ * 64位ID = 41位毫秒时间戳(自2025-01-01起) | 10位节点ID | 12位序列号，
+ * 单节点内严格单调递增，不同节点通过节点ID区分，不依赖数据库
+ */
+@Component
+@Slf4j
+public class PaymentIdGenerator {
+
+    /** 2025-01-01T00:00:00Z */
+    private static final long EPOCH_MILLIS = 1735689600000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+
+    private long lastTimestamp = -1L;
+    private long sequence;
+
+    public PaymentIdGenerator(@Value("${creditcontrol.payment.node-id:1}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Payment node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * 生成下一个ID。时钟回拨或同一毫秒序列号耗尽时沿用/借用逻辑时间戳，保证单调不重复
+     */
+    public synchronized long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            sequence = 0;
+        } else {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                lastTimestamp++;
+            }
+        }
+        return (lastTimestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * 使用已持久化的最大ID推进逻辑时钟，防止重启后时钟回拨产生重复ID
+     */
+    public synchronized void advancePast(long issuedId) {
+        long issuedTimestamp = issuedId >>> (NODE_BITS + SEQUENCE_BITS);
+        long issuedSequence = issuedId & SEQUENCE_MASK;
+        if (issuedTimestamp > lastTimestamp || (issuedTimestamp == lastTimestamp && issuedSequence > sequence)) {
+            lastTimestamp = issuedTimestamp;
+            sequence = issuedSequence;
+            log.info("ID_GENERATOR_SEEDED: lastIssuedId: {}", issuedId);
+        }
+    }
+
+    /**
+     * 从ID中解析生成时间 (毫秒)
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * 给定时间点之后生成的ID都不小于该值，用于按时间范围查询
+     */
+    public static long firstIdAt(long timestampMillis) {
+        return Math.max(0L, timestampMillis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+}
@@ -0,0 +1,204 @@
+package com.creditcontrol.payment.service;
+
+import com.creditcontrol.payment.dto.PaymentRequest;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.exception.PaymentJournalException;
+import com.creditcontrol.payment.exception.PaymentRejectedException;
+import com.creditcontrol.payment.journal.PaymentCommitListener;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 付款接收流水线
+ * 请求线程把记录放入有界队列，单个写线程批量取出后追加到付款日志并一次fsync (group commit)，
+ * 刷盘完成后才完成对应的Future，调用方据此返回确认
+ */
+@Service
+@Slf4j
+public class PaymentIngestionService {
+
+    @Autowired
+    private PaymentJournal journal;
+
+    @Autowired
+    private PaymentIdGenerator idGenerator;
+
+    @Autowired(required = false)
+    private List<PaymentCommitListener> commitListeners = List.of();
+
+    @Value("${creditcontrol.payment.ingestion.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${creditcontrol.payment.ingestion.max-batch-size:2048}")
+    private int maxBatchSize;
+
+    @Value("${creditcontrol.payment.ingestion.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    private final AtomicLong committedRecords = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+
+    private BlockingQueue<PendingRecord> queue;
+    private Thread writer;
+    private long lastBatchTimestamp;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        long maxPaymentId = journal.open();
+        idGenerator.advancePast(maxPaymentId);
+        lastBatchTimestamp = maxPaymentId == 0 ? 0L : PaymentIdGenerator.timestampOf(maxPaymentId);
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "payment-journal-writer");
+        writer.start();
+        log.info("PAYMENT_INGESTION_STARTED: queueCapacity: {}, maxBatchSize: {}", queueCapacity, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        log.info("PAYMENT_INGESTION_STOPPED: committedRecords: {}, committedBatches: {}",
+                committedRecords.get(), committedBatches.get());
+    }
+
+    /**
+     * 受理一笔新付款，返回的Future在记录刷盘后完成
+     */
+    public CompletableFuture<PaymentRecord> submit(PaymentRequest request) {
+        PaymentRecord record = PaymentRecord.builder()
+                .paymentId(idGenerator.nextId())
+                .customerId(request.getCustomerId())
+                .amountCents(request.getAmount().movePointRight(2).longValueExact())
+                .method(request.getMethod())
+                .status(PaymentStatus.PROCESSING)
+                .reference(request.getReference())
+                .build();
+        return append(record);
+    }
+
+    /**
+     * 追加任意付款记录 (如状态变更)，时间戳由写线程在落盘时统一赋值
+     */
+    public CompletableFuture<PaymentRecord> append(PaymentRecord record) {
+        if (!running) {
+            throw new PaymentRejectedException("Payment ingestion is shutting down");
+        }
+        PendingRecord pending = new PendingRecord(record);
+        try {
+            if (!queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("PAYMENT_QUEUE_FULL: capacity: {}, paymentId: {}", queueCapacity, record.getPaymentId());
+                throw new PaymentRejectedException("Payment queue is full, please retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentRejectedException("Interrupted while queueing payment", e);
+        }
+        return pending.future;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getCommittedRecords() {
+        return committedRecords.get();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+        List<PaymentRecord> records = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                continue;
+            }
+
+            // 批次时间戳严格递增，下游 (如账本) 以批次时间戳作为补记水位
+            long now = Math.max(System.currentTimeMillis(), lastBatchTimestamp + 1);
+            lastBatchTimestamp = now;
+            for (PendingRecord pending : batch) {
+                pending.record.setTimestampMillis(now);
+                records.add(pending.record);
+            }
+            commit(batch, records);
+            batch.clear();
+            records.clear();
+        }
+    }
+
+    private void commit(List<PendingRecord> batch, List<PaymentRecord> records) {
+        try {
+            journal.append(records);
+            committedRecords.addAndGet(records.size());
+            committedBatches.incrementAndGet();
+            notifyListeners(records);
+            for (PendingRecord pending : batch) {
+                pending.future.complete(pending.record);
+            }
+            log.debug("JOURNAL_BATCH_COMMITTED: records: {}", records.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("JOURNAL_BATCH_FAILED: records: {} - {}", records.size(), e.getMessage(), e);
+            PaymentJournalException failure = new PaymentJournalException("Failed to persist payment batch", e);
+            for (PendingRecord pending : batch) {
+                pending.future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * 通知下游索引 (历史、汇总等)，单个监听器失败不影响已落盘的批次
+     */
+    private void notifyListeners(List<PaymentRecord> records) {
+        for (PaymentCommitListener listener : commitListeners) {
+            try {
+                listener.onCommitted(records);
+            } catch (RuntimeException e) {
+                log.error("COMMIT_LISTENER_ERROR: {} - {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 等待落盘的记录
+     */
+    private static final class PendingRecord {
+
+        final PaymentRecord record;
+        final CompletableFuture<PaymentRecord> future = new CompletableFuture<>();
+
+        PendingRecord(PaymentRecord record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.creditcontrol.payment.service;
+
+import com.creditcontrol.payment.dto.PaymentSummaryDto;
+import com.creditcontrol.payment.rollup.PaymentSummaryRollup;
+import com.creditcontrol.payment.rollup.PaymentSummarySnapshot;
+import com.creditcontrol.payment.rollup.RollupBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 付款汇总业务服务层
+ */
+@Service
+@Slf4j
+public class PaymentSummaryService {
+
+    @Autowired
+    private PaymentSummaryRollup rollup;
+
+    public PaymentSummaryDto getSummary() {
+        long startTime = System.nanoTime();
+        PaymentSummarySnapshot snapshot = rollup.summarize();
+        log.debug("PAYMENT_SUMMARY_COMPUTED: buckets: {}, duration: {}us",
+                snapshot.getBucketsSummed(), (System.nanoTime() - startTime) / 1000);
+
+        RollupBucket today = snapshot.getToday();
+        RollupBucket month = snapshot.getMonth();
+        return PaymentSummaryDto.builder()
+                .totalPaymentsToday(today.getPayments())
+                .totalAmountToday(BigDecimal.valueOf(today.getAmountCents(), 2))
+                .totalPaymentsMonth(month.getPayments())
+                .totalAmountMonth(BigDecimal.valueOf(month.getAmountCents(), 2))
+                .pendingPayments(snapshot.getPendingPayments())
+                .completedPaymentsToday(today.getCompleted())
+                .failedPayments(today.getFailed())
+                .averageProcessingTime(formatDuration(month.getAverageProcessingMillis()))
+                .averageProcessingMillis(month.getAverageProcessingMillis())
+                .p95ProcessingMillis(month.getProcessingPercentileMillis(0.95))
+                .asOf(Instant.ofEpochMilli(snapshot.getAsOfMillis()).toString())
+                .build();
+    }
+
+    private static String formatDuration(long millis) {
+        if (millis >= TimeUnit.HOURS.toMillis(1)) {
+            return String.format(Locale.ROOT, "%.1f hours", millis / 3_600_000.0);
+        }
+        if (millis >= TimeUnit.MINUTES.toMillis(1)) {
+            return String.format(Locale.ROOT, "%.1f minutes", millis / 60_000.0);
+        }
+        return String.format(Locale.ROOT, "%.1f seconds", millis / 1000.0);
+    }
+}
@@ -0,0 +1,156 @@
+package com.creditcontrol.payment.service;
+
+import com.creditcontrol.payment.dto.ReconciliationRequest;
+import com.creditcontrol.payment.dto.ReconciliationStatusDto;
+import com.creditcontrol.payment.reconciliation.ReconciliationBreak;
+import com.creditcontrol.payment.reconciliation.ReconciliationEngine;
+import com.creditcontrol.payment.reconciliation.ReconciliationJob;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 日终对账业务服务层
+ * 只允许使用收件目录下的流水文件，同一日期同时只能有一个对账任务；不同日期的任务依次占用排序缓冲区
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+
+    private static final int MAX_FINISHED_RECONCILIATIONS = 100;
+
+    @Autowired
+    private ReconciliationEngine engine;
+
+    @Autowired
+    private PaymentIdGenerator idGenerator;
+
+    @Value("${creditcontrol.payment.statement.inbox-directory:data/statements/inbox}")
+    private String inboxDirectory;
+
+    private final Map<String, ReconciliationJob> reconciliations = new ConcurrentHashMap<>();
+
+    /**
+     * 启动对账，文件不存在时抛出IllegalArgumentException，同一日期正在对账时抛出IllegalStateException
+     */
+    public synchronized ReconciliationStatusDto startReconciliation(ReconciliationRequest request) throws IOException {
+        log.info("SERVICE_CALL: startReconciliation - date: {}, fileName: {}, format: {}",
+                request.getDate(), request.getFileName(), request.getFormat());
+
+        Path inbox = Paths.get(inboxDirectory).toAbsolutePath().normalize();
+        Path file = inbox.resolve(request.getFileName()).normalize();
+        if (!file.getParent().equals(inbox) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Statement file not found in inbox: " + request.getFileName());
+        }
+        boolean running = reconciliations.values().stream()
+                .anyMatch(job -> job.getDay().equals(request.getDate()) && job.getState() == ReconciliationJob.State.RUNNING);
+        if (running) {
+            throw new IllegalStateException("Reconciliation is already running for " + request.getDate());
+        }
+
+        evictFinished();
+        String reconciliationId = "REC" + idGenerator.nextId();
+        ReconciliationJob job = engine.start(reconciliationId, request.getDate(), file, request.getFormat());
+        reconciliations.put(reconciliationId, job);
+        return toDto(job);
+    }
+
+    public ReconciliationStatusDto getReconciliation(String reconciliationId) {
+        ReconciliationJob job = reconciliations.get(reconciliationId);
+        return job == null ? null : toDto(job);
+    }
+
+    public List<ReconciliationStatusDto> getReconciliations() {
+        return reconciliations.values().stream()
+                .sorted(Comparator.comparingLong(ReconciliationJob::getStartedAt).reversed())
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public ReconciliationStatusDto cancelReconciliation(String reconciliationId) {
+        ReconciliationJob job = reconciliations.get(reconciliationId);
+        if (job == null) {
+            return null;
+        }
+        log.info("RECONCILIATION_CANCEL: reconciliationId: {}", reconciliationId);
+        job.cancel();
+        return toDto(job);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ReconciliationJob job : new ArrayList<>(reconciliations.values())) {
+            if (job.getState() == ReconciliationJob.State.RUNNING) {
+                job.cancel();
+                job.await(10_000);
+            }
+        }
+    }
+
+    private void evictFinished() {
+        List<ReconciliationJob> finished = reconciliations.values().stream()
+                .filter(job -> job.getState() != ReconciliationJob.State.RUNNING)
+                .sorted(Comparator.comparingLong(ReconciliationJob::getStartedAt))
+                .collect(Collectors.toList());
+        for (int i = 0; i < finished.size() - MAX_FINISHED_RECONCILIATIONS + 1; i++) {
+            reconciliations.remove(finished.get(i).getReconciliationId());
+        }
+    }
+
+    private ReconciliationStatusDto toDto(ReconciliationJob job) {
+        return ReconciliationStatusDto.builder()
+                .reconciliationId(job.getReconciliationId())
+                .date(job.getDay().toString())
+                .fileName(job.getStatementFileName())
+                .format(job.getFormat().name())
+                .state(job.getState().name())
+                .phase(job.getPhase().name())
+                .internalRecords(job.getInternalRecords())
+                .bankRecords(job.getBankRecords())
+                .skippedBankRecords(job.getSkippedBankRecords())
+                .skippedInternalRecords(job.getSkippedInternalRecords())
+                .malformedLines(job.getMalformedLines())
+                .matched(job.getMatched())
+                .amountMismatches(job.getAmountMismatches())
+                .internalOnly(job.getInternalOnly())
+                .bankOnly(job.getBankOnly())
+                .sortRuns(job.getSortRuns())
+                .breaksFile(job.getBreaksFileName())
+                .sampleBreaks(job.getSampleBreaks().stream().map(this::toDto).collect(Collectors.toList()))
+                .startedAt(Instant.ofEpochMilli(job.getStartedAt()).toString())
+                .finishedAt(job.getFinishedAt() > 0 ? Instant.ofEpochMilli(job.getFinishedAt()).toString() : null)
+                .error(job.getError())
+                .build();
+    }
+
+    private ReconciliationStatusDto.Break toDto(ReconciliationBreak item) {
+        return ReconciliationStatusDto.Break.builder()
+                .type(item.getType().name())
+                .paymentId(item.getPaymentId())
+                .bankLineOffset(item.getBankLineOffset())
+                .internalCustomerId(item.getInternalCustomerId())
+                .bankCustomerId(item.getBankCustomerId())
+                .internalAmount(toAmount(item.getInternalAmountCents()))
+                .bankAmount(toAmount(item.getBankAmountCents()))
+                .build();
+    }
+
+    private static BigDecimal toAmount(Long cents) {
+        return cents == null ? null : BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,146 @@
+package com.creditcontrol.payment.service;
+
+import com.creditcontrol.payment.allocation.MatchType;
+import com.creditcontrol.payment.dto.StatementImportRequest;
+import com.creditcontrol.payment.dto.StatementImportStatusDto;
+import com.creditcontrol.payment.statement.StatementImportJob;
+import com.creditcontrol.payment.statement.StatementImporter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 银行流水导入业务服务层
+ * 只允许导入收件目录下的文件，同一文件同时只能有一个导入任务
+ */
+@Service
+@Slf4j
+public class StatementImportService {
+
+    private static final int MAX_FINISHED_IMPORTS = 100;
+
+    @Autowired
+    private StatementImporter importer;
+
+    @Autowired
+    private PaymentIdGenerator idGenerator;
+
+    @Value("${creditcontrol.payment.statement.inbox-directory:data/statements/inbox}")
+    private String inboxDirectory;
+
+    private final Map<String, StatementImportJob> imports = new ConcurrentHashMap<>();
+
+    /**
+     * 启动导入，文件不存在时抛出IllegalArgumentException，文件正在导入时抛出IllegalStateException
+     */
+    public synchronized StatementImportStatusDto startImport(StatementImportRequest request) throws IOException {
+        log.info("SERVICE_CALL: startImport - fileName: {}, format: {}, resume: {}",
+                request.getFileName(), request.getFormat(), request.isResume());
+
+        Path inbox = Paths.get(inboxDirectory).toAbsolutePath().normalize();
+        Path file = inbox.resolve(request.getFileName()).normalize();
+        if (!file.getParent().equals(inbox) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Statement file not found in inbox: " + request.getFileName());
+        }
+        String fileName = file.getFileName().toString();
+        boolean running = imports.values().stream()
+                .anyMatch(job -> job.getFileName().equals(fileName) && job.getState() == StatementImportJob.State.RUNNING);
+        if (running) {
+            throw new IllegalStateException("Statement file is already being imported: " + fileName);
+        }
+
+        evictFinished();
+        String importId = "IMP" + idGenerator.nextId();
+        StatementImportJob job = importer.start(importId, file, request.getFormat(), request.isResume());
+        imports.put(importId, job);
+        return toDto(job);
+    }
+
+    public StatementImportStatusDto getImport(String importId) {
+        StatementImportJob job = imports.get(importId);
+        return job == null ? null : toDto(job);
+    }
+
+    public List<StatementImportStatusDto> getImports() {
+        return imports.values().stream()
+                .sorted(Comparator.comparingLong(StatementImportJob::getStartedAt).reversed())
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public StatementImportStatusDto cancelImport(String importId) {
+        StatementImportJob job = imports.get(importId);
+        if (job == null) {
+            return null;
+        }
+        log.info("STATEMENT_IMPORT_CANCEL: importId: {}", importId);
+        job.cancel();
+        return toDto(job);
+    }
+
+    /**
+     * 关闭时取消运行中的导入，检查点保证重启后可继续
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (StatementImportJob job : new ArrayList<>(imports.values())) {
+            if (job.getState() == StatementImportJob.State.RUNNING) {
+                job.cancel();
+                job.await(10_000);
+            }
+        }
+    }
+
+    private void evictFinished() {
+        List<StatementImportJob> finished = imports.values().stream()
+                .filter(job -> job.getState() != StatementImportJob.State.RUNNING)
+                .sorted(Comparator.comparingLong(StatementImportJob::getStartedAt))
+                .collect(Collectors.toList());
+        for (int i = 0; i < finished.size() - MAX_FINISHED_IMPORTS + 1; i++) {
+            imports.remove(finished.get(i).getImportId());
+        }
+    }
+
+    private StatementImportStatusDto toDto(StatementImportJob job) {
+        Map<String, Long> matchTypeCounts = new LinkedHashMap<>();
+        for (MatchType matchType : MatchType.values()) {
+            matchTypeCounts.put(matchType.name(), job.getMatchTypeCount(matchType));
+        }
+        return StatementImportStatusDto.builder()
+                .importId(job.getImportId())
+                .fileName(job.getFileName())
+                .format(job.getFormat().name())
+                .statementKey(job.getStatementKey())
+                .unappliedFile(job.getUnappliedFileName())
+                .state(job.getState().name())
+                .fileSize(job.getFileSize())
+                .startOffset(job.getStartOffset())
+                .checkpointOffset(job.getCheckpointOffset())
+                .parsedRecords(job.getParsedRecords())
+                .rejectedRecords(job.getRejectedRecords())
+                .unidentifiedRecords(job.getUnidentifiedRecords())
+                .duplicateRecords(job.getDuplicateRecords())
+                .persistedRecords(job.getPersistedRecords())
+                .matchTypeCounts(matchTypeCounts)
+                .recordsPerSecond(job.getRecordsPerSecond())
+                .startedAt(Instant.ofEpochMilli(job.getStartedAt()).toString())
+                .finishedAt(job.getFinishedAt() > 0 ? Instant.ofEpochMilli(job.getFinishedAt()).toString() : null)
+                .error(job.getError())
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.creditcontrol.payment.settlement;
+
+import com.creditcontrol.payment.journal.PaymentRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地结算桩
+ * 模拟银行结算延迟；按付款ID哈希决定是否拒绝 (同一笔付款每次结果相同)，按概率产生临时错误
+ */
+@Component
+@ConditionalOnProperty(name = "creditcontrol.payment.settlement.gateway", havingValue = "stub", matchIfMissing = true)
+@Slf4j
+public class LocalSettlementStub implements SettlementGateway {
+
+    private final Executor delayed;
+    private final double declineRate;
+    private final double transientFailureRate;
+
+    public LocalSettlementStub(
+            @Value("${creditcontrol.payment.settlement.stub.latency-ms:50}") long latencyMs,
+            @Value("${creditcontrol.payment.settlement.stub.decline-rate:0.02}") double declineRate,
+            @Value("${creditcontrol.payment.settlement.stub.transient-failure-rate:0.05}") double transientFailureRate) {
+        this.delayed = CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS);
+        this.declineRate = declineRate;
+        this.transientFailureRate = transientFailureRate;
+        log.info("SETTLEMENT_STUB_CONFIG: latencyMs: {}, declineRate: {}, transientFailureRate: {}",
+                latencyMs, declineRate, transientFailureRate);
+    }
+
+    @Override
+    public CompletableFuture<SettlementOutcome> settle(PaymentRecord payment, int attempt) {
+        return CompletableFuture.supplyAsync(() -> decide(payment.getPaymentId()), delayed);
+    }
+
+    private SettlementOutcome decide(long paymentId) {
+        long hash = paymentId * 0x9E3779B97F4A7C15L;
+        double bucket = (hash >>> 11) * 0x1.0p-53;
+        if (bucket < declineRate) {
+            return SettlementOutcome.DECLINED;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < transientFailureRate) {
+            return SettlementOutcome.RETRY;
+        }
+        return SettlementOutcome.SETTLED;
+    }
+}
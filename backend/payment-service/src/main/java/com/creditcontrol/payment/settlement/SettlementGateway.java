@@ -0,0 +1,15 @@
+package com.creditcontrol.payment.settlement;
+
+import com.creditcontrol.payment.journal.PaymentRecord;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 结算通道
+ * 实现必须异步返回且按付款ID幂等: 重启后可能对同一笔付款再次发起结算。
+ * 调用方负责单次尝试超时 (超时按RETRY处理)。
+ */
+public interface SettlementGateway {
+
+    CompletableFuture<SettlementOutcome> settle(PaymentRecord payment, int attempt);
+}
@@ -0,0 +1,13 @@
+package com.creditcontrol.payment.settlement;
+
+/**
+ * 单次结算尝试的结果
+ */
+public enum SettlementOutcome {
+    /** 结算成功，付款完成 */
+    SETTLED,
+    /** 被拒绝 (如余额不足、账户冻结)，付款失败，不再重试 */
+    DECLINED,
+    /** 临时错误，按退避策略重试 */
+    RETRY
+}
@@ -0,0 +1,396 @@
+package com.creditcontrol.payment.settlement;
+
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.exception.PaymentRejectedException;
+import com.creditcontrol.payment.journal.PaymentCommitListener;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import com.creditcontrol.payment.service.PaymentIngestionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 付款结算调度器
+ * 付款受理 (PROCESSING) 落盘后在分层时间轮上安排首次结算，到期时异步调用结算通道:
+ * 成功追加COMPLETED记录，被拒绝追加FAILED记录，临时错误或单次超时按指数退避重试，
+ * 超过最大尝试次数或结算期限后追加FAILED。终态记录使用原付款ID和原金额，
+ * 落盘后经提交回调从调度中移除。调度状态定期快照，重启时加载快照并回放其后的付款日志。
+ * 快照不获取调度器的锁 (待结算表为并发表，弱一致遍历)，付款日志写线程的提交回调不会被快照阻塞。
+ */
+@Component
+@Slf4j
+public class SettlementScheduler implements PaymentCommitListener {
+
+    @Autowired
+    private PaymentJournal journal;
+
+    @Autowired
+    private SettlementGateway gateway;
+
+    /** 延迟注入: 付款接收服务依赖全部提交监听器 */
+    @Autowired
+    @Lazy
+    private PaymentIngestionService ingestionService;
+
+    @Value("${creditcontrol.payment.settlement.state-directory:data/settlement}")
+    private String stateDirectory;
+
+    @Value("${creditcontrol.payment.settlement.initial-delay-ms:2000}")
+    private long initialDelayMs;
+
+    @Value("${creditcontrol.payment.settlement.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${creditcontrol.payment.settlement.wheel-bits:9}")
+    private int wheelBits;
+
+    @Value("${creditcontrol.payment.settlement.wheel-levels:4}")
+    private int wheelLevels;
+
+    @Value("${creditcontrol.payment.settlement.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${creditcontrol.payment.settlement.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${creditcontrol.payment.settlement.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+
+    @Value("${creditcontrol.payment.settlement.attempt-timeout-ms:5000}")
+    private long attemptTimeoutMs;
+
+    @Value("${creditcontrol.payment.settlement.deadline:PT24H}")
+    private Duration settlementDeadline;
+
+    @Value("${creditcontrol.payment.settlement.max-in-flight:1024}")
+    private int maxInFlight;
+
+    /** 修改在调度器的锁内进行，快照线程不加锁遍历 */
+    private final ConcurrentHashMap<Long, SettlementTask> pending = new ConcurrentHashMap<>();
+    private final AtomicLong settled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong attemptTimeouts = new AtomicLong();
+
+    private TimingWheel wheel;
+    private Semaphore inFlightPermits;
+    private SettlementStateFile stateFile;
+    private Thread timer;
+    private volatile boolean running;
+    /** 已完整应用的最后一个付款日志批次时间戳，整批应用后才推进 */
+    private volatile long watermark;
+    private int inFlight;
+
+    /**
+     * 加载调度快照并回放其后的付款日志，恢复待结算付款
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path directory = Paths.get(stateDirectory);
+        Files.createDirectories(directory);
+        stateFile = new SettlementStateFile(directory);
+        wheel = new TimingWheel(tickMs, wheelBits, wheelLevels, startTime);
+        inFlightPermits = new Semaphore(maxInFlight);
+
+        SettlementStateFile.Snapshot snapshot = stateFile.load();
+        if (snapshot != null) {
+            watermark = snapshot.watermark;
+            for (SettlementTask task : snapshot.tasks) {
+                pending.put(task.paymentId, task);
+                wheel.schedule(task, task.dueMillis);
+            }
+        }
+        int restored = pending.size();
+
+        long fromWatermark = watermark;
+        long[] replayed = {0};
+        long[] replayedWatermark = {fromWatermark};
+        LocalDate fromDay = PaymentJournal.dayOf(fromWatermark);
+        for (LocalDate day : journal.segmentDays()) {
+            if (day.isBefore(fromDay)) {
+                continue;
+            }
+            journal.replay(day, record -> {
+                if (record.getTimestampMillis() > fromWatermark) {
+                    apply(record);
+                    replayedWatermark[0] = Math.max(replayedWatermark[0], record.getTimestampMillis());
+                    replayed[0]++;
+                }
+            });
+        }
+        watermark = replayedWatermark[0];
+
+        log.info("SETTLEMENT_SCHEDULER_OPENED: restoredTasks: {}, watermark: {}, replayedRecords: {}, pending: {}, "
+                        + "duration: {}ms",
+                restored, fromWatermark, replayed[0], pending.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 应用启动完成后再开始结算，避免在付款接收服务就绪前追加记录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        timer = new Thread(this::timerLoop, "settlement-timer");
+        timer.setDaemon(true);
+        timer.start();
+        log.info("SETTLEMENT_SCHEDULER_STARTED: tickMs: {}, wheel: {}x{}, maxAttempts: {}, maxInFlight: {}",
+                tickMs, 1 << wheelBits, wheelLevels, maxAttempts, maxInFlight);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        if (timer != null) {
+            timer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        saveState();
+        log.info("SETTLEMENT_SCHEDULER_STOPPED: pending: {}, settled: {}, failed: {}, retries: {}",
+                getPendingCount(), settled.get(), failed.get(), retries.get());
+    }
+
+    @Override
+    public synchronized void onCommitted(List<PaymentRecord> records) {
+        long batchWatermark = watermark;
+        for (PaymentRecord record : records) {
+            apply(record);
+            batchWatermark = Math.max(batchWatermark, record.getTimestampMillis());
+        }
+        watermark = batchWatermark;
+    }
+
+    /**
+     * 预计完成时间: 待结算时为下次尝试时间，否则为受理时间加首次结算延迟
+     */
+    public synchronized long estimateCompletionMillis(PaymentRecord record) {
+        SettlementTask task = pending.get(record.getPaymentId());
+        if (task != null && !task.inFlight) {
+            return task.dueMillis;
+        }
+        return record.getTimestampMillis() + initialDelayMs;
+    }
+
+    /**
+     * 定期快照调度状态
+     */
+    @Scheduled(fixedDelayString = "${creditcontrol.payment.settlement.snapshot-interval-ms:30000}")
+    public void maintain() {
+        try {
+            saveState();
+        } catch (IOException e) {
+            log.error("SETTLEMENT_STATE_SAVE_ERROR: {}", e.getMessage(), e);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    public synchronized int getScheduledTimers() {
+        return wheel.size();
+    }
+
+    public long getSettledCount() {
+        return settled.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getAttemptTimeoutCount() {
+        return attemptTimeouts.get();
+    }
+
+    /**
+     * 应用一条已落盘的付款记录: 受理时安排结算，终态时移除
+     */
+    private void apply(PaymentRecord record) {
+        if (record.getStatus() == PaymentStatus.PROCESSING) {
+            if (!pending.containsKey(record.getPaymentId())) {
+                SettlementTask task = new SettlementTask(record.getPaymentId(), record.getCustomerId(),
+                        record.getAmountCents(), record.getMethod(), record.getTimestampMillis(), 0,
+                        record.getTimestampMillis() + initialDelayMs);
+                pending.put(task.paymentId, task);
+                wheel.schedule(task, task.dueMillis);
+            }
+            return;
+        }
+        SettlementTask task = pending.remove(record.getPaymentId());
+        if (task != null) {
+            wheel.cancel(task);
+            if (task.inFlight) {
+                inFlight--;
+            }
+        }
+    }
+
+    private void timerLoop() {
+        List<SettlementTask> due = new ArrayList<>();
+        while (running) {
+            synchronized (this) {
+                wheel.advance(System.currentTimeMillis(), expired -> {
+                    SettlementTask task = (SettlementTask) expired;
+                    task.inFlight = true;
+                    inFlight++;
+                    due.add(task);
+                });
+            }
+            for (SettlementTask task : due) {
+                attempt(task);
+            }
+            due.clear();
+            try {
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 发起一次结算尝试，并发数达到上限时稍后再试 (不计入尝试次数)
+     */
+    private void attempt(SettlementTask task) {
+        long now = System.currentTimeMillis();
+        if (now - task.acceptedAtMillis > settlementDeadline.toMillis()) {
+            log.warn("SETTLEMENT_DEADLINE_EXCEEDED: paymentId: {}, attempts: {}", task.paymentId, task.attempts);
+            finish(task, PaymentStatus.FAILED);
+            return;
+        }
+        if (!inFlightPermits.tryAcquire()) {
+            reschedule(task, now + tickMs * 10);
+            return;
+        }
+        task.attempts++;
+        try {
+            gateway.settle(task.toRecord(PaymentStatus.PROCESSING), task.attempts)
+                    .orTimeout(attemptTimeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((outcome, error) -> {
+                        inFlightPermits.release();
+                        onOutcome(task, outcome, error);
+                    });
+        } catch (RuntimeException e) {
+            inFlightPermits.release();
+            onOutcome(task, null, e);
+        }
+    }
+
+    private void onOutcome(SettlementTask task, SettlementOutcome outcome, Throwable error) {
+        if (outcome == SettlementOutcome.SETTLED) {
+            finish(task, PaymentStatus.COMPLETED);
+            return;
+        }
+        if (outcome == SettlementOutcome.DECLINED) {
+            log.info("SETTLEMENT_DECLINED: paymentId: {}, attempts: {}", task.paymentId, task.attempts);
+            finish(task, PaymentStatus.FAILED);
+            return;
+        }
+        if (error != null) {
+            if (error instanceof TimeoutException
+                    || error.getCause() instanceof TimeoutException) {
+                attemptTimeouts.incrementAndGet();
+            }
+            log.warn("SETTLEMENT_ATTEMPT_ERROR: paymentId: {}, attempt: {} - {}",
+                    task.paymentId, task.attempts, error.toString());
+        }
+        if (task.attempts >= maxAttempts) {
+            log.warn("SETTLEMENT_RETRIES_EXHAUSTED: paymentId: {}, attempts: {}", task.paymentId, task.attempts);
+            finish(task, PaymentStatus.FAILED);
+            return;
+        }
+        retries.incrementAndGet();
+        reschedule(task, System.currentTimeMillis() + backoff(task.attempts));
+    }
+
+    /**
+     * 追加终态记录，落盘后由提交回调移除任务；付款日志暂不可用时稍后重试写入
+     */
+    private void finish(SettlementTask task, PaymentStatus status) {
+        try {
+            ingestionService.append(task.toRecord(status)).whenComplete((record, error) -> {
+                if (error == null) {
+                    (status == PaymentStatus.COMPLETED ? settled : failed).incrementAndGet();
+                } else {
+                    log.error("SETTLEMENT_RECORD_FAILED: paymentId: {}, status: {} - {}",
+                            task.paymentId, status, error.getMessage());
+                    reschedule(task, System.currentTimeMillis() + backoffBaseMs);
+                }
+            });
+        } catch (PaymentRejectedException e) {
+            log.warn("SETTLEMENT_RECORD_DEFERRED: paymentId: {} - {}", task.paymentId, e.getMessage());
+            reschedule(task, System.currentTimeMillis() + backoffBaseMs);
+        }
+    }
+
+    private synchronized void reschedule(SettlementTask task, long dueMillis) {
+        if (pending.get(task.paymentId) != task) {
+            return;
+        }
+        if (task.inFlight) {
+            task.inFlight = false;
+            inFlight--;
+        }
+        task.dueMillis = dueMillis;
+        wheel.schedule(task, dueMillis);
+    }
+
+    /**
+     * 指数退避，带最多20%的随机抖动
+     */
+    private long backoff(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 30);
+        delay = Math.min(delay <= 0 ? backoffMaxMs : delay, backoffMaxMs);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    /**
+     * 先读水位再遍历待结算表: 水位及之前的批次在遍历开始前已全部应用，快照中缺少的受理记录一定在水位之后，
+     * 启动时会回放补齐；遍历期间发生的变更可能已反映在快照中，回放时重复应用不影响结果
+     */
+    private void saveState() throws IOException {
+        long savedWatermark = watermark;
+        List<SettlementTask> tasks = new ArrayList<>(pending.size());
+        for (SettlementTask task : pending.values()) {
+            tasks.add(new SettlementTask(task.paymentId, task.customerId, task.amountCents, task.method,
+                    task.acceptedAtMillis, task.attempts, task.inFlight ? 0L : task.dueMillis));
+        }
+        long startTime = System.currentTimeMillis();
+        stateFile.save(savedWatermark, tasks);
+        log.debug("SETTLEMENT_STATE_SAVED: tasks: {}, watermark: {}, duration: {}ms",
+                tasks.size(), savedWatermark, System.currentTimeMillis() - startTime);
+    }
+}
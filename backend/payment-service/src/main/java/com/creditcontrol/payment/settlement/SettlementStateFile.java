@@ -0,0 +1,121 @@
+package com.creditcontrol.payment.settlement;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 结算调度状态快照
+ * [int 魔数][int 版本][long 付款日志水位][int 任务数][任务...][int CRC32]，
+ * 任务为 [long 付款ID][long 客户ID][long 金额][long 受理时间][long 下次尝试时间][byte 方式][byte 尝试次数]。
+ * 先写临时文件再原子改名。水位之后的付款日志批次在启动时回放补齐。
+ */
+final class SettlementStateFile {
+
+    private static final int MAGIC = 0x53544C53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int TASK_BYTES = 8 * 5 + 1 + 1;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+
+    private final Path path;
+    private final Path tempPath;
+
+    SettlementStateFile(Path directory) {
+        this.path = directory.resolve("settlement.state");
+        this.tempPath = directory.resolve("settlement.state.tmp");
+    }
+
+    /**
+     * 读取快照，不存在或校验失败时返回null
+     */
+    Snapshot load() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        long size = Files.size(path);
+        if (size < HEADER_BYTES + 4) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int count = buffer.getInt(16);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || count < 0
+                || size != HEADER_BYTES + (long) count * TASK_BYTES + 4) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, (int) size - 4));
+        if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+            return null;
+        }
+
+        List<SettlementTask> tasks = new ArrayList<>(count);
+        buffer.position(HEADER_BYTES);
+        for (int i = 0; i < count; i++) {
+            long paymentId = buffer.getLong();
+            long customerId = buffer.getLong();
+            long amountCents = buffer.getLong();
+            long acceptedAt = buffer.getLong();
+            long due = buffer.getLong();
+            PaymentMethod method = METHODS[buffer.get()];
+            int attempts = buffer.get();
+            tasks.add(new SettlementTask(paymentId, customerId, amountCents, method, acceptedAt, attempts, due));
+        }
+        return new Snapshot(buffer.getLong(8), tasks);
+    }
+
+    void save(long watermark, List<SettlementTask> tasks) throws IOException {
+        int length = HEADER_BYTES + tasks.size() * TASK_BYTES + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(watermark).putInt(tasks.size());
+        for (SettlementTask task : tasks) {
+            buffer.putLong(task.paymentId)
+                    .putLong(task.customerId)
+                    .putLong(task.amountCents)
+                    .putLong(task.acceptedAtMillis)
+                    .putLong(task.dueMillis)
+                    .put((byte) task.method.ordinal())
+                    .put((byte) Math.min(task.attempts, Byte.MAX_VALUE));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 快照内容: 付款日志水位 (最后应用的批次时间戳) 和当时的待结算任务
+     */
+    static final class Snapshot {
+
+        final long watermark;
+        final List<SettlementTask> tasks;
+
+        Snapshot(long watermark, List<SettlementTask> tasks) {
+            this.watermark = watermark;
+            this.tasks = tasks;
+        }
+    }
+}
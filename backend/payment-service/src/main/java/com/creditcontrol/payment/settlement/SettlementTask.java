@@ -0,0 +1,49 @@
+package com.creditcontrol.payment.settlement;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentRecord;
+
+/**
+ * 待结算付款，同时是时间轮上的定时器
+ */
+final class SettlementTask extends TimingWheel.Timer {
+
+    final long paymentId;
+    final long customerId;
+    final long amountCents;
+    final PaymentMethod method;
+    final long acceptedAtMillis;
+
+    /** 已发起的结算尝试次数 (快照线程不加锁读取) */
+    volatile int attempts;
+    /** 下次尝试时间 */
+    volatile long dueMillis;
+    /** 正在结算或正在写入终态记录 */
+    volatile boolean inFlight;
+
+    SettlementTask(long paymentId, long customerId, long amountCents, PaymentMethod method,
+                   long acceptedAtMillis, int attempts, long dueMillis) {
+        this.paymentId = paymentId;
+        this.customerId = customerId;
+        this.amountCents = amountCents;
+        this.method = method;
+        this.acceptedAtMillis = acceptedAtMillis;
+        this.attempts = attempts;
+        this.dueMillis = dueMillis;
+    }
+
+    /**
+     * 原始付款记录 (金额、客户、方式不变)，状态为给定值。追加到付款日志时时间戳由写线程重新赋值
+     */
+    PaymentRecord toRecord(PaymentStatus status) {
+        return PaymentRecord.builder()
+                .paymentId(paymentId)
+                .customerId(customerId)
+                .amountCents(amountCents)
+                .method(method)
+                .status(status)
+                .timestampMillis(acceptedAtMillis)
+                .build();
+    }
+}
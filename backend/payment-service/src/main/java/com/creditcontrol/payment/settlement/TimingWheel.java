@@ -0,0 +1,160 @@
+package com.creditcontrol.payment.settlement;
+
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 每层 2^wheelBits 个槽，第L层一个槽跨 2^(wheelBits*L) 个tick。定时器按到期tick与当前tick
+ * 最高的不同"位段"放入对应层的槽中，当前tick推进到该槽时逐层下放，最终在第0层到期。
+ * 槽是带哨兵的双向链表，schedule/cancel都是O(1)。超出最高层范围的定时器放在溢出链表，
+ * 最高层转完一圈时重新放置。非线程安全，由调用方加锁。
+ */
+final class TimingWheel {
+
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int levels;
+    private final int mask;
+    private final Timer[][] buckets;
+    private final Timer overflow = Timer.sentinel();
+
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, int wheelBits, int levels, long startMillis) {
+        if (wheelBits * levels > 62) {
+            throw new IllegalArgumentException("Timing wheel range exceeds 62 bits");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelBits = wheelBits;
+        this.levels = levels;
+        this.mask = (1 << wheelBits) - 1;
+        this.buckets = new Timer[levels][1 << wheelBits];
+        for (Timer[] level : buckets) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = Timer.sentinel();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 安排定时器在给定时间到期，已过期的时间在下一个tick到期。已安排的定时器先取消
+     */
+    void schedule(Timer timer, long deadlineMillis) {
+        if (timer.isScheduled()) {
+            cancel(timer);
+        }
+        timer.deadlineTick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        place(timer);
+        size++;
+    }
+
+    boolean cancel(Timer timer) {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+        timer.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * 推进到给定时间，按tick顺序回调到期的定时器
+     */
+    void advance(long nowMillis, Consumer<Timer> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            if ((currentTick & rangeMask(levels)) == 0) {
+                cascade(overflow);
+            }
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & rangeMask(level)) == 0) {
+                    cascade(buckets[level][(int) (currentTick >>> (wheelBits * level)) & mask]);
+                }
+            }
+            Timer head = buckets[0][(int) currentTick & mask];
+            while (head.next != head) {
+                Timer timer = head.next;
+                timer.unlink();
+                size--;
+                expired.accept(timer);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void place(Timer timer) {
+        long tick = timer.deadlineTick;
+        for (int level = 0; level < levels; level++) {
+            if (((tick ^ currentTick) >>> (wheelBits * (level + 1))) == 0) {
+                buckets[level][(int) (tick >>> (wheelBits * level)) & mask].append(timer);
+                return;
+            }
+        }
+        overflow.append(timer);
+    }
+
+    /**
+     * 把一个槽中的定时器按当前tick重新放置到更低的层
+     */
+    private void cascade(Timer head) {
+        Timer timer = head.next;
+        head.next = head;
+        head.prev = head;
+        while (timer != head) {
+            Timer next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private long rangeMask(int level) {
+        return (1L << (wheelBits * level)) - 1;
+    }
+
+    /**
+     * 定时器节点，同时作为槽链表的哨兵
+     */
+    static class Timer {
+
+        long deadlineTick;
+        Timer prev;
+        Timer next;
+
+        static Timer sentinel() {
+            Timer head = new Timer();
+            head.next = head;
+            head.prev = head;
+            return head;
+        }
+
+        boolean isScheduled() {
+            return next != null;
+        }
+
+        private void append(Timer timer) {
+            timer.prev = prev;
+            timer.next = this;
+            prev.next = timer;
+            prev = timer;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+}
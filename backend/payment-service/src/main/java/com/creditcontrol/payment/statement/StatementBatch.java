@@ -0,0 +1,62 @@
+package com.creditcontrol.payment.statement;
+
+import com.creditcontrol.payment.allocation.AllocationResult;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 一批流水记录 (列式存储)
+ * 解析阶段只写入基本类型数组，附言以映射缓冲区中的位置表示，到匹配阶段才生成字符串。
+ * 同一批次内的记录都来自同一个映射窗口，按流水线顺序依次交给各阶段处理。
+ */
+final class StatementBatch {
+
+    static final byte PARSED = 0;
+    static final byte MALFORMED = 1;
+    static final byte INVALID = 2;
+    static final byte DUPLICATE = 3;
+    static final byte UNIDENTIFIED = 4;
+    /** 已占用幂等键并完成核销，等待写入付款日志 */
+    static final byte MATCHED = 5;
+    /** 已交给付款日志，幂等键由落盘结果完成或释放 */
+    static final byte APPENDED = 6;
+    static final byte RELEASED = 7;
+
+    /** 流结束标记 */
+    static final StatementBatch END = new StatementBatch(null, 0);
+
+    final ByteBuffer buffer;
+    final long[] offsets;
+    final long[] customerIds;
+    final long[] amountCents;
+    final int[] valueDays;
+    final int[] referenceStarts;
+    final int[] referenceLengths;
+    final byte[] states;
+    final byte[] matchTypes;
+    final String[] references;
+    /** 匹配阶段的核销结果，记录未能落盘时据此撤销 */
+    final AllocationResult[] allocations;
+
+    int size;
+    /** 本批最后一行之后的文件偏移，作为检查点 */
+    long endOffset;
+
+    StatementBatch(ByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.offsets = new long[capacity];
+        this.customerIds = new long[capacity];
+        this.amountCents = new long[capacity];
+        this.valueDays = new int[capacity];
+        this.referenceStarts = new int[capacity];
+        this.referenceLengths = new int[capacity];
+        this.states = new byte[capacity];
+        this.matchTypes = new byte[capacity];
+        this.references = new String[capacity];
+        this.allocations = new AllocationResult[capacity];
+    }
+
+    boolean isFull() {
+        return size == offsets.length;
+    }
+}
@@ -0,0 +1,86 @@
+package com.creditcontrol.payment.statement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流水导入检查点
+ * 按流水内容标识命名，记录已写入付款日志的最后一行之后的文件偏移、当时的文件大小 (用于识别文件被替换)、
+ * 未认领款项文件的有效长度和保存时间。先写临时文件再原子改名，崩溃后总能读到完整的旧值或新值。
+ */
+public final class StatementCheckpoint {
+
+    private static final int BYTES = 32;
+
+    private final Path path;
+    private final Path tempPath;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+
+    private long offset;
+    private long unappliedBytes;
+    private long savedAt;
+
+    public StatementCheckpoint(Path directory, String statementKey) {
+        this.path = directory.resolve(statementKey + ".checkpoint");
+        this.tempPath = directory.resolve(statementKey + ".checkpoint.tmp");
+    }
+
+    /**
+     * 读取检查点，不存在、格式不符或文件大小不一致时返回false
+     */
+    public boolean load(long fileSize) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (content.remaining() != BYTES) {
+            return false;
+        }
+        long loadedOffset = content.getLong();
+        long recordedSize = content.getLong();
+        if (recordedSize != fileSize || loadedOffset > fileSize) {
+            return false;
+        }
+        offset = loadedOffset;
+        unappliedBytes = content.getLong();
+        savedAt = content.getLong();
+        return true;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getUnappliedBytes() {
+        return unappliedBytes;
+    }
+
+    /**
+     * 保存时间，检查点之后写入付款日志的记录不会早于这一天的日志分段
+     */
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    void save(long offset, long fileSize, long unappliedBytes) throws IOException {
+        long now = System.currentTimeMillis();
+        buffer.clear();
+        buffer.putLong(offset).putLong(fileSize).putLong(unappliedBytes).putLong(now).flip();
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        this.offset = offset;
+        this.unappliedBytes = unappliedBytes;
+        this.savedAt = now;
+    }
+}
@@ -0,0 +1,17 @@
+package com.creditcontrol.payment.statement;
+
+/**
+ * 银行流水文件格式
+ */
+public enum StatementFormat {
+
+    /**
+     * 定长格式，字段位置见 {@link StatementLineParser}
+     */
+    FIXED_WIDTH,
+
+    /**
+     * 逗号分隔: 起息日(yyyy-MM-dd),客户ID,金额,附言
+     */
+    CSV
+}
@@ -0,0 +1,654 @@
+package com.creditcontrol.payment.statement;
+
+import com.creditcontrol.payment.allocation.AllocationResult;
+import com.creditcontrol.payment.allocation.MatchType;
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.exception.PaymentJournalException;
+import com.creditcontrol.payment.exception.PaymentRejectedException;
+import com.creditcontrol.payment.idempotency.IdempotencyLookup;
+import com.creditcontrol.payment.idempotency.IdempotencyStore;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个流水文件的导入任务
+ * 流水线: 解析 → 校验 → 去重+核销 → 写入付款日志，每个阶段一个线程，阶段之间用有界队列传递批次。
+ * 文件按窗口内存映射，解析线程直接在映射缓冲区上工作。每批写入付款日志并刷盘后更新检查点。
+ * 流水以文件内容的SHA-256标识，写入付款日志的记录带有流水标识和行偏移: 崩溃后从检查点继续时，
+ * 先扫描检查点之后的日志分段找出已落盘的行并跳过，幂等键 (内部前缀+流水标识+行偏移) 只用于识别重复导入。
+ * 无法识别客户的收款写入未认领款项文件。
+ */
+@Slf4j
+public class StatementImportJob {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private static final int MAX_LOGGED_REJECTS = 20;
+    private static final int MAX_REFERENCE_BYTES = 140;
+    private static final long APPEND_RETRY_MS = 5;
+    private static final MatchType[] MATCH_TYPES = MatchType.values();
+    private static final int HASH_BUFFER_BYTES = 1024 * 1024;
+
+    private final StatementImporter importer;
+    private final String importId;
+    private final Path file;
+    private final String fileName;
+    private final StatementFormat format;
+    private final boolean resume;
+
+    private final BlockingQueue<StatementBatch> validateQueue;
+    private final BlockingQueue<StatementBatch> matchQueue;
+    private final BlockingQueue<StatementBatch> persistQueue;
+    private final Stage[] stages;
+    private final byte[] referenceScratch = new byte[MAX_REFERENCE_BYTES * 4];
+    private final int latestValueDay = (int) LocalDate.now(ZoneOffset.UTC).plusDays(1).toEpochDay();
+
+    private final AtomicLong parsedRecords = new AtomicLong();
+    private final AtomicLong rejectedRecords = new AtomicLong();
+    private final AtomicLong unidentifiedRecords = new AtomicLong();
+    private final AtomicLong duplicateRecords = new AtomicLong();
+    private final AtomicLong persistedRecords = new AtomicLong();
+    private final AtomicLongArray matchTypeCounts = new AtomicLongArray(MATCH_TYPES.length);
+    private final AtomicInteger loggedRejects = new AtomicInteger();
+    /** 检查点之后已写入付款日志的行偏移，在各阶段线程启动前填充 */
+    private final Set<Long> persistedOffsets = new HashSet<>();
+
+    private StatementCheckpoint checkpoint;
+    private UnappliedCashFile unappliedCash;
+    private long statementId;
+    private volatile String statementKey;
+    private Thread coordinator;
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile long fileSize;
+    private volatile long startOffset;
+    private volatile long checkpointOffset;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    StatementImportJob(StatementImporter importer, String importId, Path file, StatementFormat format,
+                       boolean resume) {
+        this.importer = importer;
+        this.importId = importId;
+        this.file = file;
+        this.fileName = file.getFileName().toString();
+        this.format = format;
+        this.resume = resume;
+        this.validateQueue = new ArrayBlockingQueue<>(importer.queueCapacity);
+        this.matchQueue = new ArrayBlockingQueue<>(importer.queueCapacity);
+        this.persistQueue = new ArrayBlockingQueue<>(importer.queueCapacity);
+        this.stages = new Stage[] {
+                new Stage("validate", validateQueue, matchQueue, this::validate),
+                new Stage("match", matchQueue, persistQueue, this::match),
+                new Stage("persist", persistQueue, null, this::persist)
+        };
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        coordinator = new Thread(this::run, "statement-import-" + importId);
+        coordinator.start();
+    }
+
+    /**
+     * 取消导入，已写入付款日志的记录保留，检查点停在最后完成的批次
+     */
+    public void cancel() {
+        abort(State.CANCELLED, null);
+    }
+
+    /**
+     * 等待任务结束
+     */
+    public void await(long timeoutMillis) throws InterruptedException {
+        coordinator.join(timeoutMillis);
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public StatementFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 流水内容标识 (SHA-256前128位的十六进制)，计算完成前为null
+     */
+    public String getStatementKey() {
+        return statementKey;
+    }
+
+    /**
+     * 未认领款项文件名，打开前为null
+     */
+    public String getUnappliedFileName() {
+        UnappliedCashFile file = unappliedCash;
+        return file == null ? null : file.getPath().getFileName().toString();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getCheckpointOffset() {
+        return checkpointOffset;
+    }
+
+    public long getParsedRecords() {
+        return parsedRecords.get();
+    }
+
+    public long getRejectedRecords() {
+        return rejectedRecords.get();
+    }
+
+    public long getUnidentifiedRecords() {
+        return unidentifiedRecords.get();
+    }
+
+    public long getDuplicateRecords() {
+        return duplicateRecords.get();
+    }
+
+    public long getPersistedRecords() {
+        return persistedRecords.get();
+    }
+
+    public long getMatchTypeCount(MatchType matchType) {
+        return matchTypeCounts.get(matchType.ordinal());
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * 解析速度 (记录/秒)，运行中按当前时间计算
+     */
+    public long getRecordsPerSecond() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        return parsedRecords.get() * 1000 / Math.max(1, end - startedAt);
+    }
+
+    private void run() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            identify(channel);
+            checkpoint = new StatementCheckpoint(importer.checkpointPath(), statementKey);
+            boolean resumed = resume && checkpoint.load(fileSize);
+            startOffset = resumed ? checkpoint.getOffset() : 0L;
+            unappliedCash = new UnappliedCashFile(importer.unappliedPath().resolve("unapplied-" + statementKey + ".csv"),
+                    resumed ? checkpoint.getUnappliedBytes() : 0L);
+            if (resumed && startOffset < fileSize) {
+                recoverPersisted(checkpoint.getSavedAt());
+            }
+            // 写入第一批之前先保存检查点，恢复时总能确定从哪天的日志分段开始扫描
+            checkpoint.save(startOffset, fileSize, unappliedCash.flush());
+            checkpointOffset = startOffset;
+            log.info("STATEMENT_IMPORT_STARTED: importId: {}, file: {}, statement: {}, format: {}, fileSize: {}, "
+                            + "startOffset: {}, recoveredRecords: {}",
+                    importId, fileName, statementKey, format, fileSize, startOffset, persistedOffsets.size());
+
+            for (Stage stage : stages) {
+                stage.thread = new Thread(stage, "statement-" + stage.name + "-" + importId);
+                stage.thread.start();
+            }
+            parse(channel);
+            validateQueue.put(StatementBatch.END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+
+        awaitStages();
+        if (state != State.RUNNING) {
+            releaseReservations();
+        }
+        closeUnappliedCash();
+        synchronized (this) {
+            if (state == State.RUNNING) {
+                state = State.COMPLETED;
+            }
+        }
+        finishedAt = System.currentTimeMillis();
+        log.info("STATEMENT_IMPORT_FINISHED: importId: {}, state: {}, parsed: {}, persisted: {}, rejected: {}, "
+                        + "unidentified: {}, duplicates: {}, checkpoint: {}/{}, recordsPerSecond: {}",
+                importId, state, parsedRecords.get(), persistedRecords.get(), rejectedRecords.get(),
+                unidentifiedRecords.get(), duplicateRecords.get(), checkpointOffset, fileSize, getRecordsPerSecond());
+    }
+
+    /**
+     * 计算文件内容的SHA-256，前64位作为写入付款日志的流水标识，前128位作为检查点和幂等键的流水键
+     */
+    private void identify(FileChannel channel) throws IOException {
+        long startTime = System.currentTimeMillis();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_BYTES);
+        long position = 0;
+        while (position < fileSize) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Statement file " + fileName + " was truncated while importing");
+            }
+            position += read;
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        byte[] hash = digest.digest();
+        long id = ByteBuffer.wrap(hash).getLong();
+        statementId = id == 0 ? 1 : id;
+        statementKey = HexFormat.of().formatHex(hash, 0, 16);
+        log.info("STATEMENT_IDENTIFIED: importId: {}, statement: {}, duration: {}ms",
+                importId, statementKey, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 扫描检查点保存之后的付款日志分段，记下本流水在检查点之后已落盘的行 (崩溃发生在日志刷盘与检查点之间)
+     */
+    private void recoverPersisted(long checkpointSavedAt) throws IOException {
+        LocalDate firstDay = PaymentJournal.dayOf(checkpointSavedAt);
+        for (LocalDate day : importer.journal.segmentDays()) {
+            if (day.isBefore(firstDay)) {
+                continue;
+            }
+            importer.journal.replay(day, record -> {
+                if (record.getStatementId() == statementId && record.getStatementOffset() >= startOffset) {
+                    persistedOffsets.add(record.getStatementOffset());
+                }
+            });
+        }
+        if (!persistedOffsets.isEmpty()) {
+            log.warn("STATEMENT_IMPORT_RECOVERED: importId: {}, statement: {}, alreadyPersisted: {}",
+                    importId, statementKey, persistedOffsets.size());
+        }
+    }
+
+    /**
+     * 按窗口映射文件并逐行解析；窗口末尾不完整的行留到下一个窗口从行首重新映射
+     */
+    private void parse(FileChannel channel) throws IOException, InterruptedException {
+        StatementLineParser parser = StatementLineParser.forFormat(format);
+        long windowBytes = Math.min(importer.mapWindowBytes, Integer.MAX_VALUE - 8);
+        long position = startOffset;
+
+        while (position < fileSize) {
+            long length = Math.min(windowBytes, fileSize - position);
+            boolean lastWindow = position + length == fileSize;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int limit = (int) length;
+            int lineStart = 0;
+            int batchStart = 0;
+            StatementBatch batch = new StatementBatch(window, importer.batchSize);
+
+            while (lineStart < limit) {
+                int lineEnd = indexOfNewline(window, lineStart, limit);
+                if (lineEnd < 0 && !lastWindow) {
+                    break;
+                }
+                int next = lineEnd < 0 ? limit : lineEnd + 1;
+                if (lineEnd < 0) {
+                    lineEnd = limit;
+                }
+                int contentEnd = lineEnd > lineStart && window.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                long lineOffset = position + lineStart;
+
+                if (!parser.skip(window, lineStart, contentEnd, lineOffset)) {
+                    int index = batch.size++;
+                    batch.offsets[index] = lineOffset;
+                    batch.states[index] = parser.parse(window, lineStart, contentEnd, batch, index)
+                            ? StatementBatch.PARSED
+                            : StatementBatch.MALFORMED;
+                }
+                lineStart = next;
+                if (batch.isFull()) {
+                    emit(batch, position + lineStart);
+                    batch = new StatementBatch(window, importer.batchSize);
+                    batchStart = lineStart;
+                }
+            }
+
+            if (lineStart == 0) {
+                throw new IOException("Line at offset " + position + " exceeds the mapping window of "
+                        + windowBytes + " bytes");
+            }
+            if (lineStart > batchStart) {
+                emit(batch, position + lineStart);
+            }
+            position += lineStart;
+        }
+    }
+
+    private void emit(StatementBatch batch, long endOffset) throws InterruptedException {
+        batch.endOffset = endOffset;
+        parsedRecords.addAndGet(batch.size);
+        validateQueue.put(batch);
+    }
+
+    private void validate(StatementBatch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            if (batch.states[i] == StatementBatch.MALFORMED) {
+                reject(batch, i, "malformed line");
+            } else if (batch.amountCents[i] <= 0) {
+                reject(batch, i, "amount must be positive");
+            } else if (batch.valueDays[i] > latestValueDay) {
+                reject(batch, i, "value date is in the future");
+            } else if (batch.referenceLengths[i] > MAX_REFERENCE_BYTES) {
+                batch.referenceLengths[i] = MAX_REFERENCE_BYTES;
+            }
+        }
+    }
+
+    /**
+     * 占用幂等键后核销；已落盘过的行 (崩溃前检查点之后的批次，或同一内容已导入过) 跳过
+     */
+    private void match(StatementBatch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            if (batch.states[i] != StatementBatch.PARSED) {
+                continue;
+            }
+            if (!persistedOffsets.isEmpty() && persistedOffsets.contains(batch.offsets[i])) {
+                batch.states[i] = StatementBatch.DUPLICATE;
+                duplicateRecords.incrementAndGet();
+                continue;
+            }
+            String reference = decodeReference(batch, i);
+            batch.references[i] = reference;
+            String key = idempotencyKey(batch.offsets[i]);
+            IdempotencyLookup lookup = importer.idempotencyStore.reserve(key, batch.customerIds[i], batch.amountCents[i],
+                    PaymentMethod.BANK_TRANSFER, reference);
+            if (lookup.getOutcome() != IdempotencyLookup.Outcome.RESERVED) {
+                batch.states[i] = StatementBatch.DUPLICATE;
+                duplicateRecords.incrementAndGet();
+                continue;
+            }
+
+            Long customerId = batch.customerIds[i] == 0 ? null : batch.customerIds[i];
+            AllocationResult result = importer.engine.allocate(customerId, batch.amountCents[i], reference);
+            if (result.getCustomerId() == null) {
+                importer.idempotencyStore.release(key);
+                batch.states[i] = StatementBatch.UNIDENTIFIED;
+                unidentifiedRecords.incrementAndGet();
+                continue;
+            }
+            batch.customerIds[i] = result.getCustomerId();
+            batch.allocations[i] = result;
+            batch.matchTypes[i] = (byte) result.getMatchType().ordinal();
+            batch.states[i] = StatementBatch.MATCHED;
+            matchTypeCounts.incrementAndGet(result.getMatchType().ordinal());
+        }
+    }
+
+    /**
+     * 整批交给付款日志，未认领款项写入单独的文件，全部刷盘后更新检查点
+     */
+    private void persist(StatementBatch batch) throws IOException, InterruptedException {
+        List<CompletableFuture<PaymentRecord>> futures = new ArrayList<>(batch.size);
+        for (int i = 0; i < batch.size; i++) {
+            if (batch.states[i] == StatementBatch.UNIDENTIFIED) {
+                unappliedCash.add(batch.offsets[i], batch.valueDays[i], batch.amountCents[i], batch.references[i]);
+                continue;
+            }
+            if (batch.states[i] != StatementBatch.MATCHED) {
+                continue;
+            }
+            PaymentRecord record = PaymentRecord.builder()
+                    .paymentId(importer.idGenerator.nextId())
+                    .customerId(batch.customerIds[i])
+                    .amountCents(batch.amountCents[i])
+                    .method(PaymentMethod.BANK_TRANSFER)
+                    .status(PaymentStatus.PROCESSING)
+                    .reference(batch.references[i])
+                    .statementId(statementId)
+                    .statementOffset(batch.offsets[i])
+                    .valueEpochDay(batch.valueDays[i])
+                    .build();
+            CompletableFuture<PaymentRecord> persisted = append(record);
+            batch.states[i] = StatementBatch.APPENDED;
+
+            String key = idempotencyKey(batch.offsets[i]);
+            AllocationResult allocation = batch.allocations[i];
+            persisted.whenComplete((committed, failure) -> {
+                if (failure == null) {
+                    importer.idempotencyStore.complete(key, committed);
+                } else {
+                    // 未落盘的行恢复导入时会重新核销，先撤销这次核销
+                    importer.engine.reverse(allocation);
+                    importer.idempotencyStore.release(key);
+                }
+            });
+            futures.add(persisted);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException e) {
+            throw new PaymentJournalException("Failed to persist statement batch ending at offset " + batch.endOffset,
+                    e.getCause());
+        }
+        persistedRecords.addAndGet(futures.size());
+        checkpoint.save(batch.endOffset, fileSize, unappliedCash.flush());
+        checkpointOffset = batch.endOffset;
+    }
+
+    /**
+     * 接收队列已满时退避重试，不丢弃流水记录
+     */
+    private CompletableFuture<PaymentRecord> append(PaymentRecord record) throws InterruptedException {
+        while (true) {
+            try {
+                return importer.ingestionService.append(record);
+            } catch (PaymentRejectedException e) {
+                Thread.sleep(APPEND_RETRY_MS);
+            }
+        }
+    }
+
+    private String decodeReference(StatementBatch batch, int index) {
+        int length = batch.referenceLengths[index];
+        if (length == 0) {
+            return null;
+        }
+        batch.buffer.get(batch.referenceStarts[index], referenceScratch, 0, length);
+        return new String(referenceScratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private String idempotencyKey(long lineOffset) {
+        return IdempotencyStore.INTERNAL_KEY_PREFIX + "statement:" + statementKey + ":" + lineOffset;
+    }
+
+    private void closeUnappliedCash() {
+        if (unappliedCash == null) {
+            return;
+        }
+        try {
+            unappliedCash.close();
+        } catch (IOException e) {
+            log.warn("STATEMENT_UNAPPLIED_CLOSE_FAILED: importId: {} - {}", importId, e.getMessage());
+        }
+    }
+
+    private void reject(StatementBatch batch, int index, String reason) {
+        batch.states[index] = batch.states[index] == StatementBatch.MALFORMED
+                ? StatementBatch.MALFORMED
+                : StatementBatch.INVALID;
+        rejectedRecords.incrementAndGet();
+        if (loggedRejects.incrementAndGet() <= MAX_LOGGED_REJECTS) {
+            log.warn("STATEMENT_RECORD_REJECTED: importId: {}, offset: {}, reason: {}",
+                    importId, batch.offsets[index], reason);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        log.error("STATEMENT_IMPORT_FAILED: importId: {} - {}", importId, cause.getMessage(), cause);
+        abort(State.FAILED, cause.getMessage());
+    }
+
+    private synchronized void abort(State terminal, String message) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        state = terminal;
+        error = message;
+        coordinator.interrupt();
+        for (Stage stage : stages) {
+            if (stage.thread != null) {
+                stage.thread.interrupt();
+            }
+        }
+    }
+
+    private void awaitStages() {
+        boolean interrupted = false;
+        for (Stage stage : stages) {
+            while (stage.thread != null && stage.thread.isAlive()) {
+                try {
+                    stage.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 任务中止后撤销已核销但未交给付款日志的行并释放其幂等键，
+     * 否则恢复导入时这些行会被误判为重复，或同一笔款项被核销两次
+     */
+    private void releaseReservations() {
+        List<StatementBatch> pending = new ArrayList<>();
+        persistQueue.drainTo(pending);
+        for (Stage stage : stages) {
+            if (stage.current != null) {
+                pending.add(stage.current);
+            }
+        }
+        for (StatementBatch batch : pending) {
+            for (int i = 0; i < batch.size; i++) {
+                if (batch.states[i] == StatementBatch.MATCHED) {
+                    importer.engine.reverse(batch.allocations[i]);
+                    importer.idempotencyStore.release(idempotencyKey(batch.offsets[i]));
+                    batch.states[i] = StatementBatch.RELEASED;
+                }
+            }
+        }
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    private interface BatchStep {
+        void process(StatementBatch batch) throws Exception;
+    }
+
+    /**
+     * 流水线阶段: 从输入队列取批次，处理后放入下一阶段的队列
+     */
+    private final class Stage implements Runnable {
+
+        final String name;
+        final BlockingQueue<StatementBatch> input;
+        final BlockingQueue<StatementBatch> output;
+        final BatchStep step;
+        volatile Thread thread;
+        /** 正在处理、尚未交给下一阶段的批次 */
+        volatile StatementBatch current;
+
+        Stage(String name, BlockingQueue<StatementBatch> input, BlockingQueue<StatementBatch> output, BatchStep step) {
+            this.name = name;
+            this.input = input;
+            this.output = output;
+            this.step = step;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    StatementBatch batch = input.take();
+                    if (batch == StatementBatch.END) {
+                        if (output != null) {
+                            output.put(batch);
+                        }
+                        return;
+                    }
+                    current = batch;
+                    step.process(batch);
+                    if (output != null) {
+                        output.put(batch);
+                    }
+                    current = null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+    }
+}
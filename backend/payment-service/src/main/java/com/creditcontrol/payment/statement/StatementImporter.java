@@ -0,0 +1,73 @@
+package com.creditcontrol.payment.statement;
+
+import com.creditcontrol.payment.allocation.CashApplicationEngine;
+import com.creditcontrol.payment.idempotency.IdempotencyStore;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.service.PaymentIdGenerator;
+import com.creditcontrol.payment.service.PaymentIngestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 银行流水导入器
+ * 持有流水线各阶段共用的组件和参数，为每个文件创建一个 {@link StatementImportJob}
+ */
+@Component
+public class StatementImporter {
+
+    @Autowired
+    CashApplicationEngine engine;
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
+
+    @Autowired
+    PaymentIngestionService ingestionService;
+
+    @Autowired
+    PaymentIdGenerator idGenerator;
+
+    @Autowired
+    PaymentJournal journal;
+
+    @Value("${creditcontrol.payment.statement.batch-size:4096}")
+    int batchSize;
+
+    @Value("${creditcontrol.payment.statement.queue-capacity:8}")
+    int queueCapacity;
+
+    @Value("${creditcontrol.payment.statement.map-window-bytes:268435456}")
+    long mapWindowBytes;
+
+    @Value("${creditcontrol.payment.statement.checkpoint-directory:data/statements/checkpoints}")
+    private String checkpointDirectory;
+
+    @Value("${creditcontrol.payment.statement.unapplied-directory:data/statements/unapplied}")
+    private String unappliedDirectory;
+
+    /**
+     * 启动导入任务，resume为true时从检查点继续
+     */
+    public StatementImportJob start(String importId, Path file, StatementFormat format, boolean resume)
+            throws IOException {
+        Files.createDirectories(checkpointPath());
+        Files.createDirectories(unappliedPath());
+        StatementImportJob job = new StatementImportJob(this, importId, file, format, resume);
+        job.start();
+        return job;
+    }
+
+    Path checkpointPath() {
+        return Paths.get(checkpointDirectory);
+    }
+
+    Path unappliedPath() {
+        return Paths.get(unappliedDirectory);
+    }
+}
@@ -0,0 +1,233 @@
+package com.creditcontrol.payment.statement;
+
+import java.nio.ByteBuffer;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * 流水行解析器
+ * 直接在映射缓冲区上按字节解析，不为每行创建字符串。解析器有内部状态，每个导入任务使用独立实例。
+ * <pre>
+ * 定长格式 (位置从0开始):
+ *   0   8位   起息日 yyyyMMdd
+ *   8   12位  客户ID，左补0，全0表示未识别
+ *   20  15位  金额(分)，左补0
+ *   35  其余  附言，右补空格
+ * CSV格式:
+ *   起息日(yyyy-MM-dd),客户ID(可空),金额(最多两位小数),附言(可空，可用双引号包围)
+ *   文件第一行不是数字开头时视为表头跳过
+ * </pre>
+ */
+abstract class StatementLineParser {
+
+    static final int INVALID_DAY = Integer.MIN_VALUE;
+
+    static StatementLineParser forFormat(StatementFormat format) {
+        return format == StatementFormat.CSV ? new CsvParser() : new FixedWidthParser();
+    }
+
+    /**
+     * 是否跳过该行 (空行、表头)
+     */
+    boolean skip(ByteBuffer buffer, int start, int end, long fileOffset) {
+        return start == end;
+    }
+
+    /**
+     * 把 [start, end) 一行解析到批次的第index条，格式错误返回false
+     */
+    abstract boolean parse(ByteBuffer buffer, int start, int end, StatementBatch batch, int index);
+
+    /**
+     * 解析纯数字字段，为空或含非数字字符时返回-1
+     */
+    static long parseDigits(ByteBuffer buffer, int start, int end) {
+        if (start >= end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 公历日期转换为epoch day，日期不合法时返回 {@link #INVALID_DAY}
+     */
+    static int epochDay(long year, long month, long day) {
+        if (year < 1900 || year > 9999 || month < 1 || month > 12 || day < 1
+                || day > Month.of((int) month).length(Year.isLeap(year))) {
+            return INVALID_DAY;
+        }
+        // days-from-civil
+        long y = month <= 2 ? year - 1 : year;
+        long era = y / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (int) (era * 146097 + dayOfEra - 719468);
+    }
+
+    static int trimStart(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static final class FixedWidthParser extends StatementLineParser {
+
+        private static final int CUSTOMER_START = 8;
+        private static final int AMOUNT_START = 20;
+        private static final int REFERENCE_START = 35;
+
+        @Override
+        boolean parse(ByteBuffer buffer, int start, int end, StatementBatch batch, int index) {
+            if (end - start < REFERENCE_START) {
+                return false;
+            }
+            long date = parseDigits(buffer, start, start + CUSTOMER_START);
+            long customerId = parseDigits(buffer, start + CUSTOMER_START, start + AMOUNT_START);
+            long amount = parseDigits(buffer, start + AMOUNT_START, start + REFERENCE_START);
+            int valueDay = date < 0 ? INVALID_DAY : epochDay(date / 10000, date / 100 % 100, date % 100);
+            if (valueDay == INVALID_DAY || customerId < 0 || amount < 0) {
+                return false;
+            }
+
+            int referenceStart = trimStart(buffer, start + REFERENCE_START, end);
+            batch.customerIds[index] = customerId;
+            batch.amountCents[index] = amount;
+            batch.valueDays[index] = valueDay;
+            batch.referenceStarts[index] = referenceStart;
+            batch.referenceLengths[index] = trimEnd(buffer, referenceStart, end) - referenceStart;
+            return true;
+        }
+    }
+
+    private static final class CsvParser extends StatementLineParser {
+
+        private static final int FIELDS = 4;
+
+        private final int[] fieldStarts = new int[FIELDS];
+        private final int[] fieldEnds = new int[FIELDS];
+
+        @Override
+        boolean skip(ByteBuffer buffer, int start, int end, long fileOffset) {
+            if (start == end) {
+                return true;
+            }
+            byte first = buffer.get(start);
+            return fileOffset == 0 && (first < '0' || first > '9');
+        }
+
+        @Override
+        boolean parse(ByteBuffer buffer, int start, int end, StatementBatch batch, int index) {
+            int fields = split(buffer, start, end);
+            if (fields < FIELDS - 1) {
+                return false;
+            }
+
+            int valueDay = parseDate(buffer, fieldStarts[0], fieldEnds[0]);
+            long customerId = fieldStarts[1] == fieldEnds[1] ? 0 : parseDigits(buffer, fieldStarts[1], fieldEnds[1]);
+            long amount = parseAmount(buffer, fieldStarts[2], fieldEnds[2]);
+            if (valueDay == INVALID_DAY || customerId < 0 || amount < 0) {
+                return false;
+            }
+
+            batch.customerIds[index] = customerId;
+            batch.amountCents[index] = amount;
+            batch.valueDays[index] = valueDay;
+            batch.referenceStarts[index] = fields == FIELDS ? fieldStarts[3] : end;
+            batch.referenceLengths[index] = fields == FIELDS ? fieldEnds[3] - fieldStarts[3] : 0;
+            return true;
+        }
+
+        /**
+         * 切分字段并去掉首尾空格和包围的双引号，返回字段数，格式错误或字段过多时返回-1
+         */
+        private int split(ByteBuffer buffer, int start, int end) {
+            int field = 0;
+            int position = start;
+            while (true) {
+                if (field == FIELDS) {
+                    return -1;
+                }
+                position = trimStart(buffer, position, end);
+                int fieldEnd;
+                int next;
+                if (position < end && buffer.get(position) == '"') {
+                    int close = position + 1;
+                    while (close < end && buffer.get(close) != '"') {
+                        close++;
+                    }
+                    if (close == end) {
+                        return -1;
+                    }
+                    fieldStarts[field] = position + 1;
+                    fieldEnd = close;
+                    next = trimStart(buffer, close + 1, end);
+                    if (next < end && buffer.get(next) != ',') {
+                        return -1;
+                    }
+                } else {
+                    next = position;
+                    while (next < end && buffer.get(next) != ',') {
+                        next++;
+                    }
+                    fieldStarts[field] = position;
+                    fieldEnd = trimEnd(buffer, position, next);
+                }
+                fieldEnds[field++] = fieldEnd;
+                if (next >= end) {
+                    return field;
+                }
+                position = next + 1;
+            }
+        }
+
+        private static int parseDate(ByteBuffer buffer, int start, int end) {
+            if (end - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+                return INVALID_DAY;
+            }
+            long year = parseDigits(buffer, start, start + 4);
+            long month = parseDigits(buffer, start + 5, start + 7);
+            long day = parseDigits(buffer, start + 8, end);
+            return year < 0 || month < 0 || day < 0 ? INVALID_DAY : epochDay(year, month, day);
+        }
+
+        /**
+         * 解析十进制金额为分，最多两位小数，格式错误返回-1
+         */
+        private static long parseAmount(ByteBuffer buffer, int start, int end) {
+            int point = start;
+            while (point < end && buffer.get(point) != '.') {
+                point++;
+            }
+            long units = parseDigits(buffer, start, point);
+            if (units < 0 || units > 9_999_999_999_999L) {
+                return -1;
+            }
+            if (point == end) {
+                return units * 100;
+            }
+            int fractionDigits = end - point - 1;
+            long fraction = fractionDigits == 0 ? 0 : parseDigits(buffer, point + 1, end);
+            if (fractionDigits > 2 || fraction < 0) {
+                return -1;
+            }
+            return units * 100 + (fractionDigits == 1 ? fraction * 10 : fraction);
+        }
+    }
+}
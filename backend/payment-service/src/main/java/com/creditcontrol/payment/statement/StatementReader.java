@@ -0,0 +1,94 @@
+package com.creditcontrol.payment.statement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流水文件顺序读取器
+ * 与导入任务使用同一解析器，按窗口内存映射后逐行回调，附言以缓冲区位置给出，不创建字符串。
+ * 供对账等只读场景使用，格式错误的行计数后跳过。
+ */
+public final class StatementReader {
+
+    private static final int BATCH_SIZE = 1;
+
+    /**
+     * 已解析的一行流水
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+
+        void accept(long lineOffset, long customerId, long amountCents, int valueEpochDay,
+                    ByteBuffer buffer, int referenceStart, int referenceLength);
+    }
+
+    private StatementReader() {
+    }
+
+    /**
+     * 读取整个文件，返回格式错误的行数
+     */
+    public static long read(Path file, StatementFormat format, long mapWindowBytes, LineConsumer consumer)
+            throws IOException {
+        StatementLineParser parser = StatementLineParser.forFormat(format);
+        long malformed = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long windowBytes = Math.min(mapWindowBytes, Integer.MAX_VALUE - 8);
+            long position = 0;
+
+            while (position < fileSize) {
+                long length = Math.min(windowBytes, fileSize - position);
+                boolean lastWindow = position + length == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                StatementBatch line = new StatementBatch(window, BATCH_SIZE);
+                int limit = (int) length;
+                int lineStart = 0;
+
+                while (lineStart < limit) {
+                    int lineEnd = indexOfNewline(window, lineStart, limit);
+                    if (lineEnd < 0 && !lastWindow) {
+                        break;
+                    }
+                    int next = lineEnd < 0 ? limit : lineEnd + 1;
+                    if (lineEnd < 0) {
+                        lineEnd = limit;
+                    }
+                    int contentEnd = lineEnd > lineStart && window.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                    long lineOffset = position + lineStart;
+
+                    if (!parser.skip(window, lineStart, contentEnd, lineOffset)) {
+                        if (parser.parse(window, lineStart, contentEnd, line, 0)) {
+                            consumer.accept(lineOffset, line.customerIds[0], line.amountCents[0], line.valueDays[0],
+                                    window, line.referenceStarts[0], line.referenceLengths[0]);
+                        } else {
+                            malformed++;
+                        }
+                    }
+                    lineStart = next;
+                }
+
+                if (lineStart == 0) {
+                    throw new IOException("Line at offset " + position + " exceeds the mapping window of "
+                            + windowBytes + " bytes");
+                }
+                position += lineStart;
+            }
+        }
+        return malformed;
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.creditcontrol.payment.statement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * 未认领款项文件 (CSV)
+ * 每个流水一个文件，记录无法识别客户的收款: 行偏移、起息日、金额和附言，供人工认领。
+ * 每批追加后刷盘，文件长度记入检查点；恢复导入时先截断到检查点中的长度，检查点之后的行重新写入，不会重复。
+ */
+final class UnappliedCashFile implements Closeable {
+
+    private static final String HEADER = "line_offset,value_date,amount,reference\n";
+
+    private final Path path;
+    private final FileChannel channel;
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * 打开文件并截断到给定长度 (0表示重新开始)
+     */
+    UnappliedCashFile(Path path, long validBytes) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validBytes) {
+            channel.truncate(validBytes);
+        }
+        channel.position(channel.size());
+        if (channel.size() == 0) {
+            pending.append(HEADER);
+        }
+    }
+
+    void add(long lineOffset, int valueEpochDay, long amountCents, String reference) {
+        pending.append(lineOffset).append(',')
+                .append(LocalDate.ofEpochDay(valueEpochDay)).append(',')
+                .append(BigDecimal.valueOf(amountCents, 2).toPlainString()).append(',');
+        if (reference != null) {
+            pending.append('"').append(reference.replace("\"", "\"\"")).append('"');
+        }
+        pending.append('\n');
+    }
+
+    /**
+     * 写入本批的记录并刷盘，返回文件的有效长度
+     */
+    long flush() throws IOException {
+        if (pending.length() > 0) {
+            ByteBuffer bytes = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+            pending.setLength(0);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        return channel.size();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
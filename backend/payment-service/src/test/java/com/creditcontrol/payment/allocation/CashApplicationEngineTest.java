@@ -0,0 +1,67 @@
+package com.creditcontrol.payment.allocation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 核销与撤销核销
+ */
+class CashApplicationEngineTest {
+
+    private static final long CUSTOMER = 1001L;
+
+    private CashApplicationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new CashApplicationEngine();
+        ReflectionTestUtils.setField(engine, "maxCombinationCandidates", 500);
+        engine.addOpenItem(CUSTOMER, "INV-1", 10_000L, 100);
+        engine.addOpenItem(CUSTOMER, "INV-2", 5_000L, 110);
+    }
+
+    @Test
+    void reversesFullyPaidItems() {
+        AllocationResult result = engine.allocate(CUSTOMER, 12_000L, null);
+        assertThat(result.getMatchType()).isEqualTo(MatchType.OLDEST_FIRST);
+        assertThat(engine.getOpenItems(CUSTOMER)).extracting(OpenItem::getOutstandingCents).containsExactly(3_000L);
+        assertThat(engine.getOpenItemCount()).isEqualTo(1);
+
+        engine.reverse(result);
+
+        assertThat(engine.getOpenItems(CUSTOMER)).extracting(OpenItem::getOutstandingCents)
+                .containsExactly(10_000L, 5_000L);
+        assertThat(engine.getOpenItemCount()).isEqualTo(2);
+        // 撤销后的未结项仍可按发票号和金额匹配
+        assertThat(engine.allocate(CUSTOMER, 1_000L, "INV-1").getMatchType()).isEqualTo(MatchType.REFERENCE);
+        assertThat(engine.allocate(CUSTOMER, 5_000L, null).getMatchType()).isEqualTo(MatchType.EXACT_AMOUNT);
+    }
+
+    @Test
+    void reversesPartialAllocationAfterLaterAllocation() {
+        AllocationResult first = engine.allocate(CUSTOMER, 4_000L, "INV-1");
+        AllocationResult second = engine.allocate(CUSTOMER, 1_000L, "INV-1");
+
+        engine.reverse(first);
+
+        assertThat(engine.getOpenItems(CUSTOMER)).extracting(OpenItem::getOutstandingCents)
+                .containsExactly(9_000L, 5_000L);
+        engine.reverse(second);
+        assertThat(engine.getOpenItems(CUSTOMER)).extracting(OpenItem::getOutstandingCents)
+                .containsExactly(10_000L, 5_000L);
+    }
+
+    @Test
+    void ignoresUnmatchedResults() {
+        AllocationResult unmatched = engine.allocate(null, 7_000L, "no invoice here");
+
+        engine.reverse(unmatched);
+        engine.reverse(null);
+
+        assertThat(engine.getOpenItems(CUSTOMER)).extracting(OpenItem::getOutstandingCents)
+                .containsExactly(10_000L, 5_000L);
+    }
+}
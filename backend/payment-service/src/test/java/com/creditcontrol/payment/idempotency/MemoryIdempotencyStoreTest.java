@@ -0,0 +1,126 @@
+package com.creditcontrol.payment.idempotency;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 幂等键的占用、重放与落盘后的查询
+ */
+class MemoryIdempotencyStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MemoryIdempotencyStore store;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void replaysCompletedResultWithReference() throws IOException {
+        store = open(1000);
+        assertThat(reserve("key-1", 12_345L, "INV-1").getOutcome()).isEqualTo(IdempotencyLookup.Outcome.RESERVED);
+        store.complete("key-1", record(1, 12_345L, "INV-1"));
+
+        IdempotencyLookup replay = reserve("key-1", 12_345L, "INV-1");
+
+        assertThat(replay.getOutcome()).isEqualTo(IdempotencyLookup.Outcome.COMPLETED);
+        assertThat(replay.getRecord()).isEqualTo(record(1, 12_345L, "INV-1"));
+    }
+
+    @Test
+    void reportsInProgressUntilCompletedOrReleased() throws IOException {
+        store = open(1000);
+        reserve("key-1", 100L, null);
+
+        assertThat(reserve("key-1", 100L, null).getOutcome()).isEqualTo(IdempotencyLookup.Outcome.IN_PROGRESS);
+        store.release("key-1");
+        assertThat(reserve("key-1", 100L, null).getOutcome()).isEqualTo(IdempotencyLookup.Outcome.RESERVED);
+    }
+
+    @Test
+    void rejectsDifferentRequestWithSameKey() throws IOException {
+        store = open(1000);
+        reserve("key-1", 100L, "INV-1");
+        store.complete("key-1", record(1, 100L, "INV-1"));
+
+        assertThat(reserve("key-1", 200L, "INV-1").getOutcome()).isEqualTo(IdempotencyLookup.Outcome.MISMATCH);
+        assertThat(reserve("key-1", 100L, "INV-2").getOutcome()).isEqualTo(IdempotencyLookup.Outcome.MISMATCH);
+        assertThat(reserve("key-1", 100L, null).getOutcome()).isEqualTo(IdempotencyLookup.Outcome.MISMATCH);
+    }
+
+    @Test
+    void spillsCurrentBucketWhenOverBudgetAndStillReplays() throws IOException {
+        store = open(2);
+        for (int i = 1; i <= 3; i++) {
+            reserve("key-" + i, 100L * i, "付款 " + i);
+            store.complete("key-" + i, record(i, 100L * i, "付款 " + i));
+        }
+
+        store.maintain();
+
+        assertThat(store.getSpilledBuckets()).isGreaterThanOrEqualTo(1);
+        assertThat(store.getMemoryEntries()).isLessThanOrEqualTo(2L);
+        for (int i = 1; i <= 3; i++) {
+            IdempotencyLookup replay = reserve("key-" + i, 100L * i, "付款 " + i);
+            assertThat(replay.getOutcome()).isEqualTo(IdempotencyLookup.Outcome.COMPLETED);
+            assertThat(replay.getRecord().getReference()).isEqualTo("付款 " + i);
+        }
+        // 落盘后新结果写入新桶
+        reserve("key-4", 400L, null);
+        store.complete("key-4", record(4, 400L, null));
+        assertThat(reserve("key-4", 400L, null).getRecord()).isEqualTo(record(4, 400L, null));
+    }
+
+    @Test
+    void replaysAfterRestartFromSpilledBuckets() throws IOException {
+        store = open(1000);
+        reserve("key-1", 100L, "INV-1");
+        store.complete("key-1", record(1, 100L, "INV-1"));
+        reserve("key-2", 200L, null);
+        store.complete("key-2", record(2, 200L, null));
+        store.close();
+
+        store = open(1000);
+
+        assertThat(store.getSpilledBuckets()).isPositive();
+        assertThat(reserve("key-1", 100L, "INV-1").getRecord()).isEqualTo(record(1, 100L, "INV-1"));
+        assertThat(reserve("key-2", 200L, null).getRecord()).isEqualTo(record(2, 200L, null));
+        assertThat(reserve("key-3", 300L, null).getOutcome()).isEqualTo(IdempotencyLookup.Outcome.RESERVED);
+    }
+
+    private MemoryIdempotencyStore open(long maxMemoryEntries) throws IOException {
+        MemoryIdempotencyStore opened = new MemoryIdempotencyStore(directory, 24, 1, maxMemoryEntries);
+        opened.open();
+        return opened;
+    }
+
+    private IdempotencyLookup reserve(String key, long amountCents, String reference) {
+        return store.reserve(key, 1001L, amountCents, PaymentMethod.BANK_TRANSFER, reference);
+    }
+
+    private static PaymentRecord record(long paymentId, long amountCents, String reference) {
+        return PaymentRecord.builder()
+                .paymentId(paymentId)
+                .customerId(1001L)
+                .amountCents(amountCents)
+                .method(PaymentMethod.BANK_TRANSFER)
+                .status(PaymentStatus.PROCESSING)
+                .timestampMillis(1_772_413_200_000L + paymentId)
+                .reference(reference)
+                .build();
+    }
+}
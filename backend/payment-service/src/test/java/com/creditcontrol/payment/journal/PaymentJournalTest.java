@@ -0,0 +1,189 @@
+package com.creditcontrol.payment.journal;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 付款日志的写入、回放与启动恢复
+ */
+class PaymentJournalTest {
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long TIMESTAMP = LocalDate.of(2026, 3, 2).toEpochDay() * DAY_MILLIS + 3_600_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendedRecordsAndReturnsMaxPaymentId() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            assertThat(journal.open()).isZero();
+            journal.append(List.of(record(1, "INV-1"), record(2, null), record(3, "付款参考")));
+        }
+
+        PaymentJournal reopened = new PaymentJournal(directory);
+        assertThat(reopened.open()).isEqualTo(3L);
+        List<PaymentRecord> replayed = replay(reopened, PaymentJournal.dayOf(TIMESTAMP));
+        assertThat(replayed).containsExactly(record(1, "INV-1"), record(2, null), record(3, "付款参考"));
+    }
+
+    @Test
+    void decodesStatementFieldsOfImportedRecords() throws IOException {
+        PaymentRecord imported = record(7, "ACME 0042").toBuilder()
+                .method(PaymentMethod.CREDIT_CARD)
+                .statementId(0x1234_5678_9ABC_DEF0L)
+                .statementOffset(4096L)
+                .valueEpochDay((int) LocalDate.of(2026, 3, 1).toEpochDay())
+                .build();
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            journal.open();
+            journal.append(List.of(record(6, null), imported));
+        }
+
+        List<PaymentRecord> replayed = replay(new PaymentJournal(directory), PaymentJournal.dayOf(TIMESTAMP));
+        assertThat(replayed).containsExactly(record(6, null), imported);
+        assertThat(replayed.get(0).isImported()).isFalse();
+        assertThat(replayed.get(1).isImported()).isTrue();
+        assertThat(replayed.get(1).getMethod()).isEqualTo(PaymentMethod.CREDIT_CARD);
+        assertThat(replayed.get(1).getValueDate()).isEqualTo(LocalDate.of(2026, 3, 1));
+    }
+
+    @Test
+    void writesRecordsToTheSegmentOfTheirUtcDay() throws IOException {
+        PaymentRecord nextDay = record(2, null).toBuilder().timestampMillis(TIMESTAMP + DAY_MILLIS).build();
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            journal.open();
+            journal.append(List.of(record(1, null), nextDay));
+        }
+
+        PaymentJournal journal = new PaymentJournal(directory);
+        LocalDate day = PaymentJournal.dayOf(TIMESTAMP);
+        assertThat(journal.segmentDays()).containsExactly(day, day.plusDays(1));
+        assertThat(replay(journal, day)).containsExactly(record(1, null));
+        assertThat(replay(journal, day.plusDays(1))).containsExactly(nextDay);
+    }
+
+    @Test
+    void truncatesTornTailOnOpen() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            journal.open();
+            journal.append(List.of(record(1, "A"), record(2, "B")));
+        }
+        Path segment = new PaymentJournal(directory).segmentPath(PaymentJournal.dayOf(TIMESTAMP));
+        long intact = Files.size(segment);
+        // 模拟崩溃时只写入了部分记录: 头部完整，载荷缺失
+        Files.write(segment, new byte[]{0, 0, 0, 60, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        PaymentJournal journal = new PaymentJournal(directory);
+        assertThat(journal.open()).isEqualTo(2L);
+        assertThat(Files.size(segment)).isEqualTo(intact);
+
+        try (journal) {
+            journal.append(List.of(record(3, "C")));
+        }
+        assertThat(replay(new PaymentJournal(directory), PaymentJournal.dayOf(TIMESTAMP)))
+                .extracting(PaymentRecord::getPaymentId)
+                .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void stopsAtChecksumMismatchAndTruncatesFromThere() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            journal.open();
+            journal.append(List.of(record(1, "A")));
+        }
+        Path segment = new PaymentJournal(directory).segmentPath(PaymentJournal.dayOf(TIMESTAMP));
+        long firstRecordEnd = Files.size(segment);
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            journal.open();
+            journal.append(List.of(record(2, "B"), record(3, "C")));
+        }
+        // 翻转第二条记录载荷中的一个字节
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, firstRecordEnd + 12);
+            one.put(0, (byte) (one.get(0) ^ 0x01)).rewind();
+            channel.write(one, firstRecordEnd + 12);
+        }
+
+        PaymentJournal journal = new PaymentJournal(directory);
+        assertThat(journal.open()).isEqualTo(1L);
+        assertThat(Files.size(segment)).isEqualTo(firstRecordEnd);
+        assertThat(replay(journal, PaymentJournal.dayOf(TIMESTAMP)))
+                .extracting(PaymentRecord::getPaymentId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void stopsAtImplausibleLength() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal(directory)) {
+            journal.open();
+            journal.append(List.of(record(1, "A")));
+        }
+        Path segment = new PaymentJournal(directory).segmentPath(PaymentJournal.dayOf(TIMESTAMP));
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[]{0x7F, 0, 0, 0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        assertThat(new PaymentJournal(directory).open()).isEqualTo(1L);
+        assertThat(Files.size(segment)).isEqualTo(intact);
+    }
+
+    @Test
+    void rollsBackBatchSpanningMidnightInEverySegment() throws IOException {
+        LocalDate day = PaymentJournal.dayOf(TIMESTAMP);
+        PaymentJournal journal = new PaymentJournal(directory);
+        journal.open();
+        journal.append(List.of(record(1, "A")));
+        long intact = Files.size(journal.segmentPath(day));
+
+        // 切换分段时前一天的记录已写出，第三条记录编码失败
+        PaymentRecord nextDay = record(3, null).toBuilder().timestampMillis(TIMESTAMP + DAY_MILLIS).build();
+        PaymentRecord tooLong = nextDay.toBuilder().paymentId(4).reference("x".repeat(2048)).build();
+        assertThatThrownBy(() -> journal.append(List.of(record(2, "B"), nextDay, tooLong)))
+                .isInstanceOf(IOException.class);
+
+        assertThat(Files.size(journal.segmentPath(day))).isEqualTo(intact);
+        assertThat(journal.segmentDays()).containsExactly(day);
+
+        try (journal) {
+            journal.append(List.of(record(5, "C"), nextDay.toBuilder().paymentId(6).build()));
+        }
+        PaymentJournal reopened = new PaymentJournal(directory);
+        assertThat(reopened.open()).isEqualTo(6L);
+        assertThat(replay(reopened, day)).extracting(PaymentRecord::getPaymentId).containsExactly(1L, 5L);
+        assertThat(replay(reopened, day.plusDays(1))).extracting(PaymentRecord::getPaymentId).containsExactly(6L);
+    }
+
+    private static List<PaymentRecord> replay(PaymentJournal journal, LocalDate day) throws IOException {
+        List<PaymentRecord> records = new ArrayList<>();
+        journal.replay(day, records::add);
+        return records;
+    }
+
+    private static PaymentRecord record(long paymentId, String reference) {
+        return PaymentRecord.builder()
+                .paymentId(paymentId)
+                .customerId(1000L + paymentId)
+                .amountCents(12_345L * paymentId)
+                .method(PaymentMethod.BANK_TRANSFER)
+                .status(PaymentStatus.COMPLETED)
+                .timestampMillis(TIMESTAMP)
+                .reference(reference)
+                .build();
+    }
+}
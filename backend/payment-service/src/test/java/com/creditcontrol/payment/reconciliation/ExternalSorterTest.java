@@ -0,0 +1,128 @@
+package com.creditcontrol.payment.reconciliation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 外部排序: 内存内排序、分段落盘与多轮归并
+ */
+class ExternalSorterTest {
+
+    private static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(r -> r[0])
+            .thenComparingLong(r -> r[1])
+            .thenComparingLong(r -> r[2]);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sortsInMemoryWithoutSpilling() throws IOException {
+        List<long[]> input = randomRecords(1000, 50, new Random(1));
+        try (ExternalSorter sorter = new ExternalSorter(directory, "memory", 1024L * 1024, 64 * 1024)) {
+            add(sorter, input);
+            try (RecordCursor cursor = sorter.finish()) {
+                assertThat(drain(cursor)).containsExactlyElementsOf(sorted(input));
+            }
+            assertThat(sorter.getRunCount()).isZero();
+            assertThat(sorter.getRecords()).isEqualTo(1000L);
+        }
+        assertThat(listFiles()).isEmpty();
+    }
+
+    @Test
+    void mergesSpilledRunsInSeveralPasses() throws IOException {
+        // 缓冲区容量1024条，读缓冲区4000字节取整为3968字节，归并路数上限 32768/3968-1 = 7
+        List<long[]> input = randomRecords(20_000, 500, new Random(2));
+        try (ExternalSorter sorter = new ExternalSorter(directory, "spill", 32L * 1024, 4000)) {
+            add(sorter, input);
+            try (RecordCursor cursor = sorter.finish()) {
+                assertThat(sorter.getRunCount()).isLessThanOrEqualTo(7);
+                assertThat(drain(cursor)).containsExactlyElementsOf(sorted(input));
+            }
+            assertThat(sorter.getRecords()).isEqualTo(20_000L);
+        }
+        assertThat(listFiles()).isEmpty();
+    }
+
+    @Test
+    void ordersByKeyThenAmountThenTag() throws IOException {
+        List<long[]> input = List.of(
+                new long[]{5, 100, 2, 11},
+                new long[]{5, 100, 1, 12},
+                new long[]{5, 99, 3, 13},
+                new long[]{-7, 500, 0, 14},
+                new long[]{Long.MAX_VALUE, 0, 0, 15},
+                new long[]{Long.MIN_VALUE, 0, 0, 16});
+        try (ExternalSorter sorter = new ExternalSorter(directory, "order", 1024L * 1024, 64 * 1024)) {
+            add(sorter, input);
+            try (RecordCursor cursor = sorter.finish()) {
+                assertThat(drain(cursor)).extracting(r -> r[3]).containsExactly(16L, 14L, 13L, 12L, 11L, 15L);
+            }
+        }
+    }
+
+    @Test
+    void finishesEmptyInput() throws IOException {
+        try (ExternalSorter sorter = new ExternalSorter(directory, "empty", 32L * 1024, 4096);
+             RecordCursor cursor = sorter.finish()) {
+            assertThat(cursor.next()).isFalse();
+        }
+    }
+
+    @Test
+    void keepsRunsOfExactBufferMultiple() throws IOException {
+        // 恰好填满两次缓冲区: 最后一次落盘后内存中没有剩余记录
+        List<long[]> input = randomRecords(2048, 10, new Random(3));
+        try (ExternalSorter sorter = new ExternalSorter(directory, "exact", 32L * 1024, 4096)) {
+            add(sorter, input);
+            try (RecordCursor cursor = sorter.finish()) {
+                assertThat(drain(cursor)).containsExactlyElementsOf(sorted(input));
+            }
+        }
+    }
+
+    private static List<long[]> randomRecords(int count, int distinctKeys, Random random) {
+        List<long[]> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new long[]{random.nextInt(distinctKeys), random.nextInt(1000), i, random.nextLong()});
+        }
+        return records;
+    }
+
+    private static void add(ExternalSorter sorter, List<long[]> records) throws IOException {
+        for (long[] record : records) {
+            sorter.add(record[0], record[1], record[2], record[3]);
+        }
+    }
+
+    private static List<long[]> sorted(List<long[]> records) {
+        List<long[]> sorted = new ArrayList<>(records);
+        sorted.sort(ORDER);
+        return sorted;
+    }
+
+    private static List<long[]> drain(RecordCursor cursor) throws IOException {
+        List<long[]> records = new ArrayList<>();
+        while (cursor.next()) {
+            records.add(new long[]{cursor.key(), cursor.amount(), cursor.tag(), cursor.customerId()});
+        }
+        return records;
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
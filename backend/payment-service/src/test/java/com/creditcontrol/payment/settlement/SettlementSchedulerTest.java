@@ -0,0 +1,148 @@
+package com.creditcontrol.payment.settlement;
+
+import com.creditcontrol.payment.dto.PaymentMethod;
+import com.creditcontrol.payment.dto.PaymentStatus;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import com.creditcontrol.payment.service.PaymentIngestionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 结算调度: 临时错误按退避重试，达到最大次数后付款失败
+ */
+class SettlementSchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    private PaymentJournal journal;
+    private SettlementGateway gateway;
+    private SettlementScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = new PaymentJournal(directory.resolve("journal"));
+        journal.open();
+        gateway = mock(SettlementGateway.class);
+        scheduler = new SettlementScheduler();
+
+        PaymentIngestionService ingestionService = mock(PaymentIngestionService.class);
+        when(ingestionService.append(any(PaymentRecord.class))).thenAnswer(invocation -> {
+            PaymentRecord record = invocation.getArgument(0);
+            PaymentRecord committed = record.toBuilder().timestampMillis(System.currentTimeMillis()).build();
+            journal.append(List.of(committed));
+            scheduler.onCommitted(List.of(committed));
+            return CompletableFuture.completedFuture(committed);
+        });
+
+        ReflectionTestUtils.setField(scheduler, "journal", journal);
+        ReflectionTestUtils.setField(scheduler, "gateway", gateway);
+        ReflectionTestUtils.setField(scheduler, "ingestionService", ingestionService);
+        ReflectionTestUtils.setField(scheduler, "stateDirectory", directory.resolve("settlement").toString());
+        ReflectionTestUtils.setField(scheduler, "initialDelayMs", 0L);
+        ReflectionTestUtils.setField(scheduler, "tickMs", 5L);
+        ReflectionTestUtils.setField(scheduler, "wheelBits", 6);
+        ReflectionTestUtils.setField(scheduler, "wheelLevels", 4);
+        ReflectionTestUtils.setField(scheduler, "maxAttempts", 3);
+        ReflectionTestUtils.setField(scheduler, "backoffBaseMs", 20L);
+        ReflectionTestUtils.setField(scheduler, "backoffMaxMs", 100L);
+        ReflectionTestUtils.setField(scheduler, "attemptTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(scheduler, "settlementDeadline", Duration.ofHours(1));
+        ReflectionTestUtils.setField(scheduler, "maxInFlight", 4);
+        scheduler.open();
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.stop();
+        journal.close();
+    }
+
+    @Test
+    void retriesTransientErrorsUntilSettled() throws Exception {
+        when(gateway.settle(any(PaymentRecord.class), anyInt())).thenReturn(
+                CompletableFuture.completedFuture(SettlementOutcome.RETRY),
+                CompletableFuture.failedFuture(new IOException("connection reset")),
+                CompletableFuture.completedFuture(SettlementOutcome.SETTLED));
+
+        accept(1L);
+
+        awaitTrue(() -> scheduler.getSettledCount() == 1L);
+        verify(gateway).settle(any(PaymentRecord.class), eq(3));
+        assertThat(scheduler.getRetryCount()).isEqualTo(2L);
+        assertThat(scheduler.getPendingCount()).isZero();
+        assertThat(scheduler.getScheduledTimers()).isZero();
+        assertThat(statuses(1L)).containsExactly(PaymentStatus.PROCESSING, PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void failsPaymentWhenRetriesAreExhausted() throws Exception {
+        when(gateway.settle(any(PaymentRecord.class), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(SettlementOutcome.RETRY));
+
+        accept(2L);
+
+        awaitTrue(() -> scheduler.getFailedCount() == 1L);
+        verify(gateway, times(3)).settle(any(PaymentRecord.class), anyInt());
+        assertThat(scheduler.getRetryCount()).isEqualTo(2L);
+        assertThat(scheduler.getSettledCount()).isZero();
+        assertThat(scheduler.getPendingCount()).isZero();
+        assertThat(statuses(2L)).containsExactly(PaymentStatus.PROCESSING, PaymentStatus.FAILED);
+    }
+
+    private void accept(long paymentId) throws IOException {
+        PaymentRecord accepted = PaymentRecord.builder()
+                .paymentId(paymentId)
+                .customerId(1001L)
+                .amountCents(12_345L)
+                .method(PaymentMethod.BANK_TRANSFER)
+                .status(PaymentStatus.PROCESSING)
+                .timestampMillis(System.currentTimeMillis())
+                .build();
+        journal.append(List.of(accepted));
+        scheduler.onCommitted(List.of(accepted));
+    }
+
+    private List<PaymentStatus> statuses(long paymentId) throws IOException {
+        List<PaymentStatus> statuses = new ArrayList<>();
+        for (LocalDate day : journal.segmentDays()) {
+            journal.replay(day, record -> {
+                if (record.getPaymentId() == paymentId) {
+                    statuses.add(record.getStatus());
+                }
+            });
+        }
+        return statuses;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5L);
+        }
+    }
+}
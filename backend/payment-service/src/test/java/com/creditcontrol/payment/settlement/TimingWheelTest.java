@@ -0,0 +1,81 @@
+package com.creditcontrol.payment.settlement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 时间轮的逐层下放、溢出链表与取消
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 10L;
+
+    /** 每层4个槽、2层，覆盖16个tick，之后的定时器进入溢出链表 */
+    private final TimingWheel wheel = new TimingWheel(TICK, 2, 2, 0L);
+
+    @Test
+    void expiresTimersInDeadlineOrderAcrossLevelsAndOverflow() {
+        Named overflow = new Named("overflow");
+        Named upper = new Named("upper");
+        Named lower = new Named("lower");
+        wheel.schedule(overflow, 40 * TICK);
+        wheel.schedule(upper, 9 * TICK);
+        wheel.schedule(lower, 2 * TICK);
+        assertThat(wheel.size()).isEqualTo(3);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(8 * TICK, timer -> expired.add(((Named) timer).name));
+        assertThat(expired).containsExactly("lower");
+
+        wheel.advance(39 * TICK, timer -> expired.add(((Named) timer).name));
+        assertThat(expired).containsExactly("lower", "upper");
+
+        wheel.advance(40 * TICK, timer -> expired.add(((Named) timer).name));
+        assertThat(expired).containsExactly("lower", "upper", "overflow");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void schedulesPastDeadlinesForNextTick() {
+        wheel.advance(5 * TICK, timer -> { });
+        Named late = new Named("late");
+        wheel.schedule(late, TICK);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(6 * TICK, timer -> expired.add(((Named) timer).name));
+
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    void cancelledAndRescheduledTimersDoNotFireEarly() {
+        Named cancelled = new Named("cancelled");
+        Named moved = new Named("moved");
+        wheel.schedule(cancelled, 3 * TICK);
+        wheel.schedule(moved, 3 * TICK);
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+        wheel.schedule(moved, 20 * TICK);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(19 * TICK, timer -> expired.add(((Named) timer).name));
+        assertThat(expired).isEmpty();
+        wheel.advance(20 * TICK, timer -> expired.add(((Named) timer).name));
+        assertThat(expired).containsExactly("moved");
+    }
+
+    private static final class Named extends TimingWheel.Timer {
+
+        final String name;
+
+        Named(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.creditcontrol.payment.statement;
+
+import com.creditcontrol.payment.allocation.CashApplicationEngine;
+import com.creditcontrol.payment.allocation.OpenItem;
+import com.creditcontrol.payment.idempotency.MemoryIdempotencyStore;
+import com.creditcontrol.payment.journal.PaymentJournal;
+import com.creditcontrol.payment.journal.PaymentRecord;
+import com.creditcontrol.payment.service.PaymentIdGenerator;
+import com.creditcontrol.payment.service.PaymentIngestionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 流水导入从检查点恢复: 跳过检查点之后已落盘的行，写入失败的行撤销核销后重新导入
+ */
+class StatementImportJobTest {
+
+    private static final long CUSTOMER = 1001L;
+    private static final String[] LINES = {
+            "2026-03-01,1001,10.00,INV-1",
+            "2026-03-01,1001,20.00,INV-2",
+            "2026-03-02,1001,30.00,INV-3",
+            "2026-03-02,1001,40.00,INV-4",
+            "2026-03-03,1001,50.00,INV-5",
+            "2026-03-03,1001,60.00,INV-6"
+    };
+
+    @TempDir
+    Path directory;
+
+    private Path statement;
+    private PaymentJournal journal;
+    private MemoryIdempotencyStore idempotencyStore;
+    /** 写入该行偏移的付款时失败一次，-1表示不失败 */
+    private final AtomicLong failingOffset = new AtomicLong(-1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        statement = Files.write(directory.resolve("statement.csv"),
+                (String.join("\n", LINES) + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        closeComponents();
+    }
+
+    @Test
+    void skipsLinesPersistedAfterCheckpointWhenResuming() throws Exception {
+        StatementImportJob first = run(importer(), false);
+        assertThat(first.getState()).isEqualTo(StatementImportJob.State.COMPLETED);
+        assertThat(first.getPersistedRecords()).isEqualTo(6L);
+
+        // 模拟第二批落盘后、检查点保存前崩溃: 检查点停在第一批末尾
+        long checkpointOffset = offsetOf(2);
+        new StatementCheckpoint(directory.resolve("checkpoints"), first.getStatementKey())
+                .save(checkpointOffset, Files.size(statement), 0L);
+        closeComponents();
+
+        StatementImportJob resumed = run(importer(), true);
+
+        assertThat(resumed.getState()).isEqualTo(StatementImportJob.State.COMPLETED);
+        assertThat(resumed.getStartOffset()).isEqualTo(checkpointOffset);
+        assertThat(resumed.getDuplicateRecords()).isEqualTo(4L);
+        assertThat(resumed.getPersistedRecords()).isZero();
+        assertThat(journalOffsets()).containsExactlyInAnyOrder(
+                offsetOf(0), offsetOf(1), offsetOf(2), offsetOf(3), offsetOf(4), offsetOf(5));
+    }
+
+    @Test
+    void reversesAllocationsOfFailedBatchAndImportsThemOnResume() throws Exception {
+        StatementImporter importer = importer();
+        failingOffset.set(offsetOf(3));
+
+        StatementImportJob failed = run(importer, false);
+
+        assertThat(failed.getState()).isEqualTo(StatementImportJob.State.FAILED);
+        assertThat(failed.getCheckpointOffset()).isEqualTo(offsetOf(2));
+        // 第三行已落盘，写入失败的第四行和之后中止的行撤销核销
+        assertThat(outstanding(importer.engine)).containsExactly(4_000L, 5_000L, 6_000L);
+
+        StatementImportJob resumed = run(importer, true);
+
+        assertThat(resumed.getState()).isEqualTo(StatementImportJob.State.COMPLETED);
+        assertThat(resumed.getStartOffset()).isEqualTo(offsetOf(2));
+        assertThat(resumed.getDuplicateRecords()).isEqualTo(1L);
+        assertThat(resumed.getPersistedRecords()).isEqualTo(3L);
+        assertThat(outstanding(importer.engine)).isEmpty();
+        assertThat(journalOffsets()).containsExactlyInAnyOrder(
+                offsetOf(0), offsetOf(1), offsetOf(2), offsetOf(3), offsetOf(4), offsetOf(5));
+    }
+
+    private StatementImportJob run(StatementImporter importer, boolean resume) throws Exception {
+        StatementImportJob job = importer.start("import-" + resume, statement, StatementFormat.CSV, resume);
+        job.await(10_000L);
+        return job;
+    }
+
+    /**
+     * 组装导入器，模拟一次进程启动: 新的核销引擎、幂等键存储和付款日志
+     */
+    private StatementImporter importer() throws IOException {
+        journal = new PaymentJournal(directory.resolve("journal"));
+        journal.open();
+        idempotencyStore = new MemoryIdempotencyStore(directory.resolve("idempotency"), 24, 1, 1000);
+        idempotencyStore.open();
+
+        CashApplicationEngine engine = new CashApplicationEngine();
+        ReflectionTestUtils.setField(engine, "maxCombinationCandidates", 500);
+        for (int i = 1; i <= LINES.length; i++) {
+            engine.addOpenItem(CUSTOMER, "INV-" + i, 1_000L * i, 100 + i);
+        }
+
+        PaymentIngestionService ingestionService = mock(PaymentIngestionService.class);
+        when(ingestionService.append(any(PaymentRecord.class))).thenAnswer(invocation -> {
+            PaymentRecord record = invocation.getArgument(0);
+            if (failingOffset.compareAndSet(record.getStatementOffset(), -1)) {
+                return CompletableFuture.failedFuture(new IOException("disk full"));
+            }
+            PaymentRecord committed = record.toBuilder().timestampMillis(System.currentTimeMillis()).build();
+            journal.append(List.of(committed));
+            return CompletableFuture.completedFuture(committed);
+        });
+
+        StatementImporter importer = new StatementImporter();
+        importer.engine = engine;
+        importer.idempotencyStore = idempotencyStore;
+        importer.ingestionService = ingestionService;
+        importer.idGenerator = new PaymentIdGenerator(1);
+        importer.journal = journal;
+        importer.batchSize = 2;
+        importer.queueCapacity = 2;
+        importer.mapWindowBytes = 1 << 20;
+        ReflectionTestUtils.setField(importer, "checkpointDirectory", directory.resolve("checkpoints").toString());
+        ReflectionTestUtils.setField(importer, "unappliedDirectory", directory.resolve("unapplied").toString());
+        return importer;
+    }
+
+    private void closeComponents() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (idempotencyStore != null) {
+            idempotencyStore.close();
+            idempotencyStore = null;
+        }
+    }
+
+    private List<Long> journalOffsets() throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        for (LocalDate day : journal.segmentDays()) {
+            journal.replay(day, record -> offsets.add(record.getStatementOffset()));
+        }
+        return offsets;
+    }
+
+    private static List<Long> outstanding(CashApplicationEngine engine) {
+        return engine.getOpenItems(CUSTOMER).stream().map(OpenItem::getOutstandingCents).toList();
+    }
+
+    private static long offsetOf(int line) {
+        long offset = 0;
+        for (int i = 0; i < line; i++) {
+            offset += LINES[i].length() + 1;
+        }
+        return offset;
+    }
+}
@@ -2,8 +2,10 @@ package com.creditcontrol.report;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ReportServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(ReportServiceApplication.class, args);
@@ -0,0 +1,46 @@
+package com.creditcontrol.report.config;
+
+import com.creditcontrol.eventbus.EventConsumer;
+import com.creditcontrol.eventbus.OffsetStore;
+import com.creditcontrol.eventbus.RemoteEventSource;
+import com.creditcontrol.report.job.DataVersionTracker;
+import com.creditcontrol.report.job.ReportTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * 事件总线配置类
+ * 从customer-service的事件总线拉取客户变更，每批事件使依赖客户表的报表缓存失效，
+ * 不必等到下一次指纹检查。重复投递只会多递增一次版本号。
+ */
+@Configuration
+@ConditionalOnProperty(name = "creditcontrol.report.event-bus.enabled", havingValue = "true")
+@Slf4j
+public class EventBusConfig {
+
+    private static final String CUSTOMER_TOPIC = "customer.changes";
+
+    @Bean(destroyMethod = "close")
+    public EventConsumer customerChangeConsumer(
+            DataVersionTracker versionTracker,
+            @Value("${creditcontrol.report.event-bus.url:http://127.0.0.1:9081}") String url,
+            @Value("${creditcontrol.report.event-bus.offset-directory:data/offsets}") String offsetDirectory,
+            @Value("${creditcontrol.report.event-bus.max-bytes:1048576}") int maxBytes,
+            @Value("${creditcontrol.report.event-bus.wait-ms:5000}") long waitMs) throws IOException {
+        log.info("EVENT_BUS_CONFIG: url: {}, topic: {}, offsetDirectory: {}", url, CUSTOMER_TOPIC, offsetDirectory);
+        EventConsumer consumer = new EventConsumer("report-service", CUSTOMER_TOPIC,
+                new RemoteEventSource(url, Duration.ofSeconds(10)),
+                new OffsetStore(Paths.get(offsetDirectory), "report-service"),
+                events -> versionTracker.markChanged(ReportTable.CUSTOMERS),
+                maxBytes, waitMs);
+        consumer.start();
+        return consumer;
+    }
+}
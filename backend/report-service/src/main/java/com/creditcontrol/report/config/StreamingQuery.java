@@ -0,0 +1,84 @@
+package com.creditcontrol.report.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 流式查询
+ * 在关闭自动提交的只读事务中执行，PostgreSQL驱动只有在事务内才按fetchSize用服务端游标分批拉取，
+ * 否则会把整个结果集一次读入内存。立方体、趋势、看板的全量扫描和报表导出共用。
+ */
+@Component
+public class StreamingQuery {
+
+    /**
+     * 处理整个结果集的回调，允许抛出写出时的IOException
+     */
+    @FunctionalInterface
+    public interface ResultSetCallback<T> {
+        T doInResultSet(ResultSet rs) throws SQLException, IOException;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 逐行回调，SQL异常按JdbcTemplate转换为DataAccessException
+     */
+    public void forEachRow(String sql, int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.execute(inReadOnlyTransaction(sql, fetchSize, rs -> {
+            while (rs.next()) {
+                handler.processRow(rs);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * 把结果集交给回调，回调抛出的IOException原样抛出
+     */
+    public <T> T query(String sql, int fetchSize, ResultSetCallback<T> callback) throws IOException {
+        try {
+            return jdbcTemplate.execute(inReadOnlyTransaction(sql, fetchSize, callback));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> ConnectionCallback<T> inReadOnlyTransaction(String sql, int fetchSize,
+                                                                  ResultSetCallback<T> callback) {
+        return connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                T result;
+                try (ResultSet rs = statement.executeQuery()) {
+                    result = callback.doInResultSet(rs);
+                }
+                connection.commit();
+                return result;
+            } catch (IOException e) {
+                connection.rollback();
+                throw new UncheckedIOException(e);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setReadOnly(false);
+                connection.setAutoCommit(autoCommit);
+            }
+        };
+    }
+}
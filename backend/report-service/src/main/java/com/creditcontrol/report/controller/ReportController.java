@@ -1,11 +1,29 @@
 package com.creditcontrol.report.controller;
 
+import com.creditcontrol.report.cube.CubeDimension;
+import com.creditcontrol.report.dto.DashboardEventRequest;
+import com.creditcontrol.report.dto.ReportJobDto;
+import com.creditcontrol.report.exception.ReportQueueFullException;
+import com.creditcontrol.report.job.ReportFileTransfer;
+import com.creditcontrol.report.job.ReportJob;
+import com.creditcontrol.report.service.CubeService;
+import com.creditcontrol.report.service.DashboardService;
+import com.creditcontrol.report.service.ReportJobService;
+import com.creditcontrol.report.service.TrendService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import lombok.extern.slf4j.Slf4j;
+import java.io.IOException;
 import java.util.*;
-import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/v1/reports")
@@ -13,76 +31,261 @@ import java.time.Instant;
 @Slf4j
 public class ReportController {
 
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private CubeService cubeService;
+
+    /**
+     * 仪表盘数据来自物化快照，读取不访问数据库
+     */
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboard() {
         log.info("API_REQUEST: GET /api/v1/reports/dashboard");
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("data", Map.of(
-            "totalCustomers", 5,
-            "totalCreditLimit", new BigDecimal("2500000.00"),
-            "totalOutstanding", new BigDecimal("850000.00"),
-            "collectionRate", 94.5,
-            "averageRiskScore", 78.5,
-            "monthlyGrowth", 12.3,
-            "topPerformingCustomers", 3,
-            "highRiskCustomers", 1
-        ));
+        response.put("data", dashboardService.getDashboard());
         response.put("message", "Dashboard data retrieved successfully");
         response.put("timestamp", Instant.now().toString());
         
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 接收客户、信用、付款、风险变更事件，异步增量更新仪表盘快照
+     */
+    @PostMapping("/dashboard/events")
+    public ResponseEntity<Map<String, Object>> submitDashboardEvents(
+            @RequestBody @Valid List<@Valid DashboardEventRequest> events) {
+        log.info("API_REQUEST: POST /api/v1/reports/dashboard/events - count: {}", events.size());
+
+        try {
+            int accepted = dashboardService.submitEvents(events);
+            if (accepted == 0 && !events.isEmpty()) {
+                return error(HttpStatus.SERVICE_UNAVAILABLE, "Dashboard event queue is full, please retry later");
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", Map.of("accepted", accepted, "rejected", events.size() - accepted));
+            response.put("message", "Dashboard events accepted");
+            response.put("timestamp", Instant.now().toString());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/dashboard/stats")
+    public ResponseEntity<Map<String, Object>> getDashboardStats() {
+        log.info("API_REQUEST: GET /api/v1/reports/dashboard/stats");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", dashboardService.getStats());
+        response.put("message", "Dashboard statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 趋势分析，答案来自内存中的日/月汇总，与查询区间长度无关地只读取少量桶
+     */
     @GetMapping("/analytics/trends")
-    public ResponseEntity<Map<String, Object>> getTrends() {
-        log.info("API_REQUEST: GET /api/v1/reports/analytics/trends");
-        
-        List<Map<String, Object>> monthlyTrends = Arrays.asList(
-            Map.of("month", "2025-07", "creditLimit", new BigDecimal("2200000"), "utilization", 32.5),
-            Map.of("month", "2025-08", "creditLimit", new BigDecimal("2350000"), "utilization", 34.2),
-            Map.of("month", "2025-09", "creditLimit", new BigDecimal("2450000"), "utilization", 33.8),
-            Map.of("month", "2025-10", "creditLimit", new BigDecimal("2500000"), "utilization", 34.0)
-        );
-        
+    public ResponseEntity<Map<String, Object>> getTrends(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) String industry,
+            @RequestParam(required = false) String riskLevel) {
+        log.info("API_REQUEST: GET /api/v1/reports/analytics/trends - from: {}, to: {}, granularity: {}",
+                from, to, granularity);
+
+        Map<String, Object> data;
+        try {
+            data = trendService.getTrends(from, to, granularity, industry, riskLevel);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("data", Map.of(
-            "trends", monthlyTrends,
-            "growthRate", 13.6,
-            "forecastNext3Months", Arrays.asList(
-                Map.of("month", "2025-11", "forecastCreditLimit", new BigDecimal("2650000")),
-                Map.of("month", "2025-12", "forecastCreditLimit", new BigDecimal("2800000")),
-                Map.of("month", "2026-01", "forecastCreditLimit", new BigDecimal("2950000"))
-            )
-        ));
+        response.put("data", data);
         response.put("message", "Trend analysis retrieved successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 按行业、状态、风险等级、信用评级切片，同一参数可用逗号分隔多个取值 (取并集)，不同参数取交集
+     */
+    @GetMapping("/analytics/cube")
+    public ResponseEntity<Map<String, Object>> sliceCustomers(@RequestParam(required = false) String industry,
+                                                              @RequestParam(required = false) String status,
+                                                              @RequestParam(required = false) String riskLevel,
+                                                              @RequestParam(required = false) String creditRating,
+                                                              @RequestParam(required = false) String groupBy) {
+        log.info("API_REQUEST: GET /api/v1/reports/analytics/cube - industry: {}, status: {}, riskLevel: {}, creditRating: {}, groupBy: {}",
+                industry, status, riskLevel, creditRating, groupBy);
+
+        Map<CubeDimension, String> filter = new EnumMap<>(CubeDimension.class);
+        filter.put(CubeDimension.INDUSTRY, industry);
+        filter.put(CubeDimension.STATUS, status);
+        filter.put(CubeDimension.RISK_LEVEL, riskLevel);
+        filter.put(CubeDimension.CREDIT_RATING, creditRating);
+
+        Map<String, Object> data;
+        try {
+            data = cubeService.slice(filter, groupBy);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        response.put("message", "Customer slice retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/analytics/cube/dimensions")
+    public ResponseEntity<Map<String, Object>> getCubeDimensions() {
+        log.info("API_REQUEST: GET /api/v1/reports/analytics/cube/dimensions");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", cubeService.getDimensions());
+        response.put("message", "Cube dimensions retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 提交报表生成任务 (异步)，立即返回任务ID，通过任务状态轮询进度，完成后从downloadUrl下载
+     */
     @GetMapping("/generate/{reportType}")
-    public ResponseEntity<Map<String, Object>> generateReport(@PathVariable String reportType) {
-        log.info("API_REQUEST: GET /api/v1/reports/generate/{}", reportType);
-        
+    public ResponseEntity<Map<String, Object>> generateReport(@PathVariable String reportType,
+                                                              @RequestParam(defaultValue = "NORMAL") String priority,
+                                                              @RequestParam(defaultValue = "CSV") String format,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("API_REQUEST: GET /api/v1/reports/generate/{} - priority: {}, format: {}, gzip: {}",
+                reportType, priority, format, gzip);
+
+        try {
+            ReportJobDto job = reportJobService.submit(reportType, priority, format, gzip);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", job);
+            response.put("message", job.isCacheHit() ? "Report served from cache" : "Report generation initiated");
+            response.put("timestamp", Instant.now().toString());
+
+            // 缓存命中时任务已完成，可直接下载
+            return ResponseEntity.status(job.isCacheHit() ? HttpStatus.OK : HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (ReportQueueFullException e) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getReportJobs() {
+        log.info("API_REQUEST: GET /api/v1/reports/jobs");
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("data", Map.of(
-            "reportId", "RPT_" + System.currentTimeMillis(),
-            "reportType", reportType.toUpperCase(),
-            "status", "GENERATING",
-            "estimatedCompletion", "2025-10-09T08:30:00Z",
-            "format", "PDF",
-            "downloadUrl", "/api/v1/reports/download/RPT_" + System.currentTimeMillis()
-        ));
-        response.put("message", "Report generation initiated");
+        response.put("data", reportJobService.getJobs());
+        response.put("message", "Report jobs retrieved successfully");
         response.put("timestamp", Instant.now().toString());
-        
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/jobs/{reportId}")
+    public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable String reportId) {
+        log.info("API_REQUEST: GET /api/v1/reports/jobs/{}", reportId);
+
+        ReportJobDto job = reportJobService.getJob(reportId);
+        if (job == null) {
+            return error(HttpStatus.NOT_FOUND, "Report not found: " + reportId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", job);
+        response.put("message", "Report job retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
         return ResponseEntity.ok(response);
     }
 
+    @DeleteMapping("/jobs/{reportId}")
+    public ResponseEntity<Map<String, Object>> cancelReportJob(@PathVariable String reportId) {
+        log.info("API_REQUEST: DELETE /api/v1/reports/jobs/{}", reportId);
+
+        ReportJobDto job = reportJobService.cancel(reportId);
+        if (job == null) {
+            return error(HttpStatus.NOT_FOUND, "Report not found: " + reportId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", job);
+        response.put("message", "Report cancellation requested");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getReportCacheStats() {
+        log.info("API_REQUEST: GET /api/v1/reports/cache");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", reportJobService.getCacheStats());
+        response.put("message", "Report cache statistics retrieved successfully");
+        response.put("timestamp", Instant.now().toString());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 下载报表结果文件，文件内容由零拷贝方式直接写出，成功时不经过消息转换器
+     */
+    @GetMapping("/download/{reportId}")
+    public ResponseEntity<Map<String, Object>> downloadReport(@PathVariable String reportId,
+                                                              HttpServletRequest request,
+                                                              HttpServletResponse response) throws IOException {
+        log.info("API_REQUEST: GET /api/v1/reports/download/{}", reportId);
+
+        ReportJob job = reportJobService.getCompletedJob(reportId);
+        if (job == null) {
+            return error(HttpStatus.NOT_FOUND, "Completed report not found: " + reportId);
+        }
+
+        response.setContentType(job.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + job.getFileName() + "\"");
+        ReportFileTransfer.send(job.getResultFile(), job.getFileSize(), request, response);
+        return null;
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> healthCheck() {
         Map<String, String> response = new HashMap<>();
@@ -100,9 +303,26 @@ public class ReportController {
         response.put("version", "1.0.0");
         response.put("endpoints", Arrays.asList(
             "GET /api/v1/reports/dashboard",
-            "GET /api/v1/reports/analytics/trends",
-            "GET /api/v1/reports/generate/{reportType}"
+            "POST /api/v1/reports/dashboard/events",
+            "GET /api/v1/reports/dashboard/stats",
+            "GET /api/v1/reports/analytics/trends?from=&to=&granularity=MONTH|DAY&industry=&riskLevel=",
+            "GET /api/v1/reports/analytics/cube?industry=&status=&riskLevel=&creditRating=&groupBy=",
+            "GET /api/v1/reports/analytics/cube/dimensions",
+            "GET /api/v1/reports/generate/{reportType}?priority=HIGH|NORMAL|LOW&format=CSV|XLSX&gzip=",
+            "GET /api/v1/reports/jobs",
+            "GET /api/v1/reports/jobs/{reportId}",
+            "DELETE /api/v1/reports/jobs/{reportId}",
+            "GET /api/v1/reports/download/{reportId}",
+            "GET /api/v1/reports/cache"
         ));
         return ResponseEntity.ok(response);
     }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        response.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(status).body(response);
+    }
 }
\ No newline at end of file
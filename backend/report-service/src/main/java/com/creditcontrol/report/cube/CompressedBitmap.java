@@ -0,0 +1,366 @@
+package com.creditcontrol.report.cube;
+
+import java.util.Arrays;
+
+/**
+ * 压缩位图 (Roaring结构)
+ * 行号按高16位分块，每块按基数选择容器: 不超过4096个时为有序char数组，否则为1024个long的位集。
+ * 稀疏维度值只占用与行数成正比的空间，稠密维度值按位运算求交/并。创建后不可变，可并发读取。
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Container[0], 0);
+
+    private final char[] keys;
+    private final Container[] containers;
+    private final int size;
+
+    private CompressedBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 包含 [0, rows) 全部行号的位图
+     */
+    public static CompressedBitmap range(int rows) {
+        Builder builder = new Builder();
+        for (int row = 0; row < rows; row++) {
+            builder.add(row);
+        }
+        return builder.build();
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 估算占用字节数
+     */
+    public long sizeInBytes() {
+        long bytes = 16L + keys.length * 2L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        char[] resultKeys = new char[Math.min(size, other.size)];
+        Container[] result = new Container[resultKeys.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality > 0) {
+                    resultKeys[count] = keys[i];
+                    result[count++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(resultKeys, result, count);
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        char[] resultKeys = new char[size + other.size];
+        Container[] result = new Container[resultKeys.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                resultKeys[count] = keys[i];
+                result[count++] = containers[i++];
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                resultKeys[count] = other.keys[j];
+                result[count++] = other.containers[j++];
+            } else {
+                resultKeys[count] = keys[i];
+                result[count++] = containers[i++].or(other.containers[j++]);
+            }
+        }
+        return new CompressedBitmap(resultKeys, result, count);
+    }
+
+    /**
+     * 按行号升序访问每个置位的行
+     */
+    public void forEach(RowVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, visitor);
+        }
+    }
+
+    public interface RowVisitor {
+        void visit(int row);
+    }
+
+    /**
+     * 按行号升序追加构建
+     */
+    public static final class Builder {
+
+        private char[] keys = new char[4];
+        private Container[] containers = new Container[4];
+        private int size;
+        private char[] values = new char[ARRAY_MAX];
+        private long[] words;
+        private int cardinality;
+        private int currentKey = -1;
+        private int lastRow = -1;
+
+        public void add(int row) {
+            if (row <= lastRow) {
+                throw new IllegalArgumentException("Rows must be added in ascending order: " + row);
+            }
+            lastRow = row;
+            int key = row >>> 16;
+            char low = (char) row;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            if (words != null) {
+                words[low >>> 6] |= 1L << low;
+            } else if (cardinality < ARRAY_MAX) {
+                values[cardinality] = low;
+            } else {
+                words = new long[WORDS];
+                for (int k = 0; k < cardinality; k++) {
+                    words[values[k] >>> 6] |= 1L << values[k];
+                }
+                words[low >>> 6] |= 1L << low;
+            }
+            cardinality++;
+        }
+
+        public CompressedBitmap build() {
+            flush();
+            return new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), size);
+        }
+
+        private void flush() {
+            if (cardinality == 0) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = (char) currentKey;
+            containers[size++] = words != null
+                    ? new BitmapContainer(words, cardinality)
+                    : new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+            words = null;
+            cardinality = 0;
+        }
+    }
+
+    private abstract static class Container {
+
+        final int cardinality;
+
+        Container(int cardinality) {
+            this.cardinality = cardinality;
+        }
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract void forEach(int base, RowVisitor visitor);
+
+        abstract long sizeInBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        final char[] values;
+
+        ArrayContainer(char[] values, int cardinality) {
+            super(cardinality);
+            this.values = values;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality)];
+            int count = 0;
+            if (other instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (bitmap.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (cardinality + array.cardinality > ARRAY_MAX) {
+                return BitmapContainer.of(this).or(array);
+            }
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i >= cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        void forEach(int base, RowVisitor visitor) {
+            for (int i = 0; i < cardinality; i++) {
+                visitor.visit(base | values[i]);
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16L + values.length * 2L;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        final long[] words;
+
+        BitmapContainer(long[] words, int cardinality) {
+            super(cardinality);
+            this.words = words;
+        }
+
+        static BitmapContainer of(ArrayContainer array) {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < array.cardinality; i++) {
+                words[array.values[i] >>> 6] |= 1L << array.values[i];
+            }
+            return new BitmapContainer(words, array.cardinality);
+        }
+
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[WORDS];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return count > ARRAY_MAX ? new BitmapContainer(result, count) : toArray(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    char value = array.values[i];
+                    long bit = 1L << value;
+                    if ((result[value >>> 6] & bit) == 0) {
+                        result[value >>> 6] |= bit;
+                        count++;
+                    }
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                count = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] |= otherWords[i];
+                    count += Long.bitCount(result[i]);
+                }
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        void forEach(int base, RowVisitor visitor) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    visitor.visit(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16L + WORDS * 8L;
+        }
+
+        private static ArrayContainer toArray(long[] words, int count) {
+            char[] values = new char[count];
+            int k = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[k++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
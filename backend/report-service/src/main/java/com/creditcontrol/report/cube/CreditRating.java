@@ -0,0 +1,26 @@
+package com.creditcontrol.report.cube;
+
+/**
+ * 信用评级，按风险评分分档 (评分越高评级越好)，评分为负表示未评级
+ */
+public enum CreditRating {
+    A(90), B(75), C(60), D(0), UNRATED(Integer.MIN_VALUE);
+
+    private final int minScore;
+
+    CreditRating(int minScore) {
+        this.minScore = minScore;
+    }
+
+    public static CreditRating of(int riskScore) {
+        if (riskScore < 0) {
+            return UNRATED;
+        }
+        for (CreditRating rating : values()) {
+            if (riskScore >= rating.minScore) {
+                return rating;
+            }
+        }
+        return D;
+    }
+}
@@ -0,0 +1,35 @@
+package com.creditcontrol.report.cube;
+
+import java.util.Locale;
+
+/**
+ * 立方体维度，paramName为查询参数名
+ */
+public enum CubeDimension {
+    INDUSTRY("industry"),
+    STATUS("status"),
+    RISK_LEVEL("riskLevel"),
+    CREDIT_RATING("creditRating");
+
+    private final String paramName;
+
+    CubeDimension(String paramName) {
+        this.paramName = paramName;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    /**
+     * 接受参数名 (riskLevel) 或枚举名 (RISK_LEVEL)
+     */
+    public static CubeDimension parse(String value) {
+        for (CubeDimension dimension : values()) {
+            if (dimension.paramName.equalsIgnoreCase(value) || dimension.name().equalsIgnoreCase(value)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension: " + value.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,34 @@
+package com.creditcontrol.report.cube;
+
+import lombok.Getter;
+
+/**
+ * 选中客户的聚合度量，金额单位为分
+ */
+@Getter
+public class CubeMeasures {
+
+    private long customers;
+    private long creditLimitCents;
+    private long usedCreditCents;
+    private long scoredCustomers;
+    private long riskScoreSum;
+
+    void add(long creditLimit, long usedCredit, int riskScore) {
+        customers++;
+        creditLimitCents += creditLimit;
+        usedCreditCents += usedCredit;
+        if (riskScore >= 0) {
+            scoredCustomers++;
+            riskScoreSum += riskScore;
+        }
+    }
+
+    public double getUtilization() {
+        return creditLimitCents == 0 ? 0.0 : usedCreditCents * 100.0 / creditLimitCents;
+    }
+
+    public double getAverageRiskScore() {
+        return scoredCustomers == 0 ? 0.0 : (double) riskScoreSum / scoredCustomers;
+    }
+}
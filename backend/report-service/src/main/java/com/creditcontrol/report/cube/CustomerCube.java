@@ -0,0 +1,230 @@
+package com.creditcontrol.report.cube;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 客户立方体
+ * 客户按加载顺序编号 (行号)，度量按列保存在基本类型数组中；每个维度的每个取值对应一个压缩位图。
+ * 过滤条件在同一维度内取并集、不同维度间取交集，然后只遍历结果位图中的行累加度量；
+ * 分组时按每行的维度取值序号 (char列) 一次遍历累加到各分组。
+ * 创建后不可变，刷新时整体替换。
+ */
+public final class CustomerCube {
+
+    private final int size;
+    private final long[] creditLimitCents;
+    private final long[] usedCreditCents;
+    private final int[] riskScores;
+    private final Map<CubeDimension, List<String>> values;
+    private final Map<CubeDimension, Map<String, CompressedBitmap>> bitmaps;
+    private final Map<CubeDimension, char[]> ordinals;
+    private final CompressedBitmap all;
+    private final Instant loadedAt;
+
+    private CustomerCube(Builder builder) {
+        this.size = builder.size;
+        this.creditLimitCents = Arrays.copyOf(builder.creditLimitCents, builder.size);
+        this.usedCreditCents = Arrays.copyOf(builder.usedCreditCents, builder.size);
+        this.riskScores = Arrays.copyOf(builder.riskScores, builder.size);
+        this.values = new EnumMap<>(CubeDimension.class);
+        this.bitmaps = new EnumMap<>(CubeDimension.class);
+        this.ordinals = new EnumMap<>(CubeDimension.class);
+        for (CubeDimension dimension : CubeDimension.values()) {
+            // 取值按字典序排列，行上的序号从插入顺序重映射为排序后的顺序
+            DimensionBuilder source = builder.dimensions.get(dimension);
+            String[] sorted = source.values.toArray(new String[0]);
+            Arrays.sort(sorted);
+            char[] remap = new char[sorted.length];
+            Map<String, CompressedBitmap> index = new LinkedHashMap<>();
+            for (int i = 0; i < sorted.length; i++) {
+                int original = source.ordinals.get(sorted[i]);
+                remap[original] = (char) i;
+                index.put(sorted[i], source.bitmaps.get(original).build());
+            }
+            char[] column = Arrays.copyOf(source.column, builder.size);
+            for (int row = 0; row < column.length; row++) {
+                column[row] = remap[column[row]];
+            }
+            values.put(dimension, List.of(sorted));
+            bitmaps.put(dimension, index);
+            ordinals.put(dimension, column);
+        }
+        this.all = CompressedBitmap.range(builder.size);
+        this.loadedAt = Instant.now();
+    }
+
+    public static CustomerCube empty() {
+        return new Builder(0).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public List<String> valuesOf(CubeDimension dimension) {
+        return values.get(dimension);
+    }
+
+    /**
+     * 按过滤条件选出行，未出现的维度不过滤，维度内的未知取值不匹配任何行
+     */
+    public CompressedBitmap select(Map<CubeDimension, List<String>> filter) {
+        CompressedBitmap result = all;
+        for (Map.Entry<CubeDimension, List<String>> entry : filter.entrySet()) {
+            Map<String, CompressedBitmap> index = bitmaps.get(entry.getKey());
+            CompressedBitmap union = CompressedBitmap.empty();
+            for (String value : entry.getValue()) {
+                CompressedBitmap bitmap = index.get(normalize(value));
+                if (bitmap != null) {
+                    union = union.isEmpty() ? bitmap : union.or(bitmap);
+                }
+            }
+            result = result.and(union);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public CubeMeasures aggregate(CompressedBitmap rows) {
+        CubeMeasures measures = new CubeMeasures();
+        rows.forEach(row -> measures.add(creditLimitCents[row], usedCreditCents[row], riskScores[row]));
+        return measures;
+    }
+
+    /**
+     * 按维度拆分选中的行，返回 取值 -> 度量 (只包含非空分组)
+     */
+    public Map<String, CubeMeasures> breakdown(CompressedBitmap rows, CubeDimension dimension) {
+        List<String> names = values.get(dimension);
+        char[] column = ordinals.get(dimension);
+        CubeMeasures[] groups = new CubeMeasures[names.size()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = new CubeMeasures();
+        }
+        rows.forEach(row -> groups[column[row]].add(creditLimitCents[row], usedCreditCents[row], riskScores[row]));
+        Map<String, CubeMeasures> result = new LinkedHashMap<>();
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i].getCustomers() > 0) {
+                result.put(names.get(i), groups[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 位图索引和序号列的估算字节数
+     */
+    public long indexSizeInBytes() {
+        long bytes = (long) size * 2 * ordinals.size();
+        for (Map<String, CompressedBitmap> index : bitmaps.values()) {
+            for (CompressedBitmap bitmap : index.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    static String normalize(String value) {
+        return value == null || value.isBlank() ? "UNKNOWN" : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 逐行追加构建
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] creditLimitCents;
+        private long[] usedCreditCents;
+        private int[] riskScores;
+        private final Map<CubeDimension, DimensionBuilder> dimensions = new EnumMap<>(CubeDimension.class);
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            creditLimitCents = new long[capacity];
+            usedCreditCents = new long[capacity];
+            riskScores = new int[capacity];
+            for (CubeDimension dimension : CubeDimension.values()) {
+                dimensions.put(dimension, new DimensionBuilder(capacity));
+            }
+        }
+
+        /**
+         * 追加一个客户，riskScore为负表示未评分
+         */
+        public void add(String industry, String status, String riskLevel, String creditRating,
+                        long creditLimit, long usedCredit, int riskScore) {
+            if (size == creditLimitCents.length) {
+                int capacity = size * 2;
+                creditLimitCents = Arrays.copyOf(creditLimitCents, capacity);
+                usedCreditCents = Arrays.copyOf(usedCreditCents, capacity);
+                riskScores = Arrays.copyOf(riskScores, capacity);
+            }
+            int row = size++;
+            creditLimitCents[row] = creditLimit;
+            usedCreditCents[row] = usedCredit;
+            riskScores[row] = riskScore;
+            index(CubeDimension.INDUSTRY, industry, row);
+            index(CubeDimension.STATUS, status, row);
+            index(CubeDimension.RISK_LEVEL, riskLevel, row);
+            index(CubeDimension.CREDIT_RATING, creditRating, row);
+        }
+
+        public CustomerCube build() {
+            return new CustomerCube(this);
+        }
+
+        private void index(CubeDimension dimension, String value, int row) {
+            dimensions.get(dimension).add(normalize(value), row);
+        }
+    }
+
+    /**
+     * 单个维度的构建状态: 取值按出现顺序编号，每个编号一个位图，另有按行的编号列
+     */
+    private static final class DimensionBuilder {
+
+        private static final int MAX_VALUES = Character.MAX_VALUE + 1;
+
+        final Map<String, Integer> ordinals = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<CompressedBitmap.Builder> bitmaps = new ArrayList<>();
+        char[] column;
+
+        DimensionBuilder(int capacity) {
+            column = new char[capacity];
+        }
+
+        void add(String value, int row) {
+            Integer ordinal = ordinals.get(value);
+            if (ordinal == null) {
+                if (values.size() == MAX_VALUES) {
+                    throw new IllegalStateException("Too many distinct dimension values: " + MAX_VALUES);
+                }
+                ordinal = values.size();
+                ordinals.put(value, ordinal);
+                values.add(value);
+                bitmaps.add(new CompressedBitmap.Builder());
+            }
+            if (row == column.length) {
+                column = Arrays.copyOf(column, row * 2);
+            }
+            column[row] = (char) (int) ordinal;
+            bitmaps.get(ordinal).add(row);
+        }
+    }
+}
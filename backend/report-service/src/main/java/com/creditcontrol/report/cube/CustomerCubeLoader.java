@@ -0,0 +1,86 @@
+package com.creditcontrol.report.cube;
+
+import com.creditcontrol.report.config.StreamingQuery;
+import com.creditcontrol.report.rollup.RiskLevel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 客户立方体加载器
+ * 定期全量扫描客户和信用表构建新立方体，以volatile引用整体替换，查询无需加锁
+ */
+@Component
+@Slf4j
+public class CustomerCubeLoader {
+
+    private static final String CUBE_SQL =
+            "SELECT c.industry, c.status, cc.credit_limit, cc.available_credit, cc.risk_score " +
+            "FROM customers c LEFT JOIN customer_credit cc ON cc.customer_id = c.customer_id";
+
+    @Autowired
+    private StreamingQuery streamingQuery;
+
+    @Value("${creditcontrol.report.cube.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${creditcontrol.report.dashboard.low-risk-min-score:80}")
+    private int lowRiskMinScore;
+
+    @Value("${creditcontrol.report.dashboard.medium-risk-min-score:50}")
+    private int mediumRiskMinScore;
+
+    private volatile CustomerCube cube = CustomerCube.empty();
+    private volatile long lastRefreshDurationMs;
+    private volatile int expectedCustomers = 1024;
+
+    public CustomerCube getCube() {
+        return cube;
+    }
+
+    public long getLastRefreshDurationMs() {
+        return lastRefreshDurationMs;
+    }
+
+    /**
+     * 重建立方体，启动时立即执行一次；失败时保留上一版本
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${creditcontrol.report.cube.refresh-interval-ms:300000}")
+    public void refresh() {
+        long startTime = System.currentTimeMillis();
+        CustomerCube.Builder builder = new CustomerCube.Builder(expectedCustomers);
+        try {
+            streamingQuery.forEachRow(CUBE_SQL, fetchSize, rs -> {
+                int riskScore = rs.getInt("risk_score");
+                if (rs.wasNull()) {
+                    riskScore = -1;
+                }
+                long limit = toCents(rs, "credit_limit");
+                long used = Math.max(0L, limit - toCents(rs, "available_credit"));
+                builder.add(rs.getString("industry"), rs.getString("status"),
+                        RiskLevel.classify(riskScore, lowRiskMinScore, mediumRiskMinScore).name(),
+                        CreditRating.of(riskScore).name(), limit, used, riskScore);
+            });
+        } catch (RuntimeException e) {
+            log.error("CUBE_REFRESH_ERROR: keeping previous cube - {}", e.getMessage(), e);
+            return;
+        }
+        CustomerCube loaded = builder.build();
+        cube = loaded;
+        expectedCustomers = Math.max(expectedCustomers, loaded.size());
+        lastRefreshDurationMs = System.currentTimeMillis() - startTime;
+        log.info("CUBE_REFRESHED: customers: {}, indexBytes: {}, duration: {}ms",
+                loaded.size(), loaded.indexSizeInBytes(), lastRefreshDurationMs);
+    }
+
+    private static long toCents(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? 0L : value.movePointRight(2).longValue();
+    }
+}
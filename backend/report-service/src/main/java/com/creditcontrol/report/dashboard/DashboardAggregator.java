@@ -0,0 +1,183 @@
+package com.creditcontrol.report.dashboard;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 仪表盘聚合状态 (只由物化器的写线程访问)
+ * 保存每个客户的当前值和各项合计。应用事件时先减去客户旧值对合计的贡献再加上新值，
+ * 每个事件O(1)，发布快照只需复制合计。月份切换时重置本月付款计数并重新统计本月新增客户。
+ */
+class DashboardAggregator {
+
+    private final int lowRiskMinScore;
+    private final int mediumRiskMinScore;
+    private Map<Long, CustomerState> customers = new HashMap<>();
+
+    private long activeCustomers;
+    private long creditLimitCents;
+    private long outstandingCents;
+    private long riskScoreSum;
+    private long scoredCustomers;
+    private long lowRiskCustomers;
+    private long highRiskCustomers;
+    private long newThisMonth;
+
+    private long monthStartEpochDay;
+    private long monthSubmittedCents;
+    private long monthCompletedCents;
+
+    DashboardAggregator(int lowRiskMinScore, int mediumRiskMinScore, long nowMillis) {
+        this.lowRiskMinScore = lowRiskMinScore;
+        this.mediumRiskMinScore = mediumRiskMinScore;
+        this.monthStartEpochDay = monthStart(nowMillis);
+    }
+
+    void apply(DashboardEvent event) {
+        if (event.getType() == DashboardEventType.PAYMENT) {
+            applyPayment(event);
+            return;
+        }
+        CustomerState state = customers.computeIfAbsent(event.getCustomerId(), id -> new CustomerState());
+        contribute(state, -1);
+        switch (event.getType()) {
+            case CUSTOMER:
+                state.active = event.isActive();
+                if (event.getCreatedEpochDay() != Long.MIN_VALUE) {
+                    state.createdEpochDay = event.getCreatedEpochDay();
+                }
+                break;
+            case CREDIT:
+                state.creditLimitCents = event.getCreditLimitCents();
+                state.availableCreditCents = event.getAvailableCreditCents();
+                break;
+            case RISK:
+                state.riskScore = event.getRiskScore();
+                break;
+            default:
+                break;
+        }
+        state.updatedAt = event.getEnqueuedAt();
+        contribute(state, 1);
+    }
+
+    /**
+     * 用全量扫描结果替换客户状态。扫描开始后已有事件更新过的客户保留事件中的值，避免被旧数据覆盖
+     */
+    void replace(Map<Long, CustomerState> loaded, long scanStartedAt) {
+        for (Map.Entry<Long, CustomerState> entry : customers.entrySet()) {
+            if (entry.getValue().updatedAt > scanStartedAt) {
+                loaded.put(entry.getKey(), entry.getValue());
+            }
+        }
+        customers = loaded;
+        recompute();
+    }
+
+    /**
+     * 进入新月份时重置本月统计，返回是否切换了月份
+     */
+    boolean rollMonth(long nowMillis) {
+        long start = monthStart(nowMillis);
+        if (start == monthStartEpochDay) {
+            return false;
+        }
+        monthStartEpochDay = start;
+        monthSubmittedCents = 0;
+        monthCompletedCents = 0;
+        recompute();
+        return true;
+    }
+
+    DashboardSnapshot snapshot(long version, long publishedAt, long lastEventAt, long lastRebuildAt) {
+        long previousCustomers = activeCustomers - newThisMonth;
+        return DashboardSnapshot.builder()
+                .version(version)
+                .publishedAt(publishedAt)
+                .lastEventAt(lastEventAt)
+                .lastRebuildAt(lastRebuildAt)
+                .totalCustomers(activeCustomers)
+                .totalCreditLimitCents(creditLimitCents)
+                .totalOutstandingCents(outstandingCents)
+                // 上月受理、本月结算的付款也计入本月结算额，比例封顶100%
+                .collectionRate(monthSubmittedCents == 0 ? 0.0
+                        : Math.min(100.0, monthCompletedCents * 100.0 / monthSubmittedCents))
+                .averageRiskScore(scoredCustomers == 0 ? 0.0 : (double) riskScoreSum / scoredCustomers)
+                .monthlyGrowth(previousCustomers <= 0 ? 0.0 : newThisMonth * 100.0 / previousCustomers)
+                .topPerformingCustomers(lowRiskCustomers)
+                .highRiskCustomers(highRiskCustomers)
+                .build();
+    }
+
+    int size() {
+        return customers.size();
+    }
+
+    private void applyPayment(DashboardEvent event) {
+        if ("PROCESSING".equals(event.getPaymentStatus())) {
+            monthSubmittedCents += event.getAmountCents();
+        } else if ("COMPLETED".equals(event.getPaymentStatus())) {
+            monthCompletedCents += event.getAmountCents();
+        }
+    }
+
+    private void recompute() {
+        activeCustomers = 0;
+        creditLimitCents = 0;
+        outstandingCents = 0;
+        riskScoreSum = 0;
+        scoredCustomers = 0;
+        lowRiskCustomers = 0;
+        highRiskCustomers = 0;
+        newThisMonth = 0;
+        for (CustomerState state : customers.values()) {
+            contribute(state, 1);
+        }
+    }
+
+    /**
+     * 把客户对合计的贡献加上 (sign=1) 或减去 (sign=-1)，只统计活跃客户
+     */
+    private void contribute(CustomerState state, int sign) {
+        if (!state.active) {
+            return;
+        }
+        activeCustomers += sign;
+        creditLimitCents += sign * state.creditLimitCents;
+        outstandingCents += sign * Math.max(0L, state.creditLimitCents - state.availableCreditCents);
+        if (state.riskScore >= 0) {
+            riskScoreSum += sign * state.riskScore;
+            scoredCustomers += sign;
+            if (state.riskScore >= lowRiskMinScore) {
+                lowRiskCustomers += sign;
+            } else if (state.riskScore < mediumRiskMinScore) {
+                highRiskCustomers += sign;
+            }
+        }
+        if (state.createdEpochDay >= monthStartEpochDay) {
+            newThisMonth += sign;
+        }
+    }
+
+    private static long monthStart(long millis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC).withDayOfMonth(1).toEpochDay();
+    }
+
+    /**
+     * 单个客户的当前值
+     */
+    static final class CustomerState {
+
+        boolean active;
+        long createdEpochDay = Long.MIN_VALUE;
+        long creditLimitCents;
+        long availableCreditCents;
+        /** -1表示尚未评分 */
+        int riskScore = -1;
+        /** 最后一次由事件更新的时间 (毫秒)，全量加载的状态为0 */
+        long updatedAt;
+    }
+}
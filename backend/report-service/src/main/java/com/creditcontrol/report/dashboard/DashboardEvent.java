@@ -0,0 +1,40 @@
+package com.creditcontrol.report.dashboard;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 仪表盘变更事件
+ * 只有与类型相关的字段有意义: CUSTOMER用active/createdEpochDay，CREDIT用额度，
+ * PAYMENT用金额和付款状态，RISK用风险评分
+ */
+@Getter
+@Builder
+public class DashboardEvent {
+
+    private final DashboardEventType type;
+
+    private final long customerId;
+
+    private final boolean active;
+
+    /** Long.MIN_VALUE表示未提供 */
+    private final long createdEpochDay;
+
+    private final long creditLimitCents;
+
+    private final long availableCreditCents;
+
+    private final long amountCents;
+
+    /** PROCESSING / COMPLETED / FAILED */
+    private final String paymentStatus;
+
+    private final int riskScore;
+
+    /** 入队时间 (纳秒)，用于计算刷新延迟 */
+    private final long enqueuedNanos;
+
+    /** 入队时间 (毫秒) */
+    private final long enqueuedAt;
+}
@@ -0,0 +1,15 @@
+package com.creditcontrol.report.dashboard;
+
+/**
+ * 驱动仪表盘增量更新的变更事件类型
+ */
+public enum DashboardEventType {
+    /** 客户新建或状态变更 */
+    CUSTOMER,
+    /** 信用额度或可用额度变更 */
+    CREDIT,
+    /** 付款受理、结算或失败 */
+    PAYMENT,
+    /** 风险评分变更 */
+    RISK
+}
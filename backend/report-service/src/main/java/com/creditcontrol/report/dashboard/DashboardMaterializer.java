@@ -0,0 +1,278 @@
+package com.creditcontrol.report.dashboard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.creditcontrol.report.config.StreamingQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 物化仪表盘
+ * 变更事件进入有界队列，单个写线程批量取出应用到 {@link DashboardAggregator}，每批发布一个新的不可变快照
+ * (AtomicReference整体替换)，读取方只做一次引用读取，从不阻塞。
+ * 定期全量扫描客户和信用表纠正漏发的事件：扫描在调度线程执行，结果交给写线程替换。
+ */
+@Component
+@Slf4j
+public class DashboardMaterializer {
+
+    private static final String REBUILD_SQL =
+            "SELECT c.customer_id, c.status, c.created_date, cc.credit_limit, cc.available_credit, cc.risk_score " +
+            "FROM customers c LEFT JOIN customer_credit cc ON cc.customer_id = c.customer_id";
+
+    @Autowired
+    private StreamingQuery streamingQuery;
+
+    @Value("${creditcontrol.report.dashboard.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${creditcontrol.report.dashboard.max-batch-size:4096}")
+    private int maxBatchSize;
+
+    @Value("${creditcontrol.report.dashboard.fetch-size:10000}")
+    private int fetchSize;
+
+    /** 评分不低于该值视为低风险 */
+    @Value("${creditcontrol.report.dashboard.low-risk-min-score:80}")
+    private int lowRiskMinScore;
+
+    /** 评分低于该值视为高风险 */
+    @Value("${creditcontrol.report.dashboard.medium-risk-min-score:50}")
+    private int mediumRiskMinScore;
+
+    private final AtomicReference<DashboardSnapshot> current = new AtomicReference<>(DashboardSnapshot.empty());
+    private final AtomicReference<Rebuild> pendingRebuild = new AtomicReference<>();
+
+    private final AtomicLong eventsAccepted = new AtomicLong();
+    private final AtomicLong eventsRejected = new AtomicLong();
+    private final AtomicLong eventsApplied = new AtomicLong();
+    private final AtomicLong rebuildFailures = new AtomicLong();
+
+    private BlockingQueue<DashboardEvent> queue;
+    private DashboardAggregator aggregator;
+    private Thread writer;
+    private volatile boolean running;
+
+    private long version;
+    private long lastEventAt;
+    private volatile int customersTracked;
+    private volatile long lastRebuildAt;
+    private volatile long lastRebuildDurationMs;
+    private volatile long lastRefreshLatencyMicros;
+    private volatile long averageRefreshLatencyMicros;
+    private volatile long maxRefreshLatencyMicros;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        aggregator = new DashboardAggregator(lowRiskMinScore, mediumRiskMinScore, System.currentTimeMillis());
+        running = true;
+        writer = new Thread(this::writeLoop, "dashboard-materializer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("DASHBOARD_MATERIALIZER_STARTED: queueCapacity: {}, maxBatchSize: {}", queueCapacity, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 当前快照，从不为null (首次全量加载前为空快照)
+     */
+    public DashboardSnapshot getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * 事件入队，不阻塞；队列满时丢弃并返回false，由定期全量扫描兜底
+     */
+    public boolean offer(DashboardEvent event) {
+        if (queue.offer(event)) {
+            eventsAccepted.incrementAndGet();
+            return true;
+        }
+        eventsRejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 全量扫描客户和信用表，启动时立即执行一次
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${creditcontrol.report.dashboard.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long scanStartedAt = System.currentTimeMillis();
+        Map<Long, DashboardAggregator.CustomerState> loaded = new HashMap<>(Math.max(16, customersTracked * 4 / 3));
+        try {
+            streamingQuery.forEachRow(REBUILD_SQL, fetchSize, rs -> {
+                DashboardAggregator.CustomerState state = new DashboardAggregator.CustomerState();
+                state.active = "ACTIVE".equals(rs.getString("status"));
+                Timestamp created = rs.getTimestamp("created_date");
+                if (created != null) {
+                    state.createdEpochDay = created.toInstant().atOffset(ZoneOffset.UTC).toLocalDate().toEpochDay();
+                }
+                state.creditLimitCents = toCents(rs, "credit_limit");
+                state.availableCreditCents = toCents(rs, "available_credit");
+                int riskScore = rs.getInt("risk_score");
+                state.riskScore = rs.wasNull() ? -1 : riskScore;
+                loaded.put(rs.getLong("customer_id"), state);
+            });
+        } catch (RuntimeException e) {
+            rebuildFailures.incrementAndGet();
+            log.error("DASHBOARD_REBUILD_ERROR: keeping incremental state - {}", e.getMessage(), e);
+            return;
+        }
+        lastRebuildDurationMs = System.currentTimeMillis() - scanStartedAt;
+        pendingRebuild.set(new Rebuild(loaded, scanStartedAt));
+        log.info("DASHBOARD_REBUILD_LOADED: customers: {}, duration: {}ms", loaded.size(), lastRebuildDurationMs);
+    }
+
+    public long getEventsAccepted() {
+        return eventsAccepted.get();
+    }
+
+    public long getEventsRejected() {
+        return eventsRejected.get();
+    }
+
+    public long getEventsApplied() {
+        return eventsApplied.get();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCustomersTracked() {
+        return customersTracked;
+    }
+
+    /**
+     * 最早一个未应用事件的等待时间，队列为空时为0
+     */
+    public long getStalenessMillis() {
+        DashboardEvent oldest = queue.peek();
+        return oldest == null ? 0L : Math.max(0L, System.currentTimeMillis() - oldest.getEnqueuedAt());
+    }
+
+    public long getLastRefreshLatencyMicros() {
+        return lastRefreshLatencyMicros;
+    }
+
+    public long getAverageRefreshLatencyMicros() {
+        return averageRefreshLatencyMicros;
+    }
+
+    public long getMaxRefreshLatencyMicros() {
+        return maxRefreshLatencyMicros;
+    }
+
+    public long getLastRebuildAt() {
+        return lastRebuildAt;
+    }
+
+    public long getLastRebuildDurationMs() {
+        return lastRebuildDurationMs;
+    }
+
+    public long getRebuildFailures() {
+        return rebuildFailures.get();
+    }
+
+    private void writeLoop() {
+        List<DashboardEvent> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                DashboardEvent first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                refresh(batch);
+            } catch (RuntimeException e) {
+                log.error("DASHBOARD_REFRESH_ERROR: events: {} - {}", batch.size(), e.getMessage(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 应用一批事件 (以及待替换的全量结果) 并发布新快照；没有变化时只检查月份切换
+     */
+    private void refresh(List<DashboardEvent> batch) {
+        long now = System.currentTimeMillis();
+        Rebuild rebuild = pendingRebuild.getAndSet(null);
+        if (rebuild != null) {
+            aggregator.replace(rebuild.customers, rebuild.scanStartedAt);
+            lastRebuildAt = now;
+        }
+        long oldestEnqueuedNanos = Long.MAX_VALUE;
+        for (DashboardEvent event : batch) {
+            aggregator.apply(event);
+            oldestEnqueuedNanos = Math.min(oldestEnqueuedNanos, event.getEnqueuedNanos());
+            lastEventAt = Math.max(lastEventAt, event.getEnqueuedAt());
+        }
+        boolean monthRolled = aggregator.rollMonth(now);
+        if (batch.isEmpty() && rebuild == null && !monthRolled) {
+            return;
+        }
+
+        customersTracked = aggregator.size();
+        current.set(aggregator.snapshot(++version, now, lastEventAt, lastRebuildAt));
+        if (!batch.isEmpty()) {
+            eventsApplied.addAndGet(batch.size());
+            recordLatency((System.nanoTime() - oldestEnqueuedNanos) / 1000);
+        }
+    }
+
+    private void recordLatency(long micros) {
+        lastRefreshLatencyMicros = micros;
+        maxRefreshLatencyMicros = Math.max(maxRefreshLatencyMicros, micros);
+        long average = averageRefreshLatencyMicros;
+        averageRefreshLatencyMicros = average == 0 ? micros : (average * 15 + micros) / 16;
+    }
+
+    private static long toCents(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? 0L : value.movePointRight(2).longValue();
+    }
+
+    /**
+     * 待写线程替换的全量扫描结果
+     */
+    private static final class Rebuild {
+
+        final Map<Long, DashboardAggregator.CustomerState> customers;
+        final long scanStartedAt;
+
+        Rebuild(Map<Long, DashboardAggregator.CustomerState> customers, long scanStartedAt) {
+            this.customers = customers;
+            this.scanStartedAt = scanStartedAt;
+        }
+    }
+}
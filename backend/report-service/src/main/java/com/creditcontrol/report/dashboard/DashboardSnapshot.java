@@ -0,0 +1,47 @@
+package com.creditcontrol.report.dashboard;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 不可变的仪表盘快照，由物化器整体替换发布，读取方无需加锁
+ */
+@Getter
+@Builder
+public class DashboardSnapshot {
+
+    /** 每次发布递增 */
+    private final long version;
+
+    /** 发布时间 (毫秒) */
+    private final long publishedAt;
+
+    /** 已应用的最后一个事件的入队时间，没有事件时为0 */
+    private final long lastEventAt;
+
+    private final long lastRebuildAt;
+
+    private final long totalCustomers;
+
+    private final long totalCreditLimitCents;
+
+    private final long totalOutstandingCents;
+
+    /** 本月已结算金额 / 本月受理金额 (%) */
+    private final double collectionRate;
+
+    private final double averageRiskScore;
+
+    /** 本月新增客户 / 月初客户数 (%) */
+    private final double monthlyGrowth;
+
+    /** 低风险客户数 (评分不低于低风险阈值) */
+    private final long topPerformingCustomers;
+
+    /** 高风险客户数 (评分低于中风险阈值) */
+    private final long highRiskCustomers;
+
+    static DashboardSnapshot empty() {
+        return DashboardSnapshot.builder().publishedAt(System.currentTimeMillis()).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.creditcontrol.report.dto;
+
+import com.creditcontrol.report.dashboard.DashboardEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 仪表盘变更事件请求DTO
+ * CUSTOMER需要active，CREDIT需要creditLimit和availableCredit，PAYMENT需要amount和paymentStatus，RISK需要riskScore
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardEventRequest {
+
+    @NotNull(message = "Event type is required")
+    private DashboardEventType type;
+
+    @NotNull(message = "Customer ID is required")
+    @Positive(message = "Customer ID must be positive")
+    private Long customerId;
+
+    private Boolean active;
+
+    private LocalDate createdDate;
+
+    @DecimalMin(value = "0.00", message = "Credit limit must not be negative")
+    private BigDecimal creditLimit;
+
+    @DecimalMin(value = "0.00", message = "Available credit must not be negative")
+    private BigDecimal availableCredit;
+
+    @DecimalMin(value = "0.00", message = "Amount must not be negative")
+    private BigDecimal amount;
+
+    @Pattern(regexp = "PROCESSING|COMPLETED|FAILED", message = "Payment status must be PROCESSING, COMPLETED or FAILED")
+    private String paymentStatus;
+
+    @Min(value = 0, message = "Risk score must be between 0 and 100")
+    @Max(value = 100, message = "Risk score must be between 0 and 100")
+    private Integer riskScore;
+}
@@ -0,0 +1,47 @@
+package com.creditcontrol.report.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 物化仪表盘运行指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardStatsDto {
+
+    private long version;
+
+    private String publishedAt;
+
+    private int customersTracked;
+
+    private long eventsAccepted;
+
+    /** 队列满被丢弃的事件，由定期全量扫描兜底 */
+    private long eventsRejected;
+
+    private long eventsApplied;
+
+    private int queueDepth;
+
+    /** 最早一个未应用事件的等待时间 */
+    private long stalenessMs;
+
+    /** 事件入队到包含它的快照发布的时间 (一批中最早的事件) */
+    private double lastRefreshLatencyMs;
+
+    private double averageRefreshLatencyMs;
+
+    private double maxRefreshLatencyMs;
+
+    private String lastRebuildAt;
+
+    private long lastRebuildDurationMs;
+
+    private long rebuildFailures;
+}
@@ -0,0 +1,39 @@
+package com.creditcontrol.report.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 报表结果缓存运行指标DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportCacheStatsDto {
+
+    private int entries;
+
+    private long totalBytes;
+
+    private long maxBytes;
+
+    private long hits;
+
+    private long misses;
+
+    /** 命中率 (%) */
+    private double hitRate;
+
+    private long evictions;
+
+    /** 合并到已有任务的请求数 */
+    private long coalescedRequests;
+
+    /** 各报表类型当前的数据水位 */
+    private Map<String, String> watermarks;
+}
@@ -0,0 +1,59 @@
+package com.creditcontrol.report.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 报表任务状态DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDto {
+
+    private String reportId;
+
+    private String reportType;
+
+    private String priority;
+
+    private String format;
+
+    private boolean gzip;
+
+    /** QUEUED / RUNNING / COMPLETED / FAILED / CANCELLED */
+    private String status;
+
+    /** 前面还有多少个排队任务，不在排队时为null */
+    private Integer queuePosition;
+
+    private long rowsWritten;
+
+    /** 运行期间的平均写出速度 */
+    private long rowsPerSecond;
+
+    private long fileSize;
+
+    /** 结果直接来自缓存，未重新生成 */
+    private boolean cacheHit;
+
+    /** 共用该任务的请求数 (相同参数的并发请求会合并) */
+    private int requesters;
+
+    private String submittedAt;
+
+    private String startedAt;
+
+    private String finishedAt;
+
+    /** 按同类报表的平均耗时估算，没有历史数据时为null */
+    private String estimatedCompletion;
+
+    /** 只有完成后才有下载地址 */
+    private String downloadUrl;
+
+    private String error;
+}
@@ -0,0 +1,11 @@
+package com.creditcontrol.report.exception;
+
+/**
+ * 报表任务队列已满
+ */
+public class ReportQueueFullException extends RuntimeException {
+
+    public ReportQueueFullException(String message) {
+        super(message);
+    }
+}
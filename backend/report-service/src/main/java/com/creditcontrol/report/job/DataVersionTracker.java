@@ -0,0 +1,82 @@
+package com.creditcontrol.report.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 数据版本水位
+ * 每张表一个单调递增的版本号，收到变更事件时立即递增；另外定期执行指纹查询，
+ * 捕获没有经过事件通知的变更 (最多滞后一个检查间隔)。版本号只在进程内有效，重启后从0开始。
+ */
+@Component
+@Slf4j
+public class DataVersionTracker {
+
+    private static final ReportTable[] TABLES = ReportTable.values();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLongArray versions = new AtomicLongArray(TABLES.length);
+    private final AtomicReferenceArray<String> fingerprints = new AtomicReferenceArray<>(TABLES.length);
+
+    /**
+     * 报表类型当前的数据水位，如 c3-k7
+     */
+    public String watermark(ReportType type) {
+        StringBuilder watermark = new StringBuilder();
+        for (ReportTable table : type.getTables()) {
+            if (watermark.length() > 0) {
+                watermark.append('-');
+            }
+            watermark.append(table.getCode()).append(versions.get(table.ordinal()));
+        }
+        return watermark.toString();
+    }
+
+    public long versionOf(ReportTable table) {
+        return versions.get(table.ordinal());
+    }
+
+    /**
+     * 标记表数据已变更，依赖该表的缓存结果不再命中
+     */
+    public void markChanged(ReportTable table) {
+        versions.incrementAndGet(table.ordinal());
+    }
+
+    /**
+     * 比较各表指纹，变化时递增版本；启动时立即执行一次以记录初始指纹
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${creditcontrol.report.cache.fingerprint-interval-ms:30000}")
+    public void checkFingerprints() {
+        for (ReportTable table : TABLES) {
+            String fingerprint;
+            try {
+                fingerprint = jdbcTemplate.query(table.getFingerprintQuery(), rs -> {
+                    rs.next();
+                    StringBuilder value = new StringBuilder();
+                    for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                        value.append(rs.getString(i)).append('|');
+                    }
+                    return value.toString();
+                });
+            } catch (RuntimeException e) {
+                log.error("DATA_FINGERPRINT_ERROR: table: {} - {}", table, e.getMessage(), e);
+                continue;
+            }
+            String previous = fingerprints.getAndSet(table.ordinal(), fingerprint);
+            if (previous != null && !Objects.equals(previous, fingerprint)) {
+                long version = versions.incrementAndGet(table.ordinal());
+                log.info("DATA_VERSION_CHANGED: table: {}, version: {}", table, version);
+            }
+        }
+    }
+}
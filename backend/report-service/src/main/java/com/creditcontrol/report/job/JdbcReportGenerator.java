@@ -0,0 +1,106 @@
+package com.creditcontrol.report.job;
+
+import com.creditcontrol.report.config.StreamingQuery;
+import com.creditcontrol.report.writer.CsvReportWriter;
+import com.creditcontrol.report.writer.ReportWriter;
+import com.creditcontrol.report.writer.XlsxReportWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基于JDBC游标的报表生成器
+ * 通过 {@link StreamingQuery} 按fetch-size分批拉取，每行取出后立即交给 {@link ReportWriter} 写出，
+ * 结果集不会整体加载到内存。
+ */
+@Component
+public class JdbcReportGenerator implements ReportGenerator {
+
+    /** 每写出多少行检查一次取消并更新进度 */
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    @Autowired
+    private StreamingQuery streamingQuery;
+
+    @Value("${creditcontrol.report.jobs.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${creditcontrol.report.jobs.writer-buffer-chars:65536}")
+    private int writerBufferChars;
+
+    @Override
+    public void generate(ReportJob job, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = job.isGzip() ? new GZIPOutputStream(out, writerBufferChars) : null;
+        OutputStream target = gzip != null ? gzip : out;
+        ReportWriter writer = job.getFormat() == ReportFormat.XLSX
+                ? new XlsxReportWriter(target, writerBufferChars)
+                : new CsvReportWriter(target, writerBufferChars);
+
+        streamingQuery.query(job.getType().getQuery(), fetchSize, rs -> writeResultSet(job, rs, writer));
+
+        writer.finish();
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    /**
+     * 把结果集逐行写出，返回写出的数据行数
+     */
+    static long writeResultSet(ReportJob job, ResultSet rs, ReportWriter writer) throws IOException, SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columns = metaData.getColumnCount();
+        String[] labels = new String[columns];
+        boolean[] numeric = new boolean[columns];
+        for (int i = 0; i < columns; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            numeric[i] = isNumeric(metaData.getColumnType(i + 1));
+        }
+        writer.header(labels, numeric);
+
+        long rows = 0;
+        int pending = 0;
+        while (rs.next()) {
+            writer.startRow();
+            for (int i = 1; i <= columns; i++) {
+                writer.cell(rs.getString(i));
+            }
+            writer.endRow();
+            rows++;
+            if (++pending == PROGRESS_INTERVAL) {
+                job.addRows(pending);
+                pending = 0;
+                if (job.isCancelRequested()) {
+                    throw new ReportCancelledException(job.getReportId());
+                }
+            }
+        }
+        job.addRows(pending);
+        return rows;
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
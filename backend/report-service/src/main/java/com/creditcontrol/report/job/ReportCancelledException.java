@@ -0,0 +1,11 @@
+package com.creditcontrol.report.job;
+
+/**
+ * 报表生成过程中检测到取消请求
+ */
+public class ReportCancelledException extends RuntimeException {
+
+    public ReportCancelledException(String reportId) {
+        super("Report cancelled: " + reportId);
+    }
+}
@@ -0,0 +1,47 @@
+package com.creditcontrol.report.job;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 结果文件下载
+ * 容器支持sendfile (Tomcat NIO连接器) 时只设置请求属性，由连接器在请求线程返回后用sendfile直接从页缓存发送，
+ * 数据不经过JVM堆；否则用 {@link FileChannel#transferTo} 写到响应流。
+ * sendfile时文件在本方法返回后才被打开，调用方须保证文件此后仍存在一段时间 (缓存淘汰的文件按宽限期延迟删除)。
+ */
+public final class ReportFileTransfer {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private ReportFileTransfer() {
+    }
+
+    public static void send(Path file, long size, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentLengthLong(size);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+        response.flushBuffer();
+    }
+}
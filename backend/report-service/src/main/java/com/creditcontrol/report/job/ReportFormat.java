@@ -0,0 +1,38 @@
+package com.creditcontrol.report.job;
+
+import java.util.Locale;
+
+/**
+ * 报表文件格式
+ */
+public enum ReportFormat {
+
+    CSV("csv", "text/csv"),
+
+    /** Office Open XML工作簿，单个工作表超过行数上限时自动拆分到下一个工作表 */
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String contentType;
+
+    ReportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ReportFormat parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown report format: " + value);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.creditcontrol.report.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 报表生成器
+ * 按任务的格式和压缩选项把报表内容写入输出流 (不关闭输出流)，每写出一批行调用 {@link ReportJob#addRows(long)}，
+ * 并在 {@link ReportJob#isCancelRequested()} 为true时抛出 {@link ReportCancelledException}
+ */
+public interface ReportGenerator {
+
+    void generate(ReportJob job, OutputStream out) throws IOException;
+}
@@ -0,0 +1,218 @@
+package com.creditcontrol.report.job;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 报表任务
+ * 状态只会前进: QUEUED → RUNNING → COMPLETED/FAILED/CANCELLED，或 QUEUED → CANCELLED。
+ * 相同缓存键的并发请求共用一个任务，requesters记录共用的请求数
+ */
+public class ReportJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String reportId;
+    private final ReportType type;
+    private final ReportPriority priority;
+    private final ReportFormat format;
+    private final boolean gzip;
+    /** 提交序号，同一优先级内先进先出 */
+    private final long sequence;
+    private final long submittedAt;
+    private final String cacheKey;
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicInteger requesters = new AtomicInteger(1);
+
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile Path resultFile;
+    private volatile long fileSize;
+    private volatile String error;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    /** 结果文件归缓存所有 (由缓存淘汰删除)，否则随任务清理删除 */
+    private volatile boolean cachedResult;
+    private volatile boolean cacheHit;
+
+    ReportJob(String reportId, ReportType type, ReportPriority priority, ReportFormat format, boolean gzip,
+              long sequence, String cacheKey) {
+        this.reportId = reportId;
+        this.type = type;
+        this.priority = priority;
+        this.format = format;
+        this.gzip = gzip;
+        this.sequence = sequence;
+        this.cacheKey = cacheKey;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 生成器在写出行之间检查，取消后抛出异常中止生成
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void addRows(long rows) {
+        rowsWritten.addAndGet(rows);
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    synchronized boolean markRunning() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized boolean markCancelledIfQueued() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        cancelRequested = true;
+        finish(State.CANCELLED, null);
+        return true;
+    }
+
+    synchronized void markCompleted(Path file, long size, boolean cached) {
+        resultFile = file;
+        fileSize = size;
+        cachedResult = cached;
+        finish(State.COMPLETED, null);
+    }
+
+    /**
+     * 直接以缓存中的结果完成，不经过队列
+     */
+    synchronized void markCacheHit(Path file, long size) {
+        startedAt = System.currentTimeMillis();
+        cacheHit = true;
+        markCompleted(file, size, true);
+    }
+
+    void addRequester() {
+        requesters.incrementAndGet();
+    }
+
+    /**
+     * 一个请求方放弃任务，返回剩余的请求方数量
+     */
+    int releaseRequester() {
+        return requesters.updateAndGet(count -> Math.max(0, count - 1));
+    }
+
+    synchronized void finish(State finalState, String message) {
+        error = message;
+        finishedAt = System.currentTimeMillis();
+        state = finalState;
+    }
+
+    public String getReportId() {
+        return reportId;
+    }
+
+    public ReportType getType() {
+        return type;
+    }
+
+    public ReportPriority getPriority() {
+        return priority;
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * 结果文件名: 报表ID.扩展名[.gz]
+     */
+    public String getFileName() {
+        return reportId + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    public String getContentType() {
+        return gzip ? "application/gzip" : format.getContentType();
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    String getCacheKey() {
+        return cacheKey;
+    }
+
+    public int getRequesters() {
+        return requesters.get();
+    }
+
+    public boolean isCachedResult() {
+        return cachedResult;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public Path getResultFile() {
+        return resultFile;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * 运行期间的平均写出速度 (行/秒)，未开始时为0
+     */
+    public long getRowsPerSecond() {
+        long started = startedAt;
+        if (started == 0) {
+            return 0;
+        }
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        return rowsWritten.get() * 1000 / Math.max(1, end - started);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+}
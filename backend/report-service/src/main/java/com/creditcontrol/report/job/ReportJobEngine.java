@@ -0,0 +1,378 @@
+package com.creditcontrol.report.job;
+
+import com.creditcontrol.report.exception.ReportQueueFullException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * 报表任务引擎
+ * 请求线程只负责入队并立即返回任务ID，固定数量的工作线程从 {@link ReportJobQueue} 取任务生成报表。
+ * 结果先写入 .part 临时文件，完成后原子改名，下载端只会看到完整文件。
+ * 完成的结果按 类型+参数+数据水位 放入 {@link ReportResultCache}，水位未变时相同请求直接以缓存文件完成；
+ * 相同缓存键的任务在排队或运行中时，新请求合并到该任务，不重复生成。
+ * 已结束的任务保留 result-retention-hours 后清理，缓存中的结果文件只由缓存按总字节数淘汰。
+ */
+@Component
+@Slf4j
+public class ReportJobEngine {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+    private static final ReportType[] TYPES = ReportType.values();
+
+    @Autowired
+    private ReportGenerator generator;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private DataVersionTracker versionTracker;
+
+    @Value("${creditcontrol.report.jobs.result-directory:data/reports}")
+    private String resultDirectory;
+
+    @Value("${creditcontrol.report.jobs.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${creditcontrol.report.jobs.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${creditcontrol.report.jobs.default-concurrency:2}")
+    private int defaultConcurrency;
+
+    @Value("${creditcontrol.report.jobs.result-retention-hours:24}")
+    private long resultRetentionHours;
+
+    @Value("${creditcontrol.report.jobs.max-finished-jobs:1000}")
+    private int maxFinishedJobs;
+
+    @Value("${creditcontrol.report.cache.max-bytes:2147483648}")
+    private long cacheMaxBytes;
+
+    @Value("${creditcontrol.report.cache.eviction-grace-ms:300000}")
+    private long cacheEvictionGraceMs;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    /** 每种类型最近完成任务耗时的指数移动平均 (毫秒)，用于估算完成时间 */
+    private final AtomicLongArray averageDurations = new AtomicLongArray(TYPES.length);
+    /** 缓存键 -> 排队或运行中的任务 */
+    private final Map<String, ReportJob> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private ReportResultCache cache;
+    private ReportJobQueue queue;
+    private Path directory;
+    private List<Thread> workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(resultDirectory);
+        Files.createDirectories(directory);
+        deleteLeftoverFiles();
+        cache = new ReportResultCache(cacheMaxBytes, cacheEvictionGraceMs);
+
+        int[] limits = new int[TYPES.length];
+        for (ReportType type : TYPES) {
+            limits[type.ordinal()] = environment.getProperty(
+                    "creditcontrol.report.jobs.concurrency." + type.name().toLowerCase(Locale.ROOT),
+                    Integer.class, defaultConcurrency);
+        }
+        queue = new ReportJobQueue(queueCapacity, limits);
+
+        running = true;
+        workers = new ArrayList<>(workerThreads);
+        for (int i = 0; i < workerThreads; i++) {
+            Thread worker = new Thread(this::workLoop, "report-worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("REPORT_ENGINE_STARTED: workers: {}, queueCapacity: {}, concurrency: {}, cacheMaxBytes: {}",
+                workerThreads, queueCapacity, limits, cacheMaxBytes);
+    }
+
+    /**
+     * 关闭时取消所有未结束的任务，等待工作线程退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (ReportJob job : jobs.values()) {
+            if (!job.getState().isFinished()) {
+                cancel(job.getReportId());
+            }
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        log.info("REPORT_ENGINE_STOPPED");
+    }
+
+    /**
+     * 提交报表任务，队列已满时抛出 {@link ReportQueueFullException}。
+     * 缓存命中时返回已完成的任务；相同缓存键的任务未结束时返回该任务
+     */
+    public ReportJob submit(ReportType type, ReportPriority priority, ReportFormat format, boolean gzip) {
+        String key = ReportResultCache.key(type, format, gzip, versionTracker.watermark(type));
+        ReportJob[] submitted = new ReportJob[1];
+        inFlight.compute(key, (k, existing) -> {
+            if (existing != null && !existing.getState().isFinished()) {
+                existing.addRequester();
+                coalesced.incrementAndGet();
+                submitted[0] = existing;
+                log.info("REPORT_JOB_COALESCED: reportId: {}, cacheKey: {}, requesters: {}",
+                        existing.getReportId(), key, existing.getRequesters());
+                return existing;
+            }
+            long seq = sequence.incrementAndGet();
+            ReportJob job = new ReportJob("RPT_" + System.currentTimeMillis() + "_" + seq, type, priority, format,
+                    gzip, seq, key);
+            submitted[0] = job;
+            ReportResultCache.Entry cached = cache.get(key);
+            if (cached != null) {
+                job.markCacheHit(cached.file, cached.size);
+                jobs.put(job.getReportId(), job);
+                log.info("REPORT_CACHE_HIT: reportId: {}, cacheKey: {}, bytes: {}", job.getReportId(), key, cached.size);
+                return null;
+            }
+            jobs.put(job.getReportId(), job);
+            if (!running || !queue.offer(job)) {
+                jobs.remove(job.getReportId());
+                log.warn("REPORT_QUEUE_FULL: capacity: {}, reportType: {}", queue.capacity(), type);
+                throw new ReportQueueFullException("Report queue is full, please retry later");
+            }
+            log.info("REPORT_JOB_QUEUED: reportId: {}, reportType: {}, priority: {}, format: {}, gzip: {}, cacheKey: {}",
+                    job.getReportId(), type, priority, format, gzip, key);
+            return job;
+        });
+        return submitted[0];
+    }
+
+    /**
+     * 取消任务: 仍有其他请求方共用时只减少请求数；否则排队中的直接移出队列，运行中的由生成器在下一个检查点中止
+     */
+    public ReportJob cancel(String reportId) {
+        ReportJob job = jobs.get(reportId);
+        if (job == null || job.getState().isFinished()) {
+            return job;
+        }
+        int remaining = job.releaseRequester();
+        if (remaining > 0 && running) {
+            log.info("REPORT_JOB_CANCEL_DEFERRED: reportId: {}, remainingRequesters: {}", reportId, remaining);
+            return job;
+        }
+        if (job.markCancelledIfQueued()) {
+            queue.remove(job);
+            inFlight.remove(job.getCacheKey(), job);
+            log.info("REPORT_JOB_CANCELLED: reportId: {}, state: QUEUED", reportId);
+        } else if (job.getState() == ReportJob.State.RUNNING) {
+            job.requestCancel();
+            log.info("REPORT_JOB_CANCEL_REQUESTED: reportId: {}", reportId);
+        }
+        return job;
+    }
+
+    public ReportJob getJob(String reportId) {
+        return jobs.get(reportId);
+    }
+
+    public Collection<ReportJob> getJobs() {
+        return jobs.values();
+    }
+
+    /**
+     * 任务前面的排队任务数，不在队列中返回-1
+     */
+    public int queuePosition(ReportJob job) {
+        return job.getState() == ReportJob.State.QUEUED ? queue.positionOf(job) : -1;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getRunning(ReportType type) {
+        return queue.running(type);
+    }
+
+    public String getWatermark(ReportType type) {
+        return versionTracker.watermark(type);
+    }
+
+    public int getCacheEntries() {
+        return cache.size();
+    }
+
+    public long getCacheBytes() {
+        return cache.getTotalBytes();
+    }
+
+    public long getCacheMaxBytes() {
+        return cache.getMaxBytes();
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return cache.getEvictions();
+    }
+
+    public long getCoalescedRequests() {
+        return coalesced.get();
+    }
+
+    /**
+     * 该类型最近任务的平均耗时，没有历史时返回0
+     */
+    public long getAverageDurationMillis(ReportType type) {
+        return averageDurations.get(type.ordinal());
+    }
+
+    /**
+     * 清理过期任务及其结果文件，已结束任务数超过上限时先清理最早的；同时删除淘汰已过宽限期的缓存文件
+     */
+    @Scheduled(fixedDelayString = "${creditcontrol.report.jobs.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        cache.deleteEvicted(System.currentTimeMillis());
+        long expiresBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(resultRetentionHours);
+        List<ReportJob> finished = jobs.values().stream()
+                .filter(job -> job.getState().isFinished())
+                .sorted(Comparator.comparingLong(ReportJob::getFinishedAt))
+                .collect(Collectors.toList());
+        int excess = finished.size() - maxFinishedJobs;
+        int purged = 0;
+        for (ReportJob job : finished) {
+            if (job.getFinishedAt() >= expiresBefore && purged >= excess) {
+                break;
+            }
+            jobs.remove(job.getReportId());
+            if (!job.isCachedResult()) {
+                deleteQuietly(job.getResultFile());
+            }
+            purged++;
+        }
+        if (purged > 0) {
+            log.info("REPORT_JOBS_PURGED: count: {}", purged);
+        }
+    }
+
+    private void workLoop() {
+        while (running) {
+            ReportJob job;
+            try {
+                job = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job == null) {
+                continue;
+            }
+            try {
+                execute(job);
+            } finally {
+                inFlight.remove(job.getCacheKey(), job);
+                queue.release(job.getType());
+            }
+        }
+    }
+
+    private void execute(ReportJob job) {
+        if (!job.markRunning()) {
+            return;
+        }
+        log.info("REPORT_JOB_STARTED: reportId: {}, reportType: {}, waited: {}ms",
+                job.getReportId(), job.getType(), job.getStartedAt() - job.getSubmittedAt());
+
+        Path file = directory.resolve(job.getFileName());
+        Path part = directory.resolve(file.getFileName() + PART_SUFFIX);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), OUTPUT_BUFFER_BYTES)) {
+                generator.generate(job, out);
+            }
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            long size = Files.size(file);
+            // 先放入缓存再标记完成，之后的相同请求要么合并到本任务，要么命中缓存
+            job.markCompleted(file, size, cache.put(job.getCacheKey(), file, size));
+            recordDuration(job);
+            log.info("REPORT_JOB_COMPLETED: reportId: {}, rows: {}, bytes: {}, rowsPerSecond: {}, duration: {}ms",
+                    job.getReportId(), job.getRowsWritten(), job.getFileSize(), job.getRowsPerSecond(),
+                    job.getFinishedAt() - job.getStartedAt());
+        } catch (ReportCancelledException e) {
+            deleteQuietly(part);
+            job.finish(ReportJob.State.CANCELLED, null);
+            log.info("REPORT_JOB_CANCELLED: reportId: {}, rows: {}", job.getReportId(), job.getRowsWritten());
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(part);
+            job.finish(ReportJob.State.FAILED, e.getMessage());
+            log.error("REPORT_JOB_FAILED: reportId: {} - {}", job.getReportId(), e.getMessage(), e);
+        }
+    }
+
+    private void recordDuration(ReportJob job) {
+        long duration = job.getFinishedAt() - job.getStartedAt();
+        int index = job.getType().ordinal();
+        long previous = averageDurations.get(index);
+        averageDurations.set(index, previous == 0 ? Math.max(1, duration) : (previous * 7 + duration) / 8);
+    }
+
+    /**
+     * 清理上次运行留下的结果和临时文件: 任务记录和数据版本号都只在进程内有效，这些文件已无法引用
+     */
+    private void deleteLeftoverFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("REPORT_FILE_DELETE_FAILED: {} - {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.creditcontrol.report.job;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界、按优先级并限制每种报表类型并发数的任务队列
+ * 每个 (优先级, 类型) 一个FIFO子队列。工作线程取任务时从高优先级往低扫描，
+ * 跳过已达到并发上限的类型，在可运行的类型中取提交最早的任务；任务结束后释放类型槽位。
+ * 类型和优先级都很少，一次扫描只看各子队列的队首。
+ */
+class ReportJobQueue {
+
+    private static final ReportPriority[] PRIORITIES = ReportPriority.values();
+    private static final ReportType[] TYPES = ReportType.values();
+
+    private final int capacity;
+    private final int[] typeLimits;
+    private final int[] running = new int[TYPES.length];
+    private final ArrayDeque<ReportJob>[][] queues;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** 有新任务或有类型槽位释放 */
+    private final Condition runnable = lock.newCondition();
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    ReportJobQueue(int capacity, int[] typeLimits) {
+        if (typeLimits.length != TYPES.length) {
+            throw new IllegalArgumentException("One concurrency limit per report type is required");
+        }
+        this.capacity = capacity;
+        this.typeLimits = typeLimits.clone();
+        this.queues = new ArrayDeque[PRIORITIES.length][TYPES.length];
+        for (int p = 0; p < PRIORITIES.length; p++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                queues[p][t] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /**
+     * 入队，队列已满时返回false
+     */
+    boolean offer(ReportJob job) {
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                return false;
+            }
+            queues[job.getPriority().ordinal()][job.getType().ordinal()].addLast(job);
+            size++;
+            runnable.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出下一个可运行的任务并占用其类型槽位，超时返回null
+     */
+    ReportJob poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                ReportJob job = takeRunnable();
+                if (job != null) {
+                    return job;
+                }
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = runnable.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 任务结束，释放类型槽位
+     */
+    void release(ReportType type) {
+        lock.lock();
+        try {
+            running[type.ordinal()]--;
+            runnable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从队列中移除未开始的任务
+     */
+    boolean remove(ReportJob job) {
+        lock.lock();
+        try {
+            Iterator<ReportJob> iterator = queues[job.getPriority().ordinal()][job.getType().ordinal()].iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() == job) {
+                    iterator.remove();
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 任务前面还有多少个排队任务 (按当前出队顺序估算，不考虑类型并发上限)，不在队列中返回-1
+     */
+    int positionOf(ReportJob job) {
+        lock.lock();
+        try {
+            int ahead = 0;
+            for (int p = 0; p < PRIORITIES.length; p++) {
+                for (int t = 0; t < TYPES.length; t++) {
+                    for (ReportJob queued : queues[p][t]) {
+                        if (queued == job) {
+                            continue;
+                        }
+                        if (p < job.getPriority().ordinal()
+                                || (p == job.getPriority().ordinal() && queued.getSequence() < job.getSequence())) {
+                            ahead++;
+                        }
+                    }
+                }
+            }
+            return queues[job.getPriority().ordinal()][job.getType().ordinal()].contains(job) ? ahead : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int running(ReportType type) {
+        lock.lock();
+        try {
+            return running[type.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private ReportJob takeRunnable() {
+        for (ArrayDeque<ReportJob>[] byType : queues) {
+            int best = -1;
+            for (int t = 0; t < TYPES.length; t++) {
+                ReportJob head = byType[t].peekFirst();
+                if (head != null && running[t] < typeLimits[t]
+                        && (best < 0 || head.getSequence() < byType[best].peekFirst().getSequence())) {
+                    best = t;
+                }
+            }
+            if (best >= 0) {
+                running[best]++;
+                size--;
+                return byType[best].pollFirst();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.creditcontrol.report.job;
+
+/**
+ * 报表任务优先级，队列先取高优先级任务，同一优先级按提交顺序
+ */
+public enum ReportPriority {
+    HIGH, NORMAL, LOW
+}
@@ -0,0 +1,170 @@
+package com.creditcontrol.report.job;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 报表结果缓存
+ * 键为 类型+格式+压缩+数据水位，值为结果目录中的文件。按访问顺序维护LRU，
+ * 总字节数超过上限时从最久未访问的条目开始淘汰。单个结果超过上限时不缓存。
+ * 淘汰的文件延迟graceMs后才删除: sendfile下载时容器在请求线程返回后才打开文件，立即删除会使下载失败；
+ * 宽限期内已打开的文件句柄在删除后仍可读完 (POSIX语义)。
+ */
+@Slf4j
+class ReportResultCache {
+
+    private final long maxBytes;
+    private final long graceMs;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    /** 已淘汰待删除的文件，按淘汰时间排序 */
+    private final ArrayDeque<Evicted> evictedFiles = new ArrayDeque<>();
+
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ReportResultCache(long maxBytes, long graceMs) {
+        this.maxBytes = maxBytes;
+        this.graceMs = graceMs;
+    }
+
+    static String key(ReportType type, ReportFormat format, boolean gzip, String watermark) {
+        return type.name() + "_" + watermark + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * 查找并刷新访问顺序，文件已不存在时移除条目
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && !Files.exists(entry.file)) {
+            entries.remove(key);
+            totalBytes -= entry.size;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * 放入结果文件，返回false表示文件过大未缓存 (仍归任务所有)
+     */
+    boolean put(String key, Path file, long size) {
+        return put(key, file, size, System.currentTimeMillis());
+    }
+
+    boolean put(String key, Path file, long size, long now) {
+        synchronized (this) {
+            if (size > maxBytes) {
+                return false;
+            }
+            Entry previous = entries.put(key, new Entry(file, size));
+            if (previous != null) {
+                totalBytes -= previous.size;
+                if (!previous.file.equals(file)) {
+                    evictedFiles.addLast(new Evicted(previous.file, now));
+                }
+            }
+            totalBytes += size;
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> candidate = eldest.next();
+                if (candidate.getKey().equals(key)) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= candidate.getValue().size;
+                evictions++;
+                evictedFiles.addLast(new Evicted(candidate.getValue().file, now));
+            }
+        }
+        deleteEvicted(now);
+        return true;
+    }
+
+    /**
+     * 删除淘汰超过宽限期的文件，返回删除的文件数
+     */
+    int deleteEvicted(long now) {
+        List<Path> expired = new ArrayList<>();
+        synchronized (this) {
+            while (!evictedFiles.isEmpty() && evictedFiles.peekFirst().evictedAt + graceMs <= now) {
+                expired.add(evictedFiles.pollFirst().file);
+            }
+        }
+        // 删除文件在锁外进行
+        for (Path path : expired) {
+            try {
+                Files.deleteIfExists(path);
+                log.info("REPORT_CACHE_EVICTED: {}", path.getFileName());
+            } catch (IOException e) {
+                log.warn("REPORT_CACHE_EVICT_FAILED: {} - {}", path, e.getMessage());
+            }
+        }
+        return expired.size();
+    }
+
+    synchronized int pendingDeletes() {
+        return evictedFiles.size();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static final class Evicted {
+
+        final Path file;
+        final long evictedAt;
+
+        Evicted(Path file, long evictedAt) {
+            this.file = file;
+            this.evictedAt = evictedAt;
+        }
+    }
+
+    static final class Entry {
+
+        final Path file;
+        final long size;
+
+        Entry(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
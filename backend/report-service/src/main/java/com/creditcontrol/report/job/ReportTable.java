@@ -0,0 +1,32 @@
+package com.creditcontrol.report.job;
+
+/**
+ * 报表依赖的数据表
+ * 每张表有一条廉价的指纹查询 (行数、最大时间戳、金额合计)，指纹变化即视为数据版本变化
+ */
+public enum ReportTable {
+
+    CUSTOMERS("c",
+            "SELECT COUNT(*), MAX(updated_date), MAX(created_date) FROM customers"),
+
+    CUSTOMER_CREDIT("k",
+            "SELECT COUNT(*), MAX(last_assessment_date), SUM(credit_limit), SUM(available_credit), SUM(risk_score) " +
+            "FROM customer_credit");
+
+    private final String code;
+    private final String fingerprintQuery;
+
+    ReportTable(String code, String fingerprintQuery) {
+        this.code = code;
+        this.fingerprintQuery = fingerprintQuery;
+    }
+
+    /** 水位字符串中的表标识 */
+    public String getCode() {
+        return code;
+    }
+
+    public String getFingerprintQuery() {
+        return fingerprintQuery;
+    }
+}
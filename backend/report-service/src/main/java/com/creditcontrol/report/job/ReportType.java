@@ -0,0 +1,58 @@
+package com.creditcontrol.report.job;
+
+/**
+ * 报表类型
+ * 每种类型对应一条只读查询，结果按行流式写出；tables为查询读取的表，决定结果缓存的数据水位
+ */
+public enum ReportType {
+
+    /** 客户清单 */
+    CUSTOMER(
+            "SELECT c.customer_id, c.customer_code, c.company_name, c.industry, c.status, c.created_date " +
+            "FROM customers c ORDER BY c.customer_id",
+            ReportTable.CUSTOMERS),
+
+    /** 信用敞口: 额度、可用额度、已用额度 */
+    CREDIT(
+            "SELECT c.customer_id, c.customer_code, c.company_name, cc.credit_limit, cc.available_credit, " +
+            "cc.credit_limit - cc.available_credit AS used_credit " +
+            "FROM customers c JOIN customer_credit cc ON cc.customer_id = c.customer_id " +
+            "ORDER BY c.customer_id",
+            ReportTable.CUSTOMERS, ReportTable.CUSTOMER_CREDIT),
+
+    /** 风险分布: 风险等级、风险评分、最近评估日期 */
+    RISK(
+            "SELECT c.customer_id, c.customer_code, c.company_name, c.industry, cc.risk_level, cc.risk_score, " +
+            "cc.last_assessment_date " +
+            "FROM customers c JOIN customer_credit cc ON cc.customer_id = c.customer_id " +
+            "WHERE c.status = 'ACTIVE' ORDER BY c.customer_id",
+            ReportTable.CUSTOMERS, ReportTable.CUSTOMER_CREDIT);
+
+    private final String query;
+    private final ReportTable[] tables;
+
+    ReportType(String query, ReportTable... tables) {
+        this.query = query;
+        this.tables = tables;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    ReportTable[] getTables() {
+        return tables;
+    }
+
+    /**
+     * 解析路径中的报表类型 (不区分大小写)，未知类型抛出IllegalArgumentException
+     */
+    public static ReportType parse(String value) {
+        for (ReportType type : values()) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report type: " + value);
+    }
+}
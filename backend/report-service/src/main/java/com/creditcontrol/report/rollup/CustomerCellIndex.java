@@ -0,0 +1,60 @@
+package com.creditcontrol.report.rollup;
+
+/**
+ * 客户ID到汇总单元 (行业×风险等级) 的只读索引
+ * 开放寻址、线性探测，键和值都是基本类型数组，百万客户约12MB。每次采样构建新实例整体替换。
+ */
+class CustomerCellIndex {
+
+    private static final long EMPTY = 0L;
+
+    private final long[] keys;
+    private final short[] cells;
+    private final int mask;
+    private int size;
+
+    CustomerCellIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        cells = new short[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 插入或覆盖，customerId必须为正数；超过负载上限时忽略 (归入默认单元)
+     */
+    void put(long customerId, int cell) {
+        if (size >= keys.length - (keys.length >> 2)) {
+            return;
+        }
+        int index = slot(customerId);
+        while (keys[index] != EMPTY && keys[index] != customerId) {
+            index = (index + 1) & mask;
+        }
+        if (keys[index] == EMPTY) {
+            keys[index] = customerId;
+            size++;
+        }
+        cells[index] = (short) cell;
+    }
+
+    int get(long customerId, int defaultCell) {
+        int index = slot(customerId);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == customerId) {
+                return cells[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultCell;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
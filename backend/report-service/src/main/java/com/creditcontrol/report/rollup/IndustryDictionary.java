@@ -0,0 +1,68 @@
+package com.creditcontrol.report.rollup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行业名称到序号的字典
+ * 序号一经分配不会改变 (持久化的汇总按序号存储)，超过上限的新行业都归入最后一个 "OTHER" 序号
+ */
+public class IndustryDictionary {
+
+    public static final String OTHER = "OTHER";
+
+    private final int capacity;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * capacity包含OTHER，至少为1
+     */
+    public IndustryDictionary(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 获取或分配行业序号，空行业视为OTHER
+     */
+    public synchronized int ordinalOf(String industry) {
+        if (industry == null || industry.isBlank()) {
+            return otherOrdinal();
+        }
+        Integer ordinal = ordinals.get(industry);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (names.size() >= capacity - 1) {
+            return otherOrdinal();
+        }
+        ordinals.put(industry, names.size());
+        names.add(industry);
+        return names.size() - 1;
+    }
+
+    /**
+     * 查询已分配的序号，未知行业返回-1
+     */
+    public synchronized int find(String industry) {
+        if (OTHER.equalsIgnoreCase(industry)) {
+            return otherOrdinal();
+        }
+        Integer ordinal = ordinals.get(industry);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public synchronized List<String> names() {
+        return new ArrayList<>(names);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int otherOrdinal() {
+        return capacity - 1;
+    }
+}
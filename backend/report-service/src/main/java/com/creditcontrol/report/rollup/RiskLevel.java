@@ -0,0 +1,31 @@
+package com.creditcontrol.report.rollup;
+
+import java.util.Locale;
+
+/**
+ * 风险等级，评分越高风险越低
+ */
+public enum RiskLevel {
+    LOW, MEDIUM, HIGH, UNSCORED;
+
+    /**
+     * 按阈值把评分归类，评分为负表示未评分
+     */
+    public static RiskLevel classify(int riskScore, int lowRiskMinScore, int mediumRiskMinScore) {
+        if (riskScore < 0) {
+            return UNSCORED;
+        }
+        if (riskScore >= lowRiskMinScore) {
+            return LOW;
+        }
+        return riskScore >= mediumRiskMinScore ? MEDIUM : HIGH;
+    }
+
+    public static RiskLevel parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown risk level: " + value);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.creditcontrol.report.rollup;
+
+/**
+ * 趋势预测
+ * Holt线性指数平滑 (水平+趋势两个分量)，只在月汇总序列上计算，复杂度与月数成正比
+ */
+public final class TrendForecaster {
+
+    private TrendForecaster() {
+    }
+
+    /**
+     * 预测序列之后horizon期的值，结果不小于0；少于两个点时按最后一个值平推
+     */
+    public static double[] forecast(double[] series, int horizon, double alpha, double beta) {
+        double[] result = new double[horizon];
+        if (series.length == 0) {
+            return result;
+        }
+        double level = series[0];
+        double trend = series.length > 1 ? series[1] - series[0] : 0.0;
+        for (int i = 1; i < series.length; i++) {
+            double previousLevel = level;
+            level = alpha * series[i] + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+        }
+        for (int h = 1; h <= horizon; h++) {
+            result[h - 1] = Math.max(0.0, level + h * trend);
+        }
+        return result;
+    }
+}
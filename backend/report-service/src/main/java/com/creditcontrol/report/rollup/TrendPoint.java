@@ -0,0 +1,34 @@
+package com.creditcontrol.report.rollup;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 一个时间段的汇总结果
+ */
+@Getter
+@Builder
+public class TrendPoint {
+
+    /** 按月为 yyyy-MM，按天为 yyyy-MM-dd */
+    private final String period;
+
+    /** 段内最后一个采样日的时点值 */
+    private final long creditLimitCents;
+
+    private final long usedCreditCents;
+
+    private final long customers;
+
+    /** 段内已用额度之和 / 额度之和 (%)，即按日平均的使用率 */
+    private final double averageUtilization;
+
+    private final long collectionsCents;
+
+    /** 段内有采样的天数，为0时时点值无意义 */
+    private final int sampledDays;
+
+    public double getUtilization() {
+        return creditLimitCents == 0 ? 0.0 : usedCreditCents * 100.0 / creditLimitCents;
+    }
+}
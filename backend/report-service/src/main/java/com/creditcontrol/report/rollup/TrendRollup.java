@@ -0,0 +1,350 @@
+package com.creditcontrol.report.rollup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * 信用组合时间序列汇总
+ * 每个单元 (行业×风险等级) 按天和按月保存预聚合值，全部是按 [时间槽][单元] 排列的基本类型数组:
+ * <ul>
+ *   <li>额度、已用额度、客户数是时点值，同一天多次采样以最后一次为准；月汇总保存月内每日值之和 (求平均) 和月末值</li>
+ *   <li>回款是累加值，按天和按月各累加一份</li>
+ * </ul>
+ * 天和月都是环形缓冲区，各自有保留期 (月通常远长于天)，超过保留期的时间槽在复用时清零。任意日期范围的查询把范围内完整的月直接取月汇总，
+ * 首尾不完整的月再逐日累加，不需要原始明细。非线程安全，由调用方加锁。
+ */
+class TrendRollup {
+
+    static final int RISK_LEVELS = RiskLevel.values().length;
+    private static final long NO_DAY = Long.MIN_VALUE;
+    private static final int NO_MONTH = Integer.MIN_VALUE;
+
+    private final int cells;
+    private final int dayCapacity;
+    private final int monthCapacity;
+
+    private final long[] slotDay;
+    private final boolean[] daySampled;
+    private final long[] dayLimit;
+    private final long[] dayUsed;
+    private final long[] dayCollected;
+    private final int[] dayCustomers;
+
+    private final int[] slotMonth;
+    private final int[] monthSampledDays;
+    private final long[] monthLastSampledDay;
+    private final long[] monthLimitSum;
+    private final long[] monthUsedSum;
+    private final long[] monthCollected;
+    private final long[] monthLimitEnd;
+    private final long[] monthUsedEnd;
+    private final int[] monthCustomersEnd;
+
+    private long latestDay = NO_DAY;
+
+    TrendRollup(int cells, int retentionDays, int retentionMonths) {
+        this.cells = cells;
+        this.dayCapacity = retentionDays;
+        this.monthCapacity = Math.max(retentionMonths, retentionDays / 28 + 2);
+
+        slotDay = new long[dayCapacity];
+        Arrays.fill(slotDay, NO_DAY);
+        daySampled = new boolean[dayCapacity];
+        dayLimit = new long[dayCapacity * cells];
+        dayUsed = new long[dayCapacity * cells];
+        dayCollected = new long[dayCapacity * cells];
+        dayCustomers = new int[dayCapacity * cells];
+
+        slotMonth = new int[monthCapacity];
+        Arrays.fill(slotMonth, NO_MONTH);
+        monthSampledDays = new int[monthCapacity];
+        monthLastSampledDay = new long[monthCapacity];
+        monthLimitSum = new long[monthCapacity * cells];
+        monthUsedSum = new long[monthCapacity * cells];
+        monthCollected = new long[monthCapacity * cells];
+        monthLimitEnd = new long[monthCapacity * cells];
+        monthUsedEnd = new long[monthCapacity * cells];
+        monthCustomersEnd = new int[monthCapacity * cells];
+    }
+
+    int cells() {
+        return cells;
+    }
+
+    long latestDay() {
+        return latestDay;
+    }
+
+    /**
+     * 写入某天的时点值 (每个单元一项)，覆盖当天之前的采样
+     */
+    void sample(long day, long[] limit, long[] used, int[] customers) {
+        int ds = daySlot(day);
+        if (ds < 0) {
+            return;
+        }
+        int ms = monthSlot(monthIndex(day));
+        int dayBase = ds * cells;
+        int monthBase = ms * cells;
+        for (int cell = 0; cell < cells; cell++) {
+            monthLimitSum[monthBase + cell] += limit[cell] - dayLimit[dayBase + cell];
+            monthUsedSum[monthBase + cell] += used[cell] - dayUsed[dayBase + cell];
+            dayLimit[dayBase + cell] = limit[cell];
+            dayUsed[dayBase + cell] = used[cell];
+            dayCustomers[dayBase + cell] = customers[cell];
+        }
+        if (!daySampled[ds]) {
+            daySampled[ds] = true;
+            monthSampledDays[ms]++;
+        }
+        if (monthSampledDays[ms] == 1 || day >= monthLastSampledDay[ms]) {
+            monthLastSampledDay[ms] = day;
+            System.arraycopy(limit, 0, monthLimitEnd, monthBase, cells);
+            System.arraycopy(used, 0, monthUsedEnd, monthBase, cells);
+            System.arraycopy(customers, 0, monthCustomersEnd, monthBase, cells);
+        }
+    }
+
+    /**
+     * 累加某天某单元的回款，超出保留期的日期忽略
+     */
+    void addCollection(long day, int cell, long cents) {
+        int ds = daySlot(day);
+        if (ds < 0) {
+            return;
+        }
+        int ms = monthSlot(monthIndex(day));
+        dayCollected[ds * cells + cell] += cents;
+        monthCollected[ms * cells + cell] += cents;
+    }
+
+    /**
+     * 汇总 [fromDay, toDay] 范围内选中单元的值
+     */
+    void aggregate(long fromDay, long toDay, boolean[] cellMask, Aggregate result) {
+        result.reset();
+        long day = fromDay;
+        while (day <= toDay) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            long monthStart = date.withDayOfMonth(1).toEpochDay();
+            long monthEnd = date.withDayOfMonth(date.lengthOfMonth()).toEpochDay();
+            int ms = findMonthSlot(monthIndex(day));
+            if (day == monthStart && monthEnd <= toDay) {
+                if (ms >= 0) {
+                    addMonth(ms, cellMask, result);
+                }
+            } else {
+                for (long d = day; d <= Math.min(monthEnd, toDay); d++) {
+                    int ds = findDaySlot(d);
+                    if (ds >= 0) {
+                        addDay(ds, d, cellMask, result);
+                    }
+                }
+            }
+            day = monthEnd + 1;
+        }
+    }
+
+    /**
+     * 按日期升序遍历保留期内有数据的天 (用于持久化)
+     */
+    void forEachDay(DayVisitor visitor) {
+        long[] days = Arrays.stream(slotDay).filter(day -> day != NO_DAY).sorted().toArray();
+        for (long day : days) {
+            int ds = findDaySlot(day);
+            visitor.visit(day, daySampled[ds], ds * cells, dayLimit, dayUsed, dayCollected, dayCustomers);
+        }
+    }
+
+    /**
+     * 按月份升序遍历保留期内的月汇总 (用于持久化)
+     */
+    void forEachMonth(MonthVisitor visitor) {
+        int[] months = Arrays.stream(slotMonth).filter(month -> month != NO_MONTH).sorted().toArray();
+        for (int month : months) {
+            int ms = findMonthSlot(month);
+            visitor.visit(month, monthSampledDays[ms], monthLastSampledDay[ms], ms * cells, monthLimitSum,
+                    monthUsedSum, monthCollected, monthLimitEnd, monthUsedEnd, monthCustomersEnd);
+        }
+    }
+
+    /**
+     * 原样恢复一个天槽位，不影响月汇总 (月汇总单独恢复)
+     */
+    void restoreDay(long day, boolean sampled, long[] limit, long[] used, long[] collected, int[] customers) {
+        int ds = daySlot(day);
+        if (ds < 0) {
+            return;
+        }
+        int base = ds * cells;
+        daySampled[ds] = sampled;
+        System.arraycopy(limit, 0, dayLimit, base, cells);
+        System.arraycopy(used, 0, dayUsed, base, cells);
+        System.arraycopy(collected, 0, dayCollected, base, cells);
+        System.arraycopy(customers, 0, dayCustomers, base, cells);
+    }
+
+    /**
+     * 原样恢复一个月槽位，数组顺序与 {@link MonthVisitor} 相同
+     */
+    void restoreMonth(int month, int sampledDays, long lastSampledDay, long[][] values, int[] customersEnd) {
+        int ms = monthSlot(month);
+        int base = ms * cells;
+        monthSampledDays[ms] = sampledDays;
+        monthLastSampledDay[ms] = lastSampledDay;
+        System.arraycopy(values[0], 0, monthLimitSum, base, cells);
+        System.arraycopy(values[1], 0, monthUsedSum, base, cells);
+        System.arraycopy(values[2], 0, monthCollected, base, cells);
+        System.arraycopy(values[3], 0, monthLimitEnd, base, cells);
+        System.arraycopy(values[4], 0, monthUsedEnd, base, cells);
+        System.arraycopy(customersEnd, 0, monthCustomersEnd, base, cells);
+    }
+
+    private void addMonth(int ms, boolean[] cellMask, Aggregate result) {
+        int base = ms * cells;
+        boolean sampled = monthSampledDays[ms] > 0;
+        boolean latest = sampled && monthLastSampledDay[ms] >= result.endDay;
+        if (latest) {
+            result.endDay = monthLastSampledDay[ms];
+            result.limitEnd = 0;
+            result.usedEnd = 0;
+            result.customersEnd = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (!cellMask[cell]) {
+                continue;
+            }
+            result.limitSum += monthLimitSum[base + cell];
+            result.usedSum += monthUsedSum[base + cell];
+            result.collected += monthCollected[base + cell];
+            if (latest) {
+                result.limitEnd += monthLimitEnd[base + cell];
+                result.usedEnd += monthUsedEnd[base + cell];
+                result.customersEnd += monthCustomersEnd[base + cell];
+            }
+        }
+        result.sampledDays += monthSampledDays[ms];
+    }
+
+    private void addDay(int ds, long day, boolean[] cellMask, Aggregate result) {
+        int base = ds * cells;
+        boolean sampled = daySampled[ds];
+        if (sampled) {
+            result.endDay = day;
+            result.limitEnd = 0;
+            result.usedEnd = 0;
+            result.customersEnd = 0;
+            result.sampledDays++;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (!cellMask[cell]) {
+                continue;
+            }
+            result.collected += dayCollected[base + cell];
+            if (sampled) {
+                result.limitSum += dayLimit[base + cell];
+                result.usedSum += dayUsed[base + cell];
+                result.limitEnd += dayLimit[base + cell];
+                result.usedEnd += dayUsed[base + cell];
+                result.customersEnd += dayCustomers[base + cell];
+            }
+        }
+    }
+
+    /**
+     * 取得可写的天槽位，必要时清空旧数据；超出保留期返回-1
+     */
+    private int daySlot(long day) {
+        if (latestDay != NO_DAY && day <= latestDay - dayCapacity) {
+            return -1;
+        }
+        int ds = (int) Math.floorMod(day, (long) dayCapacity);
+        if (slotDay[ds] != day) {
+            slotDay[ds] = day;
+            daySampled[ds] = false;
+            int base = ds * cells;
+            Arrays.fill(dayLimit, base, base + cells, 0L);
+            Arrays.fill(dayUsed, base, base + cells, 0L);
+            Arrays.fill(dayCollected, base, base + cells, 0L);
+            Arrays.fill(dayCustomers, base, base + cells, 0);
+        }
+        latestDay = Math.max(latestDay, day);
+        return ds;
+    }
+
+    /**
+     * 月环至少比天环多留两个月，保留期内的天所在的月不会与更新的月共用槽位
+     */
+    private int monthSlot(int month) {
+        int ms = Math.floorMod(month, monthCapacity);
+        if (slotMonth[ms] != month) {
+            slotMonth[ms] = month;
+            monthSampledDays[ms] = 0;
+            monthLastSampledDay[ms] = NO_DAY;
+            int base = ms * cells;
+            Arrays.fill(monthLimitSum, base, base + cells, 0L);
+            Arrays.fill(monthUsedSum, base, base + cells, 0L);
+            Arrays.fill(monthCollected, base, base + cells, 0L);
+            Arrays.fill(monthLimitEnd, base, base + cells, 0L);
+            Arrays.fill(monthUsedEnd, base, base + cells, 0L);
+            Arrays.fill(monthCustomersEnd, base, base + cells, 0);
+        }
+        return ms;
+    }
+
+    private int findDaySlot(long day) {
+        int ds = (int) Math.floorMod(day, (long) dayCapacity);
+        return slotDay[ds] == day ? ds : -1;
+    }
+
+    private int findMonthSlot(int month) {
+        int ms = Math.floorMod(month, monthCapacity);
+        return slotMonth[ms] == month ? ms : -1;
+    }
+
+    static int monthIndex(long day) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * 持久化遍历回调，数组为内部数组，base为该天第一个单元的下标
+     */
+    interface DayVisitor {
+        void visit(long day, boolean sampled, int base, long[] limit, long[] used, long[] collected, int[] customers);
+    }
+
+    /**
+     * 持久化遍历回调，数组依次为月内每日额度之和、已用之和、回款、月末额度、月末已用、月末客户数
+     */
+    interface MonthVisitor {
+        void visit(int month, int sampledDays, long lastSampledDay, int base, long[] limitSum, long[] usedSum,
+                   long[] collected, long[] limitEnd, long[] usedEnd, int[] customersEnd);
+    }
+
+    /**
+     * 范围汇总结果: 时点值取范围内最后一个采样日，平均值 = 每日值之和 / 采样天数
+     */
+    static final class Aggregate {
+
+        long endDay;
+        long limitEnd;
+        long usedEnd;
+        long customersEnd;
+        long limitSum;
+        long usedSum;
+        long collected;
+        int sampledDays;
+
+        void reset() {
+            endDay = NO_DAY;
+            limitEnd = 0;
+            usedEnd = 0;
+            customersEnd = 0;
+            limitSum = 0;
+            usedSum = 0;
+            collected = 0;
+            sampledDays = 0;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.creditcontrol.report.rollup;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.creditcontrol.report.config.StreamingQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 趋势汇总引擎
+ * 定期按行业×风险等级采样信用组合 (额度、已用额度、客户数) 写入当天的时点值；
+ * 已结算付款按客户所在单元累加为当天回款。汇总定期落盘，重启后继续累积历史。
+ */
+@Component
+@Slf4j
+public class TrendRollupEngine {
+
+    private static final String SAMPLE_SQL =
+            "SELECT c.customer_id, c.industry, cc.credit_limit, cc.available_credit, cc.risk_score " +
+            "FROM customers c JOIN customer_credit cc ON cc.customer_id = c.customer_id " +
+            "WHERE c.status = 'ACTIVE'";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    @Autowired
+    private StreamingQuery streamingQuery;
+
+    @Value("${creditcontrol.report.trends.max-industries:64}")
+    private int maxIndustries;
+
+    @Value("${creditcontrol.report.trends.retention-days:1096}")
+    private int retentionDays;
+
+    @Value("${creditcontrol.report.trends.retention-months:120}")
+    private int retentionMonths;
+
+    @Value("${creditcontrol.report.trends.state-file:data/rollups/trends.dat}")
+    private String stateFile;
+
+    @Value("${creditcontrol.report.trends.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${creditcontrol.report.dashboard.low-risk-min-score:80}")
+    private int lowRiskMinScore;
+
+    @Value("${creditcontrol.report.dashboard.medium-risk-min-score:50}")
+    private int mediumRiskMinScore;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IndustryDictionary industries;
+    private TrendRollup rollup;
+    private Path file;
+    private volatile CustomerCellIndex customerCells = new CustomerCellIndex(16);
+    private volatile long lastSampleAt;
+    private volatile long lastSampleDurationMs;
+
+    @PostConstruct
+    public void open() throws IOException {
+        industries = new IndustryDictionary(maxIndustries);
+        rollup = new TrendRollup(maxIndustries * TrendRollup.RISK_LEVELS, retentionDays, retentionMonths);
+        file = Paths.get(stateFile);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean loaded = TrendRollupFile.load(file, rollup, industries);
+        log.info("TREND_ROLLUP_OPENED: loaded: {}, industries: {}, latestDay: {}", loaded, industries.names().size(),
+                loaded ? LocalDate.ofEpochDay(rollup.latestDay()) : null);
+    }
+
+    @PreDestroy
+    public void close() {
+        persist();
+    }
+
+    /**
+     * 采样当前信用组合写入今天的时点值，启动时立即执行一次
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${creditcontrol.report.trends.sample-interval-ms:900000}")
+    public void sample() {
+        long startTime = System.currentTimeMillis();
+        int cells = rollup.cells();
+        long[] limit = new long[cells];
+        long[] used = new long[cells];
+        int[] customers = new int[cells];
+        CustomerCellIndex index = new CustomerCellIndex(Math.max(16, customerCells.size()));
+        try {
+            streamingQuery.forEachRow(SAMPLE_SQL, fetchSize, rs -> {
+                int riskScore = rs.getInt("risk_score");
+                int cell = cellOf(industries.ordinalOf(rs.getString("industry")),
+                        RiskLevel.classify(rs.wasNull() ? -1 : riskScore, lowRiskMinScore, mediumRiskMinScore));
+                long creditLimit = toCents(rs, "credit_limit");
+                limit[cell] += creditLimit;
+                used[cell] += Math.max(0L, creditLimit - toCents(rs, "available_credit"));
+                customers[cell]++;
+                index.put(rs.getLong("customer_id"), cell);
+            });
+        } catch (RuntimeException e) {
+            log.error("TREND_SAMPLE_ERROR: {}", e.getMessage(), e);
+            return;
+        }
+
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        lock.writeLock().lock();
+        try {
+            rollup.sample(today, limit, used, customers);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        customerCells = index;
+        lastSampleAt = System.currentTimeMillis();
+        lastSampleDurationMs = lastSampleAt - startTime;
+        persist();
+        log.info("TREND_SAMPLED: customers: {}, duration: {}ms", index.size(), lastSampleDurationMs);
+    }
+
+    /**
+     * 记录已结算付款，按客户最近一次采样时所在的单元归类，未知客户归入OTHER/未评分
+     */
+    public void recordCollection(long customerId, long amountCents, long timestampMillis) {
+        int cell = customerCells.get(customerId, cellOf(industries.otherOrdinal(), RiskLevel.UNSCORED));
+        long day = LocalDate.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneOffset.UTC).toEpochDay();
+        lock.writeLock().lock();
+        try {
+            rollup.addCollection(day, cell, amountCents);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询 [from, to] 的趋势，monthly为true时按自然月分段 (首尾月按范围截断)，否则按天。
+     * industry、riskLevel为null表示不过滤，未知行业抛出IllegalArgumentException
+     */
+    public List<TrendPoint> query(LocalDate from, LocalDate to, boolean monthly, String industry, RiskLevel riskLevel) {
+        boolean[] mask = cellMask(industry, riskLevel);
+        List<TrendPoint> points = new ArrayList<>();
+        TrendRollup.Aggregate aggregate = new TrendRollup.Aggregate();
+        lock.readLock().lock();
+        try {
+            LocalDate start = from;
+            while (!start.isAfter(to)) {
+                LocalDate end = monthly ? start.withDayOfMonth(start.lengthOfMonth()) : start;
+                if (end.isAfter(to)) {
+                    end = to;
+                }
+                rollup.aggregate(start.toEpochDay(), end.toEpochDay(), mask, aggregate);
+                points.add(toPoint(monthly ? start.format(MONTH_FORMAT) : start.toString(), aggregate));
+                start = end.plusDays(1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return points;
+    }
+
+    public List<String> getIndustries() {
+        return industries.names();
+    }
+
+    public long getLastSampleAt() {
+        return lastSampleAt;
+    }
+
+    public long getLastSampleDurationMs() {
+        return lastSampleDurationMs;
+    }
+
+    private void persist() {
+        lock.readLock().lock();
+        try {
+            TrendRollupFile.save(file, rollup, industries.names());
+        } catch (IOException e) {
+            log.error("TREND_ROLLUP_SAVE_ERROR: {} - {}", file, e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean[] cellMask(String industry, RiskLevel riskLevel) {
+        int industryOrdinal = -1;
+        if (industry != null) {
+            industryOrdinal = industries.find(industry);
+            if (industryOrdinal < 0) {
+                throw new IllegalArgumentException("Unknown industry: " + industry);
+            }
+        }
+        boolean[] mask = new boolean[rollup.cells()];
+        for (int i = 0; i < maxIndustries; i++) {
+            if (industryOrdinal >= 0 && i != industryOrdinal) {
+                continue;
+            }
+            for (RiskLevel level : RiskLevel.values()) {
+                if (riskLevel == null || riskLevel == level) {
+                    mask[cellOf(i, level)] = true;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static int cellOf(int industryOrdinal, RiskLevel riskLevel) {
+        return industryOrdinal * TrendRollup.RISK_LEVELS + riskLevel.ordinal();
+    }
+
+    private static TrendPoint toPoint(String period, TrendRollup.Aggregate aggregate) {
+        return TrendPoint.builder()
+                .period(period)
+                .creditLimitCents(aggregate.limitEnd)
+                .usedCreditCents(aggregate.usedEnd)
+                .customers(aggregate.customersEnd)
+                .averageUtilization(aggregate.limitSum == 0 ? 0.0 : aggregate.usedSum * 100.0 / aggregate.limitSum)
+                .collectionsCents(aggregate.collected)
+                .sampledDays(aggregate.sampledDays)
+                .build();
+    }
+
+    private static long toCents(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? 0L : value.movePointRight(2).longValue();
+    }
+}
@@ -0,0 +1,214 @@
+package com.creditcontrol.report.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 汇总状态文件
+ * 格式: [magic][version][cells][行业数][行业名...]
+ * 然后每月 [month][采样天数][月末采样日][非空单元数][(单元, 额度和, 已用和, 回款, 月末额度, 月末已用, 月末客户数)...]，以-1结束；
+ * 再每天 [epochDay][sampled][非空单元数][(单元, 额度, 已用, 回款, 客户数)...]，以-1结束；最后是之前所有字节的CRC32。
+ * 天和月按原样保存，月汇总可以比天数据保留更久。先写临时文件再原子改名。
+ */
+@Slf4j
+final class TrendRollupFile {
+
+    private static final int MAGIC = 0x54524E44;
+    private static final int VERSION = 1;
+    private static final int END_OF_MONTHS = -1;
+    private static final long END_OF_DAYS = -1L;
+
+    private TrendRollupFile() {
+    }
+
+    static void save(Path file, TrendRollup rollup, List<String> industries) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rollup.cells());
+            out.writeInt(industries.size());
+            for (String industry : industries) {
+                out.writeUTF(industry);
+            }
+            int cells = rollup.cells();
+            try {
+                rollup.forEachMonth((month, sampledDays, lastSampledDay, base, limitSum, usedSum, collected,
+                                     limitEnd, usedEnd, customersEnd) -> {
+                    try {
+                        long[][] values = {limitSum, usedSum, collected, limitEnd, usedEnd};
+                        out.writeInt(month);
+                        out.writeInt(sampledDays);
+                        out.writeLong(lastSampledDay);
+                        out.writeInt(countSet(base, cells, values, customersEnd));
+                        for (int cell = 0; cell < cells; cell++) {
+                            int i = base + cell;
+                            if (isSet(i, values, customersEnd)) {
+                                out.writeShort(cell);
+                                for (long[] value : values) {
+                                    out.writeLong(value[i]);
+                                }
+                                out.writeInt(customersEnd[i]);
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.writeInt(END_OF_MONTHS);
+
+                rollup.forEachDay((day, sampled, base, limit, used, collected, customers) -> {
+                    try {
+                        long[][] values = {limit, used, collected};
+                        out.writeLong(day);
+                        out.writeBoolean(sampled);
+                        out.writeInt(countSet(base, cells, values, customers));
+                        for (int cell = 0; cell < cells; cell++) {
+                            int i = base + cell;
+                            if (isSet(i, values, customers)) {
+                                out.writeShort(cell);
+                                for (long[] value : values) {
+                                    out.writeLong(value[i]);
+                                }
+                                out.writeInt(customers[i]);
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.writeLong(END_OF_DAYS);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 加载到空的汇总和字典中，文件不存在返回false；单元数与配置不符或校验失败时放弃文件内容
+     */
+    static boolean load(Path file, TrendRollup rollup, IndustryDictionary industries) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        // 缓冲放在校验流之下，保证CRC只覆盖已读取的字节
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("TREND_ROLLUP_FILE_IGNORED: {} has unknown format", file);
+                return false;
+            }
+            int cells = in.readInt();
+            if (cells != rollup.cells()) {
+                log.warn("TREND_ROLLUP_FILE_IGNORED: {} has {} cells, configured {}", file, cells, rollup.cells());
+                return false;
+            }
+            int industryCount = in.readInt();
+            String[] names = new String[industryCount];
+            for (int i = 0; i < industryCount; i++) {
+                names[i] = in.readUTF();
+            }
+
+            // 校验通过后才应用，损坏的文件不会留下部分数据
+            List<SlotRecord> months = new ArrayList<>();
+            for (int month = in.readInt(); month != END_OF_MONTHS; month = in.readInt()) {
+                months.add(readSlot(in, month, in.readInt(), in.readLong(), 5, cells));
+            }
+            List<SlotRecord> days = new ArrayList<>();
+            for (long day = in.readLong(); day != END_OF_DAYS; day = in.readLong()) {
+                days.add(readSlot(in, day, in.readBoolean() ? 1 : 0, 0L, 3, cells));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                log.warn("TREND_ROLLUP_FILE_IGNORED: {} failed checksum", file);
+                return false;
+            }
+
+            for (String name : names) {
+                industries.ordinalOf(name);
+            }
+            for (SlotRecord month : months) {
+                rollup.restoreMonth((int) month.key, month.sampled, month.lastSampledDay, month.values, month.customers);
+            }
+            for (SlotRecord day : days) {
+                rollup.restoreDay(day.key, day.sampled != 0, day.values[0], day.values[1], day.values[2], day.customers);
+            }
+            return true;
+        }
+    }
+
+    private static SlotRecord readSlot(DataInputStream in, long key, int sampled, long lastSampledDay,
+                                       int valueCount, int cells) throws IOException {
+        SlotRecord record = new SlotRecord(key, sampled, lastSampledDay, valueCount, cells);
+        int nonEmpty = in.readInt();
+        for (int i = 0; i < nonEmpty; i++) {
+            int cell = in.readShort();
+            for (long[] value : record.values) {
+                value[cell] = in.readLong();
+            }
+            record.customers[cell] = in.readInt();
+        }
+        return record;
+    }
+
+    private static int countSet(int base, int cells, long[][] values, int[] customers) {
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (isSet(base + cell, values, customers)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isSet(int i, long[][] values, int[] customers) {
+        if (customers[i] != 0) {
+            return true;
+        }
+        for (long[] value : values) {
+            if (value[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取中的天或月槽位，天的sampled为0/1，月的sampled为采样天数
+     */
+    private static final class SlotRecord {
+
+        final long key;
+        final int sampled;
+        final long lastSampledDay;
+        final long[][] values;
+        final int[] customers;
+
+        SlotRecord(long key, int sampled, long lastSampledDay, int valueCount, int cells) {
+            this.key = key;
+            this.sampled = sampled;
+            this.lastSampledDay = lastSampledDay;
+            this.values = new long[valueCount][cells];
+            this.customers = new int[cells];
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.creditcontrol.report.service;
+
+import com.creditcontrol.report.cube.CompressedBitmap;
+import com.creditcontrol.report.cube.CubeDimension;
+import com.creditcontrol.report.cube.CubeMeasures;
+import com.creditcontrol.report.cube.CustomerCube;
+import com.creditcontrol.report.cube.CustomerCubeLoader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 客户切片分析业务服务层
+ */
+@Service
+@Slf4j
+public class CubeService {
+
+    @Autowired
+    private CustomerCubeLoader cubeLoader;
+
+    /**
+     * 按维度过滤并聚合，filter的值为逗号分隔的取值列表；groupBy为空时不分组。
+     * 维度名非法时抛出IllegalArgumentException
+     */
+    public Map<String, Object> slice(Map<CubeDimension, String> filter, String groupBy) {
+        log.info("SERVICE_CALL: slice - filter: {}, groupBy: {}", filter, groupBy);
+        CubeDimension groupDimension = groupBy == null || groupBy.isBlank() ? null : CubeDimension.parse(groupBy);
+        Map<CubeDimension, List<String>> conditions = new EnumMap<>(CubeDimension.class);
+        filter.forEach((dimension, values) -> {
+            if (values != null && !values.isBlank()) {
+                conditions.put(dimension, Arrays.stream(values.split(",")).map(String::trim).toList());
+            }
+        });
+
+        long startTime = System.nanoTime();
+        CustomerCube cube = cubeLoader.getCube();
+        CompressedBitmap rows = cube.select(conditions);
+        CubeMeasures total = cube.aggregate(rows);
+        Map<String, CubeMeasures> groups = groupDimension != null ? cube.breakdown(rows, groupDimension) : null;
+        long queryMicros = (System.nanoTime() - startTime) / 1000;
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        Map<String, Object> filterEcho = new LinkedHashMap<>();
+        conditions.forEach((dimension, values) -> filterEcho.put(dimension.getParamName(), values));
+        data.put("filter", filterEcho);
+        data.put("totals", toMap(total));
+        if (groups != null) {
+            List<Map<String, Object>> items = new ArrayList<>(groups.size());
+            groups.forEach((value, measures) -> {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put(groupDimension.getParamName(), value);
+                item.putAll(toMap(measures));
+                items.add(item);
+            });
+            data.put("groupBy", groupDimension.getParamName());
+            data.put("groups", items);
+        }
+        data.put("portfolioCustomers", cube.size());
+        data.put("cubeLoadedAt", cube.getLoadedAt().toString());
+        data.put("queryMicros", queryMicros);
+        return data;
+    }
+
+    /**
+     * 各维度当前的取值，供前端生成筛选项
+     */
+    public Map<String, Object> getDimensions() {
+        CustomerCube cube = cubeLoader.getCube();
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (CubeDimension dimension : CubeDimension.values()) {
+            data.put(dimension.getParamName(), cube.valuesOf(dimension));
+        }
+        data.put("portfolioCustomers", cube.size());
+        data.put("indexBytes", cube.indexSizeInBytes());
+        data.put("lastRefreshDurationMs", cubeLoader.getLastRefreshDurationMs());
+        return data;
+    }
+
+    private static Map<String, Object> toMap(CubeMeasures measures) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("customers", measures.getCustomers());
+        map.put("totalCreditLimit", BigDecimal.valueOf(measures.getCreditLimitCents(), 2));
+        map.put("totalUsedCredit", BigDecimal.valueOf(measures.getUsedCreditCents(), 2));
+        map.put("utilization", round(measures.getUtilization()));
+        map.put("averageRiskScore", round(measures.getAverageRiskScore()));
+        return map;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.creditcontrol.report.service;
+
+import com.creditcontrol.report.dashboard.DashboardEvent;
+import com.creditcontrol.report.dashboard.DashboardEventType;
+import com.creditcontrol.report.dashboard.DashboardMaterializer;
+import com.creditcontrol.report.dashboard.DashboardSnapshot;
+import com.creditcontrol.report.dto.DashboardEventRequest;
+import com.creditcontrol.report.dto.DashboardStatsDto;
+import com.creditcontrol.report.job.DataVersionTracker;
+import com.creditcontrol.report.job.ReportTable;
+import com.creditcontrol.report.rollup.TrendRollupEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仪表盘业务服务层
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    @Autowired
+    private DashboardMaterializer materializer;
+
+    @Autowired
+    private TrendRollupEngine trendRollupEngine;
+
+    @Autowired
+    private DataVersionTracker versionTracker;
+
+    /**
+     * 读取当前物化快照，不访问数据库
+     */
+    public Map<String, Object> getDashboard() {
+        DashboardSnapshot snapshot = materializer.getSnapshot();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("totalCustomers", snapshot.getTotalCustomers());
+        data.put("totalCreditLimit", BigDecimal.valueOf(snapshot.getTotalCreditLimitCents(), 2));
+        data.put("totalOutstanding", BigDecimal.valueOf(snapshot.getTotalOutstandingCents(), 2));
+        data.put("collectionRate", round(snapshot.getCollectionRate()));
+        data.put("averageRiskScore", round(snapshot.getAverageRiskScore()));
+        data.put("monthlyGrowth", round(snapshot.getMonthlyGrowth()));
+        data.put("topPerformingCustomers", snapshot.getTopPerformingCustomers());
+        data.put("highRiskCustomers", snapshot.getHighRiskCustomers());
+        data.put("snapshotVersion", snapshot.getVersion());
+        data.put("asOf", Instant.ofEpochMilli(snapshot.getPublishedAt()).toString());
+        data.put("stalenessMs", materializer.getStalenessMillis());
+        return data;
+    }
+
+    /**
+     * 提交变更事件，返回被接受的数量；缺少类型所需字段时抛出IllegalArgumentException
+     */
+    public int submitEvents(List<DashboardEventRequest> requests) {
+        log.info("SERVICE_CALL: submitDashboardEvents - count: {}", requests.size());
+        for (DashboardEventRequest request : requests) {
+            validate(request);
+        }
+        int accepted = 0;
+        for (DashboardEventRequest request : requests) {
+            DashboardEvent event = toEvent(request);
+            if (materializer.offer(event)) {
+                accepted++;
+                recordCollection(event);
+            }
+        }
+        markChangedTables(requests);
+        if (accepted < requests.size()) {
+            log.warn("DASHBOARD_EVENTS_REJECTED: rejected: {}, queueDepth: {}",
+                    requests.size() - accepted, materializer.getQueueDepth());
+        }
+        return accepted;
+    }
+
+    public DashboardStatsDto getStats() {
+        DashboardSnapshot snapshot = materializer.getSnapshot();
+        long lastRebuildAt = materializer.getLastRebuildAt();
+        return DashboardStatsDto.builder()
+                .version(snapshot.getVersion())
+                .publishedAt(Instant.ofEpochMilli(snapshot.getPublishedAt()).toString())
+                .customersTracked(materializer.getCustomersTracked())
+                .eventsAccepted(materializer.getEventsAccepted())
+                .eventsRejected(materializer.getEventsRejected())
+                .eventsApplied(materializer.getEventsApplied())
+                .queueDepth(materializer.getQueueDepth())
+                .stalenessMs(materializer.getStalenessMillis())
+                .lastRefreshLatencyMs(materializer.getLastRefreshLatencyMicros() / 1000.0)
+                .averageRefreshLatencyMs(materializer.getAverageRefreshLatencyMicros() / 1000.0)
+                .maxRefreshLatencyMs(materializer.getMaxRefreshLatencyMicros() / 1000.0)
+                .lastRebuildAt(lastRebuildAt > 0 ? Instant.ofEpochMilli(lastRebuildAt).toString() : null)
+                .lastRebuildDurationMs(materializer.getLastRebuildDurationMs())
+                .rebuildFailures(materializer.getRebuildFailures())
+                .build();
+    }
+
+    /**
+     * 已结算付款同时计入趋势汇总的当日回款
+     */
+    private void recordCollection(DashboardEvent event) {
+        if (event.getType() == DashboardEventType.PAYMENT && "COMPLETED".equals(event.getPaymentStatus())) {
+            trendRollupEngine.recordCollection(event.getCustomerId(), event.getAmountCents(), event.getEnqueuedAt());
+        }
+    }
+
+    /**
+     * 客户和信用变更使依赖这些表的报表缓存失效，付款不影响报表
+     */
+    private void markChangedTables(List<DashboardEventRequest> requests) {
+        boolean customers = false;
+        boolean credit = false;
+        for (DashboardEventRequest request : requests) {
+            DashboardEventType type = request.getType();
+            customers |= type == DashboardEventType.CUSTOMER;
+            credit |= type == DashboardEventType.CREDIT || type == DashboardEventType.RISK;
+        }
+        if (customers) {
+            versionTracker.markChanged(ReportTable.CUSTOMERS);
+        }
+        if (credit) {
+            versionTracker.markChanged(ReportTable.CUSTOMER_CREDIT);
+        }
+    }
+
+    private static void validate(DashboardEventRequest request) {
+        boolean valid;
+        switch (request.getType()) {
+            case CUSTOMER:
+                valid = request.getActive() != null;
+                break;
+            case CREDIT:
+                valid = request.getCreditLimit() != null && request.getAvailableCredit() != null;
+                break;
+            case PAYMENT:
+                valid = request.getAmount() != null && request.getPaymentStatus() != null;
+                break;
+            case RISK:
+                valid = request.getRiskScore() != null;
+                break;
+            default:
+                valid = false;
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Missing fields for " + request.getType() + " event of customer "
+                    + request.getCustomerId());
+        }
+    }
+
+    private static DashboardEvent toEvent(DashboardEventRequest request) {
+        DashboardEventType type = request.getType();
+        return DashboardEvent.builder()
+                .type(type)
+                .customerId(request.getCustomerId())
+                .active(Boolean.TRUE.equals(request.getActive()))
+                .createdEpochDay(request.getCreatedDate() != null ? request.getCreatedDate().toEpochDay() : Long.MIN_VALUE)
+                .creditLimitCents(toCents(request.getCreditLimit()))
+                .availableCreditCents(toCents(request.getAvailableCredit()))
+                .amountCents(toCents(request.getAmount()))
+                .paymentStatus(request.getPaymentStatus())
+                .riskScore(request.getRiskScore() != null ? request.getRiskScore() : -1)
+                .enqueuedNanos(System.nanoTime())
+                .enqueuedAt(System.currentTimeMillis())
+                .build();
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value == null ? 0L : value.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,140 @@
+package com.creditcontrol.report.service;
+
+import com.creditcontrol.report.dto.ReportCacheStatsDto;
+import com.creditcontrol.report.dto.ReportJobDto;
+import com.creditcontrol.report.job.ReportFormat;
+import com.creditcontrol.report.job.ReportJob;
+import com.creditcontrol.report.job.ReportJobEngine;
+import com.creditcontrol.report.job.ReportPriority;
+import com.creditcontrol.report.job.ReportType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 报表任务业务服务层
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    private static final String DOWNLOAD_PATH = "/api/v1/reports/download/";
+
+    @Autowired
+    private ReportJobEngine engine;
+
+    /**
+     * 提交报表任务，类型、优先级或格式无效时抛出IllegalArgumentException。XLSX本身已压缩，不支持再gzip
+     */
+    public ReportJobDto submit(String reportType, String priority, String format, boolean gzip) {
+        log.info("SERVICE_CALL: submitReport - reportType: {}, priority: {}, format: {}, gzip: {}",
+                reportType, priority, format, gzip);
+        ReportType type = ReportType.parse(reportType);
+        ReportFormat reportFormat = ReportFormat.parse(format);
+        if (gzip && reportFormat == ReportFormat.XLSX) {
+            throw new IllegalArgumentException("XLSX reports are already compressed, gzip is only supported for CSV");
+        }
+        ReportPriority reportPriority;
+        try {
+            reportPriority = ReportPriority.valueOf(priority.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown report priority: " + priority);
+        }
+        return toDto(engine.submit(type, reportPriority, reportFormat, gzip));
+    }
+
+    public ReportJobDto getJob(String reportId) {
+        ReportJob job = engine.getJob(reportId);
+        return job == null ? null : toDto(job);
+    }
+
+    public List<ReportJobDto> getJobs() {
+        return engine.getJobs().stream()
+                .sorted(Comparator.comparingLong(ReportJob::getSubmittedAt).reversed())
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public ReportJobDto cancel(String reportId) {
+        log.info("SERVICE_CALL: cancelReport - reportId: {}", reportId);
+        ReportJob job = engine.cancel(reportId);
+        return job == null ? null : toDto(job);
+    }
+
+    /**
+     * 获取已完成的任务，未找到、未完成或结果文件已被缓存淘汰时返回null
+     */
+    public ReportJob getCompletedJob(String reportId) {
+        ReportJob job = engine.getJob(reportId);
+        return job != null && job.getState() == ReportJob.State.COMPLETED && Files.exists(job.getResultFile())
+                ? job : null;
+    }
+
+    public ReportCacheStatsDto getCacheStats() {
+        long hits = engine.getCacheHits();
+        long lookups = hits + engine.getCacheMisses();
+        Map<String, String> watermarks = new LinkedHashMap<>();
+        for (ReportType type : ReportType.values()) {
+            watermarks.put(type.name(), engine.getWatermark(type));
+        }
+        return ReportCacheStatsDto.builder()
+                .entries(engine.getCacheEntries())
+                .totalBytes(engine.getCacheBytes())
+                .maxBytes(engine.getCacheMaxBytes())
+                .hits(hits)
+                .misses(engine.getCacheMisses())
+                .hitRate(lookups == 0 ? 0.0 : Math.round(hits * 1000.0 / lookups) / 10.0)
+                .evictions(engine.getCacheEvictions())
+                .coalescedRequests(engine.getCoalescedRequests())
+                .watermarks(watermarks)
+                .build();
+    }
+
+    private ReportJobDto toDto(ReportJob job) {
+        ReportJob.State state = job.getState();
+        int position = engine.queuePosition(job);
+        return ReportJobDto.builder()
+                .reportId(job.getReportId())
+                .reportType(job.getType().name())
+                .priority(job.getPriority().name())
+                .format(job.getFormat().name())
+                .gzip(job.isGzip())
+                .status(state.name())
+                .queuePosition(position >= 0 ? position : null)
+                .rowsWritten(job.getRowsWritten())
+                .rowsPerSecond(job.getRowsPerSecond())
+                .fileSize(job.getFileSize())
+                .cacheHit(job.isCacheHit())
+                .requesters(job.getRequesters())
+                .submittedAt(Instant.ofEpochMilli(job.getSubmittedAt()).toString())
+                .startedAt(job.getStartedAt() > 0 ? Instant.ofEpochMilli(job.getStartedAt()).toString() : null)
+                .finishedAt(job.getFinishedAt() > 0 ? Instant.ofEpochMilli(job.getFinishedAt()).toString() : null)
+                .estimatedCompletion(estimateCompletion(job, position))
+                .downloadUrl(state == ReportJob.State.COMPLETED ? DOWNLOAD_PATH + job.getReportId() : null)
+                .error(job.getError())
+                .build();
+    }
+
+    /**
+     * 运行中: 开始时间+平均耗时；排队中: 再加上前面任务按工作线程摊分的耗时
+     */
+    private String estimateCompletion(ReportJob job, int position) {
+        long average = engine.getAverageDurationMillis(job.getType());
+        if (average == 0 || job.getState().isFinished()) {
+            return null;
+        }
+        long start = job.getState() == ReportJob.State.RUNNING
+                ? job.getStartedAt()
+                : System.currentTimeMillis() + (long) Math.max(position, 0) * average / engine.getWorkerThreads();
+        return Instant.ofEpochMilli(start + average).toString();
+    }
+}
@@ -0,0 +1,148 @@
+package com.creditcontrol.report.service;
+
+import com.creditcontrol.report.rollup.RiskLevel;
+import com.creditcontrol.report.rollup.TrendForecaster;
+import com.creditcontrol.report.rollup.TrendPoint;
+import com.creditcontrol.report.rollup.TrendRollupEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 趋势分析业务服务层
+ */
+@Service
+@Slf4j
+public class TrendService {
+
+    private static final int FORECAST_MONTHS = 3;
+
+    @Autowired
+    private TrendRollupEngine rollupEngine;
+
+    @Value("${creditcontrol.report.trends.default-months:12}")
+    private int defaultMonths;
+
+    @Value("${creditcontrol.report.trends.max-daily-points:366}")
+    private int maxDailyPoints;
+
+    @Value("${creditcontrol.report.trends.forecast-alpha:0.5}")
+    private double forecastAlpha;
+
+    @Value("${creditcontrol.report.trends.forecast-beta:0.3}")
+    private double forecastBeta;
+
+    /**
+     * 按区间查询趋势，from/to为空时默认最近defaultMonths个月；参数非法时抛出IllegalArgumentException
+     */
+    public Map<String, Object> getTrends(LocalDate from, LocalDate to, String granularity,
+                                         String industry, String riskLevel) {
+        log.info("SERVICE_CALL: getTrends - from: {}, to: {}, granularity: {}, industry: {}, riskLevel: {}",
+                from, to, granularity, industry, riskLevel);
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusMonths(defaultMonths - 1L).withDayOfMonth(1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        boolean monthly;
+        if (granularity == null || "MONTH".equalsIgnoreCase(granularity)) {
+            monthly = true;
+        } else if ("DAY".equalsIgnoreCase(granularity)) {
+            monthly = false;
+            if (ChronoUnit.DAYS.between(start, end) + 1 > maxDailyPoints) {
+                throw new IllegalArgumentException("Daily granularity is limited to " + maxDailyPoints + " days");
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported granularity: " + granularity);
+        }
+        RiskLevel level = riskLevel != null ? RiskLevel.parse(riskLevel) : null;
+
+        List<TrendPoint> points = rollupEngine.query(start, end, monthly, industry, level);
+        String periodKey = monthly ? "month" : "date";
+        List<Map<String, Object>> trends = new ArrayList<>(points.size());
+        for (TrendPoint point : points) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put(periodKey, point.getPeriod());
+            item.put("creditLimit", BigDecimal.valueOf(point.getCreditLimitCents(), 2));
+            item.put("utilization", round(point.getUtilization()));
+            item.put("averageUtilization", round(point.getAverageUtilization()));
+            item.put("collections", BigDecimal.valueOf(point.getCollectionsCents(), 2));
+            item.put("customers", point.getCustomers());
+            item.put("sampledDays", point.getSampledDays());
+            trends.add(item);
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("from", start.toString());
+        data.put("to", end.toString());
+        data.put("granularity", monthly ? "MONTH" : "DAY");
+        data.put("industry", industry);
+        data.put("riskLevel", level);
+        data.put("trends", trends);
+        data.put("growthRate", growthRate(points));
+        data.put("forecastNext3Months", forecast(start, end, industry, level));
+        return data;
+    }
+
+    public List<String> getIndustries() {
+        return rollupEngine.getIndustries();
+    }
+
+    /**
+     * 首个与最后一个有采样时段之间的额度增长率 (%)
+     */
+    private static double growthRate(List<TrendPoint> points) {
+        TrendPoint first = null;
+        TrendPoint last = null;
+        for (TrendPoint point : points) {
+            if (point.getSampledDays() > 0) {
+                if (first == null) {
+                    first = point;
+                }
+                last = point;
+            }
+        }
+        if (first == null || first == last || first.getCreditLimitCents() == 0) {
+            return 0.0;
+        }
+        return round((last.getCreditLimitCents() - first.getCreditLimitCents()) * 100.0 / first.getCreditLimitCents());
+    }
+
+    /**
+     * 用查询范围内各月月末额度拟合，预测to之后3个月的额度；无采样的月份跳过
+     */
+    private List<Map<String, Object>> forecast(LocalDate start, LocalDate end, String industry, RiskLevel level) {
+        List<TrendPoint> months = rollupEngine.query(start.withDayOfMonth(1), end, true, industry, level);
+        double[] series = months.stream()
+                .filter(point -> point.getSampledDays() > 0)
+                .mapToDouble(TrendPoint::getCreditLimitCents)
+                .toArray();
+        double[] forecast = TrendForecaster.forecast(series, FORECAST_MONTHS, forecastAlpha, forecastBeta);
+        List<Map<String, Object>> result = new ArrayList<>(FORECAST_MONTHS);
+        YearMonth month = YearMonth.from(end);
+        for (double cents : forecast) {
+            month = month.plusMonths(1);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("month", month.toString());
+            item.put("forecastCreditLimit", series.length == 0 ? null
+                    : BigDecimal.valueOf(Math.round(cents), 2));
+            result.add(item);
+        }
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
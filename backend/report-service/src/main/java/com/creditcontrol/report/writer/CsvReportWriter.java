@@ -0,0 +1,97 @@
+package com.creditcontrol.report.writer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV写出器 (RFC 4180)
+ * 含逗号、引号或换行的值用双引号包围，内部引号加倍。
+ * 文本列中以 = + - @ 或制表符、回车开头的值前加单引号，避免在电子表格中被当作公式执行；数值列按原样写出。
+ */
+public class CsvReportWriter implements ReportWriter {
+
+    private final Writer writer;
+    private boolean[] numeric = new boolean[0];
+    private int column;
+
+    public CsvReportWriter(OutputStream out, int bufferChars) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferChars);
+    }
+
+    @Override
+    public void header(String[] columns, boolean[] numeric) throws IOException {
+        startRow();
+        for (String name : columns) {
+            cell(name);
+        }
+        endRow();
+        this.numeric = numeric.clone();
+    }
+
+    @Override
+    public void startRow() {
+        column = 0;
+    }
+
+    @Override
+    public void cell(String value) throws IOException {
+        if (column > 0) {
+            writer.write(',');
+        }
+        boolean text = column >= numeric.length || !numeric[column];
+        column++;
+        if (value == null) {
+            return;
+        }
+        if (text && isFormulaLike(value)) {
+            value = "'" + value;
+        }
+        writeValue(value);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private static boolean isFormulaLike(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private void writeValue(String value) throws IOException {
+        int length = value.length();
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value, 0, length);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, length - start);
+        writer.write('"');
+    }
+}
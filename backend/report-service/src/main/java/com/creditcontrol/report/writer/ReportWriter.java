@@ -0,0 +1,30 @@
+package com.creditcontrol.report.writer;
+
+import java.io.IOException;
+
+/**
+ * 流式报表写出器
+ * 调用顺序: header → (startRow → cell* → endRow)* → finish。
+ * 实现只持有固定大小的缓冲区，写过的行不保留，内存占用与行数无关。
+ */
+public interface ReportWriter {
+
+    /**
+     * 写表头，numeric标记哪些列按数值写出 (XLSX中为数值单元格)
+     */
+    void header(String[] columns, boolean[] numeric) throws IOException;
+
+    void startRow() throws IOException;
+
+    /**
+     * 写当前行的下一个单元格，null为空单元格
+     */
+    void cell(String value) throws IOException;
+
+    void endRow() throws IOException;
+
+    /**
+     * 写出尾部结构并刷新，不关闭底层输出流
+     */
+    void finish() throws IOException;
+}
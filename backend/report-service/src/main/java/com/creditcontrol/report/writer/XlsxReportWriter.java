@@ -0,0 +1,213 @@
+package com.creditcontrol.report.writer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX流式写出器
+ * 工作表XML按行直接写入zip条目 (类似SAX输出，不建DOM)，字符串用内联字符串不建共享字符串表，
+ * 因此内存只有写缓冲区和压缩器窗口。工作表达到行数上限时关闭当前条目开始下一个工作表，
+ * 工作簿、关系和内容类型等部件在finish时写出。
+ */
+public class XlsxReportWriter implements ReportWriter {
+
+    /** Excel单个工作表的最大行数 */
+    public static final int MAX_SHEET_ROWS = 1_048_576;
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final int maxSheetRows;
+
+    private String[] columns;
+    private boolean[] numeric;
+    private int sheets;
+    private int sheetRows;
+    private int column;
+
+    public XlsxReportWriter(OutputStream out, int bufferChars) {
+        this(out, bufferChars, MAX_SHEET_ROWS);
+    }
+
+    XlsxReportWriter(OutputStream out, int bufferChars, int maxSheetRows) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), bufferChars);
+        this.maxSheetRows = maxSheetRows;
+    }
+
+    @Override
+    public void header(String[] columns, boolean[] numeric) throws IOException {
+        this.columns = columns.clone();
+        this.numeric = numeric.clone();
+        openSheet();
+    }
+
+    @Override
+    public void startRow() throws IOException {
+        if (sheetRows == maxSheetRows) {
+            closeSheet();
+            openSheet();
+        }
+        writer.write("<row>");
+        column = 0;
+        sheetRows++;
+    }
+
+    @Override
+    public void cell(String value) throws IOException {
+        if (value == null) {
+            writer.write("<c/>");
+        } else if (column < numeric.length && numeric[column]) {
+            writer.write("<c><v>");
+            writer.write(value);
+            writer.write("</v></c>");
+        } else {
+            writeInlineString(value, false);
+        }
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        writer.write("</row>");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (sheets == 0) {
+            header(new String[0], new boolean[0]);
+        }
+        closeSheet();
+        writeWorkbookParts();
+        writer.flush();
+        zip.finish();
+    }
+
+    public int getSheetCount() {
+        return sheets;
+    }
+
+    /**
+     * 开始新工作表并写表头行 (加粗样式)
+     */
+    private void openSheet() throws IOException {
+        sheets++;
+        sheetRows = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        writer.write(XML_DECLARATION);
+        writer.write("<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>");
+        if (columns.length > 0) {
+            writer.write("<row>");
+            for (String name : columns) {
+                writeInlineString(name, true);
+            }
+            writer.write("</row>");
+            sheetRows++;
+        }
+    }
+
+    private void closeSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void writeInlineString(String value, boolean bold) throws IOException {
+        writer.write(bold ? "<c t=\"inlineStr\" s=\"1\"><is>" : "<c t=\"inlineStr\"><is>");
+        boolean preserve = !value.isEmpty()
+                && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+        writer.write(preserve ? "<t xml:space=\"preserve\">" : "<t>");
+        writeEscaped(value);
+        writer.write("</t></is></c>");
+    }
+
+    /**
+     * XML转义，并丢弃XML 1.0不允许的控制字符
+     */
+    private void writeEscaped(String value) throws IOException {
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '&') {
+                replacement = "&amp;";
+            } else if (c == '<') {
+                replacement = "&lt;";
+            } else if (c == '>') {
+                replacement = "&gt;";
+            } else if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF) {
+                replacement = "";
+            } else {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+        }
+        writer.write(value, start, length - start);
+    }
+
+    private void writeWorkbookParts() throws IOException {
+        StringBuilder contentTypes = new StringBuilder(XML_DECLARATION)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        StringBuilder workbook = new StringBuilder(XML_DECLARATION)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(XML_DECLARATION)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheets; i++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"Report").append(i == 1 ? "" : " " + i)
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(REL_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("<Relationship Id=\"rId").append(sheets + 1).append("\" Type=\"").append(REL_NS)
+                .append("/styles\" Target=\"styles.xml\"/></Relationships>");
+
+        writeEntry("[Content_Types].xml", contentTypes);
+        writeEntry("_rels/.rels", new StringBuilder(XML_DECLARATION)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+                .append("<Relationship Id=\"rId1\" Type=\"").append(REL_NS)
+                .append("/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>"));
+        writeEntry("xl/workbook.xml", workbook);
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels);
+        writeEntry("xl/styles.xml", new StringBuilder(XML_DECLARATION)
+                .append("<styleSheet xmlns=\"").append(MAIN_NS).append("\">")
+                .append("<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>")
+                .append("<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>")
+                .append("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>")
+                .append("<fill><patternFill patternType=\"gray125\"/></fill></fills>")
+                .append("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>")
+                .append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>")
+                .append("<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>")
+                .append("<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>")
+                .append("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>")
+                .append("</styleSheet>"));
+    }
+
+    private void writeEntry(String name, CharSequence content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.append(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+}
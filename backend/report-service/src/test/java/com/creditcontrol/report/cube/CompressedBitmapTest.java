@@ -0,0 +1,145 @@
+package com.creditcontrol.report.cube;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 压缩位图与BitSet对照: 数组容器、位集容器以及二者混合时的交/并
+ */
+class CompressedBitmapTest {
+
+    private static final int CHUNK = 1 << 16;
+
+    @Test
+    void rangeContainsEveryRowAcrossChunks() {
+        CompressedBitmap bitmap = CompressedBitmap.range(3 * CHUNK + 17);
+
+        assertThat(bitmap.cardinality()).isEqualTo(3 * CHUNK + 17);
+        assertThat(rows(bitmap)).isEqualTo(bits(0, 3 * CHUNK + 17));
+        assertThat(CompressedBitmap.range(0).isEmpty()).isTrue();
+    }
+
+    @Test
+    void keepsSparseChunksSmall() {
+        BitSet sparse = new BitSet();
+        for (int row = 0; row < 10 * CHUNK; row += 997) {
+            sparse.set(row);
+        }
+        CompressedBitmap bitmap = build(sparse);
+
+        assertThat(rows(bitmap)).isEqualTo(sparse);
+        assertThat(bitmap.sizeInBytes()).isLessThan(CompressedBitmap.range(10 * CHUNK).sizeInBytes() / 10);
+    }
+
+    @Test
+    void convertsToBitsetContainerAboveArrayLimit() {
+        for (int cardinality : new int[]{4095, 4096, 4097, 30_000}) {
+            BitSet expected = randomBits(new Random(cardinality), CHUNK, cardinality, 0);
+            CompressedBitmap bitmap = build(expected);
+
+            assertThat(bitmap.cardinality()).isEqualTo(cardinality);
+            assertThat(rows(bitmap)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void andAndOrMatchBitSetForMixedContainers() {
+        Random random = new Random(42);
+        // 每块的基数: 空、稀疏数组、恰在上限、刚超上限、稠密位集
+        int[] densities = {0, 50, 4096, 4097, 40_000};
+        for (int round = 0; round < 50; round++) {
+            BitSet left = new BitSet();
+            BitSet right = new BitSet();
+            for (int chunk = 0; chunk < 6; chunk++) {
+                left.or(randomBits(random, CHUNK, densities[random.nextInt(densities.length)], chunk * CHUNK));
+                right.or(randomBits(random, CHUNK, densities[random.nextInt(densities.length)], chunk * CHUNK));
+            }
+            CompressedBitmap a = build(left);
+            CompressedBitmap b = build(right);
+
+            BitSet and = (BitSet) left.clone();
+            and.and(right);
+            BitSet or = (BitSet) left.clone();
+            or.or(right);
+
+            assertThat(rows(a.and(b))).isEqualTo(and);
+            assertThat(a.and(b).cardinality()).isEqualTo(and.cardinality());
+            assertThat(rows(b.and(a))).isEqualTo(and);
+            assertThat(rows(a.or(b))).isEqualTo(or);
+            assertThat(a.or(b).cardinality()).isEqualTo(or.cardinality());
+            assertThat(rows(b.or(a))).isEqualTo(or);
+        }
+    }
+
+    @Test
+    void combinesWithEmpty() {
+        CompressedBitmap bitmap = build(randomBits(new Random(7), 2 * CHUNK, 5000, 0));
+
+        assertThat(bitmap.and(CompressedBitmap.empty()).isEmpty()).isTrue();
+        assertThat(rows(bitmap.or(CompressedBitmap.empty()))).isEqualTo(rows(bitmap));
+        assertThat(rows(CompressedBitmap.empty().or(bitmap))).isEqualTo(rows(bitmap));
+    }
+
+    @Test
+    void dropsChunksWithEmptyIntersection() {
+        CompressedBitmap even = build(stride(0, 2));
+        CompressedBitmap odd = build(stride(1, 2));
+
+        CompressedBitmap and = even.and(odd);
+        assertThat(and.isEmpty()).isTrue();
+        assertThat(and.cardinality()).isZero();
+    }
+
+    @Test
+    void rejectsRowsOutOfOrder() {
+        CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+        builder.add(5);
+
+        assertThatThrownBy(() -> builder.add(5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.add(4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BitSet randomBits(Random random, int span, int cardinality, int base) {
+        BitSet bits = new BitSet();
+        while (bits.cardinality() < cardinality) {
+            bits.set(base + random.nextInt(span));
+        }
+        return bits;
+    }
+
+    private static BitSet stride(int start, int step) {
+        BitSet bits = new BitSet();
+        for (int row = start; row < 2 * CHUNK; row += step) {
+            bits.set(row);
+        }
+        return bits;
+    }
+
+    private static BitSet bits(int from, int to) {
+        BitSet bits = new BitSet();
+        bits.set(from, to);
+        return bits;
+    }
+
+    private static CompressedBitmap build(BitSet rows) {
+        CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+        rows.stream().forEach(builder::add);
+        return builder.build();
+    }
+
+    private static BitSet rows(CompressedBitmap bitmap) {
+        BitSet rows = new BitSet();
+        int[] last = {-1};
+        bitmap.forEach(row -> {
+            assertThat(row).isGreaterThan(last[0]);
+            last[0] = row;
+            rows.set(row);
+        });
+        return rows;
+    }
+}
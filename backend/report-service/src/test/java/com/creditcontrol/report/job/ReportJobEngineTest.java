@@ -0,0 +1,150 @@
+package com.creditcontrol.report.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 报表任务引擎: 相同请求合并、缓存命中、按请求方取消
+ */
+class ReportJobEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private final ReportJobEngine engine = new ReportJobEngine();
+    private final DataVersionTracker versionTracker = new DataVersionTracker();
+    /** 生成器开始写出后阻塞，直到放行或任务被取消 */
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<String> generated = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReportGenerator generator = (job, out) -> {
+            generated.add(job.getReportId());
+            out.write("customer_id\n1\n".getBytes(StandardCharsets.US_ASCII));
+            job.addRows(1);
+            try {
+                while (!gate.await(5, TimeUnit.MILLISECONDS)) {
+                    if (job.isCancelRequested()) {
+                        throw new ReportCancelledException(job.getReportId());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        };
+        ReflectionTestUtils.setField(engine, "generator", generator);
+        ReflectionTestUtils.setField(engine, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(engine, "versionTracker", versionTracker);
+        ReflectionTestUtils.setField(engine, "resultDirectory", directory.toString());
+        ReflectionTestUtils.setField(engine, "workerThreads", 1);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 4);
+        ReflectionTestUtils.setField(engine, "defaultConcurrency", 1);
+        ReflectionTestUtils.setField(engine, "resultRetentionHours", 24L);
+        ReflectionTestUtils.setField(engine, "maxFinishedJobs", 100);
+        ReflectionTestUtils.setField(engine, "cacheMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(engine, "cacheEvictionGraceMs", 1_000L);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gate.countDown();
+        engine.stop();
+    }
+
+    @Test
+    void coalescesIdenticalRequestsAndServesLaterOnesFromCache() throws Exception {
+        ReportJob first = submit(ReportType.CUSTOMER);
+        ReportJob second = submit(ReportType.CUSTOMER);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getRequesters()).isEqualTo(2);
+        assertThat(engine.getCoalescedRequests()).isEqualTo(1L);
+
+        gate.countDown();
+        awaitTrue(() -> first.getState() == ReportJob.State.COMPLETED);
+        ReportJob cached = submit(ReportType.CUSTOMER);
+
+        assertThat(cached).isNotSameAs(first);
+        assertThat(cached.isCacheHit()).isTrue();
+        assertThat(cached.getState()).isEqualTo(ReportJob.State.COMPLETED);
+        assertThat(cached.getResultFile()).isEqualTo(first.getResultFile());
+        assertThat(generated).containsExactly(first.getReportId());
+
+        // 数据变更后水位改变，不再命中旧结果
+        versionTracker.markChanged(ReportTable.CUSTOMERS);
+        ReportJob refreshed = submit(ReportType.CUSTOMER);
+        awaitTrue(() -> refreshed.getState() == ReportJob.State.COMPLETED);
+        assertThat(refreshed.isCacheHit()).isFalse();
+        assertThat(generated).containsExactly(first.getReportId(), refreshed.getReportId());
+    }
+
+    @Test
+    void keepsSharedJobRunningUntilLastRequesterCancels() throws Exception {
+        ReportJob job = submit(ReportType.CUSTOMER);
+        submit(ReportType.CUSTOMER);
+        awaitTrue(() -> job.getState() == ReportJob.State.RUNNING);
+
+        engine.cancel(job.getReportId());
+        assertThat(job.getRequesters()).isEqualTo(1);
+        assertThat(job.isCancelRequested()).isFalse();
+
+        engine.cancel(job.getReportId());
+        awaitTrue(() -> job.getState() == ReportJob.State.CANCELLED);
+        assertThat(job.getResultFile()).isNull();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+        // 已取消的任务不再合并新请求
+        ReportJob retried = submit(ReportType.CUSTOMER);
+        assertThat(retried).isNotSameAs(job);
+    }
+
+    @Test
+    void removesQueuedJobFromQueueWithoutGeneratingIt() throws Exception {
+        ReportJob running = submit(ReportType.CUSTOMER);
+        awaitTrue(() -> running.getState() == ReportJob.State.RUNNING);
+        ReportJob queued = submit(ReportType.CREDIT);
+        assertThat(engine.queuePosition(queued)).isZero();
+
+        engine.cancel(queued.getReportId());
+
+        assertThat(queued.getState()).isEqualTo(ReportJob.State.CANCELLED);
+        assertThat(engine.getQueueDepth()).isZero();
+        assertThat(engine.queuePosition(queued)).isEqualTo(-1);
+        gate.countDown();
+        awaitTrue(() -> running.getState() == ReportJob.State.COMPLETED);
+        assertThat(generated).containsExactly(running.getReportId());
+    }
+
+    private ReportJob submit(ReportType type) {
+        return engine.submit(type, ReportPriority.NORMAL, ReportFormat.CSV, false);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5L);
+        }
+    }
+}
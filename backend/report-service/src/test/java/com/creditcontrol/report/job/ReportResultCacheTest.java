@@ -0,0 +1,106 @@
+package com.creditcontrol.report.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 结果缓存: LRU淘汰、淘汰文件按宽限期延迟删除
+ */
+class ReportResultCacheTest {
+
+    private static final long GRACE_MS = 1_000L;
+
+    @TempDir
+    Path directory;
+
+    private final ReportResultCache cache = new ReportResultCache(100, GRACE_MS);
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() throws IOException {
+        cache.put("a", file("a", 40), 40, 0);
+        cache.put("b", file("b", 40), 40, 0);
+        assertThat(cache.get("a")).isNotNull();
+
+        cache.put("c", file("c", 40), 40, 0);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.getTotalBytes()).isEqualTo(80L);
+        assertThat(cache.getEvictions()).isEqualTo(1L);
+    }
+
+    @Test
+    void keepsEvictedFileUntilGraceExpires() throws IOException {
+        Path first = file("a", 60);
+        cache.put("a", first, 60, 0);
+        cache.put("b", file("b", 60), 60, 10);
+
+        // 淘汰后下载仍可在宽限期内打开文件
+        assertThat(first).exists();
+        assertThat(cache.pendingDeletes()).isEqualTo(1);
+        assertThat(cache.deleteEvicted(10 + GRACE_MS - 1)).isZero();
+        assertThat(first).exists();
+
+        assertThat(cache.deleteEvicted(10 + GRACE_MS)).isEqualTo(1);
+        assertThat(first).doesNotExist();
+        assertThat(cache.pendingDeletes()).isZero();
+    }
+
+    @Test
+    void laterPutDeletesExpiredFiles() throws IOException {
+        Path first = file("a", 60);
+        cache.put("a", first, 60, 0);
+        cache.put("b", file("b", 60), 60, 0);
+
+        cache.put("c", file("c", 60), 60, GRACE_MS);
+
+        assertThat(first).doesNotExist();
+        // b在本次put中才被淘汰，仍在宽限期内
+        assertThat(directory.resolve("b")).exists();
+        assertThat(cache.pendingDeletes()).isEqualTo(1);
+    }
+
+    @Test
+    void replacedFileOfSameKeyIsDeletedAfterGrace() throws IOException {
+        Path old = file("a-1", 10);
+        cache.put("a", old, 10, 0);
+        cache.put("a", file("a-2", 10), 10, 0);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getTotalBytes()).isEqualTo(10L);
+        assertThat(old).exists();
+        cache.deleteEvicted(GRACE_MS);
+        assertThat(old).doesNotExist();
+    }
+
+    @Test
+    void doesNotCacheOversizedResult() throws IOException {
+        Path large = file("large", 101);
+
+        assertThat(cache.put("large", large, 101, 0)).isFalse();
+        assertThat(cache.get("large")).isNull();
+        assertThat(large).exists();
+    }
+
+    @Test
+    void dropsEntryWhoseFileIsGone() throws IOException {
+        Path first = file("a", 10);
+        cache.put("a", first, 10, 0);
+        Files.delete(first);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.getTotalBytes()).isZero();
+        assertThat(cache.getMisses()).isEqualTo(1L);
+    }
+
+    private Path file(String name, int size) throws IOException {
+        return Files.write(directory.resolve(name), new byte[size]);
+    }
+}
@@ -14,6 +14,14 @@ services=(
     "notification-service:8086"
 )
 
+# Install shared modules used by the services
+echo "📦 Installing ledger-common..."
+(cd /home/ubuntu/creditControlSys_New/backend/ledger-common && mvn install -q)
+echo "📦 Installing event-bus..."
+(cd /home/ubuntu/creditControlSys_New/backend/event-bus && mvn install -q)
+echo "📦 Installing customer-client..."
+(cd /home/ubuntu/creditControlSys_New/backend/customer-client && mvn install -q)
+
 # Start each service in the background
 for service_config in "${services[@]}"; do
     IFS=':' read -r service_name port <<< "$service_config"
@@ -21,12 +21,37 @@ SERVICES=(
     "notification-service"
 )
 
+# 服务依赖的共享模块，先安装到maven-repo卷中
+SHARED_MODULES=(
+    "ledger-common"
+    "event-bus"
+)
+
 # Maven 镜像
 MAVEN_IMAGE="docker.io/library/maven:3.9-eclipse-temurin-17-alpine"
 
 echo "📦 步骤 1/2: 使用 Maven 容器编译所有微服务..."
 echo ""
 
+for module in "${SHARED_MODULES[@]}"; do
+    echo "📚 安装共享模块 $module..."
+
+    podman run --rm \
+        -v ./backend/$module:/app:Z \
+        -v maven-repo:/root/.m2:Z \
+        -w /app \
+        $MAVEN_IMAGE \
+        mvn clean install -DskipTests -q
+
+    if [ $? -eq 0 ]; then
+        echo "   ✅ $module 安装成功"
+    else
+        echo "   ❌ $module 安装失败"
+        exit 1
+    fi
+    echo ""
+done
+
 for service in "${SERVICES[@]}"; do
     echo "🔨 编译 $service..."
 